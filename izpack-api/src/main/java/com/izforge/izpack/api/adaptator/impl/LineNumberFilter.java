@@ -19,8 +19,7 @@
 
 package com.izforge.izpack.api.adaptator.impl;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Arrays;
 import java.util.Stack;
 
 import javax.xml.transform.dom.DOMResult;
@@ -48,9 +47,19 @@ public class LineNumberFilter extends XMLFilterImpl
 {
 
     /**
-     * a queue to store line numbers while parsing.
+     * a queue to store line numbers while parsing, in document order.
      */
-    private Queue<Integer> lnQueue;
+    private int[] lnQueue;
+
+    /**
+     * The number of line numbers stored in the queue.
+     */
+    private int lnCount;
+
+    /**
+     * The index of the next line number to apply.
+     */
+    private int lnNext;
 
     /**
      * The locator given while parsing.
@@ -66,14 +75,20 @@ public class LineNumberFilter extends XMLFilterImpl
     public void startDocument() throws SAXException
     {
         super.startDocument();
-        lnQueue = new LinkedList<Integer>();
+        lnQueue = new int[1024];
+        lnCount = 0;
+        lnNext = 0;
     }
 
     @Override
     public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException
     {
         super.startElement(uri, localName, qName, atts);
-        lnQueue.add(locator.getLineNumber());
+        if (lnCount == lnQueue.length)
+        {
+            lnQueue = Arrays.copyOf(lnQueue, lnCount * 2);
+        }
+        lnQueue[lnCount++] = locator.getLineNumber();
     }
 
     @Override
@@ -151,7 +166,8 @@ public class LineNumberFilter extends XMLFilterImpl
      */
     private void applyLN(Element elt)
     {
-        elt.setUserData("ln", lnQueue.poll(), null);
+        Integer ln = (lnNext < lnCount) ? lnQueue[lnNext++] : null;
+        elt.setUserData("ln", ln, null);
     }
 
     /**
@@ -202,5 +218,9 @@ public class LineNumberFilter extends XMLFilterImpl
                 }
             }
         }
+        // release the line numbers, as the parser may be retained after parsing large documents
+        lnQueue = null;
+        lnCount = 0;
+        lnNext = 0;
     }
 }
\ No newline at end of file
@@ -32,8 +32,11 @@ import javax.xml.parsers.ParserConfigurationException;
 
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Pattern;
 
@@ -65,6 +68,18 @@ public class XMLElementImpl implements IXMLElement
      */
     private List<IXMLElement> childrenList;
 
+    /**
+     * The children elements, keyed on name. Generated with the childrenList, so that the same wrapper is returned
+     * for a child regardless of how it is accessed.
+     */
+    private Map<String, List<IXMLElement>> childrenByName;
+
+    /**
+     * Determines if the childrenList has been returned by {@link #getChildren()}. If so, it is copied before being
+     * modified, so that callers may modify the element while iterating over its children.
+     */
+    private boolean childrenShared;
+
     /**
      * Create a new root element in a new document.
      *
@@ -135,7 +150,11 @@ public class XMLElementImpl implements IXMLElement
     @Override
     public void addChild(IXMLElement child)
     {
-        hasChanged = true;
+        if (child.getElement().getParentNode() == element)
+        {
+            // the child is being moved to the end, so regenerate the children
+            hasChanged = true;
+        }
         Document targetDoc = element.getOwnerDocument();
         Document sourceDoc = child.getElement().getOwnerDocument();
         if (targetDoc.equals(sourceDoc)) {
@@ -143,14 +162,62 @@ public class XMLElementImpl implements IXMLElement
         } else {
             Node firstDocImportedNode = element.getOwnerDocument().importNode(child.getElement(), true);
             element.appendChild(firstDocImportedNode );
+            child = new XMLElementImpl(firstDocImportedNode);
+        }
+        if (!hasChanged)
+        {
+            // keep the cached children rather than rebuilding them, as trees are typically built by appending
+            unshareChildren();
+            childrenList.add(child);
+            addNamedChild(child);
         }
     }
 
     @Override
     public void removeChild(IXMLElement child)
     {
-        hasChanged = true;
-        element.removeChild(child.getElement());
+        Node node = child.getElement();
+        element.removeChild(node);
+        if (!hasChanged)
+        {
+            unshareChildren();
+            removeChild(childrenList, node);
+            List<IXMLElement> named = childrenByName.get(node.getNodeName());
+            if (named != null)
+            {
+                removeChild(named, node);
+            }
+        }
+    }
+
+    /**
+     * Copies the childrenList, if it has been returned by {@link #getChildren()}.
+     */
+    private void unshareChildren()
+    {
+        if (childrenShared)
+        {
+            childrenList = new ArrayList<IXMLElement>(childrenList);
+            childrenShared = false;
+        }
+    }
+
+    /**
+     * Removes the wrapper of a node from a list of children.
+     *
+     * @param children the children
+     * @param node     the node to remove
+     */
+    private static void removeChild(List<IXMLElement> children, Node node)
+    {
+        for (Iterator<IXMLElement> iterator = children.iterator(); iterator.hasNext(); )
+        {
+            if (iterator.next().getElement() == node)
+            {
+                iterator.remove();
+                break;
+            }
+        }
     }
 
     @Override
@@ -171,17 +238,38 @@ public class XMLElementImpl implements IXMLElement
         if (hasChanged)
         {
             hasChanged = false;
+            childrenShared = false;
             childrenList = new ArrayList<IXMLElement>();
+            childrenByName = new HashMap<String, List<IXMLElement>>();
             for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling())
             {
                 if (child.getNodeType() == Node.ELEMENT_NODE)
                 {
-                    childrenList.add(new XMLElementImpl(child));
+                    IXMLElement wrapper = new XMLElementImpl(child);
+                    childrenList.add(wrapper);
+                    addNamedChild(wrapper);
                 }
             }
         }
     }
 
+    /**
+     * Adds a child to the name index.
+     *
+     * @param child the child to add
+     */
+    private void addNamedChild(IXMLElement child)
+    {
+        String name = child.getName();
+        List<IXMLElement> named = childrenByName.get(name);
+        if (named == null)
+        {
+            named = new ArrayList<IXMLElement>(1);
+            childrenByName.put(name, named);
+        }
+        named.add(child);
+    }
+
     @Override
     public int getChildrenCount()
     {
@@ -193,6 +281,7 @@ public class XMLElementImpl implements IXMLElement
     public List<IXMLElement> getChildren()
     {
         initChildrenList();
+        childrenShared = true;
         return childrenList;
     }
 
@@ -203,9 +292,28 @@ public class XMLElementImpl implements IXMLElement
         return childrenList.get(index);
     }
 
+    /**
+     * Searches a child element.
+     * <p/>
+     * Direct children are looked up in the name index. If there is no direct child with the name, the first
+     * descendant with the name is returned, for compatibility with documents that relied on a subtree search.
+     *
+     * @param name the name of the child to search for.
+     * @return the child element, or null if no such child was found.
+     */
     @Override
     public IXMLElement getFirstChildNamed(String name)
     {
+        initChildrenList();
+        List<IXMLElement> named = childrenByName.get(name);
+        if (named != null && !named.isEmpty())
+        {
+            return named.get(0);
+        }
+        if (childrenList.isEmpty())
+        {
+            return null;
+        }
         XMLElementImpl res = null;
         NodeList nodeList = element.getElementsByTagName(name);
         if (nodeList.getLength() > 0)
@@ -218,15 +326,9 @@ public class XMLElementImpl implements IXMLElement
     @Override
     public List<IXMLElement> getChildrenNamed(String name)
     {
-        List<IXMLElement> res = new ArrayList<IXMLElement>();
-        for (IXMLElement child : getChildren())
-        {
-            if (child.getName() != null && child.getName().equals(name))
-            {
-                res.add(new XMLElementImpl(child.getElement()));
-            }
-        }
-        return res;
+        initChildrenList();
+        List<IXMLElement> named = childrenByName.get(name);
+        return (named != null) ? new ArrayList<IXMLElement>(named) : new ArrayList<IXMLElement>();
     }
 
     @Override
@@ -351,6 +453,7 @@ public class XMLElementImpl implements IXMLElement
     @Override
     public void setContent(String content)
     {
+        hasChanged = true;
         Node child;
         while ((child = this.element.getFirstChild()) != null)
         {
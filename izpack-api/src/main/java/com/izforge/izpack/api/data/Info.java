@@ -131,6 +131,28 @@ public class Info implements Serializable
 
     private String compressionFormat = PackCompression.DEFAULT.toName();
 
+    /**
+     * Determines if packs are compressed as continuous streams rather than file by file.
+     */
+    private boolean solidCompression = false;
+
+    /**
+     * The uncompressed size at which a solid stream is split into a new chunk, or {@code 0} to compress each pack
+     * as a single chunk.
+     */
+    private long solidChunkSize = 0;
+
+    /**
+     * The path of the previous release's installer that a patch installer is built against. Only used at compile
+     * time.
+     */
+    private transient String patchBase = null;
+
+    /**
+     * The application version that a patch installer applies to, or {@code null} if this isn't a patch installer.
+     */
+    private String patchBaseVersion = null;
+
     private boolean requirePrivilegedExecution = false;
 
     private boolean requirePrivilegedExecutionUninstaller = false;
@@ -433,6 +455,90 @@ public class Info implements Serializable
         this.compressionFormat = compression.toName();
     }
 
+    /**
+     * Determines if packs are compressed in solid mode.
+     * <p/>
+     * In solid mode, the files of a pack are concatenated and compressed as one or more continuous chunks, rather
+     * than each file being compressed separately. This only applies if a compression format other than
+     * {@link PackCompression#DEFAULT} is used.
+     *
+     * @return {@code true} if packs are compressed in solid mode
+     */
+    public boolean isSolidCompression()
+    {
+        return solidCompression;
+    }
+
+    /**
+     * Determines if packs are compressed in solid mode.
+     *
+     * @param solid if {@code true}, compress packs in solid mode
+     */
+    public void setSolidCompression(boolean solid)
+    {
+        this.solidCompression = solid;
+    }
+
+    /**
+     * Returns the uncompressed size at which a solid stream is split into a new chunk.
+     *
+     * @return the chunk size, in bytes, or {@code 0} if each pack is compressed as a single chunk
+     */
+    public long getSolidChunkSize()
+    {
+        return solidChunkSize;
+    }
+
+    /**
+     * Sets the uncompressed size at which a solid stream is split into a new chunk.
+     *
+     * @param size the chunk size, in bytes, or {@code 0} to compress each pack as a single chunk
+     */
+    public void setSolidChunkSize(long size)
+    {
+        this.solidChunkSize = size;
+    }
+
+    /**
+     * Returns the path of the previous release's installer that a patch installer is built against.
+     *
+     * @return the installer path, or {@code null} if a full installer is built
+     */
+    public String getPatchBase()
+    {
+        return patchBase;
+    }
+
+    /**
+     * Sets the path of the previous release's installer to build a patch installer against.
+     *
+     * @param patchBase the installer path, or {@code null} to build a full installer
+     */
+    public void setPatchBase(String patchBase)
+    {
+        this.patchBase = patchBase;
+    }
+
+    /**
+     * Returns the application version that a patch installer applies to.
+     *
+     * @return the version, or {@code null} if this isn't a patch installer
+     */
+    public String getPatchBaseVersion()
+    {
+        return patchBaseVersion;
+    }
+
+    /**
+     * Sets the application version that a patch installer applies to.
+     *
+     * @param version the version, or {@code null} if this isn't a patch installer
+     */
+    public void setPatchBaseVersion(String version)
+    {
+        this.patchBaseVersion = version;
+    }
+
     /**
      * This class represents an author.
      *
@@ -52,6 +52,11 @@ public interface InstallData
      */
     String MODIFY_INSTALLATION = "modify.izpack.install";
 
+    /**
+     * Determines if files whose installed content already matches that of the installer are left untouched.
+     */
+    String DIFFERENTIAL_UPGRADE = "izpack.upgrade.differential";
+
     /**
      * Installation information file name.
      */
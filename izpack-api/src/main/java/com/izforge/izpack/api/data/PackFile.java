@@ -43,6 +43,11 @@ public class PackFile implements Serializable
 {
     private static final long serialVersionUID = -834377078706854909L;
 
+    /**
+     * The algorithm used to digest file content.
+     */
+    public static final String DIGEST_ALGORITHM = "SHA-256";
+
     @SuppressWarnings("unused")
     private static AtomicInteger nextInstanceId = new AtomicInteger(0);
     private final int instanceId;
@@ -63,6 +68,105 @@ public class PackFile implements Serializable
      */
     private String targetPath = null;
 
+    /**
+     * Returns the digest of the file content.
+     *
+     * @return the {@link #DIGEST_ALGORITHM} digest, or {@code null} if it wasn't recorded
+     */
+    public byte[] getDigest()
+    {
+        return digest;
+    }
+
+    /**
+     * Sets the digest of the file content.
+     *
+     * @param digest the {@link #DIGEST_ALGORITHM} digest. May be {@code null}
+     */
+    public void setDigest(byte[] digest)
+    {
+        this.digest = digest;
+    }
+
+    /**
+     * Determines if the file is patched against the installed content of a previous release, i.e. is either
+     * {@link #isOmitted omitted} or {@link #isDelta stored as a delta}.
+     *
+     * @return {@code true} if the file is patched
+     */
+    public boolean hasBase()
+    {
+        return baseDigest != null;
+    }
+
+    /**
+     * Returns the digest of the previous release's content that the file is patched against.
+     *
+     * @return the base digest, or {@code null} if the file content is stored in full
+     */
+    public byte[] getBaseDigest()
+    {
+        return baseDigest;
+    }
+
+    /**
+     * Marks the file as unchanged since the previous release, so that no content is stored.
+     *
+     * @param digest the digest of the content
+     */
+    public void setUnchanged(byte[] digest)
+    {
+        this.digest = digest;
+        this.baseDigest = digest;
+        this.deltaResourceName = null;
+    }
+
+    /**
+     * Determines if the file is omitted from a patch installer, as it is unchanged since the previous release.
+     * Such files aren't part of the pack stream.
+     *
+     * @return {@code true} if the file is omitted
+     */
+    public boolean isOmitted()
+    {
+        return baseDigest != null && deltaResourceName == null;
+    }
+
+    /**
+     * Marks the file as stored as a delta against the previous release's content, instead of its full content.
+     *
+     * @param baseDigest        the digest of the previous release's content
+     * @param digest            the digest of the new content
+     * @param deltaResourceName the name of the resource containing the delta
+     */
+    public void setDelta(byte[] baseDigest, byte[] digest, String deltaResourceName)
+    {
+        this.digest = digest;
+        this.baseDigest = baseDigest;
+        this.deltaResourceName = deltaResourceName;
+    }
+
+    /**
+     * Determines if the file is stored as a delta against the previous release's content. Such files aren't part of
+     * the pack stream.
+     *
+     * @return {@code true} if the file is stored as a delta
+     */
+    public boolean isDelta()
+    {
+        return deltaResourceName != null;
+    }
+
+    /**
+     * Returns the name of the resource containing the delta against the previous release's content.
+     *
+     * @return the resource name, or {@code null} if the file has no delta
+     */
+    public String getDeltaResourceName()
+    {
+        return deltaResourceName;
+    }
+
     /**
      * The target operating system constraints of this file
      */
@@ -121,6 +225,34 @@ public class PackFile implements Serializable
 
     private PackFile linkedPackFile;
 
+    /**
+     * The offset of the file within its uncompressed solid chunk, or {@code -1} if the file isn't stored in a solid
+     * chunk. For solid files, the stream offset is the offset of the chunk in the pack stream.
+     */
+    private long chunkOffset = -1;
+
+    /**
+     * The compressed size of the solid chunk containing the file.
+     */
+    private long chunkSize = 0;
+
+    /**
+     * The {@link #DIGEST_ALGORITHM} digest of the file content, or {@code null} if it wasn't recorded.
+     */
+    private byte[] digest;
+
+    /**
+     * For patch installers, the digest of the previous release's content that the file is patched against, or
+     * {@code null} if the file content is stored in full.
+     */
+    private byte[] baseDigest;
+
+    /**
+     * For patch installers, the name of the resource containing the delta against the previous release's content.
+     * If {@code null} and there is a base digest, the file is unchanged and no content is stored.
+     */
+    private String deltaResourceName;
+
     /**
      * True if the file is a Jar and pack200 compression us activated.
      */
@@ -274,6 +406,56 @@ public class PackFile implements Serializable
         this.streamOffset = offset;
     }
 
+    /**
+     * Determines if the file is stored in a solid chunk.
+     *
+     * @return {@code true} if the file is stored in a solid chunk
+     */
+    public boolean isSolid()
+    {
+        return chunkOffset >= 0;
+    }
+
+    /**
+     * Returns the offset of the file within its uncompressed solid chunk.
+     *
+     * @return the offset, or {@code -1} if the file isn't stored in a solid chunk
+     */
+    public long getChunkOffset()
+    {
+        return chunkOffset;
+    }
+
+    /**
+     * Sets the offset of the file within its uncompressed solid chunk.
+     *
+     * @param offset the offset, or {@code -1} if the file isn't stored in a solid chunk
+     */
+    public void setChunkOffset(long offset)
+    {
+        this.chunkOffset = offset;
+    }
+
+    /**
+     * Returns the compressed size of the solid chunk containing the file.
+     *
+     * @return the chunk size, in bytes
+     */
+    public long getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the compressed size of the solid chunk containing the file.
+     *
+     * @param size the chunk size, in bytes
+     */
+    public void setChunkSize(long size)
+    {
+        this.chunkSize = size;
+    }
+
     /**
      * The target operating system constraints of this file
      */
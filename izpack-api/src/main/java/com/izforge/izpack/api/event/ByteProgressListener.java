@@ -0,0 +1,20 @@
+package com.izforge.izpack.api.event;
+
+/**
+ * A {@link ProgressListener} that can also be notified of progress measured in bytes.
+ * <p/>
+ * Notifiers that know the size of the work in each step (for example, the size of the files in a pack) report
+ * progress via {@link #progress(long, long, String)} in preference to {@link #progress(int, String)}, so that the
+ * progress of steps containing files of very different sizes is displayed accurately.
+ */
+public interface ByteProgressListener extends ProgressListener
+{
+    /**
+     * Invoked to notify progress of the current step in bytes.
+     *
+     * @param bytes      the number of bytes of the current step processed so far
+     * @param totalBytes the total number of bytes of the current step
+     * @param message    an additional message describing what is being processed
+     */
+    void progress(long bytes, long totalBytes, String message);
+}
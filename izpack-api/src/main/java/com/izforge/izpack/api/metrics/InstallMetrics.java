@@ -0,0 +1,109 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.metrics;
+
+
+/**
+ * Provides access to the {@link Metrics} of the running installation.
+ * <p/>
+ * By default, metrics are disabled, and all recording operations are no-ops that neither allocate nor
+ * synchronize.
+ */
+public final class InstallMetrics
+{
+
+    /**
+     * Metrics implementation that discards everything.
+     */
+    public static final Metrics DISABLED = new Metrics()
+    {
+        @Override
+        public boolean isEnabled()
+        {
+            return false;
+        }
+
+        @Override
+        public PhaseTimer start(String name)
+        {
+            return NO_TIMER;
+        }
+
+        @Override
+        public void increment(String name)
+        {
+        }
+
+        @Override
+        public void add(String name, long delta)
+        {
+        }
+
+        @Override
+        public void record(String name, long value)
+        {
+        }
+    };
+
+    /**
+     * Timer returned when metrics are disabled.
+     */
+    private static final PhaseTimer NO_TIMER = new PhaseTimer()
+    {
+        @Override
+        public long stop()
+        {
+            return 0;
+        }
+    };
+
+    /**
+     * The current metrics.
+     */
+    private static volatile Metrics metrics = DISABLED;
+
+    /**
+     * Private constructor, to prevent instantiation.
+     */
+    private InstallMetrics()
+    {
+    }
+
+    /**
+     * Returns the current metrics.
+     *
+     * @return the current metrics. Never {@code null}
+     */
+    public static Metrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Sets the current metrics.
+     *
+     * @param metrics the metrics. If {@code null}, metrics are disabled
+     */
+    public static void setMetrics(Metrics metrics)
+    {
+        InstallMetrics.metrics = (metrics != null) ? metrics : DISABLED;
+    }
+
+}
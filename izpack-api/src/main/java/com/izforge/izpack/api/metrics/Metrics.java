@@ -0,0 +1,77 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.metrics;
+
+
+/**
+ * Records installation telemetry: phase timings, counters and value distributions.
+ * <p/>
+ * Metric names are dot separated, e.g. <em>unpack.files</em>. Implementations must be thread safe.
+ * <p/>
+ * Callers should use constant names, so that no work is done when metrics are disabled.
+ *
+ * @see InstallMetrics
+ */
+public interface Metrics
+{
+
+    /**
+     * Determines if metrics are being collected.
+     * <p/>
+     * This may be used to guard the calculation of expensive values.
+     *
+     * @return {@code true} if metrics are being collected, otherwise {@code false}
+     */
+    boolean isEnabled();
+
+    /**
+     * Starts a phase timer.
+     * <p/>
+     * The elapsed time is recorded against the timer name when {@link PhaseTimer#stop()} is invoked.
+     *
+     * @param name the timer name
+     * @return the timer
+     */
+    PhaseTimer start(String name);
+
+    /**
+     * Increments a counter by one.
+     *
+     * @param name the counter name
+     */
+    void increment(String name);
+
+    /**
+     * Adds a value to a counter.
+     *
+     * @param name  the counter name
+     * @param delta the value to add
+     */
+    void add(String name, long delta);
+
+    /**
+     * Records a value in a histogram.
+     *
+     * @param name  the histogram name
+     * @param value the value to record
+     */
+    void record(String name, long value);
+
+}
@@ -0,0 +1,38 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.metrics;
+
+
+/**
+ * A running phase timer, returned by {@link Metrics#start(String)}.
+ */
+public interface PhaseTimer
+{
+
+    /**
+     * Stops the timer, recording the elapsed time.
+     * <p/>
+     * Only the first invocation has any effect.
+     *
+     * @return the elapsed time, in nanoseconds
+     */
+    long stop();
+
+}
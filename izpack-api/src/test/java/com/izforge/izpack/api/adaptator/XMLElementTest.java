@@ -128,4 +128,48 @@ public class XMLElementTest
         List<IXMLElement> list = element.getChildrenNamed("modifier");
         Assert.assertEquals(7, list.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetChildrenNamedReturnsCachedChildren()
+    {
+        IXMLElement element = root.getChildAtIndex(2);
+        List<IXMLElement> list = element.getChildrenNamed("modifier");
+        Assert.assertSame(list.get(0), element.getFirstChildNamed("modifier"));
+        Assert.assertSame(list.get(0), element.getChildrenNamed("modifier").get(0));
+        Assert.assertTrue(element.getChildren().contains(list.get(0)));
+    }
+
+    @Test
+    public void testNamedChildrenUpdatedOnAddAndRemove()
+    {
+        Assert.assertNull(root.getFirstChildNamed("child"));
+        IXMLElement first = new XMLElementImpl("child", root);
+        IXMLElement second = new XMLElementImpl("child");
+        root.addChild(first);
+        root.addChild(second);
+        List<IXMLElement> list = root.getChildrenNamed("child");
+        Assert.assertEquals(2, list.size());
+        Assert.assertSame(first, root.getFirstChildNamed("child"));
+
+        root.removeChild(first);
+        Assert.assertEquals(1, root.getChildrenNamed("child").size());
+        Assert.assertSame(list.get(1), root.getFirstChildNamed("child"));
+    }
+
+    @Test
+    public void testModifyWhileIteratingChildren()
+    {
+        int count = root.getChildrenCount();
+        for (IXMLElement child : root.getChildren())
+        {
+            if (child.getName().equals("info"))
+            {
+                root.removeChild(child);
+                root.addChild(new XMLElementImpl("child", root));
+            }
+        }
+        Assert.assertEquals(count, root.getChildrenCount());
+        Assert.assertEquals(0, root.getChildrenNamed("info").size());
+        Assert.assertEquals("child", root.getChildAtIndex(count - 1).getName());
+    }
+}
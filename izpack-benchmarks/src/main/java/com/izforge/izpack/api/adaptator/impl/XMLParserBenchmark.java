@@ -0,0 +1,95 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.api.adaptator.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.adaptator.IXMLElement;
+import com.izforge.izpack.benchmarks.SyntheticData;
+
+
+/**
+ * Measures {@link XMLParser#parse(java.io.InputStream)} of large installation descriptors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class XMLParserBenchmark
+{
+
+    /**
+     * The number of packs.
+     */
+    @Param({"10", "100"})
+    public int packs;
+
+    /**
+     * The number of <em>&lt;file&gt;</em> elements in each pack.
+     */
+    @Param({"1000"})
+    public int filesPerPack;
+
+    /**
+     * The descriptor, UTF-8 encoded.
+     */
+    private byte[] descriptor;
+
+    /**
+     * Creates the descriptor.
+     *
+     * @throws UnsupportedEncodingException if UTF-8 isn't supported
+     */
+    @Setup
+    public void setUp() throws UnsupportedEncodingException
+    {
+        descriptor = SyntheticData.createInstallXml(packs, filesPerPack, SyntheticData.SEED).getBytes("UTF-8");
+    }
+
+    /**
+     * Parses the descriptor.
+     *
+     * @return the number of packs parsed
+     */
+    @Benchmark
+    public int parse()
+    {
+        IXMLElement root = new XMLParser(false).parse(new ByteArrayInputStream(descriptor));
+        return root.getFirstChildNamed("packs").getChildrenCount();
+    }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackInfo;
+
+
+/**
+ * Generates reproducible benchmark input.
+ * <p/>
+ * All content is derived from a seeded {@link Random}, so that the same parameters always produce the same bytes,
+ * and results are comparable between commits.
+ */
+public final class SyntheticData
+{
+
+    /**
+     * The default seed.
+     */
+    public static final long SEED = 0x1A2B3C4DL;
+
+    /**
+     * Words used to generate text. Text built from a small vocabulary compresses roughly like source code and
+     * configuration files.
+     */
+    private static final String[] WORDS = {
+            "install", "pack", "file", "path", "variable", "condition", "panel", "public", "class", "void",
+            "return", "if", "else", "for", "while", "<entry>", "</entry>", "key", "value", "=", "{", "}", ";",
+            "import", "com.izforge.izpack", "org.apache", "true", "false", "null", "0", "1", "42", "\n", "\n    "
+    };
+
+    /**
+     * Private constructor, to prevent instantiation.
+     */
+    private SyntheticData()
+    {
+    }
+
+    /**
+     * Creates text of the specified size.
+     *
+     * @param random the random number generator
+     * @param size   the size, in characters
+     * @return the text
+     */
+    public static String createText(Random random, int size)
+    {
+        StringBuilder result = new StringBuilder(size + 32);
+        while (result.length() < size)
+        {
+            result.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        result.setLength(size);
+        return result.toString();
+    }
+
+    /**
+     * Creates text containing variable references of the form <em>${varN}</em>.
+     *
+     * @param size      the size, in characters
+     * @param variables the number of distinct variables to reference
+     * @param seed      the seed
+     * @return the text
+     */
+    public static String createTextWithVariables(int size, int variables, long seed)
+    {
+        Random random = new Random(seed);
+        StringBuilder result = new StringBuilder(size + 32);
+        while (result.length() < size)
+        {
+            if (random.nextInt(8) == 0)
+            {
+                result.append("${var").append(random.nextInt(variables)).append("} ");
+            }
+            else
+            {
+                result.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Creates files of the specified size in a directory.
+     * <p/>
+     * Files are spread over sub-directories of at most 100 files each.
+     *
+     * @param dir   the directory
+     * @param count the number of files
+     * @param size  the size of each file, in bytes
+     * @param seed  the seed
+     * @return the files
+     * @throws IOException for any I/O error
+     */
+    public static List<File> createFiles(File dir, int count, int size, long seed) throws IOException
+    {
+        Random random = new Random(seed);
+        List<File> result = new ArrayList<File>(count);
+        for (int i = 0; i < count; ++i)
+        {
+            File file = new File(dir, "d" + (i / 100) + File.separator + "file" + i + ".txt");
+            FileUtils.writeStringToFile(file, createText(random, size), "US-ASCII");
+            result.add(file);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a pack containing the specified files.
+     *
+     * @param name    the pack name
+     * @param baseDir the base directory of the files
+     * @param files   the files
+     * @return a new pack
+     */
+    public static PackInfo createPackInfo(String name, File baseDir, List<File> files)
+    {
+        long size = 0;
+        for (File file : files)
+        {
+            size += file.length();
+        }
+        PackInfo result = new PackInfo(name, name, null, true, false, null, true, size);
+        String base = baseDir.getAbsolutePath();
+        for (File file : files)
+        {
+            String relative = file.getAbsolutePath().substring(base.length() + 1).replace(File.separatorChar, '/');
+            try
+            {
+                result.addFile(baseDir, file, "$INSTALL_PATH/" + relative, null, OverrideType.OVERRIDE_TRUE, null,
+                               Blockable.BLOCKABLE_NONE, null, null, null);
+            }
+            catch (IOException exception)
+            {
+                throw new IllegalStateException(exception);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a directory tree.
+     *
+     * @param root        the root directory
+     * @param depth       the depth of the tree
+     * @param breadth     the number of sub-directories of each directory
+     * @param filesPerDir the number of files in each directory
+     * @throws IOException for any I/O error
+     */
+    public static void createTree(File root, int depth, int breadth, int filesPerDir) throws IOException
+    {
+        FileUtils.forceMkdir(root);
+        for (int i = 0; i < filesPerDir; ++i)
+        {
+            String suffix = (i % 4 == 0) ? ".class" : (i % 4 == 1) ? ".xml" : ".txt";
+            FileUtils.touch(new File(root, "file" + i + suffix));
+        }
+        if (depth > 0)
+        {
+            for (int i = 0; i < breadth; ++i)
+            {
+                String name = (i % 5 == 4) ? "skip" + i : "dir" + i;
+                createTree(new File(root, name), depth - 1, breadth, filesPerDir);
+            }
+        }
+    }
+
+    /**
+     * Creates an installation descriptor with the specified number of packs and files.
+     *
+     * @param packs        the number of packs
+     * @param filesPerPack the number of <em>&lt;file&gt;</em> elements in each pack
+     * @param seed         the seed
+     * @return the installation descriptor
+     */
+    public static String createInstallXml(int packs, int filesPerPack, long seed)
+    {
+        Random random = new Random(seed);
+        StringBuilder result = new StringBuilder(packs * filesPerPack * 160);
+        result.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        result.append("<izpack:installation version=\"5.0\" xmlns:izpack=\"http://izpack.org/schema/installation\">\n");
+        result.append("  <info><appname>Benchmark</appname><appversion>1.0</appversion></info>\n");
+        result.append("  <locale><langpack iso3=\"eng\"/></locale>\n");
+        result.append("  <panels><panel classname=\"InstallPanel\"/></panels>\n");
+        result.append("  <packs>\n");
+        for (int i = 0; i < packs; ++i)
+        {
+            result.append("    <pack name=\"pack").append(i).append("\" required=\"no\"");
+            if (i > 0)
+            {
+                result.append(" depends=\"pack").append(random.nextInt(i)).append('"');
+            }
+            result.append(">\n");
+            result.append("      <description>Pack ").append(i).append("</description>\n");
+            for (int j = 0; j < filesPerPack; ++j)
+            {
+                result.append("      <file src=\"src/pack").append(i).append("/file").append(j)
+                        .append(".txt\" targetdir=\"$INSTALL_PATH/pack").append(i).append('"');
+                if (random.nextInt(10) == 0)
+                {
+                    result.append(" condition=\"cond").append(random.nextInt(16)).append('"');
+                }
+                result.append(">\n");
+                if (random.nextInt(4) == 0)
+                {
+                    result.append("        <os family=\"").append(random.nextBoolean() ? "windows" : "unix")
+                            .append("\"/>\n");
+                }
+                result.append("      </file>\n");
+            }
+            result.append("    </pack>\n");
+        }
+        result.append("  </packs>\n");
+        result.append("</izpack:installation>\n");
+        return result.toString();
+    }
+
+    /**
+     * Creates a temporary directory.
+     *
+     * @param prefix the directory name prefix
+     * @return the directory
+     * @throws IOException for any I/O error
+     */
+    public static File createTempDir(String prefix) throws IOException
+    {
+        File result = File.createTempFile(prefix, "");
+        FileUtils.forceDelete(result);
+        FileUtils.forceMkdir(result);
+        return result;
+    }
+
+}
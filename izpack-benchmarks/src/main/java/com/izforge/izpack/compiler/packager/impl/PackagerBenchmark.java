@@ -0,0 +1,153 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.compiler.packager.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.benchmarks.SyntheticData;
+
+
+/**
+ * Measures {@link Packager#writePacks()} for each {@link PackCompression} format, in per-file and solid mode.
+ * <p/>
+ * The installer jar is written to a null stream, so the benchmark measures reading, compressing and deflating the
+ * pack files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PackagerBenchmark
+{
+
+    /**
+     * The compression format.
+     */
+    @Param({"default", "gz", "bzip2", "xz", "lzma", "deflate"})
+    public String compression;
+
+    /**
+     * Determines if the pack is compressed as a single solid chunk, rather than file by file. Ignored for the
+     * <em>default</em> format.
+     */
+    @Param({"false", "true"})
+    public boolean solid;
+
+    /**
+     * The number of files in the pack.
+     */
+    @Param({"500"})
+    public int files;
+
+    /**
+     * The size of each file, in bytes.
+     */
+    @Param({"8192"})
+    public int fileSize;
+
+    /**
+     * The directory containing the source files.
+     */
+    private File dir;
+
+    /**
+     * The source files.
+     */
+    private List<File> sources;
+
+    /**
+     * The pack to write. {@link Packager#writePacks()} updates pack state, so a new one is created per invocation.
+     */
+    private PackInfo pack;
+
+    /**
+     * Creates the source files.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException
+    {
+        dir = SyntheticData.createTempDir("izpack-packager");
+        sources = SyntheticData.createFiles(dir, files, fileSize, SyntheticData.SEED);
+    }
+
+    /**
+     * Creates the pack to write.
+     */
+    @Setup(Level.Invocation)
+    public void setUpInvocation()
+    {
+        pack = SyntheticData.createPackInfo("pack", dir, sources);
+    }
+
+    /**
+     * Deletes the source files.
+     *
+     * @throws IOException for any I/O error
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    /**
+     * Writes the pack.
+     *
+     * @return the no. of bytes written
+     * @throws IOException for any I/O error
+     */
+    @Benchmark
+    public long writePacks() throws IOException
+    {
+        CountingOutputStream output = new CountingOutputStream(new NullOutputStream());
+        SyntheticInstaller.writePacks(Collections.singletonList(pack), PackCompression.byName(compression), solid,
+                                      false, new File(dir, "install").getAbsolutePath(), output);
+        return output.getByteCount();
+    }
+
+}
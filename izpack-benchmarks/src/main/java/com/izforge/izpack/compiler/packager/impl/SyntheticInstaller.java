@@ -0,0 +1,129 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.compiler.packager.impl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.IOUtils;
+
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.compiler.data.CompilerData;
+
+
+/**
+ * Writes packs to an installer using {@link Packager} or {@link MultiVolumePackager}, bypassing the merging of the
+ * installer classes so that only the pack writing is exercised.
+ */
+public final class SyntheticInstaller
+{
+
+    /**
+     * The volume size used for multi-volume installers.
+     */
+    public static final long VOLUME_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Private constructor, to prevent instantiation.
+     */
+    private SyntheticInstaller()
+    {
+    }
+
+    /**
+     * Writes packs.
+     *
+     * @param packs         the packs to write
+     * @param compression   the compression format. Ignored for multi-volume installers
+     * @param solid         if {@code true}, compress each pack as a single solid chunk
+     * @param multiVolume   if {@code true}, use the {@link MultiVolumePackager}
+     * @param installerBase the installer base path, excluding the <em>.jar</em> extension. Multi-volume installers
+     *                      write their volumes relative to this
+     * @param output        the stream to write the installer jar to
+     * @throws IOException for any I/O error
+     */
+    public static void writePacks(List<PackInfo> packs, PackCompression compression, boolean solid,
+                                  boolean multiVolume, String installerBase, OutputStream output) throws IOException
+    {
+        Info info = new Info();
+        info.setInstallerBase(installerBase);
+        info.setCompressionFormat(compression);
+        info.setSolidCompression(solid);
+        CompilerData data = new CompilerData("", "", installerBase + ".jar", true);
+
+        JarOutputStream jar = new JarOutputStream(output);
+        PackagerBase packager;
+        if (multiVolume)
+        {
+            MultiVolumePackager volumes = new MultiVolumePackager(new Properties(), null, jar, null, null, null,
+                                                                  data, null);
+            volumes.setMaxFirstVolumeSize(VOLUME_SIZE);
+            volumes.setMaxVolumeSize(VOLUME_SIZE);
+            packager = volumes;
+        }
+        else
+        {
+            packager = new Packager(new Properties(), null, jar, null, null, null, data, null);
+        }
+        packager.setInfo(info);
+        for (PackInfo pack : packs)
+        {
+            packager.addPack(pack);
+        }
+        packager.writePacks();
+        jar.finish();
+    }
+
+    /**
+     * Creates an installer jar containing only packs.
+     *
+     * @param dir         the directory to write to
+     * @param packs       the packs to write
+     * @param compression the compression format
+     * @param solid       if {@code true}, compress each pack as a single solid chunk
+     * @param multiVolume if {@code true}, use the {@link MultiVolumePackager}
+     * @return the installer jar
+     * @throws IOException for any I/O error
+     */
+    public static File create(File dir, List<PackInfo> packs, PackCompression compression, boolean solid,
+                              boolean multiVolume) throws IOException
+    {
+        File installer = new File(dir, "install.jar");
+        OutputStream output = new FileOutputStream(installer);
+        try
+        {
+            writePacks(packs, compression, solid, multiVolume, new File(dir, "install").getAbsolutePath(), output);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(output);
+        }
+        return installer;
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.core.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.rules.Condition;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.core.rules.process.VariableCondition;
+import com.izforge.izpack.core.variable.PlainValue;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Measures {@link DefaultVariables#refresh()}.
+ * <p/>
+ * Dynamic variables are chained in groups of 16, each referencing the previous one, and one in four is guarded by
+ * a condition, as is typical of installers that derive paths from other variables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DefaultVariablesRefreshBenchmark
+{
+
+    /**
+     * The number of dynamic variables.
+     */
+    @Param({"100", "1000"})
+    public int count;
+
+    /**
+     * The number of conditions guarding variables.
+     */
+    private static final int CONDITIONS = 8;
+
+    /**
+     * The variables.
+     */
+    private DefaultVariables variables;
+
+    /**
+     * Creates the variables.
+     */
+    @Setup
+    public void setUp()
+    {
+        variables = new DefaultVariables();
+        AutomatedInstallData installData = new AutomatedInstallData(variables, Platforms.LINUX);
+        RulesEngineImpl rules = new RulesEngineImpl(installData, null, Platforms.LINUX);
+        variables.setRules(rules);
+
+        Map<String, Condition> conditions = new HashMap<String, Condition>();
+        for (int i = 0; i < CONDITIONS; ++i)
+        {
+            String id = "cond" + i;
+            variables.set("flag" + i, (i % 2 == 0) ? "yes" : "no");
+            VariableCondition condition = new VariableCondition("flag" + i, "yes");
+            condition.setId(id);
+            conditions.put(id, condition);
+        }
+        rules.readConditionMap(conditions);
+
+        variables.set("INSTALL_PATH", "/opt/benchmark");
+        for (int i = 0; i < count; ++i)
+        {
+            DynamicVariableImpl variable = new DynamicVariableImpl();
+            variable.setName("dyn" + i);
+            String parent = (i % 16 == 0) ? "${INSTALL_PATH}" : "${dyn" + (i - 1) + "}";
+            variable.setValue(new PlainValue(parent + "/d" + i));
+            if (i % 4 == 0)
+            {
+                variable.setConditionid("cond" + (i % CONDITIONS));
+            }
+            variables.add(variable);
+        }
+    }
+
+    /**
+     * Refreshes the variables.
+     *
+     * @return the value of the last variable
+     */
+    @Benchmark
+    public String refresh()
+    {
+        variables.refresh();
+        return variables.get("dyn" + (count - 1));
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.core.rules;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.rules.Condition;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.rules.process.VariableCondition;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Measures {@link RulesEngineImpl#isConditionTrue(String)} for complex condition expressions.
+ * <p/>
+ * Complex expressions aren't registered as conditions, so each evaluation by id re-parses the expression. The
+ * <em>parsed</em> benchmark evaluates the same expression parsed once up front, to isolate the parsing cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RulesEngineBenchmark
+{
+
+    /**
+     * The complex expression to evaluate.
+     */
+    private static final String EXPRESSION = "@cond0 && cond1 || !cond2 && cond3 || cond4 ^ cond5 || !cond6 && cond7";
+
+    /**
+     * The number of variable conditions.
+     */
+    private static final int CONDITIONS = 8;
+
+    /**
+     * The rules engine.
+     */
+    private RulesEngineImpl rules;
+
+    /**
+     * The pre-parsed expression.
+     */
+    private Condition parsed;
+
+    /**
+     * Creates the rules engine and conditions.
+     */
+    @Setup
+    public void setUp()
+    {
+        DefaultVariables variables = new DefaultVariables();
+        AutomatedInstallData installData = new AutomatedInstallData(variables, Platforms.LINUX);
+        rules = new RulesEngineImpl(installData, null, Platforms.LINUX);
+        variables.setRules(rules);
+
+        Map<String, Condition> conditions = new HashMap<String, Condition>();
+        for (int i = 0; i < CONDITIONS; ++i)
+        {
+            String id = "cond" + i;
+            variables.set("var" + i, (i % 3 == 0) ? "yes" : "no");
+            VariableCondition condition = new VariableCondition("var" + i, "yes");
+            condition.setId(id);
+            conditions.put(id, condition);
+        }
+        rules.readConditionMap(conditions);
+        parsed = rules.getCondition(EXPRESSION);
+    }
+
+    /**
+     * Evaluates the expression by id, as panels, packs and dynamic variables do.
+     *
+     * @return the result of the evaluation
+     */
+    @Benchmark
+    public boolean expression()
+    {
+        return rules.isConditionTrue(EXPRESSION);
+    }
+
+    /**
+     * Evaluates the pre-parsed expression.
+     *
+     * @return the result of the evaluation
+     */
+    @Benchmark
+    public boolean parsed()
+    {
+        return rules.isConditionTrue(parsed);
+    }
+
+    /**
+     * Evaluates a simple condition by id.
+     *
+     * @return the result of the evaluation
+     */
+    @Benchmark
+    public boolean simple()
+    {
+        return rules.isConditionTrue("cond0");
+    }
+
+}
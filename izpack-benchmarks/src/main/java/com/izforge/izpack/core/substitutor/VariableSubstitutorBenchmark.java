@@ -0,0 +1,127 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.core.substitutor;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.substitutor.SubstitutionType;
+import com.izforge.izpack.benchmarks.SyntheticData;
+import com.izforge.izpack.core.data.DefaultVariables;
+
+
+/**
+ * Measures the throughput of {@link VariableSubstitutorReader}, reading text containing variable references through
+ * an 8K buffer, as the file parser does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VariableSubstitutorBenchmark
+{
+
+    /**
+     * The substitution type.
+     */
+    @Param({"plain", "xml", "javaprop"})
+    public String type;
+
+    /**
+     * The size of the text, in characters.
+     */
+    @Param({"1048576"})
+    public int size;
+
+    /**
+     * The number of distinct variables referenced.
+     */
+    @Param({"100"})
+    public int variableCount;
+
+    /**
+     * The text to substitute.
+     */
+    private String text;
+
+    /**
+     * The variables.
+     */
+    private DefaultVariables variables;
+
+    /**
+     * The substitution type.
+     */
+    private SubstitutionType substitutionType;
+
+    /**
+     * Creates the text and variables.
+     */
+    @Setup
+    public void setUp()
+    {
+        text = SyntheticData.createTextWithVariables(size, variableCount, SyntheticData.SEED);
+        variables = new DefaultVariables();
+        for (int i = 0; i < variableCount; ++i)
+        {
+            variables.set("var" + i, "value of variable " + i);
+        }
+        substitutionType = SubstitutionType.lookup(type);
+    }
+
+    /**
+     * Reads the substituted text.
+     *
+     * @return the number of characters read
+     * @throws IOException for any I/O error
+     */
+    @Benchmark
+    public long substitute() throws IOException
+    {
+        VariableSubstitutorReader reader = new VariableSubstitutorReader(new StringReader(text), variables,
+                                                                         substitutionType);
+        char[] buffer = new char[8192];
+        long result = 0;
+        int read;
+        while ((read = reader.read(buffer, 0, buffer.length)) != -1)
+        {
+            result += read;
+        }
+        reader.close();
+        return result;
+    }
+
+}
@@ -0,0 +1,324 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.benchmarks.SyntheticData;
+import com.izforge.izpack.compiler.packager.impl.SyntheticInstaller;
+import com.izforge.izpack.core.io.FileSpanningInputStream;
+import com.izforge.izpack.installer.multiunpacker.MultiVolumeFileUnpacker;
+import com.izforge.izpack.util.NoCloseInputStream;
+
+
+/**
+ * Measures pack extraction, using the same {@link FileUnpacker} selection as {@link UnpackerBase} and
+ * <em>MultiVolumeUnpacker</em>.
+ * <p/>
+ * The installer is built once per trial. Each invocation extracts every file of the pack to a scratch directory,
+ * excluding the listener, rule and variable handling performed by the unpackers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnpackerBenchmark
+{
+
+    /**
+     * The installer type. One of the {@link PackCompression} names, or <em>multivolume</em>.
+     */
+    @Param({"default", "gz", "bzip2", "xz", "lzma", "deflate", "multivolume"})
+    public String mode;
+
+    /**
+     * Determines if the pack is compressed as a single solid chunk, rather than file by file. Ignored for the
+     * <em>default</em> and <em>multivolume</em> modes.
+     */
+    @Param({"false", "true"})
+    public boolean solid;
+
+    /**
+     * The number of files in the pack.
+     */
+    @Param({"500"})
+    public int files;
+
+    /**
+     * The size of each file, in bytes.
+     */
+    @Param({"8192"})
+    public int fileSize;
+
+    /**
+     * Multi-volume installer mode.
+     */
+    private static final String MULTI_VOLUME = "multivolume";
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+    /**
+     * The installer jar.
+     */
+    private ZipFile installer;
+
+    /**
+     * The pack, as read from the installer.
+     */
+    private PackInfo pack;
+
+    /**
+     * The pack files to extract, in pack stream order.
+     */
+    private final List<PackFile> packFiles = new ArrayList<PackFile>();
+
+    /**
+     * The extraction targets, corresponding to {@link #packFiles}.
+     */
+    private final List<File> targets = new ArrayList<File>();
+
+    /**
+     * The compression format.
+     */
+    private PackCompression compression;
+
+    /**
+     * The number of volumes, for multi-volume installers.
+     */
+    private int volumes;
+
+    /**
+     * Never cancels.
+     */
+    private final Cancellable cancellable = new Cancellable()
+    {
+        @Override
+        public boolean isCancelled()
+        {
+            return false;
+        }
+    };
+
+    /**
+     * Builds the installer.
+     *
+     * @throws Exception for any error
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        dir = SyntheticData.createTempDir("izpack-unpacker");
+        File sourceDir = new File(dir, "src");
+        List<File> sources = SyntheticData.createFiles(sourceDir, files, fileSize, SyntheticData.SEED);
+        boolean multiVolume = MULTI_VOLUME.equals(mode);
+        compression = multiVolume ? PackCompression.DEFAULT : PackCompression.byName(mode);
+        PackInfo source = SyntheticData.createPackInfo("pack", sourceDir, sources);
+        File jar = SyntheticInstaller.create(dir, Collections.singletonList(source), compression, solid,
+                                            multiVolume);
+
+        installer = new ZipFile(jar);
+        pack = readPackInfo();
+        if (multiVolume)
+        {
+            volumes = readVolumeCount();
+        }
+        File targetDir = new File(dir, "target");
+        for (PackFile file : pack.getPackFiles())
+        {
+            if (!file.isDirectory())
+            {
+                File target = new File(targetDir, file.getTargetPath().replace("$INSTALL_PATH/", ""));
+                FileUtils.forceMkdir(target.getParentFile());
+                packFiles.add(file);
+                targets.add(target);
+            }
+        }
+    }
+
+    /**
+     * Deletes the installer and extracted files.
+     *
+     * @throws IOException for any I/O error
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        installer.close();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    /**
+     * Extracts the pack.
+     *
+     * @return the number of files extracted
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public int unpack() throws Exception
+    {
+        return MULTI_VOLUME.equals(mode) ? unpackVolumes() : unpackJar();
+    }
+
+    /**
+     * Extracts the pack from the installer jar.
+     *
+     * @return the number of files extracted
+     * @throws IOException for any I/O error
+     */
+    private int unpackJar() throws IOException
+    {
+        InputStream in = getInputStream("packs/pack-pack");
+        try
+        {
+            InputStream packStream = new NoCloseInputStream(in);
+            SolidPackReader solidReader = new SolidPackReader(packStream, compression);
+            for (int i = 0; i < packFiles.size(); ++i)
+            {
+                PackFile file = packFiles.get(i);
+                if (file.isSolid())
+                {
+                    new DefaultFileUnpacker(cancellable, null).unpack(file, solidReader.getInputStream(file),
+                                                                      targets.get(i));
+                }
+                else
+                {
+                    FileUnpacker unpacker = (compression == PackCompression.DEFAULT)
+                            ? new DefaultFileUnpacker(cancellable, null)
+                            : new CompressedFileUnpacker(cancellable, null, compression);
+                    unpacker.unpack(file, packStream, targets.get(i));
+                }
+            }
+            solidReader.close();
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+        return packFiles.size();
+    }
+
+    /**
+     * Extracts the pack from the installer volumes.
+     *
+     * @return the number of files extracted
+     * @throws IOException for any I/O error
+     */
+    private int unpackVolumes() throws IOException
+    {
+        FileSpanningInputStream in = new FileSpanningInputStream(new File(dir, "install.pak"), volumes);
+        try
+        {
+            for (int i = 0; i < packFiles.size(); ++i)
+            {
+                new MultiVolumeFileUnpacker(in, cancellable, null).unpack(packFiles.get(i), null, targets.get(i));
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+        return packFiles.size();
+    }
+
+    /**
+     * Reads the pack meta-data from the installer.
+     *
+     * @return the pack
+     * @throws Exception for any error
+     */
+    private PackInfo readPackInfo() throws Exception
+    {
+        ObjectInputStream in = new ObjectInputStream(getInputStream("packs.info"));
+        try
+        {
+            @SuppressWarnings("unchecked") List<PackInfo> packs = (List<PackInfo>) in.readObject();
+            return packs.get(0);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Reads the number of volumes from the installer.
+     *
+     * @return the number of volumes
+     * @throws IOException for any I/O error
+     */
+    private int readVolumeCount() throws IOException
+    {
+        ObjectInputStream in = new ObjectInputStream(getInputStream("volumes.info"));
+        try
+        {
+            return in.readInt();
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Returns an installer resource.
+     *
+     * @param name the resource name, relative to the installer <em>resources</em> directory
+     * @return the resource stream
+     * @throws IOException for any I/O error
+     */
+    private InputStream getInputStream(String name) throws IOException
+    {
+        return installer.getInputStream(installer.getEntry("resources/" + name));
+    }
+
+}
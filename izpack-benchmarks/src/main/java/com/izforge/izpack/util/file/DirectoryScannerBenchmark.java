@@ -0,0 +1,121 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.util.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.benchmarks.SyntheticData;
+
+
+/**
+ * Measures {@link DirectoryScanner#scan()} over a synthetic tree with include and exclude patterns, as used by
+ * <em>&lt;fileset&gt;</em> elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DirectoryScannerBenchmark
+{
+
+    /**
+     * The depth of the tree.
+     */
+    @Param({"4"})
+    public int depth;
+
+    /**
+     * The number of sub-directories of each directory.
+     */
+    @Param({"5"})
+    public int breadth;
+
+    /**
+     * The number of files in each directory.
+     */
+    @Param({"20"})
+    public int files;
+
+    /**
+     * The root of the tree.
+     */
+    private File root;
+
+    /**
+     * Creates the tree.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        root = SyntheticData.createTempDir("izpack-scanner");
+        SyntheticData.createTree(root, depth, breadth, files);
+    }
+
+    /**
+     * Deletes the tree.
+     *
+     * @throws IOException for any I/O error
+     */
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(root);
+    }
+
+    /**
+     * Scans the tree.
+     *
+     * @return the number of included files
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public int scan() throws Exception
+    {
+        DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(root);
+        scanner.setIncludes(new String[]{"**/*.txt", "**/*.xml"});
+        scanner.setExcludes(new String[]{"**/skip*/**", "**/file1*"});
+        scanner.addDefaultExcludes();
+        scanner.scan();
+        return scanner.getIncludedFilesCount();
+    }
+
+}
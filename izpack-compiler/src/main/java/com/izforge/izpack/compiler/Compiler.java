@@ -30,12 +30,10 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.data.Pack;
-import com.izforge.izpack.api.data.PackColor;
 import com.izforge.izpack.api.data.binding.OsModel;
 import com.izforge.izpack.api.data.binding.Stage;
 import com.izforge.izpack.api.event.InstallationListener;
@@ -45,6 +43,7 @@ import com.izforge.izpack.api.exception.CompilerException;
 import com.izforge.izpack.api.exception.IzPackClassNotFoundException;
 import com.izforge.izpack.compiler.helper.CompilerHelper;
 import com.izforge.izpack.compiler.util.CompilerClassLoader;
+import com.izforge.izpack.compiler.util.graph.DependencyGraph;
 import com.izforge.izpack.compiler.packager.IPackager;
 import com.izforge.izpack.data.CustomData;
 import com.izforge.izpack.api.data.PackInfo;
@@ -200,27 +199,22 @@ public class Compiler extends Thread
      */
     public void checkExcludes(List<PackInfo> packs) throws CompilerException
     {
-        for (int q = 0; q < packs.size(); q++)
+        // the first preselected pack of each exclude group
+        Map<String, Pack> preselected = new HashMap<String, Pack>();
+        for (PackInfo packInfo : packs)
         {
-            PackInfo packinfo1 = packs.get(q);
-            Pack pack1 = packinfo1.getPack();
-            for (int w = 0; w < q; w++)
+            Pack pack1 = packInfo.getPack();
+            String group = pack1.getExcludeGroup();
+            if (group != null && pack1.isPreselected())
             {
-
-                PackInfo packinfo2 = packs.get(w);
-                Pack pack2 = packinfo2.getPack();
-                if (pack1.getExcludeGroup() != null && pack2.getExcludeGroup() != null)
+                Pack pack2 = preselected.get(group);
+                if (pack2 != null)
                 {
-                    if (pack1.getExcludeGroup().equals(pack2.getExcludeGroup()))
-                    {
-                        if (pack1.isPreselected() && pack2.isPreselected())
-                        {
-                            error("Packs " + pack1.getName() + " and " + pack2.getName() +
-                                          " belong to the same excludeGroup " + pack1.getExcludeGroup() +
-                                          " and are both preselected. This is not allowed.");
-                        }
-                    }
+                    error("Packs " + pack1.getName() + " and " + pack2.getName() +
+                                  " belong to the same excludeGroup " + group +
+                                  " and are both preselected. This is not allowed.");
                 }
+                preselected.put(group, pack1);
             }
         }
     }
@@ -240,115 +234,31 @@ public class Compiler extends Thread
         {
             names.put(pack.getPack().getName(), pack);
         }
-        int result = dfs(packs, names);
-        // @todo More informative messages to include the source of the error
-        if (result == -2)
-        {
-            error("Circular dependency detected");
-        }
-        else if (result == -1)
-        {
-            error("A dependency doesn't exist");
-        }
-    }
 
-    /**
-     * We use the dfs graph search algorithm to check whether the graph is acyclic as described in:
-     * Thomas H. Cormen, Charles Leiserson, Ronald Rivest and Clifford Stein. Introduction to
-     * algorithms 2nd Edition 540-549,MIT Press, 2001
-     *
-     * @param packs The graph
-     * @param names The name map
-     * @return -2 if back edges exist, else 0
-     */
-    private int dfs(List<PackInfo> packs, Map<String, PackInfo> names)
-    {
-        Map<Edge, PackColor> edges = new HashMap<Edge, PackColor>();
+        DependencyGraph<PackInfo> graph = new DependencyGraph<PackInfo>();
         for (PackInfo pack : packs)
         {
-            if (pack.colour == PackColor.WHITE)
+            graph.addVertex(pack);
+            List<String> deps = pack.getDependencies();
+            if (deps != null)
             {
-                if (dfsVisit(pack, names, edges) != 0)
+                for (String name : deps)
                 {
-                    return -1;
-                }
-            }
-
-        }
-        return checkBackEdges(edges);
-    }
-
-    /**
-     * This function checks for the existence of back edges.
-     *
-     * @param edges map to be checked
-     * @return -2 if back edges exist, else 0
-     */
-    private int checkBackEdges(Map<Edge, PackColor> edges)
-    {
-        Set<Edge> keys = edges.keySet();
-        for (final Edge key : keys)
-        {
-            PackColor color = edges.get(key);
-            if (color == PackColor.GREY)
-            {
-                return -2;
-            }
-        }
-        return 0;
-
-    }
-
-    /**
-     * This class is used for the classification of the edges
-     */
-    private class Edge
-    {
-
-        PackInfo u;
-
-        PackInfo v;
-
-        Edge(PackInfo u, PackInfo v)
-        {
-            this.u = u;
-            this.v = v;
-        }
-    }
-
-    private int dfsVisit(PackInfo u, Map<String, PackInfo> names, Map<Edge, PackColor> edges)
-    {
-        u.colour = PackColor.GREY;
-        List<String> deps = u.getDependencies();
-        if (deps != null)
-        {
-            for (String name : deps)
-            {
-                PackInfo v = names.get(name);
-                if (v == null)
-                {
-                    System.out.println("Failed to find dependency: " + name);
-                    return -1;
-                }
-                Edge edge = new Edge(u, v);
-                if (edges.get(edge) == null)
-                {
-                    edges.put(edge, v.colour);
-                }
-
-                if (v.colour == PackColor.WHITE)
-                {
-
-                    final int result = dfsVisit(v, names, edges);
-                    if (result != 0)
+                    PackInfo dependency = names.get(name);
+                    if (dependency == null)
                     {
-                        return result;
+                        System.out.println("Failed to find dependency: " + name);
+                        // @todo More informative messages to include the source of the error
+                        error("A dependency doesn't exist");
                     }
+                    graph.addEdge(pack, dependency);
                 }
             }
         }
-        u.colour = PackColor.BLACK;
-        return 0;
+        if (!graph.getCycles().isEmpty())
+        {
+            error("Circular dependency detected");
+        }
     }
 
     /**
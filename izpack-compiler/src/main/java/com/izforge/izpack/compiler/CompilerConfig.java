@@ -46,6 +46,7 @@ import com.izforge.izpack.compiler.helper.XmlCompilerHelper;
 import com.izforge.izpack.compiler.listener.CompilerListener;
 import com.izforge.izpack.compiler.merge.CompilerPathResolver;
 import com.izforge.izpack.compiler.packager.IPackager;
+import com.izforge.izpack.compiler.packager.impl.PatchBase;
 import com.izforge.izpack.compiler.resource.ResourceFinder;
 import com.izforge.izpack.compiler.util.AntPathMatcher;
 import com.izforge.izpack.compiler.util.CompilerClassLoader;
@@ -2545,6 +2546,46 @@ public class CompilerConfig extends Thread
             info.setCompressionFormat(compression);
             logger.info("Pack compression method: " + compression.toName());
         }
+        if (compressionElement != null && xmlCompilerHelper.validateYesNoAttribute(compressionElement, "solid", NO))
+        {
+            if (info.getCompressionFormat() == PackCompression.DEFAULT)
+            {
+                assertionHelper.parseWarn(compressionElement, "Solid compression ignored for the default format");
+            }
+            else
+            {
+                long chunkSize = xmlCompilerHelper.getLong(compressionElement, "chunksize", 0);
+                if (chunkSize < 0)
+                {
+                    assertionHelper.parseError(compressionElement, "chunksize must not be negative");
+                }
+                info.setSolidCompression(true);
+                info.setSolidChunkSize(chunkSize);
+                logger.info("Solid pack compression" + (chunkSize > 0 ? " in chunks of " + chunkSize + " bytes" : ""));
+            }
+        }
+
+        IXMLElement patchBaseElement = root.getFirstChildNamed("patch-base");
+        if (patchBaseElement != null)
+        {
+            String path = xmlCompilerHelper.requireContent(patchBaseElement);
+            File patchBaseFile = FileUtil.getAbsoluteFile(path, compilerData.getBasedir());
+            try
+            {
+                // the version is needed now, as the installer information is written before the packs
+                PatchBase patchBase = new PatchBase(patchBaseFile);
+                info.setPatchBase(patchBaseFile.getPath());
+                info.setPatchBaseVersion(patchBase.getAppVersion());
+                patchBase.close();
+                logger.info("Patch installer for version " + info.getPatchBaseVersion() + " of "
+                                    + info.getAppName());
+            }
+            catch (IOException exception)
+            {
+                assertionHelper.parseError(patchBaseElement, "Invalid patch base: " + exception.getMessage(),
+                                           exception);
+            }
+        }
 
         // Add the path for the summary log file if specified
         IXMLElement slfPath = root.getFirstChildNamed("summarylogfilepath");
@@ -30,6 +30,7 @@ import com.izforge.izpack.compiler.data.CompilerData;
 import com.izforge.izpack.compiler.listener.PackagerListener;
 import com.izforge.izpack.compiler.merge.CompilerPathResolver;
 import com.izforge.izpack.core.io.FileSpanningOutputStream;
+import com.izforge.izpack.core.io.VolumeSegment;
 import com.izforge.izpack.api.data.PackInfo;
 import com.izforge.izpack.merge.MergeManager;
 import com.izforge.izpack.merge.resolve.MergeableResolver;
@@ -37,9 +38,11 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectOutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.jar.JarOutputStream;
 import java.util.logging.Logger;
@@ -67,6 +70,9 @@ import java.util.zip.ZipEntry;
  * </packaging>
  * }
  * </pre>
+ * Each pack, and the first file starting in each volume, begins an independently compressed
+ * {@link VolumeSegment segment}. The segments are listed in the <em>volumes.info</em> resource, so that the unpacker
+ * can start reading at the segment preceding a file, rather than decompressing all of the preceding volumes.
  *
  * @author Dennis Reil, <Dennis.Reil@reddot.de>
  * @author Tim Anderson
@@ -187,16 +193,18 @@ public class MultiVolumePackager extends PackagerBase
         logger.fine("Subsequent volume size: " + maxVolumeSize);
 
         File volume = new File(getInfo().getInstallerBase() + ".pak").getAbsoluteFile();
-        int volumes = writePacks(packs, volume);
+        FileSpanningOutputStream volumes = writePacks(packs, volume);
+        List<VolumeSegment> segments = new ArrayList<VolumeSegment>(volumes.getSegments());
 
         // write metadata for reading in volumes
-        logger.fine("Written " + volumes + " volumes");
+        logger.fine("Written " + volumes.getVolumes() + " volumes, " + segments.size() + " segments");
 
         JarOutputStream installerJar = getInstallerJar();
         installerJar.putNextEntry(new ZipEntry(RESOURCES_PATH + "volumes.info"));
         ObjectOutputStream out = new ObjectOutputStream(installerJar);
-        out.writeInt(volumes);
+        out.writeInt(volumes.getVolumes());
         out.writeUTF(volume.getName());
+        out.writeObject(segments);
         out.flush();
         installerJar.closeEntry();
 
@@ -213,9 +221,9 @@ public class MultiVolumePackager extends PackagerBase
      *
      * @param packs  the packs to write
      * @param volume the first volume
-     * @return the no. of volumes written
+     * @return the closed volumes
      */
-    private int writePacks(List<PackInfo> packs, File volume) throws IOException
+    private FileSpanningOutputStream writePacks(List<PackInfo> packs, File volume) throws IOException
     {
         FileSpanningOutputStream volumes = new FileSpanningOutputStream(volume, maxFirstVolumeSize, maxVolumeSize);
         File targetDir = volume.getParentFile();
@@ -231,7 +239,7 @@ public class MultiVolumePackager extends PackagerBase
 
         volumes.flush();
         volumes.close();
-        return volumes.getVolumes();
+        return volumes;
     }
 
     /**
@@ -258,6 +266,10 @@ public class MultiVolumePackager extends PackagerBase
         installerJar.putNextEntry(entry);
         ObjectOutputStream packStream = new ObjectOutputStream(installerJar);
 
+        if (!pack.isLoose())
+        {
+            volumes.startSegment();
+        }
         writePackFiles(packInfo, volumes, pack, packStream, targetDir);
 
         // Cleanup
@@ -328,13 +340,21 @@ public class MultiVolumePackager extends PackagerBase
      */
     private void writePackFile(File file, FileSpanningOutputStream volumes, XPackFile packFile) throws IOException
     {
+        List<VolumeSegment> segments = volumes.getSegments();
+        if (segments.get(segments.size() - 1).getVolume() < volumes.getVolumes() - 1)
+        {
+            // start a segment at the first file of each volume, so it can be read without the preceding volumes
+            volumes.startSegment();
+        }
+
         long beforePosition = volumes.getFilePointer();
         packFile.setArchiveFilePosition(beforePosition);
 
         // write the file to the volumes
         int volumeCount = volumes.getVolumes();
 
-        FileInputStream in = FileUtils.openInputStream(file);
+        MessageDigest digest = createDigest();
+        InputStream in = new DigestInputStream(FileUtils.openInputStream(file), digest);
         try
         {
             long bytesWritten = IOUtils.copyLarge(in, volumes);
@@ -355,6 +375,7 @@ public class MultiVolumePackager extends PackagerBase
             {
                 throw new IOException("File size mismatch when reading " + file);
             }
+            packFile.setDigest(digest.digest());
         }
         finally
         {
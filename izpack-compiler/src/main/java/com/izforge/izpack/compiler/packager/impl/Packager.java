@@ -49,8 +49,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -124,6 +127,33 @@ public class Packager extends PackagerBase
      */
     @Override
     protected void writePacks() throws IOException
+    {
+        PatchBase patchBase = null;
+        try
+        {
+            if (getInfo().getPatchBase() != null)
+            {
+                patchBase = new PatchBase(new File(getInfo().getPatchBase()));
+                patchBase.prepare(getPacksList());
+            }
+            writePacks(patchBase);
+        }
+        finally
+        {
+            if (patchBase != null)
+            {
+                patchBase.close();
+            }
+        }
+    }
+
+    /**
+     * Write packs to the installer jar, or each to a separate jar.
+     *
+     * @param patchBase the previous release to patch against, or {@code null} if a full installer is being written
+     * @throws IOException for any I/O error
+     */
+    private void writePacks(PatchBase patchBase) throws IOException
     {
         List<PackInfo> packs = getPacksList();
         final int num = packs.size();
@@ -134,12 +164,19 @@ public class Packager extends PackagerBase
 
         List<PackFile> pack200Files = new ArrayList<PackFile>();
 
+        // Deltas against the previous release, stored in separate streams in addition to the full content
+        Map<PackFile, File> deltaFiles = new LinkedHashMap<PackFile, File>();
+
         // Force UTF-8 encoding in order to have proper ZipEntry names.
         JarOutputStream installerJar = getInstallerJar();
 
         int packNumber = 0;
         IXMLElement root = new XMLElementImpl("packs");
 
+        PackCompression comprFormat = getInfo().getCompressionFormat();
+        boolean solid = getInfo().isSolidCompression() && comprFormat != PackCompression.DEFAULT;
+        long chunkSize = getInfo().getSolidChunkSize();
+
         for (PackInfo packInfo : packs)
         {
             Pack pack = packInfo.getPack();
@@ -166,7 +203,10 @@ public class Packager extends PackagerBase
 
             CountingOutputStream packOutputStream = new CountingOutputStream(new NoCloseOutputStream(
                     new BufferedOutputStream(packJar)));
+            PackStream mainStream = new PackStream(streamResourceName, null, packOutputStream);
 
+            // Streams of the files restricted to particular platforms, keyed on their OS constraints
+            Map<String, PackStream> platformStreams = new LinkedHashMap<String, PackStream>();
             try
             {
                 for (PackFile packFile : packInfo.getPackFiles())
@@ -187,6 +227,23 @@ public class Packager extends PackagerBase
                         addFile = false;
                     }
 
+                    if (addFile && !packFile.isDirectory() && patchBase != null)
+                    {
+                        if (packFile.isOmitted())
+                        {
+                            logger.fine("File " + packFile.getTargetPath() + " is unchanged since the previous release");
+                            addFile = false;
+                        } else
+                        {
+                            File delta = patchBase.createDelta(packFile, file);
+                            if (delta != null)
+                            {
+                                deltaFiles.put(packFile, delta);
+                                addFile = false;
+                            }
+                        }
+                    }
+
                     if (addFile && !packFile.isDirectory())
                     {
                         if (pack200)
@@ -202,12 +259,18 @@ public class Packager extends PackagerBase
                             packFile.setStreamResourceName("packs/pack200-" + packFile.getId());
                             packFile.setStreamOffset(0);
                             pack200Files.add(packFile);
+                        } else if (solid)
+                        {
+                            PackStream stream = getPackStream(pack, packFile, mainStream, platformStreams);
+                            packFile.setStreamResourceName(stream.getResourceName());
+                            stream.addSolid(packFile, file, comprFormat, chunkSize);
                         } else
                         {
-                            packFile.setStreamResourceName(streamResourceName);
-                            packFile.setStreamOffset(packOutputStream.getByteCount()); // get the position
+                            PackStream stream = getPackStream(pack, packFile, mainStream, platformStreams);
+                            CountingOutputStream streamOutput = stream.getOutputStream();
+                            packFile.setStreamResourceName(stream.getResourceName());
+                            packFile.setStreamOffset(streamOutput.getByteCount()); // get the position
 
-                            PackCompression comprFormat = getInfo().getCompressionFormat();
                             if (comprFormat != PackCompression.DEFAULT)
                             {
                                 File tmpfile = null;
@@ -218,32 +281,9 @@ public class Packager extends PackagerBase
                                     tmpfile = File.createTempFile("izpack-compress", null, FileUtils.getTempDirectory());
                                     CountingOutputStream proxyOutputStream = new CountingOutputStream(FileUtils.openOutputStream(tmpfile));
                                     OutputStream bufferedStream = IOUtils.buffer(proxyOutputStream);
+                                    finalStream = createCompressorOutputStream(comprFormat, bufferedStream);
 
-                                    switch (comprFormat)
-                                    {
-                                        case LZMA:
-                                            // LZMA as output stream supported from commons-compress 1.13 (requires JDK 1.7)
-                                            // for now create it from the Tukaani Project (tukaani.org)
-                                            finalStream = new LZMAOutputStream(bufferedStream, new LZMA2Options(), -1);
-                                            break;
-                                        case DEFLATE:
-                                            DeflateParameters deflateParameters = new DeflateParameters();
-                                            deflateParameters.setCompressionLevel(Deflater.BEST_COMPRESSION);
-                                            new DeflateCompressorOutputStream(bufferedStream, deflateParameters);
-                                        default:
-                                            try
-                                            {
-                                                finalStream = new CompressorStreamFactory().createCompressorOutputStream(
-                                                        comprFormat.toName(),
-                                                        bufferedStream);
-                                            }
-                                            catch (CompressorException e)
-                                            {
-                                                throw new IOException(e);
-                                            }
-                                    }
-
-                                    long bytesWritten = FileUtils.copyFile(file, finalStream);
+                                    copy(packFile, file, finalStream);
                                     try
                                     {
                                         finalStream.flush();
@@ -253,13 +293,9 @@ public class Packager extends PackagerBase
                                         // some compressor output streams don't explicitly support flushing
                                     }
                                     finalStream.close();
-                                    if (bytesWritten != packFile.length())
-                                    {
-                                        throw new IOException("File size mismatch when reading " + file);
-                                    }
                                     packFile.setSize(proxyOutputStream.getByteCount());
 
-                                    FileUtils.copyFile(tmpfile, packOutputStream);
+                                    FileUtils.copyFile(tmpfile, streamOutput);
 
                                     logger.fine("File " + packFile.getTargetPath() + " added compressed as "
                                             + comprFormat.toName()
@@ -272,11 +308,7 @@ public class Packager extends PackagerBase
                                 }
                             } else
                             {
-                                long bytesWritten = FileUtils.copyFile(file, packOutputStream);
-                                if (bytesWritten != packFile.length())
-                                {
-                                    throw new IOException("File size mismatch when reading " + file);
-                                }
+                                long bytesWritten = copy(packFile, file, streamOutput);
                                 logger.fine("File " + packFile.getTargetPath() + " added uncompressed (" + bytesWritten + " bytes)");
                             }
                         }
@@ -288,6 +320,8 @@ public class Packager extends PackagerBase
                     pack.addFileSize(packFile.length());
                 }
 
+                mainStream.closeChunk();
+
                 if (pack.getFileSize() > pack.getSize())
                 {
                     pack.setSize(pack.getFileSize());
@@ -297,10 +331,31 @@ public class Packager extends PackagerBase
                 packOutputStream.flush();
                 packOutputStream.close();
                 packJar.closeEntry();
+
+                for (PackStream platformStream : platformStreams.values())
+                {
+                    platformStream.closeChunk();
+                    platformStream.getOutputStream().close();
+                    if (platformStream.getOutputStream().getByteCount() == 0)
+                    {
+                        continue;
+                    }
+                    packJar.putNextEntry(new ZipEntry(RESOURCES_PATH + platformStream.getResourceName()));
+                    FileUtils.copyFile(platformStream.getFile(), packJar);
+                    packJar.closeEntry();
+                    logger.fine("Platform specific files of pack " + pack.getName() + " stored in "
+                                        + platformStream.getResourceName() + " ("
+                                        + platformStream.getOutputStream().getByteCount() + " bytes)");
+                }
             }
             finally
             {
                 IOUtils.closeQuietly(packOutputStream);
+                for (PackStream platformStream : platformStreams.values())
+                {
+                    IOUtils.closeQuietly(platformStream.getOutputStream());
+                    FileUtils.deleteQuietly(platformStream.getFile());
+                }
                 packJar.flush();
                 // close pack specific jar if required
                 if (packSeparateJars())
@@ -329,6 +384,13 @@ public class Packager extends PackagerBase
         out.flush();
         installerJar.closeEntry();
 
+        for (Map.Entry<PackFile, File> deltaFile : deltaFiles.entrySet())
+        {
+            installerJar.putNextEntry(new ZipEntry(RESOURCES_PATH + deltaFile.getKey().getDeltaResourceName()));
+            FileUtils.copyFile(deltaFile.getValue(), installerJar);
+            installerJar.closeEntry();
+        }
+
         for (PackFile pack200PackFile : pack200Files)
         {
             File tmpfile = null;
@@ -367,6 +429,102 @@ public class Packager extends PackagerBase
         }
     }
 
+    /**
+     * Returns the stream to write a pack file to.
+     * <p/>
+     * Files restricted to particular platforms are written to a separate stream per set of OS constraints, so that
+     * installations on other platforms never read them. Packs written to separate jars use a single stream, as
+     * web installers download each pack jar as a whole. Empty files are also written to the main stream, as
+     * there is nothing to skip.
+     * <p/>
+     * Platform streams are created on demand, so that only those that are written to are created.
+     *
+     * @param pack            the pack
+     * @param packFile        the pack file
+     * @param mainStream      the main pack stream
+     * @param platformStreams the platform streams of the pack, keyed on OS constraints
+     * @return the stream to write the file to
+     * @throws IOException if a platform stream cannot be created
+     */
+    private PackStream getPackStream(Pack pack, PackFile packFile, PackStream mainStream,
+                                     Map<String, PackStream> platformStreams) throws IOException
+    {
+        if (packSeparateJars() || packFile.osConstraints() == null || packFile.osConstraints().isEmpty()
+                || packFile.length() == 0)
+        {
+            return mainStream;
+        }
+        String key = packFile.osConstraints().toString();
+        PackStream result = platformStreams.get(key);
+        if (result == null)
+        {
+            String name = "packs/os" + (platformStreams.size() + 1) + "-pack-" + pack.getName();
+            File file = File.createTempFile("izpack-platform", null, FileUtils.getTempDirectory());
+            CountingOutputStream out = new CountingOutputStream(IOUtils.buffer(FileUtils.openOutputStream(file)));
+            result = new PackStream(name, file, out);
+            platformStreams.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Copies a file to a stream, recording the digest of its content in the pack file.
+     *
+     * @param packFile the pack file
+     * @param file     the file to copy
+     * @param out      the stream to copy to. This is not closed
+     * @return the number of bytes copied
+     * @throws IOException if the file size doesn't match that of the pack file, or for any other I/O error
+     */
+    private static long copy(PackFile packFile, File file, OutputStream out) throws IOException
+    {
+        MessageDigest digest = createDigest();
+        long result = FileUtils.copyFile(file, new DigestOutputStream(out, digest));
+        if (result != packFile.length())
+        {
+            throw new IOException("File size mismatch when reading " + file);
+        }
+        packFile.setDigest(digest.digest());
+        return result;
+    }
+
+    /**
+     * Creates a stream to compress data.
+     *
+     * @param format the compression format
+     * @param out    the stream to write compressed data to
+     * @return a new compressor stream
+     * @throws IOException if the compressor cannot be created
+     */
+    private static OutputStream createCompressorOutputStream(PackCompression format, OutputStream out)
+            throws IOException
+    {
+        OutputStream result;
+        switch (format)
+        {
+            case LZMA:
+                // LZMA as output stream supported from commons-compress 1.13 (requires JDK 1.7)
+                // for now create it from the Tukaani Project (tukaani.org)
+                result = new LZMAOutputStream(out, new LZMA2Options(), -1);
+                break;
+            case DEFLATE:
+                DeflateParameters deflateParameters = new DeflateParameters();
+                deflateParameters.setCompressionLevel(Deflater.BEST_COMPRESSION);
+                result = new DeflateCompressorOutputStream(out, deflateParameters);
+                break;
+            default:
+                try
+                {
+                    result = new CompressorStreamFactory().createCompressorOutputStream(format.toName(), out);
+                }
+                catch (CompressorException e)
+                {
+                    throw new IOException(e);
+                }
+        }
+        return result;
+    }
+
     private Pack200.Packer createPack200Packer(PackFile packFile)
     {
         Pack200.Packer packer = Pack200.newPacker();
@@ -381,4 +539,201 @@ public class Packager extends PackagerBase
 
     @Override
     public void addConfigurationInformation(IXMLElement data) {}
+
+    /**
+     * A stream that pack files are written to, along with its current solid chunk.
+     */
+    private static class PackStream
+    {
+        /**
+         * The stream resource name.
+         */
+        private final String resourceName;
+
+        /**
+         * The temporary file buffering the stream, or {@code null} if it is written directly to the pack jar.
+         */
+        private final File file;
+
+        /**
+         * The stream.
+         */
+        private final CountingOutputStream out;
+
+        /**
+         * The current solid chunk, or {@code null} if there is none.
+         */
+        private SolidChunk chunk;
+
+        /**
+         * Constructs a {@code PackStream}.
+         *
+         * @param resourceName the stream resource name
+         * @param file         the temporary file buffering the stream. May be {@code null}
+         * @param out          the stream
+         */
+        public PackStream(String resourceName, File file, CountingOutputStream out)
+        {
+            this.resourceName = resourceName;
+            this.file = file;
+            this.out = out;
+        }
+
+        /**
+         * Returns the stream resource name.
+         *
+         * @return the resource name
+         */
+        public String getResourceName()
+        {
+            return resourceName;
+        }
+
+        /**
+         * Returns the temporary file buffering the stream.
+         *
+         * @return the file, or {@code null} if the stream is written directly to the pack jar
+         */
+        public File getFile()
+        {
+            return file;
+        }
+
+        /**
+         * Returns the stream.
+         *
+         * @return the stream
+         */
+        public CountingOutputStream getOutputStream()
+        {
+            return out;
+        }
+
+        /**
+         * Appends a file to the current solid chunk, starting a new chunk if required.
+         *
+         * @param packFile  the pack file
+         * @param file      the file to read
+         * @param format    the compression format
+         * @param chunkSize the uncompressed size at which the chunk is completed, or {@code 0} if unlimited
+         * @throws IOException for any I/O error
+         */
+        public void addSolid(PackFile packFile, File file, PackCompression format, long chunkSize)
+                throws IOException
+        {
+            if (chunk == null)
+            {
+                chunk = new SolidChunk(out, format);
+            }
+            chunk.add(packFile, file);
+            if (chunkSize > 0 && chunk.getLength() >= chunkSize)
+            {
+                closeChunk();
+            }
+        }
+
+        /**
+         * Completes the current solid chunk, if any.
+         *
+         * @throws IOException for any I/O error
+         */
+        public void closeChunk() throws IOException
+        {
+            if (chunk != null)
+            {
+                chunk.close();
+                chunk = null;
+            }
+        }
+    }
+
+    /**
+     * A solid chunk, i.e. the concatenated content of consecutive pack files compressed as a single stream.
+     * <p/>
+     * Each file in the chunk records the offset of the chunk in the pack stream, its offset in the uncompressed
+     * chunk, and the compressed size of the chunk, so that the unpacker can skip chunks without decompressing them.
+     */
+    private static class SolidChunk
+    {
+        /**
+         * The pack stream.
+         */
+        private final CountingOutputStream packStream;
+
+        /**
+         * The offset of the chunk in the pack stream.
+         */
+        private final long start;
+
+        /**
+         * The compressor stream.
+         */
+        private final OutputStream stream;
+
+        /**
+         * The files in the chunk.
+         */
+        private final List<PackFile> files = new ArrayList<PackFile>();
+
+        /**
+         * The uncompressed length of the chunk.
+         */
+        private long length;
+
+        /**
+         * Constructs a {@code SolidChunk}, starting at the current position of the pack stream.
+         *
+         * @param packStream the pack stream
+         * @param format     the compression format
+         * @throws IOException for any I/O error
+         */
+        public SolidChunk(CountingOutputStream packStream, PackCompression format) throws IOException
+        {
+            this.packStream = packStream;
+            start = packStream.getByteCount();
+            stream = createCompressorOutputStream(format, IOUtils.buffer(new NoCloseOutputStream(packStream)));
+        }
+
+        /**
+         * Appends a file to the chunk.
+         *
+         * @param packFile the pack file
+         * @param file     the file to read
+         * @throws IOException for any I/O error
+         */
+        public void add(PackFile packFile, File file) throws IOException
+        {
+            packFile.setStreamOffset(start);
+            packFile.setChunkOffset(length);
+            length += copy(packFile, file, stream);
+            files.add(packFile);
+        }
+
+        /**
+         * Returns the uncompressed length of the chunk.
+         *
+         * @return the length, in bytes
+         */
+        public long getLength()
+        {
+            return length;
+        }
+
+        /**
+         * Completes the chunk, and records its compressed size in each of its files.
+         *
+         * @throws IOException for any I/O error
+         */
+        public void close() throws IOException
+        {
+            stream.close();
+            long size = packStream.getByteCount() - start;
+            for (PackFile file : files)
+            {
+                file.setChunkSize(size);
+            }
+            logger.fine("Solid chunk of " + files.size() + " files added compressed (" + length + " -> " + size
+                                + " bytes)");
+        }
+    }
 }
@@ -24,6 +24,7 @@ package com.izforge.izpack.compiler.packager.impl;
 
 import com.izforge.izpack.api.data.*;
 import com.izforge.izpack.api.exception.CompilerException;
+import com.izforge.izpack.api.merge.Mergeable;
 import com.izforge.izpack.api.rules.Condition;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.compiler.data.CompilerData;
@@ -33,6 +34,7 @@ import com.izforge.izpack.compiler.merge.PanelMerge;
 import com.izforge.izpack.compiler.packager.IPackager;
 import com.izforge.izpack.compiler.util.graph.DependencyGraph;
 import com.izforge.izpack.data.CustomData;
+import com.izforge.izpack.installer.data.UninstallerSkeleton;
 import com.izforge.izpack.merge.MergeManager;
 import com.izforge.izpack.merge.resolve.MergeableResolver;
 import com.izforge.izpack.util.FileUtil;
@@ -41,9 +43,12 @@ import org.apache.commons.io.IOUtils;
 
 import java.io.*;
 import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 
 /**
@@ -419,6 +424,7 @@ public abstract class PackagerBase implements IPackager
         writeInstallerObject("installerrequirements", installerRequirements);
 
         writeInstallerResources();
+        writeUninstallerSkeleton();
 
         // Pack File Data may be written to separate jars
         writePacks();
@@ -549,6 +555,57 @@ public abstract class PackagerBase implements IPackager
         }
     }
 
+    /**
+     * Writes the uninstaller skeleton parts to the installer jar, if the installer writes an uninstaller.
+     * <p/>
+     * Each part is stored uncompressed, so that the installer can copy its entries into the uninstaller as is.
+     *
+     * @throws IOException for any I/O error
+     */
+    protected void writeUninstallerSkeleton() throws IOException
+    {
+        if (info.getUninstallerPath() == null)
+        {
+            return;
+        }
+        sendMsg("Copying the skeleton uninstaller", PackagerListener.MSG_VERBOSE);
+        boolean listeners = false;
+        for (CustomData data : customDataList)
+        {
+            if (data.type == CustomData.UNINSTALLER_LISTENER)
+            {
+                listeners = true;
+                break;
+            }
+        }
+        for (UninstallerSkeleton part : UninstallerSkeleton.values())
+        {
+            if (part == UninstallerSkeleton.LISTENERS && !listeners)
+            {
+                continue;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            JarOutputStream jar = new JarOutputStream(bytes);
+            jar.setLevel(9);
+            for (Mergeable mergeable : part.getMergeables(pathResolver))
+            {
+                mergeable.merge(jar);
+            }
+            jar.close();
+
+            byte[] content = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            ZipEntry entry = new ZipEntry(RESOURCES_PATH + part.getResource());
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCrc(crc.getValue());
+            installerJar.putNextEntry(entry);
+            installerJar.write(content);
+            installerJar.closeEntry();
+        }
+    }
+
     /**
      * Write packs to the installer jar, or each to a separate jar.
      *
@@ -556,6 +613,25 @@ public abstract class PackagerBase implements IPackager
      */
     protected abstract void writePacks() throws IOException;
 
+    /**
+     * Creates a digest to record the content of pack files, so that the installer can detect files that are
+     * already installed.
+     *
+     * @return a new {@link PackFile#DIGEST_ALGORITHM} digest
+     * @throws IOException if the algorithm isn't available
+     */
+    protected static MessageDigest createDigest() throws IOException
+    {
+        try
+        {
+            return MessageDigest.getInstance(PackFile.DIGEST_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            throw new IOException(exception);
+        }
+    }
+
     /**
      * Returns the installer jar stream.
      *
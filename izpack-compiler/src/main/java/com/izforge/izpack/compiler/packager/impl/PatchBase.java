@@ -0,0 +1,507 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.packager.impl;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.api.data.ParsableFile;
+import com.izforge.izpack.core.io.BinaryDelta;
+import com.izforge.izpack.installer.unpacker.CompressedFileUnpacker;
+import com.izforge.izpack.installer.unpacker.SolidPackReader;
+
+
+/**
+ * The installer of a previous release, that a patch installer is built against.
+ * <p/>
+ * Files are matched to the previous release on their target path. Files whose content hasn't changed are omitted from
+ * the patch installer. Changed files are stored as a {@link BinaryDelta} against the previous content when that is
+ * sufficiently smaller than the new content, and in full otherwise. The installer verifies that the installed files
+ * match the previous release before writing any file.
+ * <p/>
+ * Only files that the previous installer recorded a digest for can be patched; the rest are stored in full. So are
+ * files whose installed content may legitimately differ from that recorded: parsable files, which are rewritten by
+ * variable substitution, and files that aren't always overwritten, which may have been edited since.
+ */
+public class PatchBase
+{
+
+    /**
+     * The maximum size of the previous and new content of a file to create a delta for. Larger files are stored in
+     * full, as both versions are held in memory while encoding.
+     */
+    public static final long MAX_DELTA_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The installer jar.
+     */
+    private final JarFile jar;
+
+    /**
+     * The installer information.
+     */
+    private final Info info;
+
+    /**
+     * The files of the previous release that may be patched, keyed on target path.
+     */
+    private final Map<String, PackFile> files = new HashMap<String, PackFile>();
+
+    /**
+     * The new files to store as deltas, and the previous release's files they are encoded against.
+     */
+    private final Map<PackFile, PackFile> bases = new IdentityHashMap<PackFile, PackFile>();
+
+    /**
+     * The extracted content of the previous release's files.
+     */
+    private final Map<PackFile, File> content = new IdentityHashMap<PackFile, File>();
+
+    /**
+     * The directory that previous content is extracted to.
+     */
+    private File tempDir;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(PatchBase.class.getName());
+
+
+    /**
+     * Constructs a {@code PatchBase}.
+     *
+     * @param file the installer of the previous release
+     * @throws IOException if the installer cannot be read
+     */
+    public PatchBase(File file) throws IOException
+    {
+        jar = new JarFile(file);
+        try
+        {
+            info = (Info) readObject(PackagerBase.RESOURCES_PATH + "info");
+            @SuppressWarnings("unchecked")
+            List<PackInfo> packs = (List<PackInfo>) readObject(PackagerBase.PACKSINFO_RESOURCE_PATH);
+            index(packs);
+        }
+        catch (IOException exception)
+        {
+            jar.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns the application version of the previous release.
+     *
+     * @return the application version
+     */
+    public String getAppVersion()
+    {
+        return info.getAppVersion();
+    }
+
+    /**
+     * Matches the files of the new release to those of the previous release.
+     * <p/>
+     * Unchanged files are {@link PackFile#setUnchanged marked as such}, and the previous content of changed files is
+     * extracted, ready for {@link #createDelta}.
+     *
+     * @param packs the packs of the new release
+     * @throws IOException for any I/O error
+     */
+    public void prepare(List<PackInfo> packs) throws IOException
+    {
+        int unchanged = 0;
+        Set<String> parsables = getParsables(packs);
+        for (PackInfo packInfo : packs)
+        {
+            if (packInfo.getPack().isLoose())
+            {
+                continue;
+            }
+            for (Map.Entry<PackFile, File> entry : packInfo.getPackFilesMap().entrySet())
+            {
+                PackFile packFile = entry.getKey();
+                PackFile base = files.get(packFile.getTargetPath());
+                if (base == null || packFile.isDirectory() || packFile.isPack200Jar()
+                        || !isPatchable(packFile, parsables))
+                {
+                    continue;
+                }
+                if (base.length() == packFile.length())
+                {
+                    byte[] digest = digest(entry.getValue());
+                    if (Arrays.equals(digest, base.getDigest()))
+                    {
+                        packFile.setUnchanged(digest);
+                        ++unchanged;
+                        continue;
+                    }
+                }
+                if (base.length() <= MAX_DELTA_SIZE && packFile.length() <= MAX_DELTA_SIZE)
+                {
+                    bases.put(packFile, base);
+                }
+            }
+        }
+        logger.info("Patch base " + jar.getName() + ": " + unchanged + " unchanged files, " + bases.size()
+                            + " changed files");
+        if (!bases.isEmpty())
+        {
+            extract();
+        }
+    }
+
+    /**
+     * Encodes a changed file as a delta against its previous content.
+     * <p/>
+     * If the delta is used, the pack file is {@link PackFile#setDelta marked as stored as a delta}, and its content
+     * isn't stored.
+     *
+     * @param packFile the pack file
+     * @param file     the new content
+     * @return the delta file, or {@code null} if the file has no previous content, or the delta isn't at least half
+     *         the size of the new content
+     * @throws IOException for any I/O error
+     */
+    public File createDelta(PackFile packFile, File file) throws IOException
+    {
+        PackFile base = bases.get(packFile);
+        File baseFile = (base != null) ? content.get(base) : null;
+        if (baseFile == null)
+        {
+            return null;
+        }
+        byte[] target = FileUtils.readFileToByteArray(file);
+        if (target.length != packFile.length())
+        {
+            throw new IOException("File size mismatch when reading " + file);
+        }
+        File result = File.createTempFile("izpack-delta", null, tempDir);
+        OutputStream out = IOUtils.buffer(FileUtils.openOutputStream(result));
+        try
+        {
+            BinaryDelta.encode(FileUtils.readFileToByteArray(baseFile), target, out);
+        }
+        finally
+        {
+            out.close();
+        }
+        if (result.length() > target.length / 2)
+        {
+            FileUtils.deleteQuietly(result);
+            return null;
+        }
+        MessageDigest digest = PackagerBase.createDigest();
+        packFile.setDelta(base.getDigest(), digest.digest(target), "packs/delta-" + packFile.getId());
+        logger.fine("File " + packFile.getTargetPath() + " has a delta (" + packFile.length() + " -> "
+                            + result.length() + " bytes)");
+        return result;
+    }
+
+    /**
+     * Releases the installer, and deletes any extracted content and deltas.
+     */
+    public void close()
+    {
+        try
+        {
+            jar.close();
+        }
+        catch (IOException ignore)
+        {
+            // do nothing
+        }
+        FileUtils.deleteQuietly(tempDir);
+    }
+
+    /**
+     * Indexes the files of the previous release that may be patched on their target path.
+     * <p/>
+     * Files with no digest, files stored outside of the pack streams, files whose installed content may differ from
+     * their digest, and target paths installed with different content by different packs are excluded.
+     *
+     * @param packs the packs of the previous release
+     */
+    private void index(List<PackInfo> packs)
+    {
+        Set<String> ambiguous = new HashSet<String>();
+        Set<String> parsables = getParsables(packs);
+        for (PackInfo packInfo : packs)
+        {
+            if (packInfo.getPack().isLoose())
+            {
+                continue;
+            }
+            for (PackFile packFile : packInfo.getPackFiles())
+            {
+                PackFile stored = packFile.isBackReference() ? packFile.getLinkedPackFile() : packFile;
+                if (packFile.isDirectory() || stored.isPack200Jar() || stored.hasBase() || stored.getDigest() == null
+                        || !isPatchable(packFile, parsables)
+                        || jar.getEntry(PackagerBase.RESOURCES_PATH + stored.getStreamResourceName()) == null)
+                {
+                    continue;
+                }
+                String path = packFile.getTargetPath();
+                PackFile existing = files.put(path, stored);
+                if (existing != null && !Arrays.equals(existing.getDigest(), stored.getDigest()))
+                {
+                    ambiguous.add(path);
+                }
+            }
+        }
+        files.keySet().removeAll(ambiguous);
+    }
+
+    /**
+     * Determines if the installed content of a file is expected to match its digest, so that it may be omitted from
+     * a patch installer or patched with a delta.
+     * <p/>
+     * Parsable files are rewritten by variable substitution when installed, and files that aren't always overwritten
+     * may have been edited since.
+     *
+     * @param packFile  the pack file
+     * @param parsables the target paths of the parsable files
+     * @return {@code true} if the file may be patched
+     */
+    private static boolean isPatchable(PackFile packFile, Set<String> parsables)
+    {
+        return packFile.override() == OverrideType.OVERRIDE_TRUE && !parsables.contains(packFile.getTargetPath());
+    }
+
+    /**
+     * Returns the target paths of the parsable files of a release.
+     *
+     * @param packs the packs of the release
+     * @return the parsable file target paths, with the same separators as pack file target paths
+     */
+    private static Set<String> getParsables(List<PackInfo> packs)
+    {
+        Set<String> result = new HashSet<String>();
+        for (PackInfo packInfo : packs)
+        {
+            for (ParsableFile parsable : packInfo.getParsables())
+            {
+                result.add(parsable.getPath().replace(File.separatorChar, '/'));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Extracts the previous content of the changed files, reading each pack stream once, in order.
+     *
+     * @throws IOException for any I/O error
+     */
+    private void extract() throws IOException
+    {
+        tempDir = File.createTempFile("izpack-patch", null);
+        FileUtils.deleteQuietly(tempDir);
+        FileUtils.forceMkdir(tempDir);
+
+        Map<String, List<PackFile>> streams = new LinkedHashMap<String, List<PackFile>>();
+        Set<PackFile> added = Collections.newSetFromMap(new IdentityHashMap<PackFile, Boolean>());
+        for (PackFile base : bases.values())
+        {
+            if (added.add(base))
+            {
+                List<PackFile> stream = streams.get(base.getStreamResourceName());
+                if (stream == null)
+                {
+                    stream = new ArrayList<PackFile>();
+                    streams.put(base.getStreamResourceName(), stream);
+                }
+                stream.add(base);
+            }
+        }
+        for (Map.Entry<String, List<PackFile>> entry : streams.entrySet())
+        {
+            List<PackFile> stream = entry.getValue();
+            Collections.sort(stream, new Comparator<PackFile>()
+            {
+                @Override
+                public int compare(PackFile o1, PackFile o2)
+                {
+                    int result = compareLong(o1.getStreamOffset(), o2.getStreamOffset());
+                    return (result != 0) ? result : compareLong(o1.getChunkOffset(), o2.getChunkOffset());
+                }
+            });
+            extract(entry.getKey(), stream);
+        }
+    }
+
+    /**
+     * Extracts files from a pack stream.
+     *
+     * @param streamResourceName the pack stream resource name
+     * @param stream             the files to extract, in pack stream order
+     * @throws IOException for any I/O error
+     */
+    private void extract(String streamResourceName, List<PackFile> stream) throws IOException
+    {
+        PackCompression format = info.getCompressionFormat();
+        ZipEntry entry = jar.getEntry(PackagerBase.RESOURCES_PATH + streamResourceName);
+        CountingInputStream packStream = new CountingInputStream(new BufferedInputStream(jar.getInputStream(entry)));
+        SolidPackReader solidReader = null;
+        try
+        {
+            for (PackFile base : stream)
+            {
+                InputStream in;
+                if (base.isSolid())
+                {
+                    if (solidReader == null)
+                    {
+                        solidReader = new SolidPackReader(packStream, format);
+                    }
+                    in = solidReader.getInputStream(base);
+                }
+                else
+                {
+                    IOUtils.skipFully(packStream, base.getStreamOffset() - packStream.getByteCount());
+                    BoundedInputStream bounded = new BoundedInputStream(packStream, base.size());
+                    bounded.setPropagateClose(false);
+                    in = (format == PackCompression.DEFAULT) ? bounded
+                            : CompressedFileUnpacker.createInputStream(format, bounded);
+                }
+
+                File file = File.createTempFile("izpack-base", null, tempDir);
+                MessageDigest digest = PackagerBase.createDigest();
+                OutputStream out = new DigestOutputStream(IOUtils.buffer(FileUtils.openOutputStream(file)), digest);
+                long length;
+                try
+                {
+                    length = IOUtils.copyLarge(in, out, 0, base.length());
+                }
+                finally
+                {
+                    out.close();
+                }
+                if (length == base.length() && Arrays.equals(digest.digest(), base.getDigest()))
+                {
+                    content.put(base, file);
+                }
+                else
+                {
+                    logger.warning("Content of " + base.getTargetPath() + " in " + jar.getName()
+                                           + " doesn't match its digest. It will be stored in full");
+                    FileUtils.deleteQuietly(file);
+                }
+            }
+        }
+        finally
+        {
+            if (solidReader != null)
+            {
+                solidReader.close();
+            }
+            IOUtils.closeQuietly(packStream);
+        }
+    }
+
+    /**
+     * Reads a serialized object from the installer.
+     *
+     * @param name the resource name
+     * @return the object
+     * @throws IOException if the resource doesn't exist or cannot be read
+     */
+    private Object readObject(String name) throws IOException
+    {
+        ZipEntry entry = jar.getEntry(name);
+        if (entry == null)
+        {
+            throw new IOException(jar.getName() + " is not an IzPack installer: " + name + " not found");
+        }
+        ObjectInputStream in = new ObjectInputStream(jar.getInputStream(entry));
+        try
+        {
+            return in.readObject();
+        }
+        catch (ClassNotFoundException exception)
+        {
+            throw new IOException("Failed to read " + name + " from " + jar.getName(), exception);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Calculates the digest of a file.
+     *
+     * @param file the file
+     * @return the digest
+     * @throws IOException for any I/O error
+     */
+    private static byte[] digest(File file) throws IOException
+    {
+        MessageDigest digest = PackagerBase.createDigest();
+        FileUtils.copyFile(file, new DigestOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, digest));
+        return digest.digest();
+    }
+
+    /**
+     * Compares two longs.
+     *
+     * @param a the first value
+     * @param b the second value
+     * @return a negative integer, zero, or a positive integer if the first value is less than, equal to, or greater
+     *         than the second value
+     */
+    private static int compareLong(long a, long b)
+    {
+        return (a < b) ? -1 : ((a == b) ? 0 : 1);
+    }
+
+}
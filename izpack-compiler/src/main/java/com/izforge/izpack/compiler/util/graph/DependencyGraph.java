@@ -18,11 +18,14 @@
  */
 package com.izforge.izpack.compiler.util.graph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -75,6 +78,20 @@ public class DependencyGraph<Vertex>
         return depthUtils.getOrderedList();
     }
 
+    /**
+     * Returns the cycles in the graph.
+     * <p/>
+     * Each cycle is a strongly connected component with more than one vertex, or a single vertex with a self-loop.
+     * Components are found with Tarjan's algorithm, which visits each vertex and edge once. The search doesn't
+     * recurse, so deep graphs can't overflow the stack.
+     *
+     * @return the vertices of each cycle. An empty list if the graph is acyclic
+     */
+    public List<Set<Vertex>> getCycles()
+    {
+        return new ComponentFinder().find();
+    }
+
     @Override
     public String toString()
     {
@@ -94,6 +111,91 @@ public class DependencyGraph<Vertex>
         return s.toString();
     }
 
+    /**
+     * Finds the strongly connected components of the graph that form cycles, using Tarjan's algorithm.
+     */
+    private class ComponentFinder
+    {
+        private final Map<Vertex, Integer> indexes = new HashMap<Vertex, Integer>();
+        private final Map<Vertex, Integer> lowLinks = new HashMap<Vertex, Integer>();
+        private final Deque<Vertex> stack = new ArrayDeque<Vertex>();
+        private final Set<Vertex> onStack = new HashSet<Vertex>();
+        private final Deque<Vertex> path = new ArrayDeque<Vertex>();
+        private final Deque<Iterator<Vertex>> edges = new ArrayDeque<Iterator<Vertex>>();
+        private final List<Set<Vertex>> cycles = new ArrayList<Set<Vertex>>();
+
+        private List<Set<Vertex>> find()
+        {
+            for (Vertex root : st.keySet())
+            {
+                if (!indexes.containsKey(root))
+                {
+                    visit(root);
+                    while (!path.isEmpty())
+                    {
+                        Vertex v = path.peek();
+                        Iterator<Vertex> iterator = edges.peek();
+                        if (iterator.hasNext())
+                        {
+                            Vertex w = iterator.next();
+                            if (!indexes.containsKey(w))
+                            {
+                                visit(w);
+                            }
+                            else if (onStack.contains(w))
+                            {
+                                lowLinks.put(v, Math.min(lowLinks.get(v), indexes.get(w)));
+                            }
+                        }
+                        else
+                        {
+                            path.pop();
+                            edges.pop();
+                            if (!path.isEmpty())
+                            {
+                                Vertex u = path.peek();
+                                lowLinks.put(u, Math.min(lowLinks.get(u), lowLinks.get(v)));
+                            }
+                            if (lowLinks.get(v).equals(indexes.get(v)))
+                            {
+                                addComponent(v);
+                            }
+                        }
+                    }
+                }
+            }
+            return cycles;
+        }
+
+        private void visit(Vertex v)
+        {
+            int index = indexes.size();
+            indexes.put(v, index);
+            lowLinks.put(v, index);
+            stack.push(v);
+            onStack.add(v);
+            path.push(v);
+            edges.push(st.get(v).iterator());
+        }
+
+        private void addComponent(Vertex root)
+        {
+            Set<Vertex> component = new HashSet<Vertex>();
+            Vertex w;
+            do
+            {
+                w = stack.pop();
+                onStack.remove(w);
+                component.add(w);
+            }
+            while (!w.equals(root));
+            if (component.size() > 1 || st.get(root).contains(root))
+            {
+                cycles.add(component);
+            }
+        }
+    }
+
     /**
      * utility class for DependencyGraph
      * provides
@@ -0,0 +1,146 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.api.exception.CompilerException;
+
+
+/**
+ * Tests the pack checks of the {@link Compiler}.
+ */
+public class CompilerTest
+{
+
+    /**
+     * The compiler.
+     */
+    private final Compiler compiler = new Compiler(null, null);
+
+    /**
+     * Verifies that valid dependencies are accepted.
+     */
+    @Test
+    public void testDependencies()
+    {
+        PackInfo a = createPack("a", null);
+        PackInfo b = createPack("b", null, "a");
+        PackInfo c = createPack("c", null, "a", "b");
+        compiler.checkDependencies(Arrays.asList(a, b, c));
+    }
+
+    /**
+     * Verifies that circular dependencies are detected.
+     */
+    @Test
+    public void testCircularDependency()
+    {
+        PackInfo a = createPack("a", null, "c");
+        PackInfo b = createPack("b", null, "a");
+        PackInfo c = createPack("c", null, "b");
+        checkDependencies(Arrays.asList(createPack("d", null), a, b, c), "Circular dependency detected");
+    }
+
+    /**
+     * Verifies that a missing dependency is reported in preference to a circular dependency.
+     */
+    @Test
+    public void testMissingDependency()
+    {
+        PackInfo a = createPack("a", null, "b");
+        PackInfo b = createPack("b", null, "a");
+        PackInfo c = createPack("c", null, "x");
+        checkDependencies(Arrays.asList(a, b, c), "A dependency doesn't exist");
+    }
+
+    /**
+     * Verifies that two preselected packs in the same exclude group are detected.
+     */
+    @Test
+    public void testExcludes()
+    {
+        PackInfo a = createPack("a", "group");
+        PackInfo b = createPack("b", "group");
+        PackInfo c = createPack("c", "group");
+        PackInfo d = createPack("d", "other");
+        a.setPreselected(true);
+        d.setPreselected(true);
+        compiler.checkExcludes(Arrays.asList(a, b, d));
+
+        b.setPreselected(true);
+        c.setPreselected(true);
+        try
+        {
+            compiler.checkExcludes(Arrays.asList(a, d, b, c));
+            fail("Expected CompilerException");
+        }
+        catch (CompilerException expected)
+        {
+            assertEquals("Packs b and a belong to the same excludeGroup group and are both preselected. "
+                                 + "This is not allowed.", expected.getMessage());
+        }
+    }
+
+    /**
+     * Verifies that checking dependencies fails with the expected message.
+     *
+     * @param packs   the packs
+     * @param message the expected message
+     */
+    private void checkDependencies(List<PackInfo> packs, String message)
+    {
+        try
+        {
+            compiler.checkDependencies(packs);
+            fail("Expected CompilerException");
+        }
+        catch (CompilerException expected)
+        {
+            assertEquals(message, expected.getMessage());
+        }
+    }
+
+    /**
+     * Creates a pack.
+     *
+     * @param name         the pack name
+     * @param excludeGroup the exclude group. May be {@code null}
+     * @param dependencies the names of the packs it depends on
+     * @return a new pack
+     */
+    private static PackInfo createPack(String name, String excludeGroup, String... dependencies)
+    {
+        PackInfo pack = new PackInfo(name, null, null, false, false, excludeGroup, true, 0);
+        for (String dependency : dependencies)
+        {
+            pack.addDependency(dependency);
+        }
+        return pack;
+    }
+
+}
@@ -23,6 +23,7 @@ import com.izforge.izpack.api.data.Blockable;
 import com.izforge.izpack.api.data.Info;
 import com.izforge.izpack.api.data.OverrideType;
 import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.api.data.binding.OsModel;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.compiler.data.CompilerData;
 import com.izforge.izpack.compiler.merge.CompilerPathResolver;
@@ -38,9 +39,13 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -101,6 +106,50 @@ public class PackagerTest extends AbstractPackagerTest
         System.out.println("Writing pack of " + packSize + " KiB took " + timeDiff + "ms");
     }
 
+    /**
+     * Verifies that platform streams are only written for platforms with files to read.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPlatformStreams() throws Exception
+    {
+        File installerJar = temporaryFolder.newFile("installer.jar");
+        File root = temporaryFolder.getRoot();
+        File windows = TestHelper.createFile(root, "windows.dat", 1024);
+        File empty = TestHelper.createFile(root, "empty.dat", 0);
+        File dir = temporaryFolder.newFolder("dir");
+
+        PackInfo packInfo = createPackInfo("Core");
+        addFile(packInfo, windows, "windows");
+        addFile(packInfo, empty, "unix");
+        addFile(packInfo, dir, "mac");
+
+        JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(installerJar));
+        IPackager packager = createPackager(jarOutputStream, mock(MergeManager.class));
+        packager.addPack(packInfo);
+        packager.createInstaller();
+
+        JarFile jar = new JarFile(installerJar);
+        try
+        {
+            assertNotNull(jar.getEntry(PackagerBase.RESOURCES_PATH + "packs/os1-pack-Core"));
+            assertNull(jar.getEntry(PackagerBase.RESOURCES_PATH + "packs/os2-pack-Core"));
+        }
+        finally
+        {
+            jar.close();
+        }
+    }
+
+    private void addFile(PackInfo packInfo, File file, String family) throws IOException
+    {
+        List<OsModel> osList = Collections.singletonList(new OsModel(null, family, null, null, null));
+        packInfo.addFile(file.getParentFile(), file, "$INSTALL_DIR/" + file.getName(), osList,
+                OverrideType.OVERRIDE_TRUE, "", Blockable.BLOCKABLE_NONE, Collections.emptyMap(),
+                "", null);
+    }
+
     private PackInfo createPackInfo(String name, File... files) throws IOException {
 
         PackInfo packInfo = new PackInfo(name, null, "", true, false, null, true, calculateTotalSize(files));
@@ -18,11 +18,15 @@
  */
 package com.izforge.izpack.compiler.util.graph;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -55,6 +59,35 @@ public class DependencyGraphTest {
         testUnique(list);
     }
 
+    /**
+     * Test method for {@link com.izforge.izpack.compiler.util.graph.DependencyGraph#getCycles()}.
+     */
+    @Test
+    public void testGetCycles() {
+        DependencyGraph<String> graph = new DependencyGraph<String>();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "c");
+        graph.addEdge("c", "a");
+        graph.addEdge("c", "d");
+        graph.addEdge("e", "e");
+        graph.addEdge("f", "d");
+        List<Set<String>> cycles = graph.getCycles();
+        assertEquals(2, cycles.size());
+        assertTrue(cycles.contains(new HashSet<String>(Arrays.asList("a", "b", "c"))));
+        assertTrue(cycles.contains(new HashSet<String>(Arrays.asList("e"))));
+
+        // a long chain doesn't recurse
+        DependencyGraph<Integer> chain = new DependencyGraph<Integer>();
+        for (int i = 0; i < 100000; i++)
+        {
+            chain.addEdge(i, i + 1);
+        }
+        assertTrue(chain.getCycles().isEmpty());
+        chain.addEdge(100000, 0);
+        assertEquals(1, chain.getCycles().size());
+        assertEquals(100001, chain.getCycles().get(0).size());
+    }
+
     private void testContained(List<? extends Object> list, Object var)
     {
         assertTrue(String.format("'%s' must be contained in list '%s'",var,list), list.contains(var));
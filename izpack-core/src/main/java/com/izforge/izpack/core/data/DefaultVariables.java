@@ -26,6 +26,8 @@ import com.izforge.izpack.api.data.Overrides;
 import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.api.exception.IzPackException;
+import com.izforge.izpack.api.metrics.InstallMetrics;
+import com.izforge.izpack.api.metrics.PhaseTimer;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
@@ -129,12 +131,18 @@ public class DefaultVariables implements Variables
         if (value != null)
         {
             properties.setProperty(name, value);
-            logger.fine("Dynamic variable '" + name + "' set to '" + value + "'");
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Dynamic variable '" + name + "' set to '" + value + "'");
+            }
         }
         else
         {
             properties.remove(name);
-            logger.fine("Dynamic variable '" + name + "' unset");
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Dynamic variable '" + name + "' unset");
+            }
         }
     }
 
@@ -312,94 +320,105 @@ public class DefaultVariables implements Variables
     public synchronized void refresh() throws InstallerException
     {
         logger.fine("Refreshing dynamic variables");
-        Set<DynamicVariable> checkedVariables = new HashSet<DynamicVariable>();
-        Set<String> unsetVariables = new HashSet<String>();
-        Set<String> setVariables = new HashSet<String>();
-
-        for (DynamicVariable variable : dynamicVariables)
+        PhaseTimer timer = InstallMetrics.getMetrics().start("variables.refresh");
+        try
         {
-            String name = variable.getName();
-            if (!isBlockedVariableName(name) && !containsOverride(name))
+            Set<DynamicVariable> checkedVariables = new HashSet<DynamicVariable>();
+            Set<String> unsetVariables = new HashSet<String>();
+            Set<String> setVariables = new HashSet<String>();
+
+            for (DynamicVariable variable : dynamicVariables)
             {
-                String conditionId = variable.getConditionid();
-                if (conditionId == null || rules.isConditionTrue(conditionId))
+                String name = variable.getName();
+                if (!isBlockedVariableName(name) && !containsOverride(name))
                 {
-                    if (!(variable.isCheckonce() && variable.isChecked()))
+                    String conditionId = variable.getConditionid();
+                    if (conditionId == null || rules.isConditionTrue(conditionId))
                     {
-                        String newValue;
-                        try
-                        {
-                            newValue = variable.evaluate(replacer);
-                        }
-                        catch (IzPackException exception)
-                        {
-                            throw exception;
-                        }
-                        catch (Exception exception)
+                        if (!(variable.isCheckonce() && variable.isChecked()))
                         {
-                            throw new IzPackException("Failed to refresh dynamic variable (" + name + ")", exception);
-                        }
-                        if (newValue == null)
-                        {
-                            if (variable.isAutoUnset())
+                            String newValue;
+                            InstallMetrics.getMetrics().increment("variables.evaluated");
+                            try
                             {
-                                // Mark unset if dynamic variable cannot be evaluated and failOnError set
-                                unsetVariables.add(name);
+                                newValue = variable.evaluate(replacer);
+                            }
+                            catch (IzPackException exception)
+                            {
+                                throw exception;
+                            }
+                            catch (Exception exception)
+                            {
+                                throw new IzPackException("Failed to refresh dynamic variable (" + name + ")",
+                                                          exception);
+                            }
+                            if (newValue == null)
+                            {
+                                if (variable.isAutoUnset())
+                                {
+                                    // Mark unset if dynamic variable cannot be evaluated and failOnError set
+                                    unsetVariables.add(name);
+                                }
+                            }
+                            else
+                            {
+                                set(name, newValue); // Set here for properly set conditions
+                                setVariables.add(name);
+                            }
+                            // FIXME: Possible problem if regular value contains dollar sign (for example password)
+                            if (!(newValue == null || ValueUtils.isUnresolved(newValue)))
+                            {
+                                variable.setChecked();
+                            } else {
+                                checkedVariables.add(variable);
                             }
                         }
                         else
                         {
-                            set(name, newValue); // Set here for properly set conditions
-                            setVariables.add(name);
-                        }
-                        // FIXME: Possible problem if regular value contains dollar sign (for example password)
-                        if (!(newValue == null || ValueUtils.isUnresolved(newValue)))
-                        {
-                            variable.setChecked();
-                        } else {
-                            checkedVariables.add(variable);
+                            String previousValue = properties.getProperty(name);
+                            if (previousValue != null)
+                            {
+                                set(name, previousValue); // Set here for properly set conditions
+                                setVariables.add(name);
+                            }
                         }
                     }
                     else
                     {
-                        String previousValue = properties.getProperty(name);
-                        if (previousValue != null)
+                        if (variable.isAutoUnset())
                         {
-                            set(name, previousValue); // Set here for properly set conditions
-                            setVariables.add(name);
+                            // Mark unset if condition is not true
+                            unsetVariables.add(name);
                         }
                     }
                 }
-                else
+                else if (logger.isLoggable(Level.FINE))
                 {
-                    if (variable.isAutoUnset())
-                    {
-                        // Mark unset if condition is not true
-                        unsetVariables.add(name);
-                    }
+                    logger.fine("Dynamic variable '" + name + "' blocked from changing due to user input");
                 }
             }
-            else {
-                logger.fine("Dynamic variable '" + name + "' blocked from changing due to user input");
-            }
-        }
 
-        for (String key : unsetVariables)
-        {
-            // Don't unset dynamic variable from one definition, which
-            // are set to a value from another one during this refresh
-            if (!setVariables.contains(key))
+            for (String key : unsetVariables)
             {
-                if (get(key)!=null)
+                // Don't unset dynamic variable from one definition, which
+                // are set to a value from another one during this refresh
+                if (!setVariables.contains(key))
                 {
-                    set(key, null);
+                    if (get(key)!=null)
+                    {
+                        set(key, null);
+                    }
                 }
             }
-        }
 
-        for (DynamicVariable variable : checkedVariables)
+            for (DynamicVariable variable : checkedVariables)
+            {
+                variable.setChecked();
+            }
+        }
+        finally
         {
-            variable.setChecked();
+            timer.stop();
         }
     }
 
@@ -0,0 +1,378 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+
+/**
+ * Encodes and applies binary deltas, i.e. the instructions to rebuild a new version of a file from an old version.
+ * <p/>
+ * A delta is a sequence of <em>copy</em> instructions, that copy a range of the base file, and <em>insert</em>
+ * instructions, that supply literal bytes. Encoding indexes the base at fixed size blocks and scans the target with
+ * a rolling hash for matching blocks, extending each match in both directions.
+ * <p/>
+ * The format is:
+ * <pre>
+ * int  magic
+ * long base length
+ * long target length
+ * { byte COPY,   varlong offset, varlong length
+ * | byte INSERT, varlong length, byte[length] } *
+ * byte END
+ * </pre>
+ */
+public final class BinaryDelta
+{
+
+    /**
+     * The delta file magic number.
+     */
+    private static final int MAGIC = 0x495A4431;
+
+    /**
+     * End of delta instruction.
+     */
+    private static final int END = 0;
+
+    /**
+     * Copy from base instruction.
+     */
+    private static final int COPY = 1;
+
+    /**
+     * Insert literal bytes instruction.
+     */
+    private static final int INSERT = 2;
+
+    /**
+     * The size of the blocks used to find matches. Matches shorter than this aren't found.
+     */
+    private static final int BLOCK_SIZE = 32;
+
+    /**
+     * The rolling hash multiplier.
+     */
+    private static final int PRIME = 31;
+
+    /**
+     * {@link #PRIME} raised to the power of {@link #BLOCK_SIZE} - 1, used to remove the leading byte from the hash.
+     */
+    private static final int PRIME_POWER;
+
+    static
+    {
+        int power = 1;
+        for (int i = 1; i < BLOCK_SIZE; ++i)
+        {
+            power *= PRIME;
+        }
+        PRIME_POWER = power;
+    }
+
+    /**
+     * Private constructor, to prevent instantiation.
+     */
+    private BinaryDelta()
+    {
+    }
+
+    /**
+     * Encodes the delta between two versions of a file.
+     *
+     * @param base   the base content
+     * @param target the target content
+     * @param out    the stream to write the delta to. This is not closed
+     * @throws IOException for any I/O error
+     */
+    public static void encode(byte[] base, byte[] target, OutputStream out) throws IOException
+    {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeLong(base.length);
+        data.writeLong(target.length);
+
+        int[] index = index(base);
+        int mask = index.length - 1;
+        int pending = 0;   // the start of the bytes not yet copied or inserted
+        int pos = 0;
+        int hash = 0;
+        boolean hashed = false;
+        while (pos + BLOCK_SIZE <= target.length)
+        {
+            if (!hashed)
+            {
+                hash = hash(target, pos);
+                hashed = true;
+            }
+            int candidate = index[mix(hash) & mask];
+            if (candidate >= 0 && regionMatches(base, candidate, target, pos, BLOCK_SIZE))
+            {
+                // extend the match backwards into the pending bytes, and forwards
+                int start = pos;
+                int baseStart = candidate;
+                while (start > pending && baseStart > 0 && target[start - 1] == base[baseStart - 1])
+                {
+                    --start;
+                    --baseStart;
+                }
+                int end = pos + BLOCK_SIZE;
+                int baseEnd = candidate + BLOCK_SIZE;
+                while (end < target.length && baseEnd < base.length && target[end] == base[baseEnd])
+                {
+                    ++end;
+                    ++baseEnd;
+                }
+                insert(target, pending, start - pending, data);
+                data.writeByte(COPY);
+                writeVarLong(baseStart, data);
+                writeVarLong(end - start, data);
+                pending = end;
+                pos = end;
+                hashed = false;
+            }
+            else
+            {
+                if (pos + BLOCK_SIZE < target.length)
+                {
+                    hash = (hash - target[pos] * PRIME_POWER) * PRIME + target[pos + BLOCK_SIZE];
+                }
+                ++pos;
+            }
+        }
+        insert(target, pending, target.length - pending, data);
+        data.writeByte(END);
+        data.flush();
+    }
+
+    /**
+     * Applies a delta to a base file.
+     *
+     * @param base  the base file
+     * @param delta the delta stream
+     * @param out   the stream to write the target content to. This is not closed
+     * @return the number of bytes written
+     * @throws IOException if the delta is invalid, or doesn't apply to the base, or for any other I/O error
+     */
+    public static long apply(RandomAccessFile base, InputStream delta, OutputStream out) throws IOException
+    {
+        DataInputStream data = new DataInputStream(delta);
+        if (data.readInt() != MAGIC)
+        {
+            throw new IOException("Invalid delta");
+        }
+        long baseLength = data.readLong();
+        long targetLength = data.readLong();
+        if (base.length() != baseLength)
+        {
+            throw new IOException("Delta expects a base of " + baseLength + " bytes, but base has " + base.length()
+                                          + " bytes");
+        }
+        byte[] buffer = new byte[8192];
+        long written = 0;
+        int op;
+        while ((op = data.readUnsignedByte()) != END)
+        {
+            if (op == COPY)
+            {
+                long offset = readVarLong(data);
+                long length = readVarLong(data);
+                if (offset + length > baseLength)
+                {
+                    throw new IOException("Delta copies beyond the end of the base");
+                }
+                base.seek(offset);
+                while (length > 0)
+                {
+                    int count = (int) Math.min(buffer.length, length);
+                    base.readFully(buffer, 0, count);
+                    out.write(buffer, 0, count);
+                    length -= count;
+                    written += count;
+                }
+            }
+            else if (op == INSERT)
+            {
+                long length = readVarLong(data);
+                while (length > 0)
+                {
+                    int count = (int) Math.min(buffer.length, length);
+                    data.readFully(buffer, 0, count);
+                    out.write(buffer, 0, count);
+                    length -= count;
+                    written += count;
+                }
+            }
+            else
+            {
+                throw new IOException("Invalid delta instruction: " + op);
+            }
+        }
+        if (written != targetLength)
+        {
+            throw new IOException("Delta produced " + written + " bytes, but expected " + targetLength);
+        }
+        return written;
+    }
+
+    /**
+     * Indexes the blocks of the base content on their hash.
+     *
+     * @param base the base content
+     * @return the block offsets, indexed on hash. Unused slots contain {@code -1}
+     */
+    private static int[] index(byte[] base)
+    {
+        int blocks = base.length / BLOCK_SIZE;
+        int size = Integer.highestOneBit(Math.max(blocks, 1) * 2 - 1) << 1;
+        int[] result = new int[size];
+        Arrays.fill(result, -1);
+        int mask = size - 1;
+
+        // index in reverse, so that the earliest block with a given hash wins
+        for (int i = blocks - 1; i >= 0; --i)
+        {
+            int offset = i * BLOCK_SIZE;
+            result[mix(hash(base, offset)) & mask] = offset;
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the rolling hash of a block.
+     *
+     * @param bytes  the bytes
+     * @param offset the offset of the block
+     * @return the hash
+     */
+    private static int hash(byte[] bytes, int offset)
+    {
+        int result = 0;
+        for (int i = offset; i < offset + BLOCK_SIZE; ++i)
+        {
+            result = result * PRIME + bytes[i];
+        }
+        return result;
+    }
+
+    /**
+     * Spreads the bits of a hash, as the rolling hash is weak in its low bits.
+     *
+     * @param hash the hash
+     * @return the mixed hash
+     */
+    private static int mix(int hash)
+    {
+        int result = hash * 0x9E3779B9;
+        return result ^ (result >>> 16);
+    }
+
+    /**
+     * Determines if two regions match.
+     *
+     * @param a       the first array
+     * @param aOffset the offset into the first array
+     * @param b       the second array
+     * @param bOffset the offset into the second array
+     * @param length  the length of the regions
+     * @return {@code true} if the regions match
+     */
+    private static boolean regionMatches(byte[] a, int aOffset, byte[] b, int bOffset, int length)
+    {
+        if (aOffset + length > a.length || bOffset + length > b.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; ++i)
+        {
+            if (a[aOffset + i] != b[bOffset + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes an insert instruction, if there are bytes to insert.
+     *
+     * @param bytes  the bytes
+     * @param offset the offset of the bytes to insert
+     * @param length the number of bytes to insert
+     * @param out    the stream to write to
+     * @throws IOException for any I/O error
+     */
+    private static void insert(byte[] bytes, int offset, int length, DataOutputStream out) throws IOException
+    {
+        if (length > 0)
+        {
+            out.writeByte(INSERT);
+            writeVarLong(length, out);
+            out.write(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Writes a non-negative long using 7 bits per byte.
+     *
+     * @param value the value to write
+     * @param out   the stream to write to
+     * @throws IOException for any I/O error
+     */
+    private static void writeVarLong(long value, DataOutputStream out) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a long written by {@link #writeVarLong}.
+     *
+     * @param in the stream to read from
+     * @return the value
+     * @throws IOException for any I/O error
+     */
+    private static long readVarLong(DataInputStream in) throws IOException
+    {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return result;
+            }
+        }
+        throw new EOFException("Invalid delta length");
+    }
+
+}
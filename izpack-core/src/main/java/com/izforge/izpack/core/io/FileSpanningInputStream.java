@@ -18,6 +18,7 @@
 
 package com.izforge.izpack.core.io;
 
+import com.izforge.izpack.util.NoCloseInputStream;
 import org.apache.commons.io.IOUtils;
 
 import java.io.File;
@@ -25,6 +26,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
@@ -32,6 +35,10 @@ import java.util.zip.GZIPInputStream;
 
 /**
  * An <tt>InputStream</tt> which transparently spans over multiple volumes.
+ * <p/>
+ * If the {@link VolumeSegment segments} written by the {@link FileSpanningOutputStream} are
+ * {@link #setSegments(List) supplied}, {@link #seek(long)} and {@link #skip(long)} start decompressing at the
+ * nearest segment, and don't require the volumes in between to be present.
  *
  * @author Dennis Reil, <Dennis.Reil@reddot.de>
  * @author Tim Anderson
@@ -54,6 +61,11 @@ public class FileSpanningInputStream extends InputStream
      */
     private long filePointer;
 
+    /**
+     * The independently compressed segments, in order of file pointer.
+     */
+    private List<VolumeSegment> segments = Collections.emptyList();
+
 
     /**
      * The logger.
@@ -72,7 +84,73 @@ public class FileSpanningInputStream extends InputStream
     public FileSpanningInputStream(File volume, int volumes) throws IOException
     {
         spanningInputStream = new SpanningInputStream(volume, volumes);
-        zippedInputStream = new GZIPInputStream(spanningInputStream);
+        zippedInputStream = new GZIPInputStream(new NoCloseInputStream(spanningInputStream));
+    }
+
+    /**
+     * Sets the independently compressed segments of the volumes.
+     *
+     * @param segments the segments, in order of file pointer
+     */
+    public void setSegments(List<VolumeSegment> segments)
+    {
+        this.segments = segments;
+    }
+
+    /**
+     * Moves to the specified offset.
+     * <p/>
+     * This starts decompressing at the nearest preceding segment if that is after the current position, or if the
+     * offset precedes the current position.
+     *
+     * @param position the absolute offset into the (uncompressed) volumes
+     * @throws IOException if the offset precedes the current position and there is no segment to start from, or for
+     *                     any other I/O error
+     */
+    public void seek(long position) throws IOException
+    {
+        jump(position);
+        if (position < filePointer)
+        {
+            throw new IOException("Cannot seek back from " + filePointer + " to " + position);
+        }
+        long bytes = position - filePointer;
+        long skipped = skipStream(bytes);
+        if (skipped != bytes)
+        {
+            throw new IOException("Expected to skip: " + bytes + " in stream but skipped: " + skipped);
+        }
+    }
+
+    /**
+     * Restarts decompression at the nearest segment preceding an offset, if that is after the current position, or
+     * if the offset precedes the current position.
+     *
+     * @param position the absolute offset into the (uncompressed) volumes
+     * @throws IOException for any I/O error
+     */
+    private void jump(long position) throws IOException
+    {
+        VolumeSegment segment = null;
+        for (VolumeSegment next : segments)
+        {
+            if (next.getFilePointer() > position)
+            {
+                break;
+            }
+            segment = next;
+        }
+        if (segment != null && (position < filePointer || segment.getFilePointer() > filePointer))
+        {
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Seeking to " + segment + " for position " + position);
+            }
+            zippedInputStream.close();
+            spanningInputStream.seek(segment.getVolume(), segment.getOffset());
+            zippedInputStream = new GZIPInputStream(new NoCloseInputStream(spanningInputStream));
+            filePointer = segment.getFilePointer();
+        }
     }
 
     /**
@@ -161,6 +239,25 @@ public class FileSpanningInputStream extends InputStream
      */
     @Override
     public long skip(long n) throws IOException
+    {
+        if (n <= 0)
+        {
+            return 0;
+        }
+        long start = filePointer;
+        jump(start + n);
+        skipStream(start + n - filePointer);
+        return filePointer - start;
+    }
+
+    /**
+     * Skips bytes by decompressing them.
+     *
+     * @param n the number of bytes to skip
+     * @return the number of bytes skipped
+     * @throws IOException for any I/O error
+     */
+    private long skipStream(long n) throws IOException
     {
         long skipped = zippedInputStream.skip(n);
         long count = skipped;
@@ -331,6 +428,26 @@ public class FileSpanningInputStream extends InputStream
             return read;
         }
 
+        /**
+         * Returns an estimate of the number of bytes that can be read without blocking.
+         * <p/>
+         * This is non-zero while there are volumes left to read, so that GZIP members following the end of a volume
+         * are read.
+         *
+         * @return an estimate of the number of bytes that can be read
+         * @throws IOException for any I/O error
+         */
+        @Override
+        public int available() throws IOException
+        {
+            int result = stream.available();
+            if (result == 0 && index + 1 < volumes)
+            {
+                result = 1;
+            }
+            return result;
+        }
+
         /**
          * Returns the volume being read.
          *
@@ -341,6 +458,25 @@ public class FileSpanningInputStream extends InputStream
             return current;
         }
 
+        /**
+         * Moves to an offset in a volume.
+         *
+         * @param volume the volume index
+         * @param offset the offset into the volume, including the magic number
+         * @throws CorruptVolumeException  if the magic no. of the volume does not match that expected
+         * @throws VolumeNotFoundException if the volume was not found
+         * @throws IOException             for any other I/O error
+         */
+        public void seek(int volume, long offset) throws IOException
+        {
+            if (volume < 0 || volume >= volumes)
+            {
+                throw new IOException("Invalid volume: " + volume);
+            }
+            openVolume(volume);
+            IOUtils.skipFully(stream, offset - FileSpanningOutputStream.MAGIC_NUMBER_LENGTH);
+        }
+
         /**
          * Closes this input stream and releases any system resources associated
          * with the stream.
@@ -370,50 +506,62 @@ public class FileSpanningInputStream extends InputStream
             }
             else
             {
-                // the next volume name
-                String volumePath = basePath + "." + (index + 1);
-                File volume = new File(volumePath);
-                boolean found = false;
-                while (!found)
+                openVolume(index + 1);
+                result = true;
+            }
+            return result;
+        }
+
+        /**
+         * Opens a volume, positioned after its magic number.
+         *
+         * @param volumeIndex the volume index
+         * @throws CorruptVolumeException  if the magic no. of the volume does not match that expected
+         * @throws VolumeNotFoundException if the volume was not found
+         * @throws IOException             for any other I/O error
+         */
+        private void openVolume(int volumeIndex) throws IOException
+        {
+            String volumePath = (volumeIndex == 0) ? basePath : basePath + "." + volumeIndex;
+            File volume = new File(volumePath);
+            boolean found = false;
+            while (!found)
+            {
+                if (volume.exists())
                 {
-                    if (volume.exists())
+                    try
+                    {
+                        // try to open new stream to the volume
+                        IOUtils.closeQuietly(stream);
+                        stream = new FileInputStream(volume);
+                        current = volume;
+                        checkMagicNumber();
+                        found = true;
+                    }
+                    catch (CorruptVolumeException exception)
                     {
-                        try
+                        if (locator == null)
                         {
-                            // try to open new stream to next volume
-                            IOUtils.closeQuietly(stream);
-                            stream = new FileInputStream(volume);
-                            current = volume;
-                            checkMagicNumber();
-                            found = true;
+                            throw exception;
                         }
-                        catch (CorruptVolumeException exception)
+                        else
                         {
-                            if (locator == null)
-                            {
-                                throw exception;
-                            }
-                            else
-                            {
-                                volume = locator.getVolume(volume.getAbsolutePath(), true);
-                            }
+                            volume = locator.getVolume(volume.getAbsolutePath(), true);
                         }
                     }
-                    else if (locator != null)
-                    {
-                        volume = locator.getVolume(volume.getAbsolutePath(), false);
-                    }
-                    else
-                    {
-                        throw new VolumeNotFoundException("Volume not found: " + volume.getAbsolutePath(),
-                                                          volume.getAbsolutePath());
-                    }
                 }
-
-                ++index;
-                result = true;
+                else if (locator != null)
+                {
+                    volume = locator.getVolume(volume.getAbsolutePath(), false);
+                }
+                else
+                {
+                    throw new VolumeNotFoundException("Volume not found: " + volume.getAbsolutePath(),
+                                                      volume.getAbsolutePath());
+                }
             }
-            return result;
+
+            index = volumeIndex;
         }
 
         /**
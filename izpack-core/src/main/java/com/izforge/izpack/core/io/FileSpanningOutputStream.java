@@ -22,6 +22,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -30,6 +33,10 @@ import java.util.zip.GZIPOutputStream;
 /**
  * An <tt>OutputStream</tt> which transparently spans over multiple volumes. The size of the volumes and an
  * additional space for the first volume can be specified.
+ * <p/>
+ * The data is compressed as a sequence of GZIP members. A new member may be started with {@link #startSegment()},
+ * so that a {@link FileSpanningInputStream} can {@link FileSpanningInputStream#seek(long) seek} to it without
+ * decompressing the preceding data.
  *
  * @author Dennis Reil, <Dennis.Reil@reddot.de>
  * @author Tim Anderson
@@ -77,6 +84,11 @@ public class FileSpanningOutputStream extends OutputStream
      */
     private long filePointer;
 
+    /**
+     * The independently compressed segments.
+     */
+    private final List<VolumeSegment> segments = new ArrayList<VolumeSegment>();
+
     /**
      * The logger.
      */
@@ -127,9 +139,49 @@ public class FileSpanningOutputStream extends OutputStream
     public FileSpanningOutputStream(File volume, long maxFirstVolumeSize, long maxVolumeSize) throws IOException
     {
         spanningOutputStream = new SpanningOutputStream(volume, maxFirstVolumeSize, maxVolumeSize);
+        segments.add(new VolumeSegment(0, 0, MAGIC_NUMBER_LENGTH));
+        gzipOutputStream = new GZIPOutputStream(spanningOutputStream);
+    }
+
+    /**
+     * Completes the current compressed segment, and starts a new one at the current file pointer.
+     * <p/>
+     * This does nothing if nothing has been written since the current segment started.
+     *
+     * @throws IOException for any I/O error
+     */
+    public void startSegment() throws IOException
+    {
+        if (segments.get(segments.size() - 1).getFilePointer() == filePointer)
+        {
+            return;
+        }
+        gzipOutputStream.finish();
+        if (spanningOutputStream.getAvailable() == 0)
+        {
+            // start the segment at the beginning of the next volume
+            spanningOutputStream.createNextVolume();
+        }
+        VolumeSegment segment = new VolumeSegment(filePointer, spanningOutputStream.getVolumes() - 1,
+                                                  spanningOutputStream.getByteCount());
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("Starting segment: " + segment);
+        }
+        segments.add(segment);
         gzipOutputStream = new GZIPOutputStream(spanningOutputStream);
     }
 
+    /**
+     * Returns the independently compressed segments written so far.
+     *
+     * @return the segments, in order of file pointer. The first segment starts at the beginning of the first volume
+     */
+    public List<VolumeSegment> getSegments()
+    {
+        return Collections.unmodifiableList(segments);
+    }
+
     /**
      * @see java.io.OutputStream#close()
      */
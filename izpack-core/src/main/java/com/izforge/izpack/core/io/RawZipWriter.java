@@ -0,0 +1,256 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipException;
+
+
+/**
+ * Combines zip archives into a single archive, copying their entries without decompressing and recompressing them.
+ * <p/>
+ * Entries are written in the order the archives are added. If an entry name has already been written, later entries
+ * with that name are dropped. Zip64 archives aren't supported.
+ */
+public class RawZipWriter
+{
+
+    /**
+     * The end of central directory record signature.
+     */
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    /**
+     * The central directory file header signature.
+     */
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+
+    /**
+     * The size of the end of central directory record, excluding the comment.
+     */
+    private static final int END_SIZE = 22;
+
+    /**
+     * The size of a central directory file header, excluding the variable length fields.
+     */
+    private static final int CENTRAL_SIZE = 46;
+
+    /**
+     * The stream to write to.
+     */
+    private final OutputStream out;
+
+    /**
+     * The central directory of the combined archive.
+     */
+    private final ByteArrayOutputStream directory = new ByteArrayOutputStream();
+
+    /**
+     * The names of the entries written, as ISO-8859-1 strings of their raw bytes.
+     */
+    private final Set<String> names = new HashSet<String>();
+
+    /**
+     * The number of bytes written.
+     */
+    private long written;
+
+    /**
+     * The number of entries written.
+     */
+    private int entries;
+
+
+    /**
+     * Constructs a {@code RawZipWriter}.
+     *
+     * @param out the stream to write to. This is not closed
+     */
+    public RawZipWriter(OutputStream out)
+    {
+        this.out = out;
+    }
+
+    /**
+     * Copies the entries of an archive.
+     *
+     * @param zip the archive
+     * @throws ZipException if the archive is invalid or uses Zip64 extensions
+     * @throws IOException  for any I/O error
+     */
+    public void add(byte[] zip) throws IOException
+    {
+        int end = findEnd(zip);
+        int count = readShort(zip, end + 10);
+        long directorySize = readInt(zip, end + 12);
+        long directoryOffset = readInt(zip, end + 16);
+        if (count == 0xFFFF || directoryOffset == 0xFFFFFFFFL || directoryOffset + directorySize > end)
+        {
+            throw new ZipException("Unsupported or invalid zip central directory");
+        }
+
+        // read the central directory. Entries are assumed to be laid out contiguously, so each one ends where the
+        // next one starts, or at the central directory
+        int[] headers = new int[count];
+        long[] offsets = new long[count];
+        int pos = (int) directoryOffset;
+        for (int i = 0; i < count; ++i)
+        {
+            if (pos + CENTRAL_SIZE > end || readInt(zip, pos) != CENTRAL_SIGNATURE)
+            {
+                throw new ZipException("Invalid zip central directory entry");
+            }
+            headers[i] = pos;
+            offsets[i] = readInt(zip, pos + 42);
+            pos += CENTRAL_SIZE + readShort(zip, pos + 28) + readShort(zip, pos + 30) + readShort(zip, pos + 32);
+        }
+        long[] sorted = offsets.clone();
+        Arrays.sort(sorted);
+
+        for (int i = 0; i < count; ++i)
+        {
+            int header = headers[i];
+            int nameLength = readShort(zip, header + 28);
+            String name = new String(zip, header + CENTRAL_SIZE, nameLength, "ISO-8859-1");
+            if (!names.add(name))
+            {
+                continue;
+            }
+            int next = Arrays.binarySearch(sorted, offsets[i]);
+            while (next < count - 1 && sorted[next + 1] == offsets[i])
+            {
+                ++next;
+            }
+            long limit = (next < count - 1) ? sorted[next + 1] : directoryOffset;
+            int length = (int) (limit - offsets[i]);
+            if (length < 0 || offsets[i] + length > zip.length)
+            {
+                throw new ZipException("Invalid zip entry offset for " + name);
+            }
+
+            // copy the entry, and its central directory header with the new offset
+            int headerLength = CENTRAL_SIZE + nameLength + readShort(zip, header + 30) + readShort(zip, header + 32);
+            byte[] copy = Arrays.copyOfRange(zip, header, header + headerLength);
+            writeInt(copy, 42, written);
+            directory.write(copy);
+            out.write(zip, (int) offsets[i], length);
+            written += length;
+            ++entries;
+        }
+    }
+
+    /**
+     * Writes the central directory. No more archives may be added.
+     *
+     * @throws ZipException if the combined archive would require Zip64 extensions
+     * @throws IOException  for any I/O error
+     */
+    public void finish() throws IOException
+    {
+        if (entries >= 0xFFFF || written + directory.size() >= 0xFFFFFFFFL)
+        {
+            throw new ZipException("Combined zip requires Zip64 extensions");
+        }
+        byte[] end = new byte[END_SIZE];
+        writeInt(end, 0, END_SIGNATURE);
+        writeShort(end, 8, entries);
+        writeShort(end, 10, entries);
+        writeInt(end, 12, directory.size());
+        writeInt(end, 16, written);
+        directory.writeTo(out);
+        out.write(end);
+        out.flush();
+    }
+
+    /**
+     * Locates the end of central directory record.
+     *
+     * @param zip the archive
+     * @return the offset of the record
+     * @throws ZipException if the record cannot be found
+     */
+    private static int findEnd(byte[] zip) throws ZipException
+    {
+        for (int pos = zip.length - END_SIZE; pos >= 0 && pos >= zip.length - END_SIZE - 0xFFFF; --pos)
+        {
+            if (readInt(zip, pos) == END_SIGNATURE && pos + END_SIZE + readShort(zip, pos + 20) == zip.length)
+            {
+                return pos;
+            }
+        }
+        throw new ZipException("Zip end of central directory not found");
+    }
+
+    /**
+     * Reads a little-endian unsigned short.
+     *
+     * @param bytes  the bytes
+     * @param offset the offset to read at
+     * @return the value
+     */
+    private static int readShort(byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xFF) | ((bytes[offset + 1] & 0xFF) << 8);
+    }
+
+    /**
+     * Reads a little-endian unsigned int.
+     *
+     * @param bytes  the bytes
+     * @param offset the offset to read at
+     * @return the value
+     */
+    private static long readInt(byte[] bytes, int offset)
+    {
+        return readShort(bytes, offset) | ((long) readShort(bytes, offset + 2) << 16);
+    }
+
+    /**
+     * Writes a little-endian short.
+     *
+     * @param bytes  the bytes
+     * @param offset the offset to write at
+     * @param value  the value
+     */
+    private static void writeShort(byte[] bytes, int offset, int value)
+    {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+    }
+
+    /**
+     * Writes a little-endian int.
+     *
+     * @param bytes  the bytes
+     * @param offset the offset to write at
+     * @param value  the value
+     */
+    private static void writeInt(byte[] bytes, int offset, long value)
+    {
+        writeShort(bytes, offset, (int) value);
+        writeShort(bytes, offset + 2, (int) (value >>> 16));
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.io;
+
+import java.io.Serializable;
+
+
+/**
+ * An independently compressed segment of a {@link FileSpanningOutputStream}.
+ * <p/>
+ * A segment records where its compressed data starts in the volumes, so that a {@link FileSpanningInputStream} can
+ * start decompressing there, without decompressing the preceding data.
+ *
+ * @see FileSpanningOutputStream#startSegment()
+ * @see FileSpanningInputStream#seek(long)
+ */
+public class VolumeSegment implements Serializable
+{
+
+    private static final long serialVersionUID = 3586395539440829406L;
+
+    /**
+     * The uncompressed offset of the segment.
+     */
+    private final long filePointer;
+
+    /**
+     * The index of the volume the segment starts in.
+     */
+    private final int volume;
+
+    /**
+     * The offset of the segment's compressed data in the volume, including the volume magic number.
+     */
+    private final long offset;
+
+
+    /**
+     * Constructs a {@code VolumeSegment}.
+     *
+     * @param filePointer the uncompressed offset of the segment
+     * @param volume      the index of the volume the segment starts in
+     * @param offset      the offset of the segment's compressed data in the volume
+     */
+    public VolumeSegment(long filePointer, int volume, long offset)
+    {
+        this.filePointer = filePointer;
+        this.volume = volume;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns the uncompressed offset of the segment.
+     *
+     * @return the offset into the uncompressed data
+     */
+    public long getFilePointer()
+    {
+        return filePointer;
+    }
+
+    /**
+     * Returns the index of the volume the segment starts in.
+     *
+     * @return the volume index, where {@code 0} is the first volume
+     */
+    public int getVolume()
+    {
+        return volume;
+    }
+
+    /**
+     * Returns the offset of the segment's compressed data in its volume.
+     *
+     * @return the offset, including the volume magic number
+     */
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    /**
+     * Returns a string representation of the segment.
+     *
+     * @return a string representation of the segment
+     */
+    @Override
+    public String toString()
+    {
+        return "VolumeSegment[filePointer=" + filePointer + ", volume=" + volume + ", offset=" + offset + "]";
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.izforge.izpack.api.metrics.Metrics;
+import com.izforge.izpack.api.metrics.PhaseTimer;
+
+
+/**
+ * Default implementation of {@link Metrics} that accumulates all values in memory.
+ */
+public class DefaultMetrics implements Metrics
+{
+
+    /**
+     * The counters, keyed on name.
+     */
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+
+    /**
+     * The timers, keyed on name. Values are in nanoseconds.
+     */
+    private final ConcurrentMap<String, Statistic> timers = new ConcurrentHashMap<String, Statistic>();
+
+    /**
+     * The histograms, keyed on name.
+     */
+    private final ConcurrentMap<String, Statistic> histograms = new ConcurrentHashMap<String, Statistic>();
+
+    /**
+     * The time when collection started, in milliseconds since the epoch.
+     */
+    private final long started = System.currentTimeMillis();
+
+    /**
+     * Returns {@code true}.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isEnabled()
+    {
+        return true;
+    }
+
+    /**
+     * Starts a phase timer.
+     *
+     * @param name the timer name
+     * @return the timer
+     */
+    @Override
+    public PhaseTimer start(final String name)
+    {
+        final long start = System.nanoTime();
+        return new PhaseTimer()
+        {
+            private boolean stopped;
+
+            @Override
+            public synchronized long stop()
+            {
+                long elapsed = 0;
+                if (!stopped)
+                {
+                    stopped = true;
+                    elapsed = System.nanoTime() - start;
+                    getStatistic(timers, name).record(elapsed);
+                }
+                return elapsed;
+            }
+        };
+    }
+
+    /**
+     * Increments a counter by one.
+     *
+     * @param name the counter name
+     */
+    @Override
+    public void increment(String name)
+    {
+        add(name, 1);
+    }
+
+    /**
+     * Adds a value to a counter.
+     *
+     * @param name  the counter name
+     * @param delta the value to add
+     */
+    @Override
+    public void add(String name, long delta)
+    {
+        AtomicLong counter = counters.get(name);
+        if (counter == null)
+        {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null)
+            {
+                counter = created;
+            }
+        }
+        counter.addAndGet(delta);
+    }
+
+    /**
+     * Records a value in a histogram.
+     *
+     * @param name  the histogram name
+     * @param value the value to record
+     */
+    @Override
+    public void record(String name, long value)
+    {
+        getStatistic(histograms, name).record(value);
+    }
+
+    /**
+     * Returns the time when collection started.
+     *
+     * @return the start time, in milliseconds since the epoch
+     */
+    public long getStarted()
+    {
+        return started;
+    }
+
+    /**
+     * Returns the counter values, ordered on name.
+     *
+     * @return the counter values
+     */
+    public Map<String, Long> getCounters()
+    {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet())
+        {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the timers, ordered on name. Values are in nanoseconds.
+     *
+     * @return the timers
+     */
+    public Map<String, Statistic> getTimers()
+    {
+        return new TreeMap<String, Statistic>(timers);
+    }
+
+    /**
+     * Returns the histograms, ordered on name.
+     *
+     * @return the histograms
+     */
+    public Map<String, Statistic> getHistograms()
+    {
+        return new TreeMap<String, Statistic>(histograms);
+    }
+
+    /**
+     * Returns the named statistic, creating it if it doesn't exist.
+     *
+     * @param statistics the statistics
+     * @param name       the statistic name
+     * @return the statistic
+     */
+    private Statistic getStatistic(ConcurrentMap<String, Statistic> statistics, String name)
+    {
+        Statistic statistic = statistics.get(name);
+        if (statistic == null)
+        {
+            Statistic created = new Statistic();
+            statistic = statistics.putIfAbsent(name, created);
+            if (statistic == null)
+            {
+                statistic = created;
+            }
+        }
+        return statistic;
+    }
+
+}
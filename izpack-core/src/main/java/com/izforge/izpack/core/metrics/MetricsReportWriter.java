@@ -0,0 +1,245 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Map;
+
+
+/**
+ * Writes {@link DefaultMetrics} as a machine-readable report.
+ * <p/>
+ * Two formats are supported:
+ * <ul>
+ * <li>{@link Format#JSON JSON} - an object with <em>counters</em>, <em>timers</em> and <em>histograms</em>
+ * members</li>
+ * <li>{@link Format#CSV CSV} - one row per metric, with columns
+ * <em>type,name,count,total,min,max,mean,p50,p90,p99</em></li>
+ * </ul>
+ * Timer values are in nanoseconds.
+ */
+public class MetricsReportWriter
+{
+
+    /**
+     * The report formats.
+     */
+    public enum Format
+    {
+        JSON, CSV
+    }
+
+    /**
+     * The CSV header.
+     */
+    private static final String CSV_HEADER = "type,name,count,total,min,max,mean,p50,p90,p99";
+
+    /**
+     * The format to write.
+     */
+    private final Format format;
+
+    /**
+     * Constructs a {@code MetricsReportWriter}.
+     *
+     * @param format the format to write
+     */
+    public MetricsReportWriter(Format format)
+    {
+        this.format = format;
+    }
+
+    /**
+     * Writes a report.
+     *
+     * @param metrics the metrics to report
+     * @param writer  the writer to write to
+     * @throws IOException for any I/O error
+     */
+    public void write(DefaultMetrics metrics, Writer writer) throws IOException
+    {
+        PrintWriter out = new PrintWriter(writer);
+        if (format == Format.CSV)
+        {
+            writeCSV(metrics, out);
+        }
+        else
+        {
+            writeJSON(metrics, out);
+        }
+        out.flush();
+        if (out.checkError())
+        {
+            throw new IOException("Failed to write metrics report");
+        }
+    }
+
+    /**
+     * Writes a JSON report.
+     *
+     * @param metrics the metrics
+     * @param out     the writer
+     */
+    private void writeJSON(DefaultMetrics metrics, PrintWriter out)
+    {
+        out.println("{");
+        out.println("  \"started\": " + metrics.getStarted() + ",");
+        out.println("  \"elapsedMillis\": " + (System.currentTimeMillis() - metrics.getStarted()) + ",");
+        out.println("  \"timerUnit\": \"ns\",");
+        out.print("  \"counters\": {");
+        Iterator<Map.Entry<String, Long>> counters = metrics.getCounters().entrySet().iterator();
+        while (counters.hasNext())
+        {
+            Map.Entry<String, Long> entry = counters.next();
+            out.println();
+            out.print("    " + quote(entry.getKey()) + ": " + entry.getValue());
+            if (counters.hasNext())
+            {
+                out.print(",");
+            }
+        }
+        out.println();
+        out.println("  },");
+        out.print("  \"timers\": ");
+        writeJSON(metrics.getTimers(), out);
+        out.println(",");
+        out.print("  \"histograms\": ");
+        writeJSON(metrics.getHistograms(), out);
+        out.println();
+        out.println("}");
+    }
+
+    /**
+     * Writes statistics as a JSON object.
+     *
+     * @param statistics the statistics, keyed on name
+     * @param out        the writer
+     */
+    private void writeJSON(Map<String, Statistic> statistics, PrintWriter out)
+    {
+        out.print("{");
+        Iterator<Map.Entry<String, Statistic>> iterator = statistics.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<String, Statistic> entry = iterator.next();
+            Statistic stat = entry.getValue();
+            out.println();
+            out.print("    " + quote(entry.getKey()) + ": {\"count\": " + stat.getCount()
+                              + ", \"total\": " + stat.getTotal()
+                              + ", \"min\": " + stat.getMin()
+                              + ", \"max\": " + stat.getMax()
+                              + ", \"mean\": " + stat.getMean()
+                              + ", \"p50\": " + stat.getPercentile(50)
+                              + ", \"p90\": " + stat.getPercentile(90)
+                              + ", \"p99\": " + stat.getPercentile(99) + "}");
+            if (iterator.hasNext())
+            {
+                out.print(",");
+            }
+        }
+        out.println();
+        out.print("  }");
+    }
+
+    /**
+     * Writes a CSV report.
+     *
+     * @param metrics the metrics
+     * @param out     the writer
+     */
+    private void writeCSV(DefaultMetrics metrics, PrintWriter out)
+    {
+        out.println(CSV_HEADER);
+        for (Map.Entry<String, Long> entry : metrics.getCounters().entrySet())
+        {
+            out.println("counter," + escapeCSV(entry.getKey()) + ",," + entry.getValue() + ",,,,,,");
+        }
+        writeCSV("timer", metrics.getTimers(), out);
+        writeCSV("histogram", metrics.getHistograms(), out);
+    }
+
+    /**
+     * Writes statistics as CSV rows.
+     *
+     * @param type       the statistic type
+     * @param statistics the statistics, keyed on name
+     * @param out        the writer
+     */
+    private void writeCSV(String type, Map<String, Statistic> statistics, PrintWriter out)
+    {
+        for (Map.Entry<String, Statistic> entry : statistics.entrySet())
+        {
+            Statistic stat = entry.getValue();
+            out.println(type + "," + escapeCSV(entry.getKey()) + "," + stat.getCount() + "," + stat.getTotal()
+                                + "," + stat.getMin() + "," + stat.getMax() + "," + stat.getMean()
+                                + "," + stat.getPercentile(50) + "," + stat.getPercentile(90)
+                                + "," + stat.getPercentile(99));
+        }
+    }
+
+    /**
+     * Quotes a string for inclusion in JSON.
+     *
+     * @param value the value to quote
+     * @return the quoted value
+     */
+    private static String quote(String value)
+    {
+        StringBuilder result = new StringBuilder(value.length() + 2);
+        result.append('"');
+        for (int i = 0; i < value.length(); ++i)
+        {
+            char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\')
+            {
+                result.append('\\').append(ch);
+            }
+            else if (ch < 0x20)
+            {
+                result.append(String.format("\\u%04x", (int) ch));
+            }
+            else
+            {
+                result.append(ch);
+            }
+        }
+        result.append('"');
+        return result.toString();
+    }
+
+    /**
+     * Escapes a string for inclusion in CSV.
+     *
+     * @param value the value to escape
+     * @return the escaped value
+     */
+    private static String escapeCSV(String value)
+    {
+        if (value.indexOf(',') != -1 || value.indexOf('"') != -1 || value.indexOf('\n') != -1)
+        {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+
+import com.izforge.izpack.api.metrics.InstallMetrics;
+import com.izforge.izpack.util.CleanupClient;
+import com.izforge.izpack.util.Housekeeper;
+
+
+/**
+ * Enables metrics collection when requested, and writes the report when the installer shuts down.
+ * <p/>
+ * Collection is enabled by setting the <em>izpack.metrics.file</em> system property to the path of the report
+ * to write. The format is determined by the <em>izpack.metrics.format</em> system property (<em>json</em> or
+ * <em>csv</em>), or else by the file extension, defaulting to JSON.
+ */
+public class MetricsReporter implements CleanupClient
+{
+
+    /**
+     * System property naming the report file.
+     */
+    public static final String FILE_PROPERTY = "izpack.metrics.file";
+
+    /**
+     * System property naming the report format.
+     */
+    public static final String FORMAT_PROPERTY = "izpack.metrics.format";
+
+    /**
+     * The housekeeper.
+     */
+    private final Housekeeper housekeeper;
+
+    /**
+     * The metrics being collected, or {@code null} if collection is disabled.
+     */
+    private DefaultMetrics metrics;
+
+    /**
+     * The report file.
+     */
+    private File file;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(MetricsReporter.class.getName());
+
+    /**
+     * Constructs a {@code MetricsReporter}.
+     *
+     * @param housekeeper the housekeeper
+     */
+    public MetricsReporter(Housekeeper housekeeper)
+    {
+        this.housekeeper = housekeeper;
+    }
+
+    /**
+     * Starts collecting metrics, if the {@link #FILE_PROPERTY} system property is set.
+     */
+    public synchronized void start()
+    {
+        String path = System.getProperty(FILE_PROPERTY);
+        if (metrics == null && path != null && path.trim().length() != 0)
+        {
+            file = new File(path.trim());
+            metrics = new DefaultMetrics();
+            InstallMetrics.setMetrics(metrics);
+            housekeeper.registerForCleanup(this);
+            logger.fine("Collecting install metrics to " + file);
+        }
+    }
+
+    /**
+     * Writes the report.
+     */
+    @Override
+    public synchronized void cleanUp()
+    {
+        if (metrics != null)
+        {
+            Writer writer = null;
+            try
+            {
+                File parent = file.getAbsoluteFile().getParentFile();
+                if (parent != null && !parent.exists() && !parent.mkdirs())
+                {
+                    throw new IOException("Failed to create directory: " + parent);
+                }
+                writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+                new MetricsReportWriter(getFormat()).write(metrics, writer);
+            }
+            catch (IOException exception)
+            {
+                logger.log(Level.WARNING, "Failed to write install metrics to " + file + ": "
+                        + exception.getMessage(), exception);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(writer);
+                InstallMetrics.setMetrics(null);
+                metrics = null;
+            }
+        }
+    }
+
+    /**
+     * Determines the report format.
+     *
+     * @return the report format
+     */
+    private MetricsReportWriter.Format getFormat()
+    {
+        String format = System.getProperty(FORMAT_PROPERTY);
+        if (format == null)
+        {
+            format = file.getName().toLowerCase().endsWith(".csv") ? "csv" : "json";
+        }
+        return "csv".equalsIgnoreCase(format.trim()) ? MetricsReportWriter.Format.CSV
+                : MetricsReportWriter.Format.JSON;
+    }
+
+}
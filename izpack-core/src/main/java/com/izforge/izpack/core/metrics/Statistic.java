@@ -0,0 +1,161 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.metrics;
+
+
+/**
+ * Accumulates the distribution of a series of values.
+ * <p/>
+ * Values are counted into power-of-two buckets, so that percentiles can be estimated without retaining the
+ * individual values.
+ */
+public class Statistic
+{
+
+    /**
+     * The number of buckets. Bucket <em>i</em> holds values in the range [2<sup>i-1</sup>, 2<sup>i</sup>).
+     */
+    static final int BUCKETS = 64;
+
+    /**
+     * The number of recorded values.
+     */
+    private long count;
+
+    /**
+     * The sum of the recorded values.
+     */
+    private long total;
+
+    /**
+     * The smallest recorded value.
+     */
+    private long min = Long.MAX_VALUE;
+
+    /**
+     * The largest recorded value.
+     */
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * The bucket counts.
+     */
+    private final long[] buckets = new long[BUCKETS];
+
+    /**
+     * Records a value.
+     *
+     * @param value the value. Negative values are recorded in the first bucket
+     */
+    public synchronized void record(long value)
+    {
+        ++count;
+        total += value;
+        if (value < min)
+        {
+            min = value;
+        }
+        if (value > max)
+        {
+            max = value;
+        }
+        int bucket = (value <= 0) ? 0 : BUCKETS - Long.numberOfLeadingZeros(value);
+        ++buckets[Math.min(bucket, BUCKETS - 1)];
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public synchronized long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return the sum of the recorded values
+     */
+    public synchronized long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Returns the smallest recorded value.
+     *
+     * @return the smallest recorded value, or {@code 0} if none have been recorded
+     */
+    public synchronized long getMin()
+    {
+        return count != 0 ? min : 0;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the largest recorded value, or {@code 0} if none have been recorded
+     */
+    public synchronized long getMax()
+    {
+        return count != 0 ? max : 0;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean, or {@code 0} if no values have been recorded
+     */
+    public synchronized long getMean()
+    {
+        return count != 0 ? total / count : 0;
+    }
+
+    /**
+     * Estimates a percentile of the recorded values.
+     * <p/>
+     * The result is the upper bound of the bucket containing the percentile, limited to the largest recorded value.
+     *
+     * @param percentile the percentile, in the range 0..100
+     * @return the estimated percentile, or {@code 0} if no values have been recorded
+     */
+    public synchronized long getPercentile(int percentile)
+    {
+        if (count == 0)
+        {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * (percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            seen += buckets[i];
+            if (seen >= rank && seen != 0)
+            {
+                long upper = (i == 0) ? 0 : (i >= BUCKETS - 1) ? Long.MAX_VALUE : (1L << i) - 1;
+                return Math.max(Math.min(upper, max), min);
+            }
+        }
+        return max;
+    }
+
+}
@@ -30,6 +30,8 @@ import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.Panel;
 import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.exception.IzPackException;
+import com.izforge.izpack.api.metrics.InstallMetrics;
+import com.izforge.izpack.api.metrics.PhaseTimer;
 import com.izforge.izpack.api.rules.Condition;
 import com.izforge.izpack.api.rules.ConditionReference;
 import com.izforge.izpack.api.rules.ConditionWithMultipleOperands;
@@ -46,6 +48,7 @@ import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
@@ -332,7 +335,15 @@ public class RulesEngineImpl implements RulesEngine
         {
             cond.setInstallData(this.installData);
         }
-        return cond.isTrue();
+        PhaseTimer timer = InstallMetrics.getMetrics().start("rules.isConditionTrue");
+        try
+        {
+            return cond.isTrue();
+        }
+        finally
+        {
+            timer.stop();
+        }
     }
 
     /**
@@ -353,8 +364,11 @@ public class RulesEngineImpl implements RulesEngine
         }
         Condition condition = getCondition(this.panelConditions.get(panelId));
         boolean b = condition.isTrue();
-        logger.fine("Panel " + panelId + ": activation depends on condition "
-                            + condition.getId() + " -> " + b);
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("Panel " + panelId + ": activation depends on condition "
+                                + condition.getId() + " -> " + b);
+        }
         return b;
     }
 
@@ -404,8 +418,11 @@ public class RulesEngineImpl implements RulesEngine
         }
         Condition condition = getCondition(this.packConditions.get(packid));
         boolean b = condition.isTrue();
-        logger.fine("Package " + packid + ": installation depends on condition "
-                + condition.getId() + " -> " + b);
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("Package " + packid + ": installation depends on condition "
+                                + condition.getId() + " -> " + b);
+        }
         return b;
     }
 
@@ -21,14 +21,10 @@
 
 package com.izforge.izpack.core.variable;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.File;
 import java.io.Serializable;
 import java.util.Set;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
@@ -37,12 +33,9 @@ import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
-import com.izforge.izpack.api.config.Config;
-import com.izforge.izpack.api.config.Ini;
-import com.izforge.izpack.api.config.Options;
+import com.izforge.izpack.util.config.ConfigFileCache;
 
 public abstract class ConfigFileValue extends ValueImpl implements Serializable
 {
@@ -123,34 +116,21 @@ public abstract class ConfigFileValue extends ValueImpl implements Serializable
         }
     }
 
-    protected String resolve(InputStream in) throws Exception
-    {
-        Config config;
-        switch (type)
-        {
-            case CONFIGFILE_TYPE_OPTIONS:
-                config = Config.getGlobal().clone();
-                config.setEscape(isEscape());
-                Options opts = new Options(config);
-                opts.load(in);
-                return opts.get(key);
-            case CONFIGFILE_TYPE_INI:
-                config = Config.getGlobal().clone();
-                config.setEscape(isEscape());
-                Ini ini = new Ini(config);
-                ini.load(in);
-                return ini.get(section, key);
-            case CONFIGFILE_TYPE_XML:
-                return parseXPath(in, key, System.getProperty("line.separator"));
-            default:
-                throw new Exception("Invalid configuration file type " + type);
-        }
-    }
-
-    protected String resolve(InputStream in, VariableSubstitutor... substitutors)
-            throws Exception
+    /**
+     * Resolves the value from a configuration file, or an entry in a zip file.
+     * <p/>
+     * The parsed file is shared via the {@link ConfigFileCache}, so that values read from the same file don't parse
+     * it again on each refresh.
+     *
+     * @param file         the configuration file, or the zip file containing it
+     * @param entry        the zip file entry, or {@code null} if {@code file} is the configuration file
+     * @param substitutors the variable substitutors to apply to the section and key
+     * @return the value. May be {@code null}
+     * @throws Exception if the file cannot be read or parsed
+     */
+    protected String resolve(File file, String entry, VariableSubstitutor... substitutors) throws Exception
     {
-        Config config;
+        ConfigFileCache cache = ConfigFileCache.getInstance();
         String _key_ = key;
         for (VariableSubstitutor substitutor : substitutors)
         {
@@ -160,37 +140,29 @@ public abstract class ConfigFileValue extends ValueImpl implements Serializable
         switch (type)
         {
             case CONFIGFILE_TYPE_OPTIONS:
-                config = Config.getGlobal().clone();
-                config.setEscape(isEscape());
-                Options opts;
-                opts = new Options(in, config);
-                return opts.get(_key_);
+                return cache.getOptions(file, entry, isEscape()).get(_key_);
             case CONFIGFILE_TYPE_INI:
-                config = Config.getGlobal().clone();
-                config.setEscape(isEscape());
-                Ini ini;
                 String _section_ = section;
                 for (VariableSubstitutor substitutor : substitutors)
                 {
                     _section_ = substitutor.substitute(_section_);
                 }
-                ini = new Ini(in, config);
-                return ini.get(_section_, _key_);
+                return cache.getIni(file, entry, isEscape()).get(_section_, _key_);
             case CONFIGFILE_TYPE_XML:
-                return parseXPath(in, _key_, System.getProperty("line.separator"));
+                Document doc = cache.getDocument(file, entry);
+                // DOM implementations aren't thread safe, even for reads
+                synchronized (doc)
+                {
+                    return parseXPath(doc, _key_, System.getProperty("line.separator"));
+                }
             default:
                 throw new Exception("Invalid configuration file type '" + type + "'");
         }
     }
 
-    private static String parseXPath(InputStream in, String expression, String separator)
-            throws ParserConfigurationException, SAXException, IOException, XPathExpressionException
+    private static String parseXPath(Document doc, String expression, String separator)
+            throws XPathExpressionException
     {
-        DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-        domFactory.setNamespaceAware(true);
-        DocumentBuilder builder;
-        builder = domFactory.newDocumentBuilder();
-        Document doc = builder.parse(in);
         XPath xpath = XPathFactory.newInstance().newXPath();
         // XPath Query for showing all nodes value
         XPathExpression expr = xpath.compile(expression);
@@ -19,11 +19,8 @@
 
 package com.izforge.izpack.core.variable;
 
-import java.io.InputStream;
+import java.io.File;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
 
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 
@@ -79,7 +76,7 @@ public class ZipEntryConfigFileValue extends ConfigFileValue
     @Override
     public String resolve() throws Exception
     {
-        return super.resolve(getZipEntryInputStream(getFilename(), getEntryname()));
+        return super.resolve(new File(getFilename()), getEntryname());
     }
 
     @Override
@@ -95,26 +92,7 @@ public class ZipEntryConfigFileValue extends ConfigFileValue
         {
             _entryname_ = substitutor.substitute(_entryname_);
         }
-        return super.resolve(getZipEntryInputStream(_filename_, _entryname_), substitutors);
-    }
-
-    private InputStream getZipEntryInputStream(String filename, String entryname) throws Exception
-    {
-        ZipFile zipfile;
-        try
-        {
-            zipfile = new ZipFile(filename);
-            ZipEntry entry = zipfile.getEntry(entryname);
-            if (entry == null)
-            {
-                throw new Exception("Zip file entry " + entryname + " not found in " + zipfile.getName());
-            }
-            return zipfile.getInputStream(entry);
-        }
-        catch (ZipException ze)
-        {
-            throw new Exception("Error opening zip file " + filename, ze);
-        }
+        return super.resolve(new File(_filename_), _entryname_, substitutors);
     }
 
     @Override
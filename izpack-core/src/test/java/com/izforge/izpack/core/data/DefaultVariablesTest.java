@@ -23,8 +23,12 @@ package com.izforge.izpack.core.data;
 
 import com.izforge.izpack.api.data.*;
 import com.izforge.izpack.api.exception.InstallerException;
+import com.izforge.izpack.api.exception.IzPackException;
+import com.izforge.izpack.api.metrics.InstallMetrics;
+import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.api.rules.Condition;
 import com.izforge.izpack.core.container.DefaultContainer;
+import com.izforge.izpack.core.metrics.DefaultMetrics;
 import com.izforge.izpack.core.rules.ConditionContainer;
 import com.izforge.izpack.core.rules.RulesEngineImpl;
 import com.izforge.izpack.core.rules.process.ExistsCondition;
@@ -498,6 +502,41 @@ public class DefaultVariablesTest
         assertEquals("${b}", variables.get("b"));
     }
 
+    /**
+     * Verifies that the time spent refreshing is recorded when a dynamic variable fails to evaluate.
+     */
+    @Test
+    public void testRefreshFailureRecordsTime()
+    {
+        DynamicVariableImpl failing = new DynamicVariableImpl()
+        {
+            @Override
+            public String evaluate(VariableSubstitutor... substitutors) throws Exception
+            {
+                throw new IOException("failed");
+            }
+        };
+        failing.setName("failing");
+        failing.setValue(new PlainValue("value"));
+        variables.add(failing);
+
+        DefaultMetrics metrics = new DefaultMetrics();
+        InstallMetrics.setMetrics(metrics);
+        try
+        {
+            variables.refresh();
+            fail("Expected IzPackException");
+        }
+        catch (IzPackException expected)
+        {
+            assertEquals(1, metrics.getTimers().get("variables.refresh").getCount());
+        }
+        finally
+        {
+            InstallMetrics.setMetrics(InstallMetrics.DISABLED);
+        }
+    }
+
     /**
      * Test loop detection with no dynamic variables at all
      * Ensure, that no exception is thrown
@@ -0,0 +1,158 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link BinaryDelta} class.
+ */
+public class BinaryDeltaTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that a target with insertions, deletions and modifications is rebuilt from a small delta.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testEditedContent() throws Exception
+    {
+        Random random = new Random(42);
+        byte[] base = new byte[200000];
+        random.nextBytes(base);
+
+        ByteArrayOutputStream edited = new ByteArrayOutputStream();
+        edited.write(base, 0, 50000);
+        edited.write("inserted".getBytes("US-ASCII"));
+        edited.write(base, 50000, 30000);
+        edited.write(base, 90000, 60000);                // delete 10000 bytes
+        edited.write(new byte[]{1, 2, 3, 4});            // modify 4 bytes
+        edited.write(base, 150004, base.length - 150004);
+        edited.write(base, 0, 1000);                     // repeat the start
+        byte[] target = edited.toByteArray();
+
+        byte[] delta = encode(base, target);
+        assertTrue("delta too large: " + delta.length, delta.length < 200);
+        assertArrayEquals(target, apply(base, delta));
+    }
+
+    /**
+     * Verifies that unrelated and empty content can be encoded.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testUnrelatedContent() throws Exception
+    {
+        Random random = new Random(7);
+        byte[] base = new byte[1000];
+        byte[] target = new byte[1500];
+        random.nextBytes(base);
+        random.nextBytes(target);
+
+        assertArrayEquals(target, apply(base, encode(base, target)));
+        assertArrayEquals(new byte[0], apply(base, encode(base, new byte[0])));
+        assertArrayEquals(target, apply(new byte[0], encode(new byte[0], target)));
+        assertArrayEquals(new byte[]{1}, apply(new byte[0], encode(new byte[0], new byte[]{1})));
+    }
+
+    /**
+     * Verifies that a delta isn't applied to a base of a different length.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testWrongBase() throws Exception
+    {
+        byte[] delta = encode(new byte[100], new byte[100]);
+        try
+        {
+            apply(new byte[99], delta);
+            fail("Expected IOException");
+        }
+        catch (IOException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Encodes a delta.
+     *
+     * @param base   the base content
+     * @param target the target content
+     * @return the delta
+     * @throws IOException for any I/O error
+     */
+    private byte[] encode(byte[] base, byte[] target) throws IOException
+    {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        BinaryDelta.encode(base, target, delta);
+        return delta.toByteArray();
+    }
+
+    /**
+     * Applies a delta.
+     *
+     * @param base  the base content
+     * @param delta the delta
+     * @return the target content
+     * @throws IOException for any I/O error
+     */
+    private byte[] apply(byte[] base, byte[] delta) throws IOException
+    {
+        File file = temporaryFolder.newFile();
+        FileUtils.writeByteArrayToFile(file, base);
+        RandomAccessFile baseFile = new RandomAccessFile(file, "r");
+        try
+        {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            BinaryDelta.apply(baseFile, new ByteArrayInputStream(delta), result);
+            return result.toByteArray();
+        }
+        finally
+        {
+            baseFile.close();
+        }
+    }
+
+}
@@ -28,6 +28,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Random;
 
 import org.junit.Ignore;
@@ -161,6 +162,63 @@ public class FileSpanningStreamTest
         spanningInputStream.close();
     }
 
+    /**
+     * Verifies that segmented volumes can be read sequentially, and that {@link FileSpanningInputStream#seek(long)}
+     * starts reading at the nearest segment, without the preceding volumes.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testSegments() throws IOException
+    {
+        File volume = new File(temporaryFolder.getRoot(), "volume");
+        FileSpanningOutputStream spanningOutputStream = new FileSpanningOutputStream(volume, 1024);
+
+        // write 3 segments of 20K of random data
+        byte[] written = new byte[60000];
+        new Random().nextBytes(written);
+        spanningOutputStream.write(written, 0, 20000);
+        spanningOutputStream.startSegment();
+        spanningOutputStream.startSegment();   // no-op, as nothing has been written
+        spanningOutputStream.write(written, 20000, 20000);
+        spanningOutputStream.startSegment();
+        spanningOutputStream.write(written, 40000, 20000);
+        spanningOutputStream.close();
+
+        List<VolumeSegment> segments = spanningOutputStream.getSegments();
+        assertEquals(3, segments.size());
+        assertEquals(0, segments.get(0).getFilePointer());
+        assertEquals(20000, segments.get(1).getFilePointer());
+        assertEquals(40000, segments.get(2).getFilePointer());
+        int volumes = spanningOutputStream.getVolumes();
+
+        // read sequentially, across the segment boundaries
+        FileSpanningInputStream spanningInputStream = new FileSpanningInputStream(volume, volumes);
+        byte[] read = new byte[written.length];
+        assertEquals(written.length, spanningInputStream.read(read));
+        assertArrayEquals(written, read);
+        assertEquals(-1, spanningInputStream.read());
+        spanningInputStream.close();
+
+        // seek forwards and backwards
+        spanningInputStream = new FileSpanningInputStream(volume, volumes);
+        spanningInputStream.setSegments(segments);
+        checkRead(spanningInputStream, 45000, written);
+        checkRead(spanningInputStream, 25000, written);
+        spanningInputStream.close();
+
+        // remove the volumes preceding the last segment, and verify it can still be read
+        for (int i = 1; i < segments.get(2).getVolume(); ++i)
+        {
+            assertTrue(new File(volume.getPath() + "." + i).delete());
+        }
+        spanningInputStream = new FileSpanningInputStream(volume, volumes);
+        spanningInputStream.setSegments(segments);
+        assertEquals(50000, spanningInputStream.skip(50000));
+        checkRead(spanningInputStream, 50000, written);
+        spanningInputStream.close();
+    }
+
     /**
      * Writes 10GB of random data and verifies it can be read back in.
      *
@@ -207,6 +265,26 @@ public class FileSpanningStreamTest
         spanningInputStream.close();
     }
 
+    /**
+     * Seeks to a position, and verifies the data read matches that written.
+     *
+     * @param stream   the stream to read
+     * @param position the position to seek to
+     * @param written  the data written
+     * @throws IOException for any I/O error
+     */
+    private void checkRead(FileSpanningInputStream stream, int position, byte[] written) throws IOException
+    {
+        stream.seek(position);
+        assertEquals(position, stream.getFilePointer());
+        byte[] read = new byte[1000];
+        assertEquals(read.length, stream.read(read));
+        for (int i = 0; i < read.length; ++i)
+        {
+            assertEquals(written[position + i], read[i]);
+        }
+    }
+
     /**
      * Checks the existence of volumes and their expected size.
      *
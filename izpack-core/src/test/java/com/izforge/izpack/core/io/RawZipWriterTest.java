@@ -0,0 +1,164 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link RawZipWriter} class.
+ */
+public class RawZipWriterTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that the entries of several archives are combined into a valid archive, and that the first entry
+     * of a given name is kept.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCombine() throws Exception
+    {
+        byte[] first = createZip(ZipEntry.DEFLATED, "a.txt", "alpha", "dir/", null, "b.txt", "bravo");
+        byte[] second = createZip(ZipEntry.STORED, "b.txt", "ignored", "c.txt", "charlie");
+
+        File file = temporaryFolder.newFile("combined.zip");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RawZipWriter writer = new RawZipWriter(out);
+        writer.add(first);
+        writer.add(second);
+        writer.finish();
+        FileUtils.writeByteArrayToFile(file, out.toByteArray());
+
+        ZipFile zip = new ZipFile(file);
+        try
+        {
+            List<String> names = new ArrayList<String>();
+            for (ZipEntry entry : Collections.list(zip.entries()))
+            {
+                names.add(entry.getName());
+            }
+            assertEquals("[a.txt, dir/, b.txt, c.txt]", names.toString());
+            assertEquals("alpha", read(zip, "a.txt"));
+            assertEquals("bravo", read(zip, "b.txt"));
+            assertEquals("charlie", read(zip, "c.txt"));
+            assertEquals(ZipEntry.STORED, zip.getEntry("c.txt").getMethod());
+            assertNull(zip.getEntry("d.txt"));
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+
+    /**
+     * Verifies that content that isn't a zip is rejected.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testInvalid() throws Exception
+    {
+        RawZipWriter writer = new RawZipWriter(new ByteArrayOutputStream());
+        try
+        {
+            writer.add("not a zip".getBytes("US-ASCII"));
+            fail("Expected ZipException");
+        }
+        catch (ZipException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Creates a zip.
+     *
+     * @param method         the compression method
+     * @param namesAndValues the entry names and their content. Directories have {@code null} content
+     * @return the zip
+     * @throws IOException for any I/O error
+     */
+    private static byte[] createZip(int method, String... namesAndValues) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ZipOutputStream zip = new ZipOutputStream(bytes);
+        zip.setMethod(method);
+        for (int i = 0; i < namesAndValues.length; i += 2)
+        {
+            ZipEntry entry = new ZipEntry(namesAndValues[i]);
+            byte[] content = (namesAndValues[i + 1] != null) ? namesAndValues[i + 1].getBytes("US-ASCII")
+                    : new byte[0];
+            if (method == ZipEntry.STORED)
+            {
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                entry.setSize(content.length);
+                entry.setCrc(crc.getValue());
+            }
+            zip.putNextEntry(entry);
+            zip.write(content);
+            zip.closeEntry();
+        }
+        zip.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads an entry.
+     *
+     * @param zip  the zip
+     * @param name the entry name
+     * @return the entry content
+     * @throws IOException for any I/O error
+     */
+    private static String read(ZipFile zip, String name) throws IOException
+    {
+        return IOUtils.toString(zip.getInputStream(zip.getEntry(name)), "US-ASCII");
+    }
+
+}
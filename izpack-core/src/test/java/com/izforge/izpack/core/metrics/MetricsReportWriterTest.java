@@ -0,0 +1,128 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.izforge.izpack.api.metrics.InstallMetrics;
+import com.izforge.izpack.api.metrics.Metrics;
+import com.izforge.izpack.api.metrics.PhaseTimer;
+
+
+/**
+ * Tests the {@link DefaultMetrics} and {@link MetricsReportWriter} classes.
+ */
+public class MetricsReportWriterTest
+{
+
+    /**
+     * Verifies that the disabled metrics are the default, and don't allocate timers.
+     */
+    @Test
+    public void testDisabled()
+    {
+        Metrics metrics = InstallMetrics.getMetrics();
+        assertFalse(metrics.isEnabled());
+        assertSame(metrics.start("a"), metrics.start("b"));
+        assertEquals(0, metrics.start("a").stop());
+    }
+
+    /**
+     * Verifies that counters, timers and histograms are accumulated.
+     */
+    @Test
+    public void testAccumulate()
+    {
+        DefaultMetrics metrics = new DefaultMetrics();
+        metrics.increment("files");
+        metrics.add("files", 2);
+        metrics.add("bytes", 100);
+        for (int i = 1; i <= 100; ++i)
+        {
+            metrics.record("size", i);
+        }
+        PhaseTimer timer = metrics.start("phase");
+        timer.stop();
+        timer.stop();
+
+        assertEquals(3L, metrics.getCounters().get("files").longValue());
+        assertEquals(100L, metrics.getCounters().get("bytes").longValue());
+        assertEquals(1, metrics.getTimers().get("phase").getCount());
+
+        Statistic size = metrics.getHistograms().get("size");
+        assertEquals(100, size.getCount());
+        assertEquals(5050, size.getTotal());
+        assertEquals(1, size.getMin());
+        assertEquals(100, size.getMax());
+        assertEquals(50, size.getMean());
+        assertEquals(63, size.getPercentile(50));
+        assertEquals(100, size.getPercentile(99));
+    }
+
+    /**
+     * Verifies that a JSON report can be written.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testJSON() throws Exception
+    {
+        DefaultMetrics metrics = new DefaultMetrics();
+        metrics.add("unpack.bytes", 10);
+        metrics.record("unpack.file.size", 10);
+
+        StringWriter writer = new StringWriter();
+        new MetricsReportWriter(MetricsReportWriter.Format.JSON).write(metrics, writer);
+        String report = writer.toString();
+        assertTrue(report.contains("\"unpack.bytes\": 10"));
+        assertTrue(report.contains("\"unpack.file.size\": {\"count\": 1, \"total\": 10"));
+        assertTrue(report.trim().startsWith("{"));
+        assertTrue(report.trim().endsWith("}"));
+    }
+
+    /**
+     * Verifies that a CSV report can be written.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCSV() throws Exception
+    {
+        DefaultMetrics metrics = new DefaultMetrics();
+        metrics.add("unpack.bytes", 10);
+        metrics.record("unpack.file.size", 10);
+
+        StringWriter writer = new StringWriter();
+        new MetricsReportWriter(MetricsReportWriter.Format.CSV).write(metrics, writer);
+        String[] lines = writer.toString().split("\\r?\\n");
+        assertEquals(3, lines.length);
+        assertEquals("type,name,count,total,min,max,mean,p50,p90,p99", lines[0]);
+        assertEquals("counter,unpack.bytes,,10,,,,,,", lines[1]);
+        assertEquals("histogram,unpack.file.size,1,10,10,10,10,10,10,10", lines[2]);
+    }
+
+}
@@ -0,0 +1,343 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.automation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.core.data.DefaultOverrides;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.installer.container.impl.AutomatedInstallerContainer;
+import com.izforge.izpack.util.FileUtil;
+import com.izforge.izpack.util.Housekeeper;
+
+
+/**
+ * Performs several automated installations from the same JVM, one per installation record.
+ * <p/>
+ * Each installation gets its own container, so installations don't share any state. The installer resources,
+ * including the packs, are read once and shared between the installations.
+ */
+public class AutomatedInstallBatch
+{
+
+    /**
+     * The default maximum number of bytes of installer resources to keep in memory.
+     */
+    public static final long DEFAULT_CACHE_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * The default maximum number of bytes of a single installer resource to keep in memory.
+     */
+    public static final long DEFAULT_ENTRY_SIZE = 32L * 1024 * 1024;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(AutomatedInstallBatch.class.getName());
+
+    /**
+     * The multi-volume media directory. May be <tt>null</tt>
+     */
+    private final String mediaPath;
+
+    /**
+     * The overrides file applied to every installation. May be <tt>null</tt>
+     */
+    private final File defaults;
+
+    /**
+     * The command line arguments.
+     */
+    private final String[] args;
+
+    /**
+     * The loader that reads the installer resources, shared between installations.
+     */
+    private final ClassLoader resourceLoader;
+
+
+    /**
+     * Constructs an <tt>AutomatedInstallBatch</tt>.
+     *
+     * @param mediaPath the multi-volume media directory. May be <tt>null</tt>
+     * @param defaults  the overrides file applied to every installation. May be <tt>null</tt>
+     * @param args      the command line arguments
+     */
+    public AutomatedInstallBatch(String mediaPath, File defaults, String[] args)
+    {
+        this(mediaPath, defaults, args, new CachingResourceLoader(ClassLoader.getSystemClassLoader(),
+                                                                  DEFAULT_CACHE_SIZE, DEFAULT_ENTRY_SIZE));
+    }
+
+    /**
+     * Constructs an <tt>AutomatedInstallBatch</tt>.
+     *
+     * @param mediaPath      the multi-volume media directory. May be <tt>null</tt>
+     * @param defaults       the overrides file applied to every installation. May be <tt>null</tt>
+     * @param args           the command line arguments
+     * @param resourceLoader the loader to read installer resources with
+     */
+    public AutomatedInstallBatch(String mediaPath, File defaults, String[] args, ClassLoader resourceLoader)
+    {
+        this.mediaPath = mediaPath;
+        this.defaults = defaults;
+        this.args = args;
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * Performs an installation for each installation record, in turn.
+     * <p/>
+     * A failed installation doesn't prevent the remaining ones from being performed.
+     *
+     * @param paths the installation record paths
+     * @return the result of each installation
+     */
+    public List<Result> install(List<String> paths)
+    {
+        List<Result> results = new ArrayList<Result>();
+        int index = 0;
+        for (String path : paths)
+        {
+            ++index;
+            System.out.println("[ Automated installation " + index + "/" + paths.size() + ": " + path + " ]");
+            long start = System.currentTimeMillis();
+            BatchHousekeeper housekeeper = new BatchHousekeeper();
+            boolean success = false;
+            try
+            {
+                install(path, housekeeper);
+                success = housekeeper.getExitCode() == 0;
+            }
+            catch (Exception exception)
+            {
+                logger.log(Level.SEVERE, "Automated installation from " + path + " failed: "
+                        + exception.getMessage(), exception);
+            }
+            results.add(new Result(path, success, housekeeper.isRebootRequested(),
+                                   System.currentTimeMillis() - start));
+        }
+        return results;
+    }
+
+    /**
+     * Reports the results of the installations and terminates the JVM.
+     * <p/>
+     * The exit code is <tt>0</tt> if all installations succeeded, otherwise <tt>1</tt>. The system is rebooted if
+     * an installation requires it.
+     *
+     * @param results the installation results
+     */
+    public void shutDown(List<Result> results)
+    {
+        int failed = 0;
+        boolean reboot = false;
+        System.out.println("[ Automated installation results ]");
+        for (Result result : results)
+        {
+            System.out.println("  " + (result.isSuccess() ? "done   " : "FAILED ") + result.getPath() + " ("
+                                       + result.getTime() + " ms)");
+            if (!result.isSuccess())
+            {
+                ++failed;
+            }
+            reboot |= result.isRebootRequested();
+        }
+        System.out.println("[ " + (results.size() - failed) + " of " + results.size()
+                                   + " automated installations done ]");
+        new Housekeeper().shutDown(failed == 0 ? 0 : 1, reboot);
+    }
+
+    /**
+     * Performs an installation.
+     *
+     * @param path        the installation record path
+     * @param housekeeper the house-keeper
+     * @throws Exception for any error
+     */
+    private void install(String path, Housekeeper housekeeper) throws Exception
+    {
+        AutomatedInstallerContainer container = new AutomatedInstallerContainer(resourceLoader, housekeeper);
+        AutomatedInstallData installData = container.getComponent(AutomatedInstallData.class);
+        File lockFile = FileUtil.getLockFile(installData.getInfo().getAppName());
+        boolean locked = lockFile.exists();
+        try
+        {
+            if (defaults != null)
+            {
+                DefaultOverrides overrides = new DefaultOverrides(defaults);
+                overrides.setInstallData(installData);
+                overrides.load();
+                container.getComponent(DefaultVariables.class).setOverrides(overrides);
+            }
+            AutomatedInstaller installer = container.getComponent(AutomatedInstaller.class);
+            installer.init(path, mediaPath, args);
+            installer.doInstall();
+        }
+        finally
+        {
+            // the lock file is only deleted on exit, so release it for the next installation
+            if (!locked && lockFile.exists() && !lockFile.delete())
+            {
+                logger.warning("Failed to delete lock file: " + lockFile.getPath());
+            }
+            container.dispose();
+        }
+    }
+
+    /**
+     * The result of an installation.
+     */
+    public static class Result
+    {
+
+        /**
+         * The installation record path.
+         */
+        private final String path;
+
+        /**
+         * Determines if the installation succeeded.
+         */
+        private final boolean success;
+
+        /**
+         * Determines if the installation requires a reboot.
+         */
+        private final boolean reboot;
+
+        /**
+         * The installation time, in milliseconds.
+         */
+        private final long time;
+
+        /**
+         * Constructs a <tt>Result</tt>.
+         *
+         * @param path    the installation record path
+         * @param success determines if the installation succeeded
+         * @param reboot  determines if the installation requires a reboot
+         * @param time    the installation time, in milliseconds
+         */
+        public Result(String path, boolean success, boolean reboot, long time)
+        {
+            this.path = path;
+            this.success = success;
+            this.reboot = reboot;
+            this.time = time;
+        }
+
+        /**
+         * Returns the installation record path.
+         *
+         * @return the installation record path
+         */
+        public String getPath()
+        {
+            return path;
+        }
+
+        /**
+         * Determines if the installation succeeded.
+         *
+         * @return <tt>true</tt> if the installation succeeded
+         */
+        public boolean isSuccess()
+        {
+            return success;
+        }
+
+        /**
+         * Determines if the installation requires a reboot.
+         *
+         * @return <tt>true</tt> if the installation requires a reboot
+         */
+        public boolean isRebootRequested()
+        {
+            return reboot;
+        }
+
+        /**
+         * Returns the installation time.
+         *
+         * @return the installation time, in milliseconds
+         */
+        public long getTime()
+        {
+            return time;
+        }
+    }
+
+    /**
+     * A house-keeper that performs cleanup without terminating the JVM, so that the next installation can proceed.
+     */
+    private static class BatchHousekeeper extends Housekeeper
+    {
+
+        /**
+         * The exit code of the installation, or <tt>-1</tt> if it didn't shut down.
+         */
+        private int exitCode = -1;
+
+        /**
+         * Determines if the installation requires a reboot.
+         */
+        private boolean reboot;
+
+        /**
+         * Records the exit code and reboot request, instead of terminating the JVM.
+         *
+         * @param exitCode the exit code
+         * @param reboot   if <tt>true</tt>, the installation requires a reboot
+         */
+        @Override
+        protected void terminate(int exitCode, boolean reboot)
+        {
+            this.exitCode = exitCode;
+            this.reboot = reboot;
+        }
+
+        /**
+         * Returns the exit code of the installation.
+         *
+         * @return the exit code, or <tt>-1</tt> if the installation didn't shut down
+         */
+        public int getExitCode()
+        {
+            return exitCode;
+        }
+
+        /**
+         * Determines if the installation requires a reboot.
+         *
+         * @return <tt>true</tt> if the installation requires a reboot
+         */
+        public boolean isRebootRequested()
+        {
+            return reboot;
+        }
+    }
+
+}
@@ -150,7 +150,7 @@ public class AutomatedInstaller implements InstallerBase
         if (!requirements.check())
         {
             System.out.println("[ Automated installation FAILED! ]");
-            System.exit(-1);
+            housekeeper.shutDown(-1);
             return;
         }
 
@@ -0,0 +1,307 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.automation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * A class loader that keeps the content of the resources read through it in memory, so that installations
+ * performed by the same JVM only read and inflate the installer resources, such as the packs, once.
+ * <p/>
+ * Classes are loaded by the parent. A resource is streamed from the parent the first time it is requested, and its
+ * content is kept as the caller reads it, rather than being read in full up front. It is cached when the caller
+ * closes the stream, provided it fits within both the per-resource limit and the remaining cache capacity.
+ * Resources that don't fit are streamed from the parent each time.
+ */
+public class CachingResourceLoader extends ClassLoader
+{
+
+    /**
+     * The cached resources, keyed on name.
+     */
+    private final Map<String, byte[]> cache = new HashMap<String, byte[]>();
+
+    /**
+     * The names of the resources too large to cache.
+     */
+    private final Set<String> uncached = new HashSet<String>();
+
+    /**
+     * The maximum number of bytes to cache for a single resource.
+     */
+    private final long limit;
+
+    /**
+     * The number of bytes that may still be cached.
+     */
+    private long remaining;
+
+
+    /**
+     * Constructs a {@code CachingResourceLoader}.
+     *
+     * @param parent   the loader to load classes and resources from
+     * @param capacity the maximum number of bytes to cache
+     * @param limit    the maximum number of bytes to cache for a single resource
+     */
+    public CachingResourceLoader(ClassLoader parent, long capacity, long limit)
+    {
+        super(parent);
+        this.remaining = capacity;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns a stream to a resource.
+     *
+     * @param name the resource name
+     * @return a stream to the resource, or {@code null} if it cannot be found
+     */
+    @Override
+    public synchronized InputStream getResourceAsStream(String name)
+    {
+        byte[] content = cache.get(name);
+        if (content != null)
+        {
+            return new ByteArrayInputStream(content);
+        }
+        InputStream in = super.getResourceAsStream(name);
+        if (in == null || uncached.contains(name))
+        {
+            return in;
+        }
+        return new CachingInputStream(name, in, Math.min(limit, remaining));
+    }
+
+    /**
+     * Caches the content of a resource that has been read to the end.
+     *
+     * @param name    the resource name
+     * @param content the resource content
+     */
+    private synchronized void cache(String name, byte[] content)
+    {
+        if (!cache.containsKey(name))
+        {
+            if (content.length <= remaining)
+            {
+                cache.put(name, content);
+                remaining -= content.length;
+            }
+            else
+            {
+                uncached.add(name);
+            }
+        }
+    }
+
+    /**
+     * Records that a resource is too large to cache.
+     *
+     * @param name the resource name
+     */
+    private synchronized void uncached(String name)
+    {
+        uncached.add(name);
+    }
+
+    /**
+     * A stream that keeps the content of a resource as it is read, and caches it when the end is reached.
+     */
+    private class CachingInputStream extends FilterInputStream
+    {
+
+        /**
+         * The resource name.
+         */
+        private final String name;
+
+        /**
+         * The maximum number of bytes to keep.
+         */
+        private final long max;
+
+        /**
+         * The content read so far, or {@code null} if the resource won't be cached.
+         */
+        private ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        /**
+         * Constructs a {@code CachingInputStream}.
+         *
+         * @param name the resource name
+         * @param in   the stream to read the resource from
+         * @param max  the maximum number of bytes to keep
+         */
+        public CachingInputStream(String name, InputStream in, long max)
+        {
+            super(in);
+            this.name = name;
+            this.max = max;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int result = super.read();
+            if (result == -1)
+            {
+                completed();
+            }
+            else if (keep(1))
+            {
+                content.write(result);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException
+        {
+            int result = super.read(buffer, offset, length);
+            if (result == -1)
+            {
+                completed();
+            }
+            else if (keep(result))
+            {
+                content.write(buffer, offset, result);
+            }
+            return result;
+        }
+
+        /**
+         * Skips bytes.
+         * <p/>
+         * While the content is being kept, skipped bytes are read, so that they are kept.
+         *
+         * @param count the number of bytes to skip
+         * @return the number of bytes skipped
+         * @throws IOException for any I/O error
+         */
+        @Override
+        public long skip(long count) throws IOException
+        {
+            if (content == null)
+            {
+                return super.skip(count);
+            }
+            byte[] buffer = new byte[(int) Math.min(count, 8192)];
+            long result = 0;
+            while (result < count)
+            {
+                int read = read(buffer, 0, (int) Math.min(count - result, buffer.length));
+                if (read == -1)
+                {
+                    break;
+                }
+                result += read;
+            }
+            return result;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+
+        @Override
+        public void mark(int readLimit)
+        {
+            // not supported
+        }
+
+        @Override
+        public void reset() throws IOException
+        {
+            throw new IOException("mark/reset not supported");
+        }
+
+        /**
+         * Closes the stream.
+         * <p/>
+         * If the content is still being kept, the rest of the resource is read so that it can be cached.
+         *
+         * @throws IOException for any I/O error
+         */
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                byte[] buffer = new byte[8192];
+                while (content != null && read(buffer, 0, buffer.length) != -1)
+                {
+                    // read until the end is reached, or the content is discarded
+                }
+            }
+            catch (IOException ignore)
+            {
+                // the resource isn't cached
+            }
+            finally
+            {
+                content = null;
+                super.close();
+            }
+        }
+
+        /**
+         * Determines if bytes that have been read should be kept.
+         * <p/>
+         * If keeping them would exceed the maximum, the content is discarded, and the resource is no longer cached.
+         *
+         * @param count the number of bytes read
+         * @return {@code true} if the bytes should be kept
+         */
+        private boolean keep(int count)
+        {
+            if (content != null && content.size() + count > max)
+            {
+                content = null;
+                uncached(name);
+            }
+            return content != null;
+        }
+
+        /**
+         * Caches the content once the end of the resource has been reached.
+         */
+        private void completed()
+        {
+            if (content != null)
+            {
+                cache(name, content.toByteArray());
+                content = null;
+            }
+        }
+    }
+
+}
@@ -25,6 +25,7 @@ import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.data.Overrides;
 import com.izforge.izpack.core.data.DefaultOverrides;
 import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.installer.automation.AutomatedInstallBatch;
 import com.izforge.izpack.installer.automation.AutomatedInstaller;
 import com.izforge.izpack.installer.console.ConsoleInstallerAction;
 import com.izforge.izpack.installer.container.impl.AutomatedInstallerContainer;
@@ -39,8 +40,10 @@ import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
@@ -143,6 +146,7 @@ public class Installer
             int type = INSTALLER_GUI;
             ConsoleInstallerAction consoleAction = ConsoleInstallerAction.CONSOLE_INSTALL;
             String path = null;
+            List<String> records = new ArrayList<String>();
             String langcode = null;
             String media = null;
             String defaultsFile = null;
@@ -213,6 +217,7 @@ public class Installer
                     {
                         type = INSTALLER_AUTO;
                         path = arg;
+                        records.add(arg);
                     }
                 }
                 catch (IllegalArgumentException e)
@@ -235,7 +240,14 @@ public class Installer
                 System.exit(1);
             }
 
-            launchInstall(type, consoleAction, path, langcode, media, defaults, args);
+            if (type == INSTALLER_AUTO && records.size() > 1)
+            {
+                launchAutomatedInstallBatch(records, media, defaults, args);
+            }
+            else
+            {
+                launchInstall(type, consoleAction, path, langcode, media, defaults, args);
+            }
 
         }
         catch (Exception e)
@@ -332,6 +344,23 @@ public class Installer
         automatedInstaller.doInstall();
     }
 
+    /**
+     * Launches an {@link AutomatedInstallBatch}, performing an installation for each installation record.
+     *
+     * @param paths    the installation record paths
+     * @param mediaDir the multi-volume media directory. May be <tt>null</tt>
+     * @param defaults the overrides applied to each installation. May be <tt>null</tt>
+     * @param args     more command line arguments
+     */
+    private void launchAutomatedInstallBatch(List<String> paths, String mediaDir, Overrides defaults, String[] args)
+    {
+        installerMode = INSTALLER_AUTO;
+
+        AutomatedInstallBatch batch = new AutomatedInstallBatch(mediaDir,
+                                                                (defaults != null) ? defaults.getFile() : null, args);
+        batch.shutDown(batch.install(paths));
+    }
+
     public static int getInstallerMode() {
         return installerMode;
     }
@@ -24,12 +24,14 @@ package com.izforge.izpack.installer.container.impl;
 
 import com.izforge.izpack.api.exception.ContainerException;
 import com.izforge.izpack.core.handler.AutomatedPrompt;
+import com.izforge.izpack.core.resource.ResourceManager;
 import com.izforge.izpack.installer.automation.AutomatedInstaller;
 import com.izforge.izpack.installer.console.ConsolePanelAutomationHelper;
 import com.izforge.izpack.installer.container.provider.AutomatedInstallDataProvider;
 import com.izforge.izpack.installer.container.provider.AutomatedPanelsProvider;
 import com.izforge.izpack.installer.multiunpacker.MultiVolumeUnpackerAutomationHelper;
 import com.izforge.izpack.installer.unpacker.ConsolePackResources;
+import com.izforge.izpack.util.Housekeeper;
 import org.picocontainer.MutablePicoContainer;
 import org.picocontainer.injectors.ProviderAdapter;
 
@@ -41,6 +43,16 @@ import org.picocontainer.injectors.ProviderAdapter;
 public class AutomatedInstallerContainer extends InstallerContainer
 {
 
+    /**
+     * The loader to read installer resources with. May be <tt>null</tt>
+     */
+    private final ClassLoader resourceLoader;
+
+    /**
+     * The house-keeper. May be <tt>null</tt>
+     */
+    private final Housekeeper housekeeper;
+
     /**
      * Constructs a <tt>AutomatedInstallerContainer</tt>.
      *
@@ -48,6 +60,21 @@ public class AutomatedInstallerContainer extends InstallerContainer
      */
     public AutomatedInstallerContainer()
     {
+        this(null, null);
+    }
+
+    /**
+     * Constructs a <tt>AutomatedInstallerContainer</tt> for one of several installations performed by the same JVM.
+     *
+     * @param resourceLoader the loader to read installer resources with, shared between the installations. May be
+     *                       <tt>null</tt> to use the system class loader
+     * @param housekeeper    the house-keeper. May be <tt>null</tt> to use one that terminates the JVM on shut down
+     * @throws ContainerException if initialisation fails
+     */
+    public AutomatedInstallerContainer(ClassLoader resourceLoader, Housekeeper housekeeper)
+    {
+        this.resourceLoader = resourceLoader;
+        this.housekeeper = housekeeper;
         initialise();
     }
 
@@ -61,6 +88,8 @@ public class AutomatedInstallerContainer extends InstallerContainer
      */
     protected AutomatedInstallerContainer(MutablePicoContainer container)
     {
+        resourceLoader = null;
+        housekeeper = null;
         initialise(container);
     }
 
@@ -74,6 +103,17 @@ public class AutomatedInstallerContainer extends InstallerContainer
     {
         super.registerComponents(container);
 
+        if (resourceLoader != null)
+        {
+            container.removeComponent(ResourceManager.class);
+            container.addComponent(ResourceManager.class, new ResourceManager(resourceLoader));
+        }
+        if (housekeeper != null)
+        {
+            container.removeComponent(Housekeeper.class);
+            container.addComponent(Housekeeper.class, housekeeper);
+        }
+
         container
                 .addAdapter(new ProviderAdapter(new AutomatedInstallDataProvider()))
                 .addAdapter(new ProviderAdapter(new AutomatedPanelsProvider()));
@@ -18,6 +18,7 @@ import com.izforge.izpack.core.container.AbstractContainer;
 import com.izforge.izpack.core.container.PlatformProvider;
 import com.izforge.izpack.core.data.DefaultVariables;
 import com.izforge.izpack.core.factory.DefaultObjectFactory;
+import com.izforge.izpack.core.metrics.MetricsReporter;
 import com.izforge.izpack.core.os.RegistryDefaultHandler;
 import com.izforge.izpack.core.resource.ResourceManager;
 import com.izforge.izpack.core.rules.ConditionContainer;
@@ -115,6 +116,7 @@ public abstract class InstallerContainer extends AbstractContainer
         addComponent(Container.class, this);
         addComponent(RegistryDefaultHandler.class);
         addComponent(Housekeeper.class);
+        addComponent(MetricsReporter.class);
         addComponent(Librarian.class);
         addComponent(FileQueueFactory.class);
         addComponent(TargetFactory.class);
@@ -136,6 +138,8 @@ public abstract class InstallerContainer extends AbstractContainer
      */
     protected void resolveComponents(MutablePicoContainer pico)
     {
+        pico.getComponent(MetricsReporter.class).start();
+
         InstallData installData = pico.getComponent(InstallData.class);
         String className = installData.getInfo().getUnpackerClassName();
         Class<IUnpacker> unpackerClass = getClass(className, IUnpacker.class);
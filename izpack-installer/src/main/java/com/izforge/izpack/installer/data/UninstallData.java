@@ -21,6 +21,7 @@ package com.izforge.izpack.installer.data;
 
 import com.izforge.izpack.data.CustomData;
 import com.izforge.izpack.api.data.ExecutableFile;
+import com.izforge.izpack.util.FrontCodedStringList;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -36,12 +37,12 @@ public class UninstallData
 {
 
     /**
-     * The installed files list.
+     * The installed files list. Paths are front coded, as installers may install hundreds of thousands of files.
      */
     private List<String> installedFilesList;
 
     /**
-     * The uninstallable files list.
+     * The uninstallable files list. Paths are front coded.
      */
     private List<String> uninstallableFilesList;
 
@@ -90,8 +91,8 @@ public class UninstallData
      */
     public UninstallData()
     {
-        installedFilesList = new ArrayList<String>();
-        uninstallableFilesList = new ArrayList<String>();
+        installedFilesList = new FrontCodedStringList();
+        uninstallableFilesList = new FrontCodedStringList();
         executablesList = new ArrayList<ExecutableFile>();
         additionalData = new HashMap<String, Object>();
         unInstallScripts = new ArrayList<String>();
@@ -2,15 +2,26 @@ package com.izforge.izpack.installer.data;
 
 import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.merge.Mergeable;
+import com.izforge.izpack.api.metrics.InstallMetrics;
+import com.izforge.izpack.api.metrics.Metrics;
+import com.izforge.izpack.api.metrics.PhaseTimer;
+import com.izforge.izpack.api.resource.Resources;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.data.CustomData;
 import com.izforge.izpack.api.data.ExecutableFile;
+import com.izforge.izpack.api.exception.ResourceNotFoundException;
+import com.izforge.izpack.core.io.RawZipWriter;
 import com.izforge.izpack.merge.resolve.PathResolver;
+import com.izforge.izpack.util.FrontCodedStringList;
 import com.izforge.izpack.util.IoHelper;
 import org.apache.commons.io.IOUtils;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -40,14 +51,24 @@ public class UninstallDataWriter
     private final PathResolver pathResolver;
 
     /**
-     * The jar to write to.
+     * The resources.
+     */
+    private final Resources resources;
+
+    /**
+     * The jar to write the installation specific entries to.
      */
     private JarOutputStream jar;
 
     /**
-     * The underlying jar file stream.
+     * The installation specific entries.
+     */
+    private ByteArrayOutputStream jarContent;
+
+    /**
+     * The uninstaller jar file stream.
      */
-    private FileOutputStream jarStream;
+    private OutputStream jarStream;
 
     /**
      * The rules engine.
@@ -64,6 +85,25 @@ public class UninstallDataWriter
      */
     private static final String LOGFILE_PATH = "InstallerFrame.logfilePath";
 
+    /**
+     * Marks an <em>install.log</em> whose files are sorted leaf first and front coded.
+     * <p/>
+     * Logs without this marker list one path per line, in installation order.
+     */
+    public static final String FRONT_CODED_FILES_LOG = "#front-coded";
+
+    /**
+     * Orders paths as {@link File#compareTo(File)} does on platforms with case sensitive file names.
+     */
+    private static final Comparator<String> FILE_ORDER = new Comparator<String>()
+    {
+        @Override
+        public int compare(String o1, String o2)
+        {
+            return o1.compareTo(o2);
+        }
+    };
+
     /**
      * Constructs an <tt>UninstallDataWriter</tt>.
      *
@@ -71,14 +111,16 @@ public class UninstallDataWriter
      * @param installData   the install data
      * @param pathResolver  the path resolver
      * @param rules         the rules engine
+     * @param resources     the resources
      */
     public UninstallDataWriter(UninstallData uninstallData, AutomatedInstallData installData, PathResolver pathResolver,
-                               RulesEngine rules)
+                               RulesEngine rules, Resources resources)
     {
         this.uninstallData = uninstallData;
         this.installData = installData;
         this.pathResolver = pathResolver;
         this.rules = rules;
+        this.resources = resources;
     }
 
     /**
@@ -106,6 +148,8 @@ public class UninstallDataWriter
     public boolean write()
     {
         boolean result = false;
+        Metrics metrics = InstallMetrics.getMetrics();
+        PhaseTimer total = metrics.start("uninstaller.write");
         try
         {
             BufferedWriter extLogWriter = getExternalLogFile();
@@ -113,8 +157,12 @@ public class UninstallDataWriter
 
             System.out.println("[ Writing the uninstaller data ... ]");
 
-            writeJarSkeleton();
+            PhaseTimer timer = metrics.start("uninstaller.write.skeleton");
+            Map<UninstallerSkeleton, byte[]> skeleton = writeJarSkeleton();
+            timer.stop();
+            timer = metrics.start("uninstaller.write.log");
             writeFilesLog(extLogWriter);
+            timer.stop();
             writeUninstallerJarFileLog();
             writeExecutables();
             writeUninstallerListeners();
@@ -124,6 +172,7 @@ public class UninstallDataWriter
             writeScriptFiles();
 
             jar.close();
+            writeOutputJar(skeleton);
             result = true;
         }
         catch (Throwable t)
@@ -131,6 +180,10 @@ public class UninstallDataWriter
             logger.log(Level.SEVERE, t.getMessage(), t);
             destroyJar(); // don't keep the jar - it may be incomplete or corrupted
         }
+        finally
+        {
+            total.stop();
+        }
         return result;
     }
 
@@ -178,42 +231,43 @@ public class UninstallDataWriter
 
     /**
      * Writes the uninstaller skeleton.
+     * <p/>
+     * Parts of the skeleton prebuilt by the compiler are returned, to be copied as is into the uninstaller. Any
+     * part that isn't available is merged from the installer classes instead.
      *
+     * @return the prebuilt skeleton parts, in the order they should be written
      * @throws IOException for any I/O error
      * @throws com.izforge.izpack.api.exception.IzPackException
      *                     for any IzPack error
      */
-    private void writeJarSkeleton() throws IOException
+    private Map<UninstallerSkeleton, byte[]> writeJarSkeleton() throws IOException
     {
-        List<Mergeable> uninstallerMerge = pathResolver.getMergeableFromPath("com/izforge/izpack/uninstaller/");
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("uninstaller-META-INF/", "META-INF/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/api/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/data/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/core/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/util/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/logging/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/gui/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/img/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("org/picocontainer/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("org/apache/commons/io/"));
-
-        //required by console uninstaller
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("jline/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("org/fusesource/"));
-
+        List<UninstallerSkeleton> parts = new ArrayList<UninstallerSkeleton>();
+        parts.add(UninstallerSkeleton.COMMON);
         if (!uninstallData.getUninstallerListeners().isEmpty())
         {
-            uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/event/"));
+            parts.add(UninstallerSkeleton.LISTENERS);
         }
         if (rules.isConditionTrue("izpack.windowsinstall"))
         {
-            uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/core/os/"));
-            uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/coi/tools/os/"));
+            parts.add(UninstallerSkeleton.WINDOWS);
         }
 
-        for (Mergeable mergeable : uninstallerMerge)
+        Map<UninstallerSkeleton, byte[]> result = new EnumMap<UninstallerSkeleton, byte[]>(UninstallerSkeleton.class);
+        for (UninstallerSkeleton part : parts)
         {
-            mergeable.merge(jar);
+            byte[] prebuilt = getPrebuiltSkeleton(part);
+            if (prebuilt != null)
+            {
+                result.put(part, prebuilt);
+            }
+            else
+            {
+                for (Mergeable mergeable : part.getMergeables(pathResolver))
+                {
+                    mergeable.merge(jar);
+                }
+            }
         }
 
         if (installData.getInfo().isPrivilegedExecutionRequiredUninstaller())
@@ -250,6 +304,36 @@ public class UninstallDataWriter
         {
             mergeable.merge(jar);
         }
+        return result;
+    }
+
+    /**
+     * Returns a prebuilt uninstaller skeleton part.
+     *
+     * @param part the part
+     * @return the part jar, or {@code null} if the installer doesn't include it
+     * @throws IOException for any I/O error
+     */
+    private byte[] getPrebuiltSkeleton(UninstallerSkeleton part) throws IOException
+    {
+        InputStream in;
+        try
+        {
+            in = resources.getInputStream(part.getResource());
+        }
+        catch (ResourceNotFoundException exception)
+        {
+            logger.fine("No prebuilt uninstaller part " + part.getResource() + ", merging it");
+            return null;
+        }
+        try
+        {
+            return IOUtils.toByteArray(in);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
     }
 
     /**
@@ -266,39 +350,64 @@ public class UninstallDataWriter
         BufferedWriter logWriter = new BufferedWriter(new OutputStreamWriter(jar));
         logWriter.write(installData.getInstallPath());
         logWriter.newLine();
-        Iterator<String> iter = files.iterator();
+        logWriter.write(FRONT_CODED_FILES_LOG);
+        logWriter.newLine();
+        getLeafFirst(files).write(logWriter);
+        logWriter.flush();
+        jar.closeEntry();
+
         if (extLogWriter != null)
         {
-            // Write intern (in uninstaller.jar) and extern log file.
+            // the external log lists the files in installation order
+            Iterator<String> iter = files.iterator();
             while (iter.hasNext())
             {
-                String txt = iter.next();
-                logWriter.write(txt);
-                extLogWriter.write(txt);
+                extLogWriter.write(iter.next());
                 if (iter.hasNext())
                 {
-                    logWriter.newLine();
                     extLogWriter.newLine();
                 }
             }
-            logWriter.flush();
             extLogWriter.flush();
             extLogWriter.close();
         }
-        else
+    }
+
+    /**
+     * Sorts files into the order that the uninstaller removes them, removing duplicates.
+     * <p/>
+     * This is the reverse of the {@link File} ordering, so that files are removed before the directories that
+     * contain them. Doing this at install time means the uninstaller can read the log without sorting it.
+     *
+     * @param files the files
+     * @return the sorted files
+     */
+    private FrontCodedStringList getLeafFirst(List<String> files)
+    {
+        String[] paths = new String[files.size()];
+        int i = 0;
+        for (String file : files)
         {
-            while (iter.hasNext())
+            // normalise the path as File does, so that the order matches File.compareTo()
+            paths[i++] = new File(file).getPath();
+        }
+        Comparator<String> fileOrder = FILE_ORDER;
+        if (File.separatorChar == '\\')
+        {
+            fileOrder = String.CASE_INSENSITIVE_ORDER;
+        }
+        Arrays.sort(paths, Collections.reverseOrder(fileOrder));
+        FrontCodedStringList result = new FrontCodedStringList();
+        String previous = null;
+        for (String path : paths)
+        {
+            if (previous == null || fileOrder.compare(previous, path) != 0)
             {
-                String txt = iter.next();
-                logWriter.write(txt);
-                if (iter.hasNext())
-                {
-                    logWriter.newLine();
-                }
+                result.add(path);
             }
-            logWriter.flush();
+            previous = path;
         }
-        jar.closeEntry();
+        return result;
     }
 
     /**
@@ -498,13 +607,34 @@ public class UninstallDataWriter
         uninstallData.setUninstallerJarFilename(jarPath);
         uninstallData.setUninstallerPath(dirPath);
 
-        // Create the jar file
-        jarStream = new FileOutputStream(jarPath);
-        jar = new JarOutputStream(new BufferedOutputStream(jarStream));
+        // Create the jar for the installation specific entries. These are combined with the prebuilt skeleton once
+        // written
+        jarContent = new ByteArrayOutputStream();
+        jar = new JarOutputStream(jarContent);
         jar.setLevel(9);
         uninstallData.addFile(jarPath, true);
     }
 
+    /**
+     * Writes the uninstaller jar file, copying the entries of the prebuilt skeleton parts followed by the
+     * installation specific entries.
+     *
+     * @param skeleton the prebuilt skeleton parts
+     * @throws IOException for any I/O error
+     */
+    private void writeOutputJar(Map<UninstallerSkeleton, byte[]> skeleton) throws IOException
+    {
+        jarStream = new BufferedOutputStream(new FileOutputStream(uninstallData.getUninstallerJarFilename()));
+        RawZipWriter writer = new RawZipWriter(jarStream);
+        for (byte[] part : skeleton.values())
+        {
+            writer.add(part);
+        }
+        writer.add(jarContent.toByteArray());
+        writer.finish();
+        jarStream.close();
+    }
+
     /**
      * Destroys the uninstaller jar when it cannot be written.
      */
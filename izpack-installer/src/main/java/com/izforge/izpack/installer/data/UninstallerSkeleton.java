@@ -0,0 +1,128 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.izforge.izpack.api.merge.Mergeable;
+import com.izforge.izpack.merge.resolve.PathResolver;
+
+
+/**
+ * The parts of the uninstaller jar that don't depend on the installation.
+ * <p/>
+ * The compiler assembles each part into a jar, stored as an installer resource named by {@link #getResource()}, so
+ * that the {@link UninstallDataWriter} can copy it into the uninstaller without merging and recompressing its
+ * classes on every installation. Parts that are only needed by some installations are kept separate.
+ */
+public enum UninstallerSkeleton
+{
+
+    /**
+     * The classes required by every uninstaller.
+     */
+    COMMON("uninstaller-skeleton",
+           "com/izforge/izpack/uninstaller/",
+           UninstallerSkeleton.META_INF,
+           "com/izforge/izpack/api/",
+           "com/izforge/izpack/data/",
+           "com/izforge/izpack/core/",
+           "com/izforge/izpack/util/",
+           "com/izforge/izpack/logging/",
+           "com/izforge/izpack/gui/",
+           "com/izforge/izpack/img/",
+           "org/picocontainer/",
+           "org/apache/commons/io/",
+           // required by console uninstaller
+           "jline/",
+           "org/fusesource/"),
+
+    /**
+     * The classes required by uninstaller listeners.
+     */
+    LISTENERS("uninstaller-skeleton-listeners", "com/izforge/izpack/event/"),
+
+    /**
+     * The classes required to uninstall on Windows.
+     */
+    WINDOWS("uninstaller-skeleton-windows", "com/izforge/izpack/core/os/", "com/coi/tools/os/");
+
+    /**
+     * The path of the uninstaller's META-INF directory.
+     */
+    private static final String META_INF = "uninstaller-META-INF/";
+
+    /**
+     * The installer resource name.
+     */
+    private final String resource;
+
+    /**
+     * The paths of the part's classes and resources.
+     */
+    private final String[] paths;
+
+    /**
+     * Constructs an {@code UninstallerSkeleton}.
+     *
+     * @param resource the installer resource name
+     * @param paths    the paths of the part's classes and resources
+     */
+    private UninstallerSkeleton(String resource, String... paths)
+    {
+        this.resource = resource;
+        this.paths = paths;
+    }
+
+    /**
+     * Returns the name of the installer resource containing the part.
+     *
+     * @return the resource name, relative to the installer resources
+     */
+    public String getResource()
+    {
+        return resource;
+    }
+
+    /**
+     * Resolves the classes and resources of the part.
+     *
+     * @param pathResolver the path resolver
+     * @return the mergeables that make up the part
+     */
+    public List<Mergeable> getMergeables(PathResolver pathResolver)
+    {
+        List<Mergeable> result = new ArrayList<Mergeable>();
+        for (String path : paths)
+        {
+            if (META_INF.equals(path))
+            {
+                result.addAll(pathResolver.getMergeableFromPath(path, "META-INF/"));
+            }
+            else
+            {
+                result.addAll(pathResolver.getMergeableFromPath(path));
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,368 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.event;
+
+import org.apache.commons.io.FileUtils;
+
+import com.izforge.izpack.api.event.ByteProgressListener;
+import com.izforge.izpack.api.event.ProgressListener;
+
+
+/**
+ * A {@link ProgressListener} that limits the rate at which sub-step progress is passed on to another listener.
+ * <p/>
+ * Notifiers such as the unpacker report progress for every file. Passing each notification on to a user interface
+ * floods it with updates it can't display. This listener only passes on the most recent progress, at most once per
+ * interval. Step and action notifications are always passed on immediately, after any pending progress.
+ * <p/>
+ * Pending progress is always passed on ahead of a step or action notification, so that the listener sees the final
+ * progress of each step.
+ * <p/>
+ * Progress reported in bytes is used to calculate the throughput and the estimated time remaining for the current
+ * step. If the underlying listener isn't a {@link ByteProgressListener}, it is converted to sub-steps.
+ */
+public class CoalescingProgressListener implements ByteProgressListener
+{
+
+    /**
+     * The interval between updates suitable for a graphical interface, in milliseconds.
+     */
+    public static final long GUI_INTERVAL = 40;
+
+    /**
+     * The interval between updates suitable for a console, in milliseconds.
+     */
+    public static final long CONSOLE_INTERVAL = 2000;
+
+    /**
+     * The listener to pass notifications on to.
+     */
+    private final ProgressListener listener;
+
+    /**
+     * The listener to pass progress in bytes on to, or {@code null} if the listener doesn't accept it.
+     */
+    private final ByteProgressListener byteListener;
+
+    /**
+     * The minimum interval between progress notifications, in nanoseconds.
+     */
+    private final long interval;
+
+    /**
+     * The time of the last progress notification, or the start of the step, in nanoseconds.
+     */
+    private long lastNotified;
+
+    /**
+     * The time that the current step started, in nanoseconds.
+     */
+    private long stepStarted;
+
+    /**
+     * The number of sub-steps of the current step.
+     */
+    private int subSteps;
+
+    /**
+     * Determines if there is progress that hasn't been passed on.
+     */
+    private boolean pending;
+
+    /**
+     * Determines if the pending progress was reported in bytes.
+     */
+    private boolean pendingBytes;
+
+    /**
+     * The pending sub-step.
+     */
+    private int subStep;
+
+    /**
+     * The pending number of bytes processed.
+     */
+    private long bytes;
+
+    /**
+     * The total number of bytes of the current step.
+     */
+    private long totalBytes;
+
+    /**
+     * The pending message.
+     */
+    private String message;
+
+    /**
+     * The throughput of the current step, in bytes per second.
+     */
+    private volatile long bytesPerSecond;
+
+    /**
+     * The estimated time remaining for the current step, in milliseconds, or {@code -1} if it is not known.
+     */
+    private volatile long remaining = -1;
+
+    /**
+     * Constructs a {@code CoalescingProgressListener}.
+     *
+     * @param listener the listener to pass notifications on to
+     * @param interval the minimum interval between progress notifications, in milliseconds
+     */
+    public CoalescingProgressListener(ProgressListener listener, long interval)
+    {
+        this.listener = listener;
+        this.byteListener = (listener instanceof ByteProgressListener) ? (ByteProgressListener) listener : null;
+        this.interval = interval * 1000000L;
+        this.lastNotified = System.nanoTime();
+        this.stepStarted = lastNotified;
+    }
+
+    /**
+     * Returns the throughput of the current step.
+     *
+     * @return the throughput, in bytes per second, or {@code 0} if it is not known
+     */
+    public long getBytesPerSecond()
+    {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Returns the estimated time remaining for the current step.
+     *
+     * @return the time remaining, in milliseconds, or {@code -1} if it is not known
+     */
+    public long getRemainingTime()
+    {
+        return remaining;
+    }
+
+    /**
+     * Returns a description of the throughput and estimated time remaining of the current step, suitable for
+     * display.
+     *
+     * @return the description, e.g. <em>"12 MB/s, 1:05"</em>, or {@code null} if the throughput is not known
+     */
+    public String getRate()
+    {
+        long rate = bytesPerSecond;
+        long time = remaining;
+        if (rate <= 0)
+        {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(FileUtils.byteCountToDisplaySize(rate)).append("/s");
+        if (time >= 0)
+        {
+            long seconds = (time + 999) / 1000;
+            result.append(", ").append(seconds / 60).append(':');
+            if (seconds % 60 < 10)
+            {
+                result.append('0');
+            }
+            result.append(seconds % 60);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Invoked when an action starts.
+     *
+     * @param name  the name of the action
+     * @param steps the number of steps the action consists of
+     */
+    @Override
+    public synchronized void startAction(String name, int steps)
+    {
+        flush();
+        listener.startAction(name, steps);
+    }
+
+    /**
+     * Invoked when an action finishes.
+     */
+    @Override
+    public synchronized void stopAction()
+    {
+        flush();
+        listener.stopAction();
+    }
+
+    /**
+     * Invoked when an action step starts.
+     *
+     * @param stepName the name of the step
+     * @param step     the step number
+     * @param subSteps the number of sub-steps the step consists of
+     */
+    @Override
+    public synchronized void nextStep(String stepName, int step, int subSteps)
+    {
+        flush();
+        this.subSteps = subSteps;
+        bytes = 0;
+        totalBytes = 0;
+        bytesPerSecond = 0;
+        remaining = -1;
+        stepStarted = System.nanoTime();
+        lastNotified = stepStarted;
+        listener.nextStep(stepName, step, subSteps);
+    }
+
+    /**
+     * Sets the number of sub-steps.
+     *
+     * @param subSteps the number of sub-steps
+     */
+    @Override
+    public synchronized void setSubStepNo(int subSteps)
+    {
+        flush();
+        this.subSteps = subSteps;
+        listener.setSubStepNo(subSteps);
+    }
+
+    /**
+     * Invoked to notify progress.
+     * <p/>
+     * This increments the current step, so is passed on immediately.
+     *
+     * @param message a message describing the step
+     */
+    @Override
+    public synchronized void progress(String message)
+    {
+        flush();
+        listener.progress(message);
+    }
+
+    /**
+     * Invoked to notify progress.
+     * <p/>
+     * This is passed on if the interval has elapsed since progress was last passed on.
+     *
+     * @param subStep the sub-step which will be performed next
+     * @param message an additional message describing the sub-step
+     */
+    @Override
+    public synchronized void progress(int subStep, String message)
+    {
+        this.subStep = subStep;
+        this.message = message;
+        pending = true;
+        pendingBytes = false;
+        dispatchIfDue();
+    }
+
+    /**
+     * Invoked to notify progress of the current step in bytes.
+     * <p/>
+     * This is passed on if the interval has elapsed since progress was last passed on.
+     *
+     * @param bytes      the number of bytes of the current step processed so far
+     * @param totalBytes the total number of bytes of the current step
+     * @param message    an additional message describing what is being processed
+     */
+    @Override
+    public synchronized void progress(long bytes, long totalBytes, String message)
+    {
+        this.bytes = bytes;
+        this.totalBytes = totalBytes;
+        this.message = message;
+        pending = true;
+        pendingBytes = true;
+        dispatchIfDue();
+    }
+
+    /**
+     * Invoked when an action restarts.
+     *
+     * @param name           the name of the action
+     * @param overallMessage a message describing the overall progress
+     * @param tip            a tip describing the current progress
+     * @param steps          the number of steps the action consists of
+     */
+    @Override
+    public synchronized void restartAction(String name, String overallMessage, String tip, int steps)
+    {
+        flush();
+        listener.restartAction(name, overallMessage, tip, steps);
+    }
+
+    /**
+     * Passes on pending progress if the interval has elapsed.
+     */
+    private void dispatchIfDue()
+    {
+        long now = System.nanoTime();
+        if (now - lastNotified >= interval)
+        {
+            dispatch(now);
+        }
+    }
+
+    /**
+     * Passes on any pending progress, ahead of a step or action notification.
+     */
+    private void flush()
+    {
+        if (pending)
+        {
+            dispatch(System.nanoTime());
+        }
+    }
+
+    /**
+     * Passes on pending progress.
+     *
+     * @param now the current time, in nanoseconds
+     */
+    private void dispatch(long now)
+    {
+        pending = false;
+        lastNotified = now;
+        if (pendingBytes)
+        {
+            long elapsed = now - stepStarted;
+            if (elapsed > 0 && bytes > 0)
+            {
+                long rate = (long) (bytes * 1000000000.0d / elapsed);
+                bytesPerSecond = rate;
+                remaining = (rate > 0) ? (totalBytes - bytes) * 1000L / rate : -1;
+            }
+            if (byteListener != null)
+            {
+                byteListener.progress(bytes, totalBytes, message);
+            }
+            else
+            {
+                int value = (totalBytes > 0) ? (int) (bytes * subSteps / totalBytes) : 0;
+                listener.progress(value, message);
+            }
+        }
+        else
+        {
+            listener.progress(subStep, message);
+        }
+    }
+
+}
@@ -32,6 +32,8 @@ import com.izforge.izpack.api.exception.IzPackException;
 import com.izforge.izpack.api.handler.AbstractPrompt;
 import com.izforge.izpack.api.handler.AbstractUIHandler;
 import com.izforge.izpack.api.handler.Prompt;
+import com.izforge.izpack.api.metrics.InstallMetrics;
+import com.izforge.izpack.api.metrics.PhaseTimer;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.core.handler.PromptUIHandler;
 
@@ -156,17 +158,25 @@ public class InstallerListeners
      */
     public void beforePacks(List<Pack> packs, ProgressListener listener) throws InstallerException
     {
-        for (InstallerListener l : listeners)
+        PhaseTimer timer = InstallMetrics.getMetrics().start("listeners.beforePacks");
+        try
         {
-            try
-            {
-                l.beforePacks(packs, listener);
-            }
-                catch (IzPackException ize)
+            for (InstallerListener l : listeners)
             {
-                handleError(ize);
+                try
+                {
+                    l.beforePacks(packs, listener);
+                }
+                    catch (IzPackException ize)
+                {
+                    handleError(ize);
+                }
             }
         }
+        finally
+        {
+            timer.stop();
+        }
     }
 
     /**
@@ -178,17 +188,25 @@ public class InstallerListeners
      */
     public void beforePack(Pack pack, int i) throws InstallerException
     {
-        for (InstallerListener l : listeners)
+        PhaseTimer timer = InstallMetrics.getMetrics().start("listeners.beforePack");
+        try
         {
-            try
+            for (InstallerListener l : listeners)
             {
-                l.beforePack(pack);
-            }
-                catch (IzPackException ize)
-            {
-                handleError(ize);
+                try
+                {
+                    l.beforePack(pack);
+                }
+                    catch (IzPackException ize)
+                {
+                    handleError(ize);
+                }
             }
         }
+        finally
+        {
+            timer.stop();
+        }
     }
 
     /**
@@ -211,17 +229,29 @@ public class InstallerListeners
      */
     public void beforeDir(File dir, PackFile packFile, Pack pack) throws InstallerException
     {
-        for (InstallerListener l : fileListeners)
+        if (fileListeners.isEmpty())
         {
-            try
-            {
-                l.beforeDir(dir, packFile, pack);
-            }
-                catch (IzPackException ize)
+            return;
+        }
+        PhaseTimer timer = InstallMetrics.getMetrics().start("listeners.beforeDir");
+        try
+        {
+            for (InstallerListener l : fileListeners)
             {
-                handleError(ize);
+                try
+                {
+                    l.beforeDir(dir, packFile, pack);
+                }
+                    catch (IzPackException ize)
+                {
+                    handleError(ize);
+                }
             }
         }
+        finally
+        {
+            timer.stop();
+        }
     }
 
     /**
@@ -234,17 +264,29 @@ public class InstallerListeners
      */
     public void afterDir(File dir, PackFile packFile, Pack pack) throws InstallerException
     {
-        for (InstallerListener l : fileListeners)
+        if (fileListeners.isEmpty())
         {
-            try
-            {
-                l.afterDir(dir, packFile, pack);
-            }
-                catch (IzPackException ize)
+            return;
+        }
+        PhaseTimer timer = InstallMetrics.getMetrics().start("listeners.afterDir");
+        try
+        {
+            for (InstallerListener l : fileListeners)
             {
-                handleError(ize);
+                try
+                {
+                    l.afterDir(dir, packFile, pack);
+                }
+                    catch (IzPackException ize)
+                {
+                    handleError(ize);
+                }
             }
         }
+        finally
+        {
+            timer.stop();
+        }
     }
 
     /**
@@ -259,17 +301,29 @@ public class InstallerListeners
      */
     public void beforeFile(File file, PackFile packFile, Pack pack) throws InstallerException
     {
-        for (InstallerListener l : fileListeners)
+        if (fileListeners.isEmpty())
         {
-            try
-            {
-                l.beforeFile(file, packFile, pack);
-            }
-                catch (IzPackException ize)
+            return;
+        }
+        PhaseTimer timer = InstallMetrics.getMetrics().start("listeners.beforeFile");
+        try
+        {
+            for (InstallerListener l : fileListeners)
             {
-                handleError(ize);
+                try
+                {
+                    l.beforeFile(file, packFile, pack);
+                }
+                    catch (IzPackException ize)
+                {
+                    handleError(ize);
+                }
             }
         }
+        finally
+        {
+            timer.stop();
+        }
     }
 
     /**
@@ -284,17 +338,29 @@ public class InstallerListeners
      */
     public void afterFile(File file, PackFile packFile, Pack pack) throws InstallerException
     {
-        for (InstallerListener l : fileListeners)
+        if (fileListeners.isEmpty())
         {
-            try
-            {
-                l.afterFile(file, packFile, pack);
-            }
-                catch (IzPackException ize)
+            return;
+        }
+        PhaseTimer timer = InstallMetrics.getMetrics().start("listeners.afterFile");
+        try
+        {
+            for (InstallerListener l : fileListeners)
             {
-                handleError(ize);
+                try
+                {
+                    l.afterFile(file, packFile, pack);
+                }
+                    catch (IzPackException ize)
+                {
+                    handleError(ize);
+                }
             }
         }
+        finally
+        {
+            timer.stop();
+        }
     }
 
     /**
@@ -305,17 +371,25 @@ public class InstallerListeners
      */
     public void afterPack(Pack pack) throws InstallerException
     {
-        for (InstallerListener l : listeners)
+        PhaseTimer timer = InstallMetrics.getMetrics().start("listeners.afterPack");
+        try
         {
-            try
+            for (InstallerListener l : listeners)
             {
-                l.afterPack(pack);
-            }
-            catch (IzPackException ize)
-            {
-                handleError(ize);
+                try
+                {
+                    l.afterPack(pack);
+                }
+                catch (IzPackException ize)
+                {
+                    handleError(ize);
+                }
             }
         }
+        finally
+        {
+            timer.stop();
+        }
     }
 
     /**
@@ -327,17 +401,25 @@ public class InstallerListeners
      */
     public void afterPacks(List<Pack> packs, ProgressListener listener) throws InstallerException
     {
-        for (InstallerListener l : listeners)
+        PhaseTimer timer = InstallMetrics.getMetrics().start("listeners.afterPacks");
+        try
         {
-            try
-            {
-                l.afterPacks(packs, listener);
-            }
-                catch (IzPackException ize)
+            for (InstallerListener l : listeners)
             {
-                handleError(ize);
+                try
+                {
+                    l.afterPacks(packs, listener);
+                }
+                    catch (IzPackException ize)
+                {
+                    handleError(ize);
+                }
             }
         }
+        finally
+        {
+            timer.stop();
+        }
     }
 
     private void handleError(IzPackException ize) throws IzPackException
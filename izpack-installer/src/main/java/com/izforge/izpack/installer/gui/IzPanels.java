@@ -22,19 +22,38 @@
 package com.izforge.izpack.installer.gui;
 
 import com.izforge.izpack.api.container.Container;
+import com.izforge.izpack.api.data.Panel;
+import com.izforge.izpack.api.data.PanelActionConfiguration;
+import com.izforge.izpack.api.exception.IzPackException;
+import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.installer.data.GUIInstallData;
 import com.izforge.izpack.installer.panel.AbstractPanels;
 
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 /**
  * Implementation of {@link AbstractPanels} for {@link IzPanel}.
+ * <p/>
+ * {@link IzPanel}s are created when they are first navigated to. When a panel is displayed, the next panel that
+ * is likely to be displayed is created once the event dispatch thread has finished displaying it, so that it is
+ * ready when the user navigates to it. Panels configured with the {@link #CREATE_EAGERLY} option are created on
+ * initialisation.
  *
  * @author Tim Anderson
  */
 public class IzPanels extends AbstractPanels<IzPanelView, IzPanel>
 {
+    /**
+     * Panel configuration option that, if {@code true}, creates the panel when the installer is initialised,
+     * rather than when it is first navigated to.
+     */
+    public static final String CREATE_EAGERLY = "create-eagerly";
+
     /**
      * The installation data.
      */
@@ -55,6 +74,16 @@ public class IzPanels extends AbstractPanels<IzPanelView, IzPanel>
      */
     private boolean isBack = false;
 
+    /**
+     * The panels whose {@link IzPanel} has been added to the installation, in navigation order.
+     */
+    private final List<IzPanelView> attached = new ArrayList<IzPanelView>();
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(IzPanels.class.getName());
+
     /**
      * Constructs a {@code IzPanels}.
      *
@@ -71,20 +100,20 @@ public class IzPanels extends AbstractPanels<IzPanelView, IzPanel>
 
     /**
      * Initialises the {@link IzPanel} instances.
+     * <p/>
+     * Only the panels configured to be created eagerly, and the last panel, are created. The last panel is always
+     * created, as panels determine if they are the last panel from the {@link GUIInstallData#getPanels() panels}
+     * added to the installation data.
      */
     public void initialise()
     {
-        for (IzPanelView panel : getPanelViews())
+        List<IzPanelView> panels = getPanelViews();
+        for (IzPanelView panel : panels)
         {
-            // need to defer creation of the IzPanel until after the InstallerFrame is constructed
-            IzPanel view = panel.getView();
-            installData.getPanels().add(view);
-            String panelId = panel.getPanelId();
-            if (panelId == null)
+            if (panel.getIndex() == panels.size() - 1 || isCreatedEagerly(panel.getPanel()))
             {
-                panelId = view.getClass().getName();
+                attach(panel);
             }
-            container.addComponent(panelId, view);
         }
     }
 
@@ -123,6 +152,7 @@ public class IzPanels extends AbstractPanels<IzPanelView, IzPanel>
         try
         {
             isBack = oldPanel != null && newPanel.getIndex() < oldPanel.getIndex();
+            attach(newPanel);
             if (listener != null)
             {
                 listener.switchPanel(newPanel, oldPanel);
@@ -133,7 +163,137 @@ public class IzPanels extends AbstractPanels<IzPanelView, IzPanel>
         {
             isBack = false;
         }
+        if (result)
+        {
+            createNext(newPanel);
+        }
         return result;
     }
 
+    /**
+     * Creates the {@link IzPanel} of a panel if required, and adds it to the installation data and container.
+     * <p/>
+     * This must be invoked from the event dispatch thread, once the {@link InstallerFrame} is constructed.
+     *
+     * @param panel the panel
+     */
+    private void attach(IzPanelView panel)
+    {
+        IzPanel view = panel.getView();
+        if (!attached.contains(panel))
+        {
+            // keep the installation data panels in navigation order
+            int position = 0;
+            while (position < attached.size() && attached.get(position).getIndex() < panel.getIndex())
+            {
+                ++position;
+            }
+            attached.add(position, panel);
+            installData.getPanels().add(position, view);
+            String panelId = panel.getPanelId();
+            if (panelId == null)
+            {
+                panelId = view.getClass().getName();
+            }
+            container.addComponent(panelId, view);
+        }
+    }
+
+    /**
+     * Schedules creation of the panel following the specified panel, if it is likely to be displayed next.
+     * <p/>
+     * The panel is created on the event dispatch thread once the events already queued, such as those displaying
+     * the current panel, have been processed. Panels are Swing components, and creating them resolves their
+     * dependencies from the container, so neither can be done from another thread.
+     * <p/>
+     * Visibility is predicted from the panel conditions using the current variables, without refreshing them, as
+     * the user hasn't yet completed the current panel. Panels with pre-construction actions are left to be created
+     * when they are navigated to, as their actions may update variables.
+     *
+     * @param panel the current panel
+     */
+    private void createNext(IzPanelView panel)
+    {
+        List<IzPanelView> panels = getPanelViews();
+        for (int i = panel.getIndex() + 1; i < panels.size(); ++i)
+        {
+            final IzPanelView next = panels.get(i);
+            if (isLikelyVisible(next.getPanel()))
+            {
+                List<PanelActionConfiguration> actions = next.getPanel().getPreConstructionActions();
+                if (!attached.contains(next) && (actions == null || actions.isEmpty()))
+                {
+                    SwingUtilities.invokeLater(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            create(next);
+                        }
+                    });
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Creates the {@link IzPanel} of a panel ahead of it being navigated to, and attaches it.
+     * <p/>
+     * If creation fails, the panel is left to be created when it is navigated to, so that the failure is reported
+     * then.
+     *
+     * @param panel the panel
+     */
+    private void create(IzPanelView panel)
+    {
+        if (!attached.contains(panel))
+        {
+            try
+            {
+                attach(panel);
+            }
+            catch (RuntimeException exception)
+            {
+                logger.log(Level.FINE, "Failed to create panel " + panel.getPanel().getClassName()
+                        + " in advance", exception);
+            }
+        }
+    }
+
+    /**
+     * Determines if a panel is likely to be displayed, based on its conditions.
+     *
+     * @param panel the panel
+     * @return {@code true} if the panel is likely to be displayed
+     */
+    private boolean isLikelyVisible(Panel panel)
+    {
+        RulesEngine rules = installData.getRules();
+        try
+        {
+            if (panel.isDisplayHidden())
+            {
+                return true;
+            }
+            return panel.hasCondition() ? rules.isConditionTrue(panel.getCondition())
+                    : rules.canShowPanel(panel.getPanelId(), installData.getVariables());
+        }
+        catch (IzPackException exception)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Determines if a panel must be created when the installer is initialised.
+     *
+     * @param panel the panel
+     * @return {@code true} if the panel has the {@link #CREATE_EAGERLY} option set
+     */
+    private boolean isCreatedEagerly(Panel panel)
+    {
+        return Boolean.parseBoolean(panel.getConfigurationOptionValue(CREATE_EAGERLY, installData.getRules()));
+    }
+
 }
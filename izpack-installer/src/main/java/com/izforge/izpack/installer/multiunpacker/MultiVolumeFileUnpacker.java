@@ -84,16 +84,15 @@ public class MultiVolumeFileUnpacker extends FileUnpacker
         long position = ((XPackFile) packFile).getArchiveFilePosition();
 
         long filePointer = volumes.getFilePointer();
-        if (filePointer < position)
+        if (filePointer != position)
         {
-            // need to skip to the correct position
-            logger.fine("Skipping bytes to get to file " + target.getName()
-                                + " (" + filePointer + "<" + position
-                                + ") target is: " + (position - filePointer));
-            skip(position - filePointer);
+            // need to move to the correct position. This starts decompressing at the nearest segment, if any
+            logger.fine("Seeking to file " + target.getName()
+                                + " (" + filePointer + "->" + position + ")");
+            volumes.seek(position);
         }
 
-        if (volumes.getFilePointer() > position)
+        if (volumes.getFilePointer() != position)
         {
             throw new IOException("Error, can't access file in pack.");
         }
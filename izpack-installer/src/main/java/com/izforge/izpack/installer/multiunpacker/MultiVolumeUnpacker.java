@@ -34,6 +34,7 @@ import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.io.FileSpanningInputStream;
 import com.izforge.izpack.core.io.VolumeLocator;
+import com.izforge.izpack.core.io.VolumeSegment;
 import com.izforge.izpack.installer.data.UninstallData;
 import com.izforge.izpack.installer.event.InstallerListeners;
 import com.izforge.izpack.installer.unpacker.*;
@@ -42,6 +43,7 @@ import com.izforge.izpack.util.PlatformModelMatcher;
 import com.izforge.izpack.util.os.FileQueue;
 import org.apache.commons.io.IOUtils;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -49,6 +51,7 @@ import java.io.ObjectInputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.CodeSource;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -129,7 +132,9 @@ public class MultiVolumeUnpacker extends UnpackerBase
             objectIn = new ObjectInputStream(in);
             int volumeCount = objectIn.readInt();
             String volumeName = objectIn.readUTF();
-            logger.fine("Reading from " + volumeCount + " volumes with basename " + volumeName + " ");
+            List<VolumeSegment> segments = readSegments(objectIn);
+            logger.fine("Reading from " + volumeCount + " volumes with basename " + volumeName + ", "
+                                + segments.size() + " segments");
 
             String mediaPath = getInstallData().getMediaPath();
             if ((mediaPath == null) || (mediaPath.length() == 0))
@@ -144,6 +149,7 @@ public class MultiVolumeUnpacker extends UnpackerBase
             }
             volumes = new FileSpanningInputStream(volume, volumeCount);
             volumes.setLocator(locator);
+            volumes.setSegments(segments);
         }
         catch (IOException exception)
         {
@@ -201,6 +207,30 @@ public class MultiVolumeUnpacker extends UnpackerBase
         IOUtils.closeQuietly(volumes);
     }
 
+    /**
+     * Reads the segments of the volumes.
+     *
+     * @param in the volume meta-data stream
+     * @return the segments. Empty if the installer was built before volumes were segmented
+     * @throws IOException for any I/O error
+     */
+    @SuppressWarnings("unchecked")
+    private List<VolumeSegment> readSegments(ObjectInputStream in) throws IOException
+    {
+        try
+        {
+            return (List<VolumeSegment>) in.readObject();
+        }
+        catch (EOFException exception)
+        {
+            return Collections.emptyList();
+        }
+        catch (ClassNotFoundException exception)
+        {
+            throw new IOException(exception);
+        }
+    }
+
     /**
      * Tries to return a sensible default media path for multi-volume installations.
      * <p/>
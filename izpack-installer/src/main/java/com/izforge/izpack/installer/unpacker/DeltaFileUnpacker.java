@@ -0,0 +1,161 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.exception.InstallerException;
+import com.izforge.izpack.core.io.BinaryDelta;
+import com.izforge.izpack.util.os.FileQueue;
+
+
+/**
+ * Unpacks a file of a patch installer, using its delta against the installed content of the previous release.
+ * <p/>
+ * The installed files are verified to {@link #matches match} the content their deltas were created against before
+ * any file is written. The installed content is verified again before the delta is applied, and the result is
+ * verified before it replaces the installed file.
+ */
+public class DeltaFileUnpacker extends FileUnpacker
+{
+
+    /**
+     * Constructs a {@code DeltaFileUnpacker}.
+     *
+     * @param cancellable determines if unpacking should be cancelled
+     * @param queue       the file queue. May be {@code null}
+     */
+    public DeltaFileUnpacker(Cancellable cancellable, FileQueue queue)
+    {
+        super(cancellable, queue);
+    }
+
+    /**
+     * Unpacks a pack file.
+     *
+     * @param file            the pack file meta-data
+     * @param packInputStream the delta stream
+     * @param target          the installed file to patch
+     * @throws IOException        for any I/O error
+     * @throws InstallerException if the installed file isn't the content the delta was created against, or the
+     *                            patched content is invalid
+     */
+    @Override
+    public void unpack(PackFile file, InputStream packInputStream, File target) throws IOException, InstallerException
+    {
+        if (!matches(target, file.getBaseDigest()))
+        {
+            throw new InstallerException(target + " is missing or has been modified since the version this installer "
+                                                 + "patches was installed. A full installer is required");
+        }
+        File patched = File.createTempFile("izpack-patch", null);
+        try
+        {
+            MessageDigest digest = createDigest();
+            RandomAccessFile base = new RandomAccessFile(target, "r");
+            OutputStream out = new DigestOutputStream(IOUtils.buffer(FileUtils.openOutputStream(patched)), digest);
+            try
+            {
+                BinaryDelta.apply(base, packInputStream, out);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(out);
+                base.close();
+            }
+            if (!Arrays.equals(digest.digest(), file.getDigest()))
+            {
+                throw new InstallerException("Failed to patch " + target + ": the result doesn't match its digest");
+            }
+            InputStream in = FileUtils.openInputStream(patched);
+            try
+            {
+                copy(file, in, target);
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(patched);
+        }
+    }
+
+    /**
+     * Determines if a file has the specified content.
+     *
+     * @param file   the file
+     * @param digest the digest of the content
+     * @return {@code true} if the file exists and its content matches the digest
+     * @throws IOException for any I/O error
+     */
+    public static boolean matches(File file, byte[] digest) throws IOException
+    {
+        return file.isFile() && Arrays.equals(digest(file), digest);
+    }
+
+    /**
+     * Calculates the digest of a file.
+     *
+     * @param file the file
+     * @return the digest
+     * @throws IOException for any I/O error
+     */
+    private static byte[] digest(File file) throws IOException
+    {
+        MessageDigest digest = createDigest();
+        FileUtils.copyFile(file, new DigestOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, digest));
+        return digest.digest();
+    }
+
+    /**
+     * Creates a digest of the algorithm used by the packager.
+     *
+     * @return a new digest
+     * @throws IOException if the algorithm isn't supported
+     */
+    private static MessageDigest createDigest() throws IOException
+    {
+        try
+        {
+            return MessageDigest.getInstance(PackFile.DIGEST_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            throw new IOException(exception);
+        }
+    }
+
+}
@@ -0,0 +1,510 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+
+import com.izforge.izpack.api.data.PackFile;
+
+
+/**
+ * Detects installed files whose content already matches that of the pack files being installed, so that they
+ * needn't be decoded and rewritten when upgrading an existing installation.
+ * <p/>
+ * Installed files are compared against the digests recorded by the compiler. Existing files are hashed in
+ * parallel, and their digests are cached in {@link #CACHE_FILE}, keyed on file size and last-modified time, so
+ * that files that haven't changed since the previous installation aren't re-read.
+ */
+public class DifferentialUpgrade
+{
+
+    /**
+     * The name of the digest cache file, relative to the installation directory.
+     */
+    public static final String CACHE_FILE = ".installationdigests";
+
+    /**
+     * The maximum number of threads used to hash files.
+     */
+    private static final int MAX_THREADS = 8;
+
+    /**
+     * The cache file.
+     */
+    private final File cacheFile;
+
+    /**
+     * The cached digests, keyed on absolute path.
+     */
+    private final Map<String, Entry> cache = new HashMap<String, Entry>();
+
+    /**
+     * The number of files that weren't rewritten.
+     */
+    private long filesAvoided;
+
+    /**
+     * The number of bytes that weren't rewritten.
+     */
+    private long bytesAvoided;
+
+    /**
+     * The number of files hashed.
+     */
+    private long filesHashed;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(DifferentialUpgrade.class.getName());
+
+    /**
+     * Constructs a {@code DifferentialUpgrade}.
+     *
+     * @param installDir the installation directory
+     */
+    public DifferentialUpgrade(File installDir)
+    {
+        cacheFile = new File(installDir, CACHE_FILE);
+    }
+
+    /**
+     * Returns the digest cache file.
+     *
+     * @return the cache file
+     */
+    public File getCacheFile()
+    {
+        return cacheFile;
+    }
+
+    /**
+     * Loads the digest cache, if it exists.
+     * <p/>
+     * A cache that cannot be read is ignored.
+     */
+    public void load()
+    {
+        if (cacheFile.isFile())
+        {
+            BufferedReader reader = null;
+            try
+            {
+                reader = new BufferedReader(new InputStreamReader(new FileInputStream(cacheFile), "UTF-8"));
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    String[] fields = line.split("\t", 4);
+                    if (fields.length == 4 && !line.startsWith("#"))
+                    {
+                        Entry entry = new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                                                fromHex(fields[2]));
+                        cache.put(fields[3], entry);
+                    }
+                }
+            }
+            catch (Exception exception)
+            {
+                logger.log(Level.WARNING, "Ignoring unreadable digest cache " + cacheFile + ": "
+                        + exception.getMessage(), exception);
+                cache.clear();
+            }
+            finally
+            {
+                IOUtils.closeQuietly(reader);
+            }
+        }
+    }
+
+    /**
+     * Saves the digest cache.
+     *
+     * @throws IOException for any I/O error
+     */
+    public void save() throws IOException
+    {
+        File parent = cacheFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs())
+        {
+            throw new IOException("Failed to create directory: " + parent);
+        }
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(cacheFile), "UTF-8"));
+        try
+        {
+            writer.println("# size\tmtime\t" + PackFile.DIGEST_ALGORITHM + "\tpath");
+            for (Map.Entry<String, Entry> entry : cache.entrySet())
+            {
+                Entry value = entry.getValue();
+                writer.println(value.size + "\t" + value.lastModified + "\t"
+                                       + toHex(value.digest) + "\t" + entry.getKey());
+            }
+            writer.flush();
+            if (writer.checkError())
+            {
+                throw new IOException("Failed to write digest cache " + cacheFile);
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * Determines which pack files are already installed with the same content.
+     * <p/>
+     * Only existing files of the same size as the pack file are read, and only if their digest isn't cached.
+     *
+     * @param files the pack files and their installation targets
+     * @return the pack files whose target already has the same content
+     * @throws InterruptedException if interrupted while waiting for files to be hashed
+     */
+    public Set<PackFile> getUnchanged(Map<PackFile, File> files) throws InterruptedException
+    {
+        Set<PackFile> result = Collections.newSetFromMap(new IdentityHashMap<PackFile, Boolean>());
+        Map<PackFile, Callable<Entry>> tasks = new IdentityHashMap<PackFile, Callable<Entry>>();
+        for (Map.Entry<PackFile, File> entry : files.entrySet())
+        {
+            PackFile packFile = entry.getKey();
+            final File target = entry.getValue();
+            byte[] digest = getDigest(packFile);
+            if (digest != null && target.isFile() && target.length() == packFile.length())
+            {
+                Entry cached = cache.get(target.getAbsolutePath());
+                if (cached != null && cached.matches(target))
+                {
+                    if (Arrays.equals(cached.digest, digest))
+                    {
+                        result.add(packFile);
+                    }
+                }
+                else
+                {
+                    tasks.put(packFile, new Callable<Entry>()
+                    {
+                        @Override
+                        public Entry call() throws IOException
+                        {
+                            return hash(target);
+                        }
+                    });
+                }
+            }
+        }
+        if (!tasks.isEmpty())
+        {
+            hash(tasks, files, result);
+        }
+        return result;
+    }
+
+    /**
+     * Invoked when a pack file isn't rewritten, as its target already has the same content.
+     *
+     * @param file the pack file
+     */
+    public void unchanged(PackFile file)
+    {
+        ++filesAvoided;
+        bytesAvoided += file.length();
+    }
+
+    /**
+     * Invoked when a pack file has been written to its target, to cache its digest.
+     *
+     * @param file   the pack file
+     * @param target the target file
+     */
+    public void installed(PackFile file, File target)
+    {
+        byte[] digest = getDigest(file);
+        if (digest != null)
+        {
+            cache.put(target.getAbsolutePath(), new Entry(target.length(), target.lastModified(), digest));
+        }
+        else
+        {
+            cache.remove(target.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Returns the number of files that weren't rewritten.
+     *
+     * @return the number of files
+     */
+    public long getFilesAvoided()
+    {
+        return filesAvoided;
+    }
+
+    /**
+     * Returns the number of bytes that weren't rewritten.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesAvoided()
+    {
+        return bytesAvoided;
+    }
+
+    /**
+     * Returns the number of existing files that were hashed, i.e. whose digest wasn't cached.
+     *
+     * @return the number of files
+     */
+    public long getFilesHashed()
+    {
+        return filesHashed;
+    }
+
+    /**
+     * Hashes files concurrently.
+     *
+     * @param tasks  the hashing tasks, keyed on pack file
+     * @param files  the pack files and their installation targets
+     * @param result the pack files whose target has the same content
+     * @throws InterruptedException if interrupted while waiting for files to be hashed
+     */
+    private void hash(Map<PackFile, Callable<Entry>> tasks, Map<PackFile, File> files, Set<PackFile> result)
+            throws InterruptedException
+    {
+        int threads = Math.max(1, Math.min(Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()),
+                                           tasks.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "DifferentialUpgrade-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try
+        {
+            List<PackFile> packFiles = new ArrayList<PackFile>(tasks.keySet());
+            List<Future<Entry>> futures = new ArrayList<Future<Entry>>(packFiles.size());
+            for (PackFile packFile : packFiles)
+            {
+                futures.add(executor.submit(tasks.get(packFile)));
+            }
+            for (int i = 0; i < futures.size(); ++i)
+            {
+                PackFile packFile = packFiles.get(i);
+                File target = files.get(packFile);
+                try
+                {
+                    Entry entry = futures.get(i).get();
+                    ++filesHashed;
+                    if (entry != null)
+                    {
+                        cache.put(target.getAbsolutePath(), entry);
+                        if (Arrays.equals(entry.digest, getDigest(packFile)))
+                        {
+                            result.add(packFile);
+                        }
+                    }
+                }
+                catch (ExecutionException exception)
+                {
+                    // the file will be rewritten
+                    logger.log(Level.FINE, "Failed to hash " + target + ": " + exception.getCause().getMessage(),
+                               exception.getCause());
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Hashes a file.
+     *
+     * @param file the file to hash
+     * @return the cache entry for the file, or {@code null} if the file changed while it was being hashed
+     * @throws IOException for any I/O error
+     */
+    private static Entry hash(File file) throws IOException
+    {
+        long size = file.length();
+        long lastModified = file.lastModified();
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance(PackFile.DIGEST_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            throw new IOException(exception);
+        }
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, read);
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+        Entry result = new Entry(size, lastModified, digest.digest());
+        return result.matches(file) ? result : null;
+    }
+
+    /**
+     * Returns the content digest of a pack file.
+     *
+     * @param file the pack file
+     * @return the digest, or {@code null} if none was recorded
+     */
+    private static byte[] getDigest(PackFile file)
+    {
+        return file.isBackReference() ? file.getLinkedPackFile().getDigest() : file.getDigest();
+    }
+
+    /**
+     * Converts bytes to a hexadecimal string.
+     *
+     * @param bytes the bytes to convert
+     * @return the hexadecimal string
+     */
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+        {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Converts a hexadecimal string to bytes.
+     *
+     * @param hex the hexadecimal string
+     * @return the bytes
+     * @throws IllegalArgumentException if the string isn't valid hexadecimal
+     */
+    private static byte[] fromHex(String hex)
+    {
+        if (hex.length() % 2 != 0)
+        {
+            throw new IllegalArgumentException("Invalid digest: " + hex);
+        }
+        byte[] result = new byte[hex.length() / 2];
+        for (int i = 0; i < result.length; ++i)
+        {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high == -1 || low == -1)
+            {
+                throw new IllegalArgumentException("Invalid digest: " + hex);
+            }
+            result[i] = (byte) ((high << 4) | low);
+        }
+        return result;
+    }
+
+    /**
+     * A cached digest.
+     */
+    private static class Entry
+    {
+
+        /**
+         * The file size when it was hashed.
+         */
+        private final long size;
+
+        /**
+         * The file last-modified time when it was hashed.
+         */
+        private final long lastModified;
+
+        /**
+         * The digest.
+         */
+        private final byte[] digest;
+
+        /**
+         * Constructs an {@code Entry}.
+         *
+         * @param size         the file size
+         * @param lastModified the file last-modified time
+         * @param digest       the digest
+         */
+        public Entry(long size, long lastModified, byte[] digest)
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+
+        /**
+         * Determines if the entry is valid for a file, i.e. the file hasn't been changed since it was hashed.
+         *
+         * @param file the file
+         * @return {@code true} if the file has the same size and last-modified time
+         */
+        public boolean matches(File file)
+        {
+            return file.length() == size && file.lastModified() == lastModified;
+        }
+    }
+
+}
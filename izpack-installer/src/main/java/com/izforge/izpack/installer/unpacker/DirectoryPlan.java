@@ -0,0 +1,263 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.izforge.izpack.api.exception.IzPackException;
+
+
+/**
+ * Tracks the directories known to exist during unpacking, and creates the directories of a set of files up front.
+ * <p/>
+ * Directories are created in order of depth. The directories at the same depth are independent of each other, and
+ * are created concurrently. Once a directory is known to exist, checking for it again doesn't touch the file system.
+ * <p/>
+ * This class is not thread safe.
+ */
+public class DirectoryPlan
+{
+
+    /**
+     * The maximum number of threads used to create directories.
+     */
+    private static final int MAX_THREADS = 8;
+
+    /**
+     * The minimum number of directories at the same depth for them to be created concurrently.
+     */
+    private static final int MIN_CONCURRENT = 16;
+
+    /**
+     * The directories known to exist.
+     */
+    private final Set<File> existing = new HashSet<File>();
+
+
+    /**
+     * Determines if a directory is known to exist.
+     *
+     * @param dir the directory
+     * @return {@code true} if the directory is known to exist, {@code false} if it hasn't been checked
+     */
+    public boolean isKnown(File dir)
+    {
+        return existing.contains(dir.getAbsoluteFile());
+    }
+
+    /**
+     * Records that a directory exists, along with its parent directories.
+     *
+     * @param dir the directory
+     */
+    public void add(File dir)
+    {
+        for (File file = dir.getAbsoluteFile(); file != null && existing.add(file); )
+        {
+            file = file.getParentFile();
+        }
+    }
+
+    /**
+     * Creates directories, including any nonexistent parent directories.
+     * <p/>
+     * Each directory, and its parents, are checked at most once.
+     *
+     * @param dirs the directories to create
+     * @return the number of directories created
+     * @throws IzPackException if a directory cannot be created
+     */
+    public int create(Collection<File> dirs)
+    {
+        // determine the missing directories, grouped on depth
+        Map<Integer, List<File>> levels = new TreeMap<Integer, List<File>>();
+        Set<File> missing = new HashSet<File>();
+        for (File dir : dirs)
+        {
+            File file = dir.getAbsoluteFile();
+            while (file != null && !existing.contains(file) && !missing.contains(file))
+            {
+                if (file.isDirectory())
+                {
+                    add(file);
+                    break;
+                }
+                missing.add(file);
+                int depth = getDepth(file);
+                List<File> level = levels.get(depth);
+                if (level == null)
+                {
+                    level = new ArrayList<File>();
+                    levels.put(depth, level);
+                }
+                level.add(file);
+                file = file.getParentFile();
+            }
+        }
+
+        ExecutorService executor = null;
+        try
+        {
+            for (List<File> level : levels.values())
+            {
+                if (level.size() < MIN_CONCURRENT)
+                {
+                    for (File dir : level)
+                    {
+                        mkdir(dir);
+                    }
+                }
+                else
+                {
+                    if (executor == null)
+                    {
+                        executor = createExecutor();
+                    }
+                    mkdirs(level, executor);
+                }
+                existing.addAll(level);
+            }
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdownNow();
+            }
+        }
+        return missing.size();
+    }
+
+    /**
+     * Creates directories concurrently.
+     *
+     * @param dirs     the directories to create. Their parents must exist
+     * @param executor the executor to create the directories with
+     * @throws IzPackException if a directory cannot be created
+     */
+    private void mkdirs(List<File> dirs, ExecutorService executor)
+    {
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(dirs.size());
+        for (final File dir : dirs)
+        {
+            futures.add(executor.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    mkdir(dir);
+                    return null;
+                }
+            }));
+        }
+        try
+        {
+            for (Future<Void> future : futures)
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new IzPackException("Interrupted while creating directories", exception);
+        }
+        catch (ExecutionException exception)
+        {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IzPackException)
+            {
+                throw (IzPackException) cause;
+            }
+            throw new IzPackException(cause);
+        }
+    }
+
+    /**
+     * Creates a directory whose parent exists.
+     *
+     * @param dir the directory to create
+     * @throws IzPackException if the directory cannot be created
+     */
+    private static void mkdir(File dir)
+    {
+        if (!dir.mkdir() && !dir.isDirectory())
+        {
+            throw new IzPackException("Could not create directory: " + dir.getPath());
+        }
+    }
+
+    /**
+     * Returns the depth of a directory.
+     *
+     * @param dir the absolute directory
+     * @return the number of separators in the directory path
+     */
+    private static int getDepth(File dir)
+    {
+        String path = dir.getPath();
+        int result = 0;
+        for (int i = 0; i < path.length(); ++i)
+        {
+            if (path.charAt(i) == File.separatorChar)
+            {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates an executor to create directories with.
+     *
+     * @return a new executor
+     */
+    private static ExecutorService createExecutor()
+    {
+        int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+        return Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "DirectoryPlan-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.api.data.binding.OsModel;
+
+
+/**
+ * The files to unpack, determined before unpacking starts.
+ * <p/>
+ * Files are grouped on their distinct combinations of condition and OS constraints, and each combination is only
+ * evaluated once. The result is a bitmap per pack, indexed on the position of each file in the pack.
+ */
+public class FileSelection
+{
+
+    /**
+     * Determines if a file should be unpacked.
+     */
+    public interface Filter
+    {
+
+        /**
+         * Determines if a file should be unpacked.
+         *
+         * @param file the file. This is representative of all files with the same condition and OS constraints
+         * @return {@code true} if the file should be unpacked
+         */
+        boolean accept(PackFile file);
+    }
+
+    /**
+     * The selected files of each pack.
+     */
+    private final Map<PackInfo, BitSet> selected = new IdentityHashMap<PackInfo, BitSet>();
+
+    /**
+     * The number of distinct condition and OS constraint combinations evaluated.
+     */
+    private final int evaluations;
+
+    /**
+     * The number of selected files, excluding directories.
+     */
+    private int files;
+
+    /**
+     * The uncompressed size of the selected files.
+     */
+    private long bytes;
+
+
+    /**
+     * Constructs a {@code FileSelection}.
+     *
+     * @param packs  the packs to unpack
+     * @param filter determines if a file should be unpacked
+     */
+    public FileSelection(List<PackInfo> packs, Filter filter)
+    {
+        Map<String, Boolean> results = new HashMap<String, Boolean>();
+        for (PackInfo pack : packs)
+        {
+            BitSet bits = new BitSet();
+            int index = 0;
+            for (PackFile file : pack.getPackFiles())
+            {
+                String key = getKey(file);
+                boolean accept = true;
+                if (key != null)
+                {
+                    Boolean result = results.get(key);
+                    if (result == null)
+                    {
+                        result = filter.accept(file);
+                        results.put(key, result);
+                    }
+                    accept = result;
+                }
+                if (accept)
+                {
+                    bits.set(index);
+                    if (!file.isDirectory())
+                    {
+                        ++files;
+                        bytes += file.length();
+                    }
+                }
+                ++index;
+            }
+            selected.put(pack, bits);
+        }
+        evaluations = results.size();
+    }
+
+    /**
+     * Returns the selected files of a pack.
+     *
+     * @param pack the pack
+     * @return the bitmap of selected files, indexed on their position in the pack, or {@code null} if the pack
+     *         isn't being unpacked
+     */
+    public BitSet getSelected(PackInfo pack)
+    {
+        return selected.get(pack);
+    }
+
+    /**
+     * Returns the number of selected files, excluding directories.
+     *
+     * @return the number of selected files
+     */
+    public int getFiles()
+    {
+        return files;
+    }
+
+    /**
+     * Returns the uncompressed size of the selected files.
+     *
+     * @return the size of the selected files, in bytes
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of distinct condition and OS constraint combinations that were evaluated.
+     *
+     * @return the number of evaluations
+     */
+    public int getEvaluations()
+    {
+        return evaluations;
+    }
+
+    /**
+     * Returns the key of the condition and OS constraints of a file.
+     *
+     * @param file the file
+     * @return the key, or {@code null} if the file is unconditional
+     */
+    private static String getKey(PackFile file)
+    {
+        List<OsModel> constraints = file.osConstraints();
+        boolean constrained = constraints != null && !constraints.isEmpty();
+        if (!file.hasCondition() && !constrained)
+        {
+            return null;
+        }
+        StringBuilder result = new StringBuilder();
+        if (file.hasCondition())
+        {
+            result.append(file.getCondition());
+        }
+        result.append('\n');
+        if (constrained)
+        {
+            for (OsModel model : constraints)
+            {
+                result.append(model).append('\n');
+            }
+        }
+        return result.toString();
+    }
+
+}
@@ -24,6 +24,7 @@ package com.izforge.izpack.installer.unpacker;
 import com.izforge.izpack.api.data.Blockable;
 import com.izforge.izpack.api.data.PackFile;
 import com.izforge.izpack.api.exception.InstallerException;
+import com.izforge.izpack.util.config.ConfigFileCache;
 import com.izforge.izpack.util.os.FileQueue;
 import com.izforge.izpack.util.os.FileQueueMove;
 import org.apache.commons.io.FileUtils;
@@ -157,6 +158,8 @@ public abstract class FileUnpacker
     protected void postCopy(PackFile file)
     {
         setLastModified(file);
+        // the target may be a configuration file already read by a dynamic variable
+        ConfigFileCache.getInstance().invalidate(target);
 
         if (isBlockable(file))
         {
@@ -0,0 +1,224 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.core.resource.ResourceManager;
+
+
+/**
+ * The streams that the files of a pack are stored in.
+ * <p/>
+ * Files restricted to particular platforms are stored in their own streams by the compiler, separately from the
+ * main pack stream. These streams are only opened when one of their files is read, so that an installation never
+ * reads the files of other platforms.
+ */
+class PackStreams
+{
+
+    /**
+     * The pack.
+     */
+    private final Pack pack;
+
+    /**
+     * The pack resources.
+     */
+    private final PackResources resources;
+
+    /**
+     * The compression format of solid chunks.
+     */
+    private final PackCompression format;
+
+    /**
+     * The main pack stream resource name.
+     */
+    private final String mainName;
+
+    /**
+     * The open streams, keyed on resource name.
+     */
+    private final Map<String, InputStream> streams = new HashMap<String, InputStream>();
+
+    /**
+     * The solid readers, keyed on resource name.
+     */
+    private final Map<String, SolidPackReader> solidReaders = new HashMap<String, SolidPackReader>();
+
+    /**
+     * The no. of bytes stored in each platform stream, keyed on resource name.
+     */
+    private final Map<String, Long> sizes = new LinkedHashMap<String, Long>();
+
+
+    /**
+     * Constructs a {@code PackStreams}, opening the main pack stream.
+     *
+     * @param pack      the pack
+     * @param files     the pack files
+     * @param resources the pack resources
+     * @param format    the compression format of solid chunks
+     */
+    public PackStreams(Pack pack, Collection<PackFile> files, PackResources resources, PackCompression format)
+    {
+        this.pack = pack;
+        this.resources = resources;
+        this.format = format;
+        mainName = "packs/pack-" + pack.getName();
+        Set<String> chunks = new HashSet<String>();
+        for (PackFile file : files)
+        {
+            String name = getName(file);
+            if (!name.equals(mainName))
+            {
+                long size = file.size();
+                if (file.isSolid())
+                {
+                    // count each chunk once
+                    size = chunks.add(name + "@" + file.getStreamOffset()) ? file.getChunkSize() : 0;
+                }
+                Long total = sizes.get(name);
+                sizes.put(name, total != null ? total + size : size);
+            }
+        }
+        streams.put(mainName, resources.getPackStream(pack.getName()));
+    }
+
+    /**
+     * Determines if the stream that a file is stored in has been opened.
+     * <p/>
+     * Files that aren't stored in a pack stream are deemed to be in the main pack stream, which is always open.
+     *
+     * @param file the pack file
+     * @return {@code true} if the file's stream is open
+     */
+    public boolean isOpen(PackFile file)
+    {
+        return streams.containsKey(getName(file));
+    }
+
+    /**
+     * Returns the stream that a file is stored in, opening it if required.
+     * <p/>
+     * A stream opened to read a file that isn't solid is positioned at the start of the file.
+     *
+     * @param file the pack file
+     * @return the stream
+     * @throws IOException for any I/O error
+     */
+    public InputStream getStream(PackFile file) throws IOException
+    {
+        String name = getName(file);
+        InputStream result = streams.get(name);
+        if (result == null)
+        {
+            result = resources.getInputStream(ResourceManager.RESOURCE_BASEPATH_DEFAULT + name);
+            streams.put(name, result);
+            if (!file.isSolid())
+            {
+                IOUtils.skipFully(result, file.getStreamOffset());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the content of a solid file.
+     *
+     * @param file the pack file
+     * @return the file content
+     * @throws IOException for any I/O error
+     */
+    public InputStream getSolidStream(PackFile file) throws IOException
+    {
+        String name = getName(file);
+        SolidPackReader reader = solidReaders.get(name);
+        if (reader == null)
+        {
+            reader = new SolidPackReader(getStream(file), format);
+            solidReaders.put(name, reader);
+        }
+        return reader.getInputStream(file);
+    }
+
+    /**
+     * Returns the no. of bytes stored in platform streams that were never opened.
+     *
+     * @return the no. of unread bytes
+     */
+    public long getUnread()
+    {
+        long result = 0;
+        for (Map.Entry<String, Long> entry : sizes.entrySet())
+        {
+            if (!streams.containsKey(entry.getKey()))
+            {
+                result += entry.getValue();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Closes the streams.
+     */
+    public void close()
+    {
+        for (SolidPackReader reader : solidReaders.values())
+        {
+            reader.close();
+        }
+        for (InputStream stream : streams.values())
+        {
+            IOUtils.closeQuietly(stream);
+        }
+        solidReaders.clear();
+        streams.clear();
+    }
+
+    /**
+     * Returns the name of the stream that a file is stored in.
+     *
+     * @param file the pack file
+     * @return the stream resource name
+     */
+    private String getName(PackFile file)
+    {
+        String name = file.getStreamResourceName();
+        boolean stored = !pack.isLoose() && !file.isDirectory() && !file.isBackReference() && !file.isPack200Jar()
+                && !file.hasBase();
+        return (stored && name != null) ? name : mainName;
+    }
+
+}
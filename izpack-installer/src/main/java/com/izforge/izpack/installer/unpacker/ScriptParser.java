@@ -27,8 +27,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.izforge.izpack.api.metrics.InstallMetrics;
+import com.izforge.izpack.api.metrics.PhaseTimer;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.api.data.ParsableFile;
 import com.izforge.izpack.util.PlatformModelMatcher;
@@ -84,37 +87,49 @@ public class ScriptParser
         // (Use the same directory so that renaming works later)
         File file = new File(parsable.getPath());
 
-        logger.fine("Parsing and replacing variables in file " + file + "...");
-
-        File parsedFile;
-        try
+        if (logger.isLoggable(Level.FINE))
         {
-            parsedFile = File.createTempFile("izpp", null, file.getParentFile());
+            logger.fine("Parsing and replacing variables in file " + file + "...");
         }
-        catch (IOException exception)
+        PhaseTimer timer = InstallMetrics.getMetrics().start("parse.file");
+
+        try
         {
-            throw new IOException("Failed to create temporary file for " + parsable.getPath() + " in directory "
-                                          + file.getParentFile(), exception);
-        }
+            File parsedFile;
+            try
+            {
+                parsedFile = File.createTempFile("izpp", null, file.getParentFile());
+            }
+            catch (IOException exception)
+            {
+                throw new IOException("Failed to create temporary file for " + parsable.getPath() + " in directory "
+                                              + file.getParentFile(), exception);
+            }
 
-        // Parses the file
-        // (Use buffering because substitutor processes byte at a time)
-        FileInputStream inFile = new FileInputStream(file);
-        BufferedInputStream in = new BufferedInputStream(inFile, 5120);
-        FileOutputStream outFile = new FileOutputStream(parsedFile);
-        BufferedOutputStream out = new BufferedOutputStream(outFile, 5120);
-        replacer.substitute(in, out, parsable.getType(), parsable.getEncoding());
-        in.close();
-        out.close();
+            // Parses the file
+            // (Use buffering because substitutor processes byte at a time)
+            FileInputStream inFile = new FileInputStream(file);
+            BufferedInputStream in = new BufferedInputStream(inFile, 5120);
+            FileOutputStream outFile = new FileOutputStream(parsedFile);
+            BufferedOutputStream out = new BufferedOutputStream(outFile, 5120);
+            replacer.substitute(in, out, parsable.getType(), parsable.getEncoding());
+            in.close();
+            out.close();
 
-        // Replace the original file with the parsed one
-        if (!file.delete())
-        {
-            throw new IOException("Failed to delete file: " + file);
+            // Replace the original file with the parsed one
+            if (!file.delete())
+            {
+                throw new IOException("Failed to delete file: " + file);
+            }
+            if (!parsedFile.renameTo(file))
+            {
+                throw new IOException("Could not rename file " + parsedFile + " to " + file);
+            }
         }
-        if (!parsedFile.renameTo(file))
+        finally
         {
-            throw new IOException("Could not rename file " + parsedFile + " to " + file);
+            timer.stop();
         }
+        InstallMetrics.getMetrics().add("parse.bytes", file.length());
     }
 }
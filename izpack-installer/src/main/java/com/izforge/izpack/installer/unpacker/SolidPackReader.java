@@ -0,0 +1,225 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+
+
+/**
+ * Reads the content of files stored in the solid chunks of a pack stream.
+ * <p/>
+ * Files must be requested in pack stream order. Each chunk is decompressed in a single pass, and only if one of
+ * its files is requested; chunks containing no requested files are skipped without being decompressed.
+ */
+public class SolidPackReader
+{
+
+    /**
+     * The pack stream.
+     */
+    private final CountingInputStream packStream;
+
+    /**
+     * The compression format.
+     */
+    private final PackCompression format;
+
+    /**
+     * The offset of the current chunk in the pack stream, or {@code -1} if there is no current chunk.
+     */
+    private long chunkStart = -1;
+
+    /**
+     * The decompressed content of the current chunk.
+     */
+    private InputStream chunk;
+
+    /**
+     * The position within the decompressed content of the current chunk.
+     */
+    private long chunkPosition;
+
+    /**
+     * Constructs a {@code SolidPackReader}.
+     *
+     * @param packStream the pack stream, positioned at its start
+     * @param format     the compression format
+     */
+    public SolidPackReader(InputStream packStream, PackCompression format)
+    {
+        this.packStream = new CountingInputStream(packStream);
+        this.format = format;
+    }
+
+    /**
+     * Returns a stream positioned at the start of a file's content.
+     * <p/>
+     * The stream is only valid until the next call to this method. Closing it closes the reader.
+     *
+     * @param file the file. Must be stored in a solid chunk
+     * @return a stream to read the file's content
+     * @throws IOException if the file precedes the current position in the pack stream, or for any I/O error
+     */
+    public InputStream getInputStream(PackFile file) throws IOException
+    {
+        long start = file.getStreamOffset();
+        if (start != chunkStart)
+        {
+            long position = packStream.getByteCount();
+            if (start < position)
+            {
+                throw new IOException("Cannot read solid chunk at offset " + start + " of pack stream; already at "
+                                              + position);
+            }
+            IOUtils.closeQuietly(chunk);
+            IOUtils.skipFully(packStream, start - position);
+
+            // bound the compressed chunk so that read-ahead by the decompressor never consumes the next chunk
+            BoundedInputStream compressed = new BoundedInputStream(packStream, file.getChunkSize());
+            compressed.setPropagateClose(false);
+            chunk = CompressedFileUnpacker.createInputStream(format, new BufferedInputStream(compressed));
+            chunkStart = start;
+            chunkPosition = 0;
+        }
+        long offset = file.getChunkOffset();
+        if (offset < chunkPosition)
+        {
+            throw new IOException("Cannot read " + file.getTargetPath() + " at offset " + offset
+                                          + " of solid chunk; already at " + chunkPosition);
+        }
+        IOUtils.skipFully(chunk, offset - chunkPosition);
+        chunkPosition = offset;
+        return new ChunkInputStream(chunk);
+    }
+
+    /**
+     * Closes the reader, and the underlying pack stream.
+     */
+    public void close()
+    {
+        IOUtils.closeQuietly(chunk);
+        IOUtils.closeQuietly(packStream);
+        chunk = null;
+        chunkStart = -1;
+    }
+
+    /**
+     * Tracks the position within the decompressed content of the current chunk.
+     */
+    private class ChunkInputStream extends FilterInputStream
+    {
+
+        /**
+         * Constructs a {@code ChunkInputStream}.
+         *
+         * @param in the decompressed chunk stream
+         */
+        public ChunkInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        /**
+         * Reads a byte.
+         *
+         * @return the byte, or {@code -1} if the end of the chunk has been reached
+         * @throws IOException for any I/O error
+         */
+        @Override
+        public int read() throws IOException
+        {
+            int result = in.read();
+            if (result != -1)
+            {
+                ++chunkPosition;
+            }
+            return result;
+        }
+
+        /**
+         * Reads bytes into an array.
+         *
+         * @param buffer the buffer to read into
+         * @param offset the offset into the buffer
+         * @param length the maximum number of bytes to read
+         * @return the number of bytes read, or {@code -1} if the end of the chunk has been reached
+         * @throws IOException for any I/O error
+         */
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException
+        {
+            int result = in.read(buffer, offset, length);
+            if (result > 0)
+            {
+                chunkPosition += result;
+            }
+            return result;
+        }
+
+        /**
+         * Skips bytes.
+         * <p/>
+         * Unlike some decompressor streams, this only skips fewer bytes than requested if the end of the chunk is
+         * reached.
+         *
+         * @param n the number of bytes to skip
+         * @return the number of bytes skipped
+         * @throws IOException for any I/O error
+         */
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long result = IOUtils.skip(in, n);
+            chunkPosition += result;
+            return result;
+        }
+
+        /**
+         * Mark/reset isn't supported, as it would invalidate the tracked position.
+         *
+         * @return {@code false}
+         */
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+
+        /**
+         * Closes the reader.
+         */
+        @Override
+        public void close()
+        {
+            SolidPackReader.this.close();
+        }
+    }
+
+}
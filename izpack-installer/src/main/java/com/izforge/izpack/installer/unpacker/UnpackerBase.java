@@ -24,6 +24,7 @@ package com.izforge.izpack.installer.unpacker;
 
 import com.izforge.izpack.api.data.*;
 import com.izforge.izpack.api.event.InstallerListener;
+import com.izforge.izpack.api.event.ByteProgressListener;
 import com.izforge.izpack.api.event.ProgressListener;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.api.exception.IzPackException;
@@ -31,6 +32,9 @@ import com.izforge.izpack.api.exception.ResourceInterruptedException;
 import com.izforge.izpack.api.handler.AbstractPrompt;
 import com.izforge.izpack.api.handler.AbstractUIHandler;
 import com.izforge.izpack.api.handler.Prompt;
+import com.izforge.izpack.api.metrics.InstallMetrics;
+import com.izforge.izpack.api.metrics.Metrics;
+import com.izforge.izpack.api.metrics.PhaseTimer;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.api.resource.Resources;
 import com.izforge.izpack.api.rules.RulesEngine;
@@ -137,6 +141,46 @@ public abstract class UnpackerBase implements IUnpacker
      */
     private ProgressListener listener;
 
+    /**
+     * The progress listener, if it accepts progress in bytes. May be {@code null}.
+     */
+    private ByteProgressListener byteListener;
+
+    /**
+     * The total size of the files in the pack being unpacked.
+     */
+    private long stepBytes;
+
+    /**
+     * The size of the files in the pack being unpacked that have been processed so far.
+     */
+    private long stepBytesDone;
+
+    /**
+     * The path of the last file of the pack being unpacked that progress was reported for. May be {@code null}.
+     */
+    private String stepPath;
+
+    /**
+     * The differential upgrade, or {@code null} if all selected files are written.
+     */
+    private DifferentialUpgrade upgrade;
+
+    /**
+     * The files of the pack being unpacked whose installed content already matches.
+     */
+    private Set<PackFile> unchanged = Collections.emptySet();
+
+    /**
+     * The files to unpack, determined when unpacking starts.
+     */
+    private FileSelection selection;
+
+    /**
+     * The directories known to exist.
+     */
+    private DirectoryPlan directories = new DirectoryPlan();
+
     /**
      * The prompt.
      */
@@ -230,6 +274,7 @@ public abstract class UnpackerBase implements IUnpacker
     public void setProgressListener(ProgressListener listener)
     {
         this.listener = listener;
+        this.byteListener = (listener instanceof ByteProgressListener) ? (ByteProgressListener) listener : null;
     }
 
     /**
@@ -286,6 +331,7 @@ public abstract class UnpackerBase implements IUnpacker
 
         state = State.UNPACKING;
         ObjectInputStream objIn = null;
+        PhaseTimer timer = InstallMetrics.getMetrics().start("unpack.total");
         try
         {
             FileQueue queue = queueFactory.isSupported() ? queueFactory.create() : null;
@@ -354,6 +400,7 @@ public abstract class UnpackerBase implements IUnpacker
         }
         finally
         {
+            timer.stop();
             cleanup();
             logEpilog();
             IOUtils.closeQuietly(objIn);
@@ -461,6 +508,19 @@ public abstract class UnpackerBase implements IUnpacker
      */
     protected void unpack(List<PackInfo> packs, FileQueue queue) throws InstallerException
     {
+        checkPatchBase();
+        upgrade = createDifferentialUpgrade();
+        List<PackInfo> unpacked = new ArrayList<PackInfo>();
+        for (PackInfo packInfo : packs)
+        {
+            if (shouldUnpack(packInfo.getPack()))
+            {
+                unpacked.add(packInfo);
+            }
+        }
+        selection = createSelection(unpacked);
+        checkPatchedFiles(unpacked);
+        directories = new DirectoryPlan();
         int count = packs.size();
         for (int i = 0; i < count; i++)
         {
@@ -473,16 +533,31 @@ public abstract class UnpackerBase implements IUnpacker
                 List<ExecutableFile> executables = new ArrayList<ExecutableFile>();
                 List<UpdateCheck> updateChecks = new ArrayList<UpdateCheck>();
 
+                Metrics metrics = InstallMetrics.getMetrics();
+                metrics.increment("unpack.packs");
+                PhaseTimer timer = metrics.start("unpack.pack");
+
                 listeners.beforePack(pack, i);
                 unpack(packInfo, i, queue, parsables, executables, updateChecks);
                 checkInterrupt();
+                timer.stop();
 
-                logger.fine("Found " + parsables.size() + " parsable files");
+                if (logger.isLoggable(Level.FINE))
+                {
+                    logger.fine("Found " + parsables.size() + " parsable files");
+                }
+                timer = metrics.start("unpack.parse");
                 parseFiles(parsables);
+                timer.stop();
                 checkInterrupt();
 
-                logger.fine("Found " + executables.size() + " executable files");
+                if (logger.isLoggable(Level.FINE))
+                {
+                    logger.fine("Found " + executables.size() + " executable files");
+                }
+                timer = metrics.start("unpack.execute");
                 executeFiles(executables);
+                timer.stop();
                 checkInterrupt();
 
                 // update checks should be done _after_ uninstaller was put, so we don't delete it. TODO
@@ -492,6 +567,159 @@ public abstract class UnpackerBase implements IUnpacker
                 listeners.afterPack(pack);
             }
         }
+        if (upgrade != null)
+        {
+            saveDifferentialUpgrade();
+        }
+    }
+
+    /**
+     * Verifies that the installed version is the one that a patch installer applies to.
+     *
+     * @throws InstallerException if this is a patch installer, and the installed version isn't the one it applies to
+     */
+    protected void checkPatchBase() throws InstallerException
+    {
+        Info info = installData.getInfo();
+        String version = info.getPatchBaseVersion();
+        if (version == null)
+        {
+            return;
+        }
+        String installed = null;
+        File file = new File(installData.getInstallPath(), InstallData.INSTALLATION_INFORMATION);
+        if (file.exists())
+        {
+            ObjectInputStream in = null;
+            try
+            {
+                in = new ObjectInputStream(new FileInputStream(file));
+                in.readObject();
+                Properties properties = (Properties) in.readObject();
+                installed = properties.getProperty(ScriptParserConstant.APP_VER);
+            }
+            catch (Exception exception)
+            {
+                throw new InstallerException("Failed to read previous installation information", exception);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(in);
+            }
+        }
+        if (!version.equals(installed))
+        {
+            throw new InstallerException("This installer patches version " + version + " of " + info.getAppName()
+                                                 + ", but " + (installed == null ? "no installation"
+                                                 : "version " + installed) + " was found in "
+                                                 + installData.getInstallPath() + ". A full installer is required");
+        }
+        logger.info("Patching version " + version + " of " + info.getAppName());
+    }
+
+    /**
+     * Verifies that the files that a patch installer omits or stores as deltas are installed with the content of the
+     * version it patches.
+     * <p/>
+     * These files have no full content to fall back to, so this is done before any file is written, to avoid leaving
+     * the installation partly patched.
+     *
+     * @param packs the packs to unpack
+     * @throws InstallerException if an omitted or delta file is missing or has been modified
+     */
+    private void checkPatchedFiles(List<PackInfo> packs) throws InstallerException
+    {
+        if (installData.getInfo().getPatchBaseVersion() == null)
+        {
+            return;
+        }
+        for (PackInfo packInfo : packs)
+        {
+            PackFile[] packFiles = packInfo.getPackFiles().toArray(new PackFile[]{});
+            BitSet selected = getSelected(packInfo);
+            for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1))
+            {
+                PackFile packFile = packFiles[i];
+                if (packFile.hasBase())
+                {
+                    File target = new File(IoHelper.translatePath(packFile.getTargetPath(), variables));
+                    boolean matches;
+                    try
+                    {
+                        matches = (packFile.isDelta() || target.length() == packFile.length())
+                                && DeltaFileUnpacker.matches(target, packFile.getBaseDigest());
+                    }
+                    catch (IOException exception)
+                    {
+                        throw new InstallerException("Failed to read " + target, exception);
+                    }
+                    if (!matches)
+                    {
+                        throw new InstallerException(target + " is missing or has been modified since the version "
+                                                             + "this installer patches was installed. A full "
+                                                             + "installer is required");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the differential upgrade, if the {@link InstallData#DIFFERENTIAL_UPGRADE} variable is set.
+     *
+     * @return the differential upgrade, or {@code null} if all selected files should be written
+     */
+    protected DifferentialUpgrade createDifferentialUpgrade()
+    {
+        DifferentialUpgrade result = null;
+        if (variables.getBoolean(InstallData.DIFFERENTIAL_UPGRADE, false))
+        {
+            result = new DifferentialUpgrade(new File(installData.getInstallPath()));
+            result.load();
+        }
+        return result;
+    }
+
+    /**
+     * Saves the digest cache of the differential upgrade, and logs the files that weren't rewritten.
+     */
+    private void saveDifferentialUpgrade()
+    {
+        logger.info("Differential upgrade: " + upgrade.getFilesAvoided() + " unchanged files ("
+                            + upgrade.getBytesAvoided() + " bytes) not rewritten, " + upgrade.getFilesHashed()
+                            + " existing files hashed");
+        InstallMetrics.getMetrics().add("unpack.bytes.unchanged", upgrade.getBytesAvoided());
+        try
+        {
+            upgrade.save();
+            uninstallData.addFile(upgrade.getCacheFile().getAbsolutePath(), true);
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.WARNING, "Failed to save digest cache: " + exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Determines which files of a pack are already installed with the same content.
+     *
+     * @param packFiles the pack files
+     * @param selected  the selected pack files
+     * @return the pack files whose target already has the same content
+     * @throws InterruptedException if interrupted while waiting for files to be hashed
+     */
+    private Set<PackFile> getUnchanged(PackFile[] packFiles, BitSet selected) throws InterruptedException
+    {
+        Map<PackFile, File> targets = new IdentityHashMap<PackFile, File>();
+        for (int i = 0; i < packFiles.length; ++i)
+        {
+            PackFile packFile = packFiles[i];
+            if (!packFile.isDirectory() && selected.get(i))
+            {
+                targets.put(packFile, new File(IoHelper.translatePath(packFile.getTargetPath(), variables)));
+            }
+        }
+        return upgrade.getUnchanged(targets);
     }
 
     /**
@@ -505,7 +733,7 @@ public abstract class UnpackerBase implements IUnpacker
     protected void unpack(PackInfo packInfo, int packNo, FileQueue queue, List<ParsableFile> parsables,
                           List<ExecutableFile> executables, List<UpdateCheck> updateChecks)
     {
-        InputStream in = null;
+        PackStreams streams = null;
         Pack pack = packInfo.getPack();
         PackFile[] packFiles = packInfo.getPackFiles().toArray(new PackFile[]{});
         try
@@ -514,28 +742,85 @@ public abstract class UnpackerBase implements IUnpacker
 
             String stepName = getStepName(pack);
             selectedPacks = installData.getSelectedPacks();
+            stepBytes = 0;
+            stepBytesDone = 0;
+            stepPath = null;
+            for (PackFile packFile : packFiles)
+            {
+                if (!packFile.isDirectory())
+                {
+                    stepBytes += packFile.length();
+                }
+            }
             listener.nextStep(stepName, selectedPacks.indexOf(pack) + 1, len);
 
-            in = resources.getPackStream(pack.getName());
+            BitSet selected = getSelected(packInfo);
+            if (!listeners.isFileListener())
+            {
+                // listeners aren't notified of directories, so create them all up front
+                createDirectories(packFiles, selected);
+            }
+            if (upgrade != null)
+            {
+                unchanged = getUnchanged(packFiles, selected);
+            }
+
+            // files restricted to other platforms are stored in streams that are never opened
+            streams = new PackStreams(pack, packInfo.getPackFiles(), resources,
+                                      getInstallData().getInfo().getCompressionFormat());
 
+            Metrics metrics = InstallMetrics.getMetrics();
+            boolean fine = logger.isLoggable(Level.FINE);
             for (int i = 0; i < len; i++)
             {
                 PackFile packFile = packFiles[i];
                 final boolean isDirectory = packFile.isDirectory();
-                logger.fine("Unpacking " + (isDirectory?"directory":"file") + " " + packFile.getTargetPath()
-                        + " (backreference: " + packFile.isBackReference() + ")");
-                if (shouldUnpack(packFile))
+                if (fine)
+                {
+                    logger.fine("Unpacking " + (isDirectory ? "directory" : "file") + " " + packFile.getTargetPath()
+                                        + " (backreference: " + packFile.isBackReference() + ")");
+                }
+                if (selected.get(i))
                 {
                     // unpack the file
-                    unpack(packFile, in, i + 1, pack, queue);
+                    InputStream packStream;
+                    if (packFile.isSolid() && !unchanged.contains(packFile))
+                    {
+                        packStream = streams.getSolidStream(packFile);
+                    } else
+                    {
+                        packStream = streams.getStream(packFile);
+                    }
+                    unpack(packFile, packStream, i + 1, pack, queue);
                 } else
                 {
-                    if (!isDirectory)
+                    metrics.increment("unpack.files.skipped");
+                    if (!isDirectory && !packFile.isSolid() && streams.isOpen(packFile))
                     {
-                        // condition is not fulfilled, so skip it in main stream
-                        skip(packFile, pack, in);
+                        // solid files are skipped by the solid reader when the next file is read, and unopened
+                        // streams are positioned when they are opened
+                        // condition is not fulfilled, so skip it in its stream
+                        skip(packFile, pack, streams.getStream(packFile));
                     }
                 }
+                if (!isDirectory)
+                {
+                    stepBytesDone += packFile.length();
+                }
+            }
+            if (byteListener != null && stepBytes > 0)
+            {
+                // progress is reported before each file is unpacked, so report the completion of the last one
+                byteListener.progress(stepBytes, stepBytes, stepPath);
+            }
+            long unread = streams.getUnread();
+            if (unread != 0)
+            {
+                metrics.add("unpack.bytes.unread", unread);
+                if (fine)
+                {
+                    logger.fine("Pack " + pack.getName() + ": " + unread + " bytes for other platforms not read");
+                }
             }
             readParsableFiles(packInfo, parsables);
             readExecutableFiles(packInfo, executables);
@@ -551,10 +836,82 @@ public abstract class UnpackerBase implements IUnpacker
         }
         finally
         {
-            IOUtils.closeQuietly(in);
+            unchanged = Collections.emptySet();
+            if (streams != null)
+            {
+                streams.close();
+            }
+        }
+    }
+
+    /**
+     * Notifies the progress listener that a file is about to be unpacked.
+     * <p/>
+     * If the listener accepts progress in bytes, the progress is reported as the size of the files of the current
+     * pack processed so far.
+     *
+     * @param fileNo the pack file number
+     * @param path   the file path
+     */
+    protected void progress(int fileNo, String path)
+    {
+        stepPath = path;
+        if (byteListener != null)
+        {
+            byteListener.progress(stepBytesDone, stepBytes, path);
+        }
+        else
+        {
+            listener.progress(fileNo, path);
         }
     }
 
+    /**
+     * Determines the files to unpack.
+     * <p/>
+     * The condition and OS constraints of the files are evaluated once per distinct combination, rather than once
+     * per file.
+     *
+     * @param packs the packs to unpack
+     * @return the files to unpack
+     */
+    private FileSelection createSelection(List<PackInfo> packs)
+    {
+        FileSelection result = new FileSelection(packs, new FileSelection.Filter()
+        {
+            @Override
+            public boolean accept(PackFile file)
+            {
+                return shouldUnpack(file);
+            }
+        });
+        Metrics metrics = InstallMetrics.getMetrics();
+        metrics.add("unpack.files.selected", result.getFiles());
+        metrics.add("unpack.bytes.selected", result.getBytes());
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("Selected " + result.getFiles() + " files (" + result.getBytes() + " bytes) to unpack, from "
+                                + result.getEvaluations() + " distinct conditions and OS constraints");
+        }
+        return result;
+    }
+
+    /**
+     * Returns the files of a pack to unpack.
+     *
+     * @param packInfo the pack
+     * @return the bitmap of files to unpack, indexed on their position in the pack
+     */
+    private BitSet getSelected(PackInfo packInfo)
+    {
+        BitSet result = (selection != null) ? selection.getSelected(packInfo) : null;
+        if (result == null)
+        {
+            result = createSelection(Collections.singletonList(packInfo)).getSelected(packInfo);
+        }
+        return result;
+    }
+
     /**
      * Determines if a file should be unpacked.
      *
@@ -612,15 +969,34 @@ public abstract class UnpackerBase implements IUnpacker
 
         listeners.beforeFile(target, packFile, pack);
 
-        listener.progress(fileNo, path);
+        progress(fileNo, path);
 
-        // if this file exists and should not be overwritten, check what to do
-        if (target.exists() && (packFile.override() != OverrideType.OVERRIDE_TRUE) && !isOverwriteFile(packFile, target))
+        if (packFile.isOmitted())
+        {
+            // patch installers omit files that are unchanged since the version they patch. These have already been
+            // verified by checkPatchedFiles()
+            InstallMetrics.getMetrics().increment("unpack.files.unchanged");
+        } else if (unchanged.contains(packFile))
+        {
+            // the installed file already has the same content
+            upgrade.unchanged(packFile);
+            InstallMetrics.getMetrics().increment("unpack.files.unchanged");
+            if (!packFile.isBackReference() && !pack.isLoose() && !packFile.isPack200Jar() && !packFile.isSolid())
+            {
+                // solid files are skipped by the solid reader, without decoding if their whole chunk is unchanged
+                skip(packInputStream, packFile.size());
+            }
+        } else if (target.exists() && (packFile.override() != OverrideType.OVERRIDE_TRUE) && !isOverwriteFile(packFile, target))
         {
+            // the file exists and should not be overwritten
+            InstallMetrics.getMetrics().increment("unpack.files.kept");
             if (!packFile.isBackReference() && !pack.isLoose() && !packFile.isPack200Jar())
             {
                 long size = packFile.size();
-                logger.fine("|- No overwrite - skipping pack stream by " + size + " bytes");
+                if (logger.isLoggable(Level.FINE))
+                {
+                    logger.fine("|- No overwrite - skipping pack stream by " + size + " bytes");
+                }
                 skip(packInputStream, size);
             }
         } else
@@ -649,34 +1025,68 @@ public abstract class UnpackerBase implements IUnpacker
         try
         {
             FileUnpacker unpacker;
+            boolean patch = false;
 
             if (!pack.isLoose() && packFile.isBackReference())
             {
                 PackFile linkedPackFile = packFile.getLinkedPackFile();
                 packStream = resources.getInputStream(ResourceManager.RESOURCE_BASEPATH_DEFAULT + linkedPackFile.getStreamResourceName());
-                if (!packFile.isPack200Jar())
+                if (linkedPackFile.isSolid())
+                {
+                    // decompress the linked file's chunk up to the file
+                    PackCompression format = getInstallData().getInfo().getCompressionFormat();
+                    packStream = new SolidPackReader(packStream, format).getInputStream(linkedPackFile);
+                } else if (!packFile.isPack200Jar())
                 {
                     // Non-Pack200 files are saved in main pack stream
                     // Offset is always 0 for Pack200 resources, because each file has its own stream resource
                     long size = linkedPackFile.getStreamOffset();
-                    logger.fine("|- Backreference to pack stream (offset: " + size + " bytes");
+                    if (logger.isLoggable(Level.FINE))
+                    {
+                        logger.fine("|- Backreference to pack stream (offset: " + size + " bytes");
+                    }
                     skip(packStream, size);
                 }
             } else if (packFile.isPack200Jar())
             {
+                // Pack200 files have their own stream resource
                 packStream = resources.getInputStream(ResourceManager.RESOURCE_BASEPATH_DEFAULT + packFile.getStreamResourceName());
+            } else if (packFile.isDelta())
+            {
+                // deltas have their own resource. The installed file has been verified by checkPatchedFiles()
+                packStream = resources.getInputStream(ResourceManager.RESOURCE_BASEPATH_DEFAULT + packFile.getDeltaResourceName());
+                patch = true;
             } else
             {
                 packStream = new NoCloseInputStream(packInputStream);
             }
 
-            unpacker = createFileUnpacker(packFile, pack, queue, cancellable);
-            logger.fine("|- Extracting file using " + unpacker.getClass().getName() + ")");
+            if (patch)
+            {
+                unpacker = new DeltaFileUnpacker(cancellable, queue);
+            } else
+            {
+                unpacker = createFileUnpacker(packFile, pack, queue, cancellable);
+            }
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("|- Extracting file using " + unpacker.getClass().getName() + ")");
+            }
+            Metrics metrics = InstallMetrics.getMetrics();
+            PhaseTimer timer = metrics.start("unpack.file");
             unpacker.unpack(packFile, packStream, target);
+            timer.stop();
+            metrics.increment("unpack.files");
+            metrics.add("unpack.bytes", packFile.length());
+            metrics.record("unpack.file.size", packFile.length());
             checkInterrupt();
 
             if (!unpacker.isQueued())
             {
+                if (upgrade != null)
+                {
+                    upgrade.installed(packFile, target);
+                }
                 listeners.afterFile(target, packFile, pack);
             }
         }
@@ -699,11 +1109,16 @@ public abstract class UnpackerBase implements IUnpacker
      */
     protected void skip(PackFile packFile, Pack pack, InputStream packInputStream) throws IOException
     {
-        if (!pack.isLoose() && !packFile.isBackReference() && !packFile.isPack200Jar())
+        if (!pack.isLoose() && !packFile.isBackReference() && !packFile.isPack200Jar() && !packFile.hasBase())
         {
             long size = packFile.size();
-            logger.fine("|- Condition not fulfilled - skipping pack stream " + packFile.getTargetPath() + " by " + size + " bytes ");
-            skip(packInputStream, packFile.size());
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("|- Condition not fulfilled - skipping pack stream " + packFile.getTargetPath() + " by "
+                                    + size + " bytes ");
+            }
+            InstallMetrics.getMetrics().add("unpack.bytes.skipped", size);
+            skip(packInputStream, size);
         }
     }
 
@@ -728,6 +1143,10 @@ public abstract class UnpackerBase implements IUnpacker
         } else if (file.isPack200Jar())
         {
             unpacker = new Pack200FileUnpacker(cancellable, resources, queue);
+        } else if (file.isSolid() || (file.isBackReference() && file.getLinkedPackFile().isSolid()))
+        {
+            // solid files are decompressed by the SolidPackReader
+            unpacker = new DefaultFileUnpacker(cancellable, queue);
         } else if (compressionFormat != PackCompression.DEFAULT)
         {
             unpacker = new CompressedFileUnpacker(cancellable, queue, compressionFormat);
@@ -891,6 +1310,10 @@ public abstract class UnpackerBase implements IUnpacker
      */
     protected void createDirectory(File dir, PackFile file, Pack pack)
     {
+        if (directories.isKnown(dir))
+        {
+            return;
+        }
         if (!dir.exists())
         {
             if (!listeners.isFileListener())
@@ -900,6 +1323,7 @@ public abstract class UnpackerBase implements IUnpacker
                 {
                     throw new IzPackException("Could not create directory: " + dir.getPath());
                 }
+                InstallMetrics.getMetrics().increment("unpack.dirs.created");
             } else
             {
                 File parent = dir.getParentFile();
@@ -912,9 +1336,38 @@ public abstract class UnpackerBase implements IUnpacker
                 {
                     throw new IzPackException("Could not create directory: " + dir.getPath());
                 }
+                InstallMetrics.getMetrics().increment("unpack.dirs.created");
                 listeners.afterDir(dir, file, pack);
             }
         }
+        directories.add(dir);
+    }
+
+    /**
+     * Creates the directories of the selected files of a pack, in a single pass.
+     *
+     * @param packFiles the pack files
+     * @param selected  the selected pack files
+     * @throws IzPackException if a directory cannot be created
+     */
+    private void createDirectories(PackFile[] packFiles, BitSet selected)
+    {
+        Set<File> dirs = new LinkedHashSet<File>();
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1))
+        {
+            PackFile packFile = packFiles[i];
+            File target = new File(IoHelper.translatePath(packFile.getTargetPath(), variables));
+            File dir = packFile.isDirectory() ? target : target.getParentFile();
+            if (dir != null)
+            {
+                dirs.add(dir);
+            }
+        }
+        Metrics metrics = InstallMetrics.getMetrics();
+        PhaseTimer timer = metrics.start("unpack.dirs");
+        int created = directories.create(dirs);
+        timer.stop();
+        metrics.add("unpack.dirs.created", created);
     }
 
     /**
@@ -0,0 +1,162 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.automation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link CachingResourceLoader} class.
+ */
+public class CachingResourceLoaderTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that resources are only read from the parent once.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCached() throws Exception
+    {
+        File file = temporaryFolder.newFile("resource.txt");
+        FileUtils.writeStringToFile(file, "original", "UTF-8");
+        CachingResourceLoader loader = new CachingResourceLoader(createParent(), 1024, 1024);
+
+        assertEquals("original", read(loader, "resource.txt"));
+        FileUtils.writeStringToFile(file, "modified", "UTF-8");
+        assertEquals("original", read(loader, "resource.txt"));
+        assertNull(loader.getResourceAsStream("missing.txt"));
+    }
+
+    /**
+     * Verifies that resources larger than the remaining capacity are read from the parent each time.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCapacity() throws Exception
+    {
+        File small = temporaryFolder.newFile("small.txt");
+        File large = temporaryFolder.newFile("large.txt");
+        FileUtils.writeStringToFile(small, "12345", "UTF-8");
+        FileUtils.writeStringToFile(large, "1234567890", "UTF-8");
+        CachingResourceLoader loader = new CachingResourceLoader(createParent(), 12, 12);
+
+        assertEquals("12345", read(loader, "small.txt"));
+        assertEquals("1234567890", read(loader, "large.txt"));
+        FileUtils.writeStringToFile(large, "0987654321", "UTF-8");
+        assertEquals("0987654321", read(loader, "large.txt"));
+    }
+
+    /**
+     * Verifies that resources larger than the per-resource limit are read from the parent each time.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testLimit() throws Exception
+    {
+        File small = temporaryFolder.newFile("small.txt");
+        File large = temporaryFolder.newFile("large.txt");
+        FileUtils.writeStringToFile(small, "12345", "UTF-8");
+        FileUtils.writeStringToFile(large, "1234567890", "UTF-8");
+        CachingResourceLoader loader = new CachingResourceLoader(createParent(), 1024, 6);
+
+        assertEquals("12345", read(loader, "small.txt"));
+        assertEquals("1234567890", read(loader, "large.txt"));
+        FileUtils.writeStringToFile(small, "54321", "UTF-8");
+        FileUtils.writeStringToFile(large, "0987654321", "UTF-8");
+        assertEquals("12345", read(loader, "small.txt"));
+        assertEquals("0987654321", read(loader, "large.txt"));
+    }
+
+    /**
+     * Verifies that a resource that is skipped over and closed before the end is reached is cached in full.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPartialRead() throws Exception
+    {
+        File file = temporaryFolder.newFile("resource.txt");
+        FileUtils.writeStringToFile(file, "1234567890", "UTF-8");
+        CachingResourceLoader loader = new CachingResourceLoader(createParent(), 1024, 1024);
+
+        InputStream in = loader.getResourceAsStream("resource.txt");
+        assertEquals(2, in.skip(2));
+        assertEquals('3', in.read());
+        in.close();
+
+        FileUtils.writeStringToFile(file, "0987654321", "UTF-8");
+        assertEquals("1234567890", read(loader, "resource.txt"));
+    }
+
+    /**
+     * Creates a parent loader that reads resources from the temporary folder.
+     *
+     * @return a new loader
+     * @throws Exception for any error
+     */
+    private ClassLoader createParent() throws Exception
+    {
+        return new URLClassLoader(new URL[]{temporaryFolder.getRoot().toURI().toURL()}, null);
+    }
+
+    /**
+     * Reads a resource.
+     *
+     * @param loader the loader
+     * @param name   the resource name
+     * @return the resource content
+     * @throws Exception for any error
+     */
+    private static String read(ClassLoader loader, String name) throws Exception
+    {
+        InputStream in = loader.getResourceAsStream(name);
+        try
+        {
+            return IOUtils.toString(in, "UTF-8");
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+}
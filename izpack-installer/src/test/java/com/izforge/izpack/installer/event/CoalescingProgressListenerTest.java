@@ -0,0 +1,155 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.event;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.izforge.izpack.api.event.ByteProgressListener;
+import com.izforge.izpack.api.event.ProgressListener;
+
+
+/**
+ * Tests the {@link CoalescingProgressListener} class.
+ */
+public class CoalescingProgressListenerTest
+{
+
+    /**
+     * Verifies that progress within the interval is coalesced, and that the latest progress is passed on before
+     * the next step.
+     */
+    @Test
+    public void testCoalesce()
+    {
+        ProgressListener listener = mock(ProgressListener.class);
+        CoalescingProgressListener coalescing = new CoalescingProgressListener(listener, 60000);
+
+        coalescing.startAction("Unpacking", 2);
+        coalescing.nextStep("pack1", 1, 1000);
+        for (int i = 1; i <= 1000; ++i)
+        {
+            coalescing.progress(i, "file" + i);
+        }
+        verify(listener, never()).progress(anyInt(), anyString());
+
+        coalescing.nextStep("pack2", 2, 10);
+        coalescing.stopAction();
+
+        InOrder order = inOrder(listener);
+        order.verify(listener).nextStep("pack1", 1, 1000);
+        order.verify(listener).progress(1000, "file1000");
+        order.verify(listener).nextStep("pack2", 2, 10);
+        order.verify(listener).stopAction();
+        verify(listener, times(1)).progress(anyInt(), anyString());
+    }
+
+    /**
+     * Verifies that progress in bytes is passed on to a {@link ByteProgressListener}, and that the throughput is
+     * calculated.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testBytes() throws Exception
+    {
+        ByteProgressListener listener = mock(ByteProgressListener.class);
+        CoalescingProgressListener coalescing = new CoalescingProgressListener(listener, 1);
+
+        coalescing.nextStep("pack1", 1, 2);
+        Thread.sleep(5);
+        coalescing.progress(1024 * 1024, 2 * 1024 * 1024, "file1");
+
+        verify(listener).progress(1024 * 1024, 2 * 1024 * 1024, "file1");
+        assertTrue(coalescing.getBytesPerSecond() > 0);
+        assertTrue(coalescing.getRemainingTime() >= 0);
+        assertNotNull(coalescing.getRate());
+    }
+
+    /**
+     * Verifies that the last pending progress in bytes is passed on at step and action boundaries.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testBytesAtBoundaries() throws Exception
+    {
+        ByteProgressListener listener = mock(ByteProgressListener.class);
+        CoalescingProgressListener coalescing = new CoalescingProgressListener(listener, 60000);
+
+        // steps that complete within the interval
+        coalescing.nextStep("pack1", 1, 2);
+        coalescing.progress(500L, 1000L, "file1");
+        coalescing.progress(1000L, 1000L, "file2");
+        coalescing.nextStep("pack2", 2, 1);
+        coalescing.progress(10L, 10L, "file3");
+        coalescing.stopAction();
+
+        InOrder order = inOrder(listener);
+        order.verify(listener).nextStep("pack1", 1, 2);
+        order.verify(listener).progress(1000L, 1000L, "file2");
+        order.verify(listener).nextStep("pack2", 2, 1);
+        order.verify(listener).progress(10L, 10L, "file3");
+        order.verify(listener).stopAction();
+        verify(listener, never()).progress(500L, 1000L, "file1");
+
+        // a step that has already passed on progress in bytes is completed
+        listener = mock(ByteProgressListener.class);
+        coalescing = new CoalescingProgressListener(listener, 1);
+        coalescing.nextStep("pack1", 1, 2);
+        Thread.sleep(5);
+        coalescing.progress(500L, 1000L, "file1");
+        coalescing.progress(1000L, 1000L, "file2");
+        coalescing.stopAction();
+
+        order = inOrder(listener);
+        order.verify(listener).progress(500L, 1000L, "file1");
+        order.verify(listener).progress(1000L, 1000L, "file2");
+        order.verify(listener).stopAction();
+    }
+
+    /**
+     * Verifies that progress in bytes is converted to sub-steps for listeners that don't accept bytes.
+     */
+    @Test
+    public void testBytesToSubSteps()
+    {
+        ProgressListener listener = mock(ProgressListener.class);
+        CoalescingProgressListener coalescing = new CoalescingProgressListener(listener, 60000);
+
+        coalescing.nextStep("pack1", 1, 10);
+        coalescing.progress(500L, 1000L, "file1");
+        coalescing.stopAction();
+
+        verify(listener).progress(5, "file1");
+        verify(listener, times(1)).progress(anyInt(), anyString());
+    }
+
+}
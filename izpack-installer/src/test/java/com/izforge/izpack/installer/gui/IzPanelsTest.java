@@ -0,0 +1,231 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.izforge.izpack.installer.gui;
+
+import com.izforge.izpack.api.container.Container;
+import com.izforge.izpack.api.data.ConfigurationOption;
+import com.izforge.izpack.api.data.LocaleDatabase;
+import com.izforge.izpack.api.data.Panel;
+import com.izforge.izpack.api.factory.ObjectFactory;
+import com.izforge.izpack.api.resource.Messages;
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.container.DefaultContainer;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.factory.DefaultObjectFactory;
+import com.izforge.izpack.core.resource.DefaultLocales;
+import com.izforge.izpack.core.rules.ConditionContainer;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.installer.data.GUIInstallData;
+import com.izforge.izpack.util.Platforms;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link IzPanels}.
+ */
+public class IzPanelsTest
+{
+
+    /**
+     * The installation data.
+     */
+    private final GUIInstallData installData;
+
+    /**
+     * Factory for creating IzPanels.
+     */
+    private final ObjectFactory factory;
+
+    /**
+     * The container.
+     */
+    private final Container container;
+
+
+    /**
+     * Constructs an {@code IzPanelsTest}.
+     */
+    public IzPanelsTest()
+    {
+        final InstallerFrame frame = Mockito.mock(InstallerFrame.class);
+        installData = new GUIInstallData(new DefaultVariables(), Platforms.WINDOWS);
+        RulesEngine rules = new RulesEngineImpl(Mockito.mock(ConditionContainer.class), Platforms.WINDOWS);
+        installData.setRules(rules);
+        final Resources resources = Mockito.mock(Resources.class);
+        installData.setMessages(new LocaleDatabase((Messages) null, new DefaultLocales(resources)));
+
+        container = new DefaultContainer()
+        {
+            {
+                getContainer().addComponent(frame);
+                getContainer().addComponent(resources);
+                getContainer().addComponent(installData);
+            }
+        };
+        factory = new DefaultObjectFactory(container);
+    }
+
+    /**
+     * Verifies that panels are only created on initialisation if they are the last panel, or are configured to be
+     * created eagerly.
+     */
+    @Test
+    public void testInitialise()
+    {
+        List<IzPanelView> views = createViews(4);
+        views.get(1).getPanel().addConfigurationOption(IzPanels.CREATE_EAGERLY, new ConfigurationOption("true"));
+        IzPanels panels = createPanels(views);
+
+        panels.initialise();
+
+        List<IzPanel> created = installData.getPanels();
+        assertEquals(2, created.size());
+        assertSame(views.get(1).getView(), created.get(0));
+        assertSame(views.get(3).getView(), created.get(1));
+    }
+
+    /**
+     * Verifies that panels are created when navigated to, that the next panel is created in advance on the event
+     * dispatch thread, and that the installation data panels are kept in navigation order.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCreateOnNavigation() throws Exception
+    {
+        List<IzPanelView> views = createViews(4);
+        IzPanels panels = createPanels(views);
+        panels.initialise();
+
+        assertTrue(panels.next(false));
+        waitForBackgroundCreation();
+
+        List<IzPanel> created = installData.getPanels();
+        assertEquals(3, created.size());
+        assertSame(views.get(0).getView(), created.get(0));
+        assertSame(views.get(1).getView(), created.get(1));
+        assertSame(views.get(3).getView(), created.get(2));
+        assertTrue(((ThreadRecordingPanel) created.get(1)).isCreatedOnEventDispatchThread());
+    }
+
+    /**
+     * Waits for the panel created in advance to be attached from the event dispatch thread.
+     *
+     * @throws Exception for any error
+     */
+    private void waitForBackgroundCreation() throws Exception
+    {
+        for (int i = 0; i < 100 && installData.getPanels().size() < 3; ++i)
+        {
+            SwingUtilities.invokeAndWait(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                }
+            });
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Creates panel views.
+     *
+     * @param count the no. of views
+     * @return the views
+     */
+    private List<IzPanelView> createViews(int count)
+    {
+        List<IzPanelView> views = new ArrayList<IzPanelView>();
+        for (int i = 0; i < count; ++i)
+        {
+            Panel panel = new Panel();
+            panel.setClassName(ThreadRecordingPanel.class.getName());
+            panel.setPanelId(TestIzPanel.class.getSimpleName() + i);
+            views.add(new IzPanelView(panel, factory, installData));
+        }
+        return views;
+    }
+
+    /**
+     * Creates an {@link IzPanels} for the specified views.
+     *
+     * @param views the views
+     * @return a new {@link IzPanels}
+     */
+    private IzPanels createPanels(List<IzPanelView> views)
+    {
+        IzPanels panels = new IzPanels(views, container, installData);
+        panels.setListener(new IzPanelsListener()
+        {
+            @Override
+            public void switchPanel(IzPanelView newPanel, IzPanelView oldPanel)
+            {
+
+            }
+        });
+        return panels;
+    }
+
+    /**
+     * Panel that records if it was created on the event dispatch thread.
+     */
+    public static class ThreadRecordingPanel extends TestIzPanel
+    {
+        private static final long serialVersionUID = -2818464216155296520L;
+
+        /**
+         * Determines if the panel was created on the event dispatch thread.
+         */
+        private final boolean eventDispatchThread = SwingUtilities.isEventDispatchThread();
+
+        /**
+         * Constructs a {@link ThreadRecordingPanel}.
+         *
+         * @param panel       the panel meta-data
+         * @param parent      the parent IzPack installer frame
+         * @param installData the installation data
+         * @param resources   the resources
+         */
+        public ThreadRecordingPanel(Panel panel, InstallerFrame parent, GUIInstallData installData,
+                                    Resources resources)
+        {
+            super(panel, parent, installData, resources);
+        }
+
+        /**
+         * Determines if the panel was created on the event dispatch thread.
+         *
+         * @return {@code true} if the panel was created on the event dispatch thread
+         */
+        public boolean isCreatedOnEventDispatchThread()
+        {
+            return eventDispatchThread;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.security.MessageDigest;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.exception.InstallerException;
+import com.izforge.izpack.core.io.BinaryDelta;
+
+
+/**
+ * Tests the {@link DeltaFileUnpacker} class.
+ */
+public class DeltaFileUnpackerTest
+{
+
+    /**
+     * The previous content.
+     */
+    private static final String BASE = "The quick brown fox jumps over the lazy dog. The quick brown fox jumps again.";
+
+    /**
+     * The new content.
+     */
+    private static final String TARGET = "The quick brown fox jumps over the lazy cat. The quick brown fox jumps again.";
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Cancellable implementation.
+     */
+    private final Cancellable cancellable = new Cancellable()
+    {
+        @Override
+        public boolean isCancelled()
+        {
+            return false;
+        }
+    };
+
+    /**
+     * Verifies that an installed file is patched to the new content.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testUnpack() throws Exception
+    {
+        File target = temporaryFolder.newFile("target.txt");
+        FileUtils.writeStringToFile(target, BASE, "US-ASCII");
+
+        PackFile file = createPackFile();
+        new DeltaFileUnpacker(cancellable, null).unpack(file, createDelta(), target);
+        assertEquals(TARGET, FileUtils.readFileToString(target, "US-ASCII"));
+        assertEquals(file.lastModified(), target.lastModified());
+    }
+
+    /**
+     * Verifies that an installed file that doesn't have the content the delta was created against isn't patched.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testModifiedBase() throws Exception
+    {
+        File target = temporaryFolder.newFile("target.txt");
+        String modified = BASE.replace("dog", "hog");
+        FileUtils.writeStringToFile(target, modified, "US-ASCII");
+
+        try
+        {
+            new DeltaFileUnpacker(cancellable, null).unpack(createPackFile(), createDelta(), target);
+            fail("Expected InstallerException");
+        }
+        catch (InstallerException expected)
+        {
+            // expected
+        }
+        assertEquals(modified, FileUtils.readFileToString(target, "US-ASCII"));
+    }
+
+    /**
+     * Creates a pack file for the new content, stored as a delta.
+     *
+     * @return a new pack file
+     * @throws Exception for any error
+     */
+    private PackFile createPackFile() throws Exception
+    {
+        File source = new File(temporaryFolder.getRoot(), "source/target.txt");
+        FileUtils.writeStringToFile(source, TARGET, "US-ASCII");
+        PackFile result = new PackFile(source.getParentFile(), source, "target.txt", null, OverrideType.OVERRIDE_TRUE,
+                                       null, Blockable.BLOCKABLE_NONE, null);
+        MessageDigest digest = MessageDigest.getInstance(PackFile.DIGEST_ALGORITHM);
+        result.setDelta(digest.digest(BASE.getBytes("US-ASCII")), digest.digest(TARGET.getBytes("US-ASCII")),
+                         "packs/delta-0");
+        return result;
+    }
+
+    /**
+     * Creates the delta between the previous and new content.
+     *
+     * @return the delta stream
+     * @throws Exception for any error
+     */
+    private ByteArrayInputStream createDelta() throws Exception
+    {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        BinaryDelta.encode(BASE.getBytes("US-ASCII"), TARGET.getBytes("US-ASCII"), delta);
+        return new ByteArrayInputStream(delta.toByteArray());
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
+
+
+/**
+ * Tests the {@link DifferentialUpgrade}.
+ */
+public class DifferentialUpgradeTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that only existing files with the same content are reported as unchanged.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testGetUnchanged() throws Exception
+    {
+        File installDir = temporaryFolder.newFolder("install");
+        PackFile same = createPackFile("same.txt", "version 1");
+        PackFile modified = createPackFile("modified.txt", "version 2");
+        PackFile resized = createPackFile("resized.txt", "version 2");
+        PackFile missing = createPackFile("missing.txt", "version 2");
+        PackFile undigested = createPackFile("undigested.txt", "version 1");
+        undigested.setDigest(null);
+
+        Map<PackFile, File> targets = new IdentityHashMap<PackFile, File>();
+        targets.put(same, createTarget(installDir, "same.txt", "version 1"));
+        targets.put(modified, createTarget(installDir, "modified.txt", "version 1"));
+        targets.put(resized, createTarget(installDir, "resized.txt", "version 10"));
+        targets.put(missing, new File(installDir, "missing.txt"));
+        targets.put(undigested, createTarget(installDir, "undigested.txt", "version 1"));
+
+        DifferentialUpgrade upgrade = new DifferentialUpgrade(installDir);
+        upgrade.load();
+        Set<PackFile> unchanged = upgrade.getUnchanged(targets);
+        assertEquals(1, unchanged.size());
+        assertTrue(unchanged.contains(same));
+
+        // only files of the same size are read
+        assertEquals(2, upgrade.getFilesHashed());
+
+        upgrade.unchanged(same);
+        assertEquals(1, upgrade.getFilesAvoided());
+        assertEquals(same.length(), upgrade.getBytesAvoided());
+    }
+
+    /**
+     * Verifies that digests are cached on size and last-modified time, and survive a save and load.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCache() throws Exception
+    {
+        File installDir = temporaryFolder.newFolder("install");
+        PackFile file = createPackFile("file.txt", "version 1");
+        File target = createTarget(installDir, "file.txt", "version 1");
+        Map<PackFile, File> targets = new IdentityHashMap<PackFile, File>();
+        targets.put(file, target);
+
+        DifferentialUpgrade upgrade = new DifferentialUpgrade(installDir);
+        upgrade.installed(file, target);
+        upgrade.save();
+        assertTrue(upgrade.getCacheFile().exists());
+
+        // change the content, but not the size nor last-modified time. The cached digest is used
+        long lastModified = target.lastModified();
+        FileUtils.writeStringToFile(target, "version 2", "UTF-8");
+        assertTrue(target.setLastModified(lastModified));
+        upgrade = new DifferentialUpgrade(installDir);
+        upgrade.load();
+        assertTrue(upgrade.getUnchanged(targets).contains(file));
+        assertEquals(0, upgrade.getFilesHashed());
+
+        // change the last-modified time. The file is hashed again
+        assertTrue(target.setLastModified(lastModified - 10000));
+        assertFalse(upgrade.getUnchanged(targets).contains(file));
+        assertEquals(1, upgrade.getFilesHashed());
+    }
+
+    /**
+     * Creates a pack file with a digest of its content.
+     *
+     * @param name    the file name
+     * @param content the file content
+     * @return a new pack file
+     * @throws Exception for any error
+     */
+    private PackFile createPackFile(String name, String content) throws Exception
+    {
+        File source = new File(temporaryFolder.getRoot(), "source/" + name);
+        FileUtils.writeStringToFile(source, content, "UTF-8");
+        PackFile result = new PackFile(source.getParentFile(), source, name, null, OverrideType.OVERRIDE_TRUE, null,
+                                       Blockable.BLOCKABLE_NONE, null);
+        result.setDigest(MessageDigest.getInstance(PackFile.DIGEST_ALGORITHM).digest(content.getBytes("UTF-8")));
+        return result;
+    }
+
+    /**
+     * Creates an installed file.
+     *
+     * @param dir     the installation directory
+     * @param name    the file name
+     * @param content the file content
+     * @return the file
+     * @throws IOException for any I/O error
+     */
+    private File createTarget(File dir, String name, String content) throws IOException
+    {
+        File result = new File(dir, name);
+        FileUtils.writeStringToFile(result, content, "UTF-8");
+        return result;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.exception.IzPackException;
+
+
+/**
+ * Tests the {@link DirectoryPlan}.
+ */
+public class DirectoryPlanTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that nested directories are created, including enough siblings to be created concurrently, and
+     * that they are known to exist afterwards.
+     */
+    @Test
+    public void testCreate()
+    {
+        File root = temporaryFolder.getRoot();
+        List<File> dirs = new ArrayList<File>();
+        for (int i = 0; i < 20; ++i)
+        {
+            dirs.add(new File(root, "a/b" + i + "/c"));
+            dirs.add(new File(root, "a/b" + i + "/d"));
+        }
+        dirs.add(new File(root, "a/b0/c"));
+        DirectoryPlan plan = new DirectoryPlan();
+
+        // a, 20 b directories, and 40 leaf directories
+        assertEquals(61, plan.create(dirs));
+        for (File dir : dirs)
+        {
+            assertTrue(dir.isDirectory());
+            assertTrue(plan.isKnown(dir));
+        }
+        assertTrue(plan.isKnown(new File(root, "a")));
+        assertTrue(plan.isKnown(root));
+        assertFalse(plan.isKnown(new File(root, "e")));
+
+        // the directories are now known to exist
+        assertEquals(0, plan.create(dirs));
+    }
+
+    /**
+     * Verifies that existing directories are recorded rather than created.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testExisting() throws Exception
+    {
+        File dir = temporaryFolder.newFolder("a");
+        DirectoryPlan plan = new DirectoryPlan();
+        assertFalse(plan.isKnown(dir));
+        assertEquals(1, plan.create(Arrays.asList(dir, new File(dir, "b"))));
+        assertTrue(plan.isKnown(dir));
+    }
+
+    /**
+     * Verifies that an exception is thrown if a directory cannot be created.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCreateFailure() throws Exception
+    {
+        File file = temporaryFolder.newFile("a");
+        try
+        {
+            new DirectoryPlan().create(Arrays.asList(new File(file, "b")));
+            fail("Expected IzPackException");
+        }
+        catch (IzPackException expected)
+        {
+            // expected
+        }
+    }
+
+}
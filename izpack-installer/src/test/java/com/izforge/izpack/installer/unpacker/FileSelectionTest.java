@@ -0,0 +1,131 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.api.data.binding.OsModel;
+
+
+/**
+ * Tests the {@link FileSelection}.
+ */
+public class FileSelectionTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that each distinct combination of condition and OS constraints is evaluated once, and that the
+     * result applies to all files with that combination.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSelection() throws Exception
+    {
+        List<OsModel> windows = Arrays.asList(new OsModel(null, "windows", null, null, null));
+        List<OsModel> unix = Arrays.asList(new OsModel(null, "unix", null, null, null));
+        PackInfo pack1 = new PackInfo("pack1", null, null, true, false, null, true, 0);
+        PackInfo pack2 = new PackInfo("pack2", null, null, true, false, null, true, 0);
+        addFile(pack1, "a.txt", null, null);
+        addFile(pack1, "b.txt", "cond1", null);
+        addFile(pack1, "c.txt", null, windows);
+        addFile(pack1, "d.txt", null, unix);
+        addFile(pack2, "e.txt", "cond1", null);
+        addFile(pack2, "f.txt", "cond2", null);
+        addFile(pack2, "g.txt", null, Arrays.asList(new OsModel(null, "windows", null, null, null)));
+        addFile(pack2, "h.txt", "cond1", unix);
+
+        final int[] evaluations = {0};
+        FileSelection selection = new FileSelection(Arrays.asList(pack1, pack2), new FileSelection.Filter()
+        {
+            @Override
+            public boolean accept(PackFile file)
+            {
+                ++evaluations[0];
+                List<OsModel> constraints = file.osConstraints();
+                boolean windows = constraints != null && constraints.get(0).getFamily().equals("windows");
+                return !"cond2".equals(file.getCondition()) && !windows;
+            }
+        });
+
+        // cond1, windows, unix, cond2 and cond1+unix
+        assertEquals(5, evaluations[0]);
+        assertEquals(5, selection.getEvaluations());
+
+        BitSet selected1 = selection.getSelected(pack1);
+        assertTrue(selected1.get(0));
+        assertTrue(selected1.get(1));
+        assertFalse(selected1.get(2));
+        assertTrue(selected1.get(3));
+
+        BitSet selected2 = selection.getSelected(pack2);
+        assertTrue(selected2.get(0));
+        assertFalse(selected2.get(1));
+        assertFalse(selected2.get(2));
+        assertTrue(selected2.get(3));
+
+        assertEquals(5, selection.getFiles());
+        assertEquals(5, selection.getBytes());
+        assertNull(selection.getSelected(new PackInfo("pack3", null, null, true, false, null, true, 0)));
+    }
+
+    /**
+     * Adds a single byte file to a pack.
+     *
+     * @param pack        the pack
+     * @param name        the file name
+     * @param condition   the file condition. May be {@code null}
+     * @param constraints the OS constraints. May be {@code null}
+     * @throws IOException for any I/O error
+     */
+    private void addFile(PackInfo pack, String name, String condition, List<OsModel> constraints)
+            throws IOException
+    {
+        File file = temporaryFolder.newFile(name);
+        FileUtils.writeStringToFile(file, "x", "US-ASCII");
+        pack.addFile(temporaryFolder.getRoot(), file, name, constraints, OverrideType.OVERRIDE_TRUE, null,
+                     Blockable.BLOCKABLE_NONE, null, condition, null);
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.util.NoCloseOutputStream;
+
+
+/**
+ * Tests the {@link SolidPackReader}.
+ */
+public class SolidPackReaderTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The pack stream.
+     */
+    private final ByteArrayOutputStream pack = new ByteArrayOutputStream();
+
+    /**
+     * Verifies that files can be read from consecutive chunks, skipping files and whole chunks that aren't
+     * requested.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testRead() throws Exception
+    {
+        PackFile a = createFile("a.txt", "alpha");
+        PackFile b = createFile("b.txt", "bravo");
+        PackFile c = createFile("c.txt", "charlie");
+        PackFile d = createFile("d.txt", "delta");
+        PackFile e = createFile("e.txt", "echo");
+        writeChunk(a, b);
+        writeChunk(c);
+        writeChunk(d, e);
+
+        SolidPackReader reader = createReader();
+        assertEquals("alpha", read(reader, a));
+        assertEquals("echo", read(reader, e));
+        reader.close();
+
+        reader = createReader();
+        assertEquals("bravo", read(reader, b));
+        assertEquals("charlie", read(reader, c));
+        assertEquals("delta", read(reader, d));
+        reader.close();
+    }
+
+    /**
+     * Verifies that a file that isn't read fully is skipped when the next file is requested.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPartialRead() throws Exception
+    {
+        PackFile a = createFile("a.txt", "alpha");
+        PackFile b = createFile("b.txt", "bravo");
+        writeChunk(a, b);
+
+        SolidPackReader reader = createReader();
+        assertEquals('a', reader.getInputStream(a).read());
+        assertEquals("bravo", read(reader, b));
+        reader.close();
+    }
+
+    /**
+     * Verifies that files must be requested in pack stream order.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testOutOfOrder() throws Exception
+    {
+        PackFile a = createFile("a.txt", "alpha");
+        PackFile b = createFile("b.txt", "bravo");
+        PackFile c = createFile("c.txt", "charlie");
+        writeChunk(a, b);
+        writeChunk(c);
+
+        SolidPackReader reader = createReader();
+        assertEquals("bravo", read(reader, b));
+        try
+        {
+            reader.getInputStream(a);
+            fail("Expected IOException");
+        }
+        catch (IOException expected)
+        {
+            // expected
+        }
+        reader.close();
+
+        reader = createReader();
+        assertEquals("charlie", read(reader, c));
+        try
+        {
+            reader.getInputStream(b);
+            fail("Expected IOException");
+        }
+        catch (IOException expected)
+        {
+            // expected
+        }
+        reader.close();
+    }
+
+    /**
+     * Creates a reader of the pack stream.
+     *
+     * @return a new reader
+     */
+    private SolidPackReader createReader()
+    {
+        return new SolidPackReader(new ByteArrayInputStream(pack.toByteArray()), PackCompression.GZIP);
+    }
+
+    /**
+     * Reads a file.
+     *
+     * @param reader the reader
+     * @param file   the file to read
+     * @return the file content
+     * @throws IOException for any I/O error
+     */
+    private String read(SolidPackReader reader, PackFile file) throws IOException
+    {
+        InputStream stream = reader.getInputStream(file);
+        byte[] content = new byte[(int) file.length()];
+        IOUtils.readFully(stream, content);
+        return new String(content, "US-ASCII");
+    }
+
+    /**
+     * Creates a pack file.
+     *
+     * @param name    the file name
+     * @param content the file content
+     * @return a new pack file
+     * @throws IOException for any I/O error
+     */
+    private PackFile createFile(String name, String content) throws IOException
+    {
+        File source = temporaryFolder.newFile(name);
+        FileUtils.writeStringToFile(source, content, "US-ASCII");
+        return new PackFile(temporaryFolder.getRoot(), source, name, null, OverrideType.OVERRIDE_TRUE, null,
+                            Blockable.BLOCKABLE_NONE, null);
+    }
+
+    /**
+     * Appends a solid chunk to the pack stream, in the layout written by the packager.
+     *
+     * @param files the files in the chunk
+     * @throws IOException for any I/O error
+     */
+    private void writeChunk(PackFile... files) throws IOException
+    {
+        long start = pack.size();
+        OutputStream chunk = new GzipCompressorOutputStream(new NoCloseOutputStream(pack));
+        long length = 0;
+        for (PackFile file : files)
+        {
+            file.setStreamOffset(start);
+            file.setChunkOffset(length);
+            length += FileUtils.copyFile(file.getFile(), chunk);
+        }
+        chunk.close();
+        for (PackFile file : files)
+        {
+            file.setChunkSize(pack.size() - start);
+        }
+    }
+
+}
@@ -32,10 +32,23 @@ import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -84,6 +97,11 @@ public class CompileWorker implements Runnable
 
     private static final String ECLIPSE_COMPILER_CLASS = "org.eclipse.jdt.internal.compiler.batch.Main";
 
+    /**
+     * The compiler name for which the in-process compiler is used, if the JVM provides one.
+     */
+    private static final String IN_PROCESS_COMPILER_NAME = "javac";
+
     private VariableSubstitutor vs;
 
     private IXMLElement spec;
@@ -412,7 +430,7 @@ public class CompileWorker implements Runnable
     /**
      * perform the actual compilation
      */
-    private CompileResult compileJobs()
+    private CompileResult compileJobs() throws InterruptedException
     {
         ArrayList<String> args = new ArrayList<String>();
         StringTokenizer tokenizer = new StringTokenizer(this.compilerArgumentsToUse);
@@ -422,6 +440,23 @@ public class CompileWorker implements Runnable
             args.add(tokenizer.nextToken());
         }
 
+        if (IN_PROCESS_COMPILER_NAME.equals(this.compilerToUse))
+        {
+            InProcessCompiler compiler = InProcessCompiler.getInstance();
+            if (compiler != null)
+            {
+                try
+                {
+                    return compileJobs(compiler, args);
+                }
+                finally
+                {
+                    compiler.close();
+                }
+            }
+            logger.fine("No in-process compiler available. Falling back to " + this.compilerToUse);
+        }
+
         Iterator<CompilationJob> job_it = this.jobs.iterator();
 
         this.handler.startAction("Compilation", this.jobs.size());
@@ -459,6 +494,218 @@ public class CompileWorker implements Runnable
         return new CompileResult();
     }
 
+    /**
+     * Performs the compilation using the in-process compiler.
+     * <p/>
+     * Jobs are compiled concurrently, unless a job's class path refers to the output of an earlier job, in which
+     * case it is compiled after that job completes. Progress and errors are reported to the handler from the calling
+     * thread, as each job completes.
+     *
+     * @param compiler  the compiler
+     * @param arguments the compiler arguments
+     * @return the result
+     * @throws InterruptedException if the compilation is interrupted
+     */
+    private CompileResult compileJobs(final InProcessCompiler compiler, final ArrayList<String> arguments)
+            throws InterruptedException
+    {
+        this.handler.startAction("Compilation", this.jobs.size());
+        if (this.jobs.isEmpty())
+        {
+            return new CompileResult();
+        }
+
+        String invalid = compiler.checkOptions(arguments);
+        if (invalid != null)
+        {
+            CompileResult result = new CompileResult(idata.getMessages().get("CompilePanel.error.invalidarguments"),
+                                                     getCommandLine(arguments), "", invalid);
+            this.handler.handleCompileError(result);
+            if (!result.isContinue())
+            {
+                return result;
+            }
+        }
+
+        Map<CompilationJob, Set<CompilationJob>> dependencies = getDependencies(arguments);
+        List<CompilationJob> pending = new ArrayList<CompilationJob>(this.jobs);
+        Set<CompilationJob> completed = new HashSet<CompilationJob>();
+        Map<Future<CompileResult>, CompilationJob> running = new HashMap<Future<CompileResult>, CompilationJob>();
+        int threads = Math.min(this.jobs.size(), Runtime.getRuntime().availableProcessors());
+        CompileResult result = null;
+        int job_no = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "compilation thread " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        CompletionService<CompileResult> service = new ExecutorCompletionService<CompileResult>(executor);
+        try
+        {
+            while (true)
+            {
+                if (result == null)
+                {
+                    Iterator<CompilationJob> iterator = pending.iterator();
+                    while (iterator.hasNext())
+                    {
+                        final CompilationJob job = iterator.next();
+                        if (completed.containsAll(dependencies.get(job)))
+                        {
+                            iterator.remove();
+                            running.put(service.submit(new Callable<CompileResult>()
+                            {
+                                @Override
+                                public CompileResult call() throws Exception
+                                {
+                                    return job.perform(compiler, arguments);
+                                }
+                            }), job);
+                        }
+                    }
+                }
+                if (running.isEmpty())
+                {
+                    break;
+                }
+
+                Future<CompileResult> future = service.take();
+                CompilationJob job = running.remove(future);
+                completed.add(job);
+
+                this.handler.nextStep(job.getName(), job.getSize(), job_no++);
+                this.handler.progress(job.getSize(), job.getName());
+
+                CompileResult job_result;
+                try
+                {
+                    job_result = future.get();
+                }
+                catch (ExecutionException exception)
+                {
+                    Throwable cause = exception.getCause();
+                    job_result = new CompileResult((cause instanceof Exception) ? (Exception) cause : exception);
+                    if (result == null)
+                    {
+                        result = job_result;
+                    }
+                }
+
+                // once aborting, failures of the jobs still running are not reported
+                if (!job_result.isSuccess() && result == null)
+                {
+                    this.handler.handleCompileError(job_result);
+                    if (!job_result.isContinue())
+                    {
+                        // don't start any more jobs, but wait for those running to complete
+                        result = job_result;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        logger.fine("Compilation finished");
+        return (result != null) ? result : new CompileResult();
+    }
+
+    /**
+     * Determines the jobs that each job must be compiled after.
+     * <p/>
+     * A job depends on an earlier job if one of its class path entries contains the classes compiled by that job.
+     *
+     * @param arguments the compiler arguments
+     * @return the dependencies of each job
+     */
+    private Map<CompilationJob, Set<CompilationJob>> getDependencies(List<String> arguments)
+    {
+        // classes are written to the -d directory if specified, otherwise alongside the sources
+        File outputDir = null;
+        int index = arguments.indexOf("-d");
+        if (index != -1 && index + 1 < arguments.size())
+        {
+            outputDir = new File(arguments.get(index + 1)).getAbsoluteFile();
+        }
+
+        Map<CompilationJob, Set<CompilationJob>> result = new HashMap<CompilationJob, Set<CompilationJob>>();
+        for (int i = 0; i < this.jobs.size(); ++i)
+        {
+            CompilationJob job = this.jobs.get(i);
+            Set<CompilationJob> dependencies = new HashSet<CompilationJob>();
+            for (String entry : job.classpath)
+            {
+                String path = new File(entry).getAbsolutePath();
+                for (int j = 0; j < i; ++j)
+                {
+                    CompilationJob earlier = this.jobs.get(j);
+                    if (outputDir != null ? contains(path, outputDir) : containsAny(path, earlier.files))
+                    {
+                        dependencies.add(earlier);
+                    }
+                }
+            }
+            result.put(job, dependencies);
+        }
+        return result;
+    }
+
+    /**
+     * Determines if a path contains any of the specified files.
+     *
+     * @param path  the path
+     * @param files the files
+     * @return {@code true} if {@code path} is the parent directory or an ancestor of one of the files
+     */
+    private static boolean containsAny(String path, List<File> files)
+    {
+        for (File file : files)
+        {
+            if (contains(path, file.getAbsoluteFile().getParentFile()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if a path is the same as, or an ancestor of, a directory.
+     *
+     * @param path the path
+     * @param dir  the directory
+     * @return {@code true} if {@code path} is the same as, or an ancestor of, {@code dir}
+     */
+    private static boolean contains(String path, File dir)
+    {
+        String dirPath = (dir != null) ? dir.getPath() : "";
+        return dirPath.equals(path) || dirPath.startsWith(path.endsWith(File.separator) ? path
+                                                                   : path + File.separator);
+    }
+
+    /**
+     * Returns the command line used to describe in-process compilation in error reports.
+     *
+     * @param arguments the compiler arguments
+     * @return the command line
+     */
+    private static List<String> getCommandLine(List<String> arguments)
+    {
+        List<String> result = new ArrayList<String>(arguments);
+        result.add(0, IN_PROCESS_COMPILER_NAME);
+        return result;
+    }
+
     private CompilationJob collectJobsRecursive(IXMLElement node, List<String> classpath)
             throws Exception
     {
@@ -723,18 +970,7 @@ public class CompileWorker implements Runnable
             cmdline_len += compiler.length() + 1;
 
             // construct classpath argument for compiler
-            // - collect all classpaths
-            StringBuffer classpath_sb = new StringBuffer();
-            for (String cp : this.classpath)
-            {
-                if (classpath_sb.length() > 0)
-                {
-                    classpath_sb.append(File.pathSeparatorChar);
-                }
-                classpath_sb.append(new File(cp).getAbsolutePath());
-            }
-
-            String classpath_str = classpath_sb.toString();
+            String classpath_str = getClassPath();
 
             // - add classpath argument to command line
             if (classpath_str.length() > 0)
@@ -909,6 +1145,57 @@ public class CompileWorker implements Runnable
             return new CompileResult();
         }
 
+        /**
+         * Perform this job using the in-process compiler.
+         * <p/>
+         * All files are compiled in a single invocation, as there is no command line length limit. This may be
+         * invoked concurrently with other jobs, so it doesn't notify the listener.
+         *
+         * @param compiler  The compiler to use.
+         * @param arguments The compiler arguments to use.
+         * @return The result.
+         * @throws IOException for any I/O error
+         */
+        public CompileResult perform(InProcessCompiler compiler, List<String> arguments) throws IOException
+        {
+            logger.fine("starting job " + this.name);
+
+            StringBuilder diagnostics = new StringBuilder();
+            if (!compiler.compile(this.files, this.classpath, arguments, diagnostics))
+            {
+                List<String> cmdline = getCommandLine(arguments);
+                String classpath_str = getClassPath();
+                if (classpath_str.length() > 0)
+                {
+                    cmdline.add("-classpath");
+                    cmdline.add(classpath_str);
+                }
+                return new CompileResult(messages.get("CompilePanel.error"), cmdline, "", diagnostics.toString());
+            }
+
+            logger.fine("Job " + this.name + " done (" + this.files.size() + " files compiled)");
+            return new CompileResult();
+        }
+
+        /**
+         * Returns the class path of this job, as a compiler argument.
+         *
+         * @return The absolute class path entries, separated by the platform path separator.
+         */
+        private String getClassPath()
+        {
+            StringBuilder result = new StringBuilder();
+            for (String cp : this.classpath)
+            {
+                if (result.length() > 0)
+                {
+                    result.append(File.pathSeparatorChar);
+                }
+                result.append(new File(cp).getAbsolutePath());
+            }
+            return result.toString();
+        }
+
         /**
          * Internal helper method.
          *
@@ -1109,18 +1396,7 @@ public class CompileWorker implements Runnable
             args.add(0, compiler);
 
             // construct classpath argument for compiler
-            // - collect all classpaths
-            StringBuffer classpath_sb = new StringBuffer();
-            for (String cp : this.classpath)
-            {
-                if (classpath_sb.length() > 0)
-                {
-                    classpath_sb.append(File.pathSeparatorChar);
-                }
-                classpath_sb.append(new File(cp).getAbsolutePath());
-            }
-
-            String classpath_str = classpath_sb.toString();
+            String classpath_str = getClassPath();
 
             // - add classpath argument to command line
             if (classpath_str.length() > 0)
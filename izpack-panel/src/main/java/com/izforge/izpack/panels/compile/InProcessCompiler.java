@@ -0,0 +1,217 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.compile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+
+/**
+ * Compiles sources using the {@link JavaCompiler} of the running JVM, rather than forking a compiler process.
+ * <p/>
+ * File managers are pooled and reused between compilations, so that the contents of class path archives only need
+ * to be indexed once. A file manager is only used by one compilation at a time, so compilations may be performed
+ * concurrently.
+ */
+class InProcessCompiler
+{
+
+    /**
+     * The compiler.
+     */
+    private final JavaCompiler compiler;
+
+    /**
+     * The idle file managers.
+     */
+    private final Queue<StandardJavaFileManager> fileManagers = new ConcurrentLinkedQueue<StandardJavaFileManager>();
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(InProcessCompiler.class.getName());
+
+    /**
+     * Constructs an {@code InProcessCompiler}.
+     *
+     * @param compiler the compiler
+     */
+    InProcessCompiler(JavaCompiler compiler)
+    {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Returns an {@code InProcessCompiler} for the running JVM.
+     *
+     * @return the compiler, or {@code null} if the JVM doesn't provide one (e.g. it is a JRE)
+     */
+    public static InProcessCompiler getInstance()
+    {
+        JavaCompiler compiler = null;
+        try
+        {
+            compiler = ToolProvider.getSystemJavaCompiler();
+        }
+        catch (Throwable exception)
+        {
+            logger.log(Level.FINE, "System Java compiler not available: " + exception.getMessage(), exception);
+        }
+        return (compiler != null) ? new InProcessCompiler(compiler) : null;
+    }
+
+    /**
+     * Verifies that the compiler accepts the specified options.
+     *
+     * @param options the compiler options
+     * @return {@code null} if the options are valid, otherwise a message describing the invalid option
+     */
+    public String checkOptions(List<String> options)
+    {
+        StandardJavaFileManager fileManager = acquire();
+        try
+        {
+            compiler.getTask(null, fileManager, null, options, null, null);
+            return null;
+        }
+        catch (IllegalArgumentException exception)
+        {
+            return exception.getMessage();
+        }
+        finally
+        {
+            release(fileManager);
+        }
+    }
+
+    /**
+     * Compiles files.
+     *
+     * @param files       the files to compile
+     * @param classpath   the class path. If empty, the current directory is used, as per the <em>javac</em> tool
+     * @param options     the compiler options, excluding the class path
+     * @param diagnostics collects any errors. Each error is added on a separate line
+     * @return {@code true} if the files compiled successfully, otherwise {@code false}
+     * @throws IOException for any I/O error
+     */
+    public boolean compile(List<File> files, List<String> classpath, List<String> options, StringBuilder diagnostics)
+            throws IOException
+    {
+        List<File> path = new ArrayList<File>();
+        for (String entry : classpath)
+        {
+            path.add(new File(entry).getAbsoluteFile());
+        }
+        if (path.isEmpty())
+        {
+            path.add(new File("."));
+        }
+
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager fileManager = acquire();
+        boolean result;
+        try
+        {
+            // the class path is set explicitly rather than via an option, as the file manager is reused by jobs
+            // with different class paths
+            fileManager.setLocation(StandardLocation.CLASS_PATH, path);
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+            result = compiler.getTask(null, fileManager, collector, options, null, units).call();
+        }
+        finally
+        {
+            release(fileManager);
+        }
+
+        for (Diagnostic<? extends JavaFileObject> diagnostic : collector.getDiagnostics())
+        {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR)
+            {
+                JavaFileObject source = diagnostic.getSource();
+                if (source != null)
+                {
+                    diagnostics.append(source.getName()).append(':').append(diagnostic.getLineNumber()).append(": ");
+                }
+                diagnostics.append(diagnostic.getMessage(Locale.getDefault())).append('\n');
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Closes the pooled file managers.
+     */
+    public void close()
+    {
+        StandardJavaFileManager fileManager;
+        while ((fileManager = fileManagers.poll()) != null)
+        {
+            try
+            {
+                fileManager.close();
+            }
+            catch (IOException exception)
+            {
+                logger.log(Level.FINE, "Failed to close file manager: " + exception.getMessage(), exception);
+            }
+        }
+    }
+
+    /**
+     * Returns an idle file manager, creating one if none is available.
+     *
+     * @return the file manager
+     */
+    private StandardJavaFileManager acquire()
+    {
+        StandardJavaFileManager result = fileManagers.poll();
+        if (result == null)
+        {
+            result = compiler.getStandardFileManager(null, null, null);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a file manager to the pool.
+     *
+     * @param fileManager the file manager
+     */
+    private void release(StandardJavaFileManager fileManager)
+    {
+        fileManagers.add(fileManager);
+    }
+
+}
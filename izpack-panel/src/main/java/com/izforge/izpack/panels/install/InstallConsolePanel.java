@@ -24,9 +24,10 @@ package com.izforge.izpack.panels.install;
 import java.util.Properties;
 
 import com.izforge.izpack.api.data.InstallData;
-import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.api.event.ByteProgressListener;
 import com.izforge.izpack.installer.console.AbstractConsolePanel;
 import com.izforge.izpack.installer.console.ConsolePanel;
+import com.izforge.izpack.installer.event.CoalescingProgressListener;
 import com.izforge.izpack.installer.panel.PanelView;
 import com.izforge.izpack.installer.unpacker.IUnpacker;
 import com.izforge.izpack.util.Console;
@@ -36,7 +37,7 @@ import com.izforge.izpack.util.Console;
  *
  * @author Mounir el hajj
  */
-public class InstallConsolePanel extends AbstractConsolePanel implements ProgressListener
+public class InstallConsolePanel extends AbstractConsolePanel implements ByteProgressListener
 {
     /**
      * The unpacker.
@@ -45,6 +46,16 @@ public class InstallConsolePanel extends AbstractConsolePanel implements Progres
 
     private int noOfPacks = 0;
 
+    /**
+     * Limits the rate of progress updates from the unpacker.
+     */
+    private CoalescingProgressListener progressListener;
+
+    /**
+     * Determines if progress has been displayed for the current pack.
+     */
+    private boolean progressShown;
+
     public InstallConsolePanel(IUnpacker unpacker, PanelView<ConsolePanel> panel)
     {
         super(panel);
@@ -90,9 +101,32 @@ public class InstallConsolePanel extends AbstractConsolePanel implements Progres
 
     }
 
+    /**
+     * Displays the proportion of the current pack unpacked, and the throughput and estimated time remaining.
+     * <p/>
+     * This is invoked at most once per {@link CoalescingProgressListener#CONSOLE_INTERVAL}, and when a pack
+     * completes. The completion is only displayed if progress was displayed for the pack, so that nothing is
+     * displayed for packs that unpack within the interval.
+     *
+     * @param bytes      the number of bytes of the current pack processed so far
+     * @param totalBytes the total number of bytes of the current pack
+     * @param msg        the progression message
+     */
+    @Override
+    public void progress(long bytes, long totalBytes, String msg)
+    {
+        if (totalBytes > 0 && (progressShown || bytes < totalBytes))
+        {
+            progressShown = true;
+            String rate = progressListener.getRate();
+            System.out.println("  " + (bytes * 100 / totalBytes) + "%" + ((rate != null) ? " (" + rate + ")" : ""));
+        }
+    }
+
     @Override
     public void nextStep(String packName, int stepno, int stepsize)
     {
+        progressShown = false;
         System.out.print("[ Processing package: " + packName + " (");
         System.out.print(stepno);
         System.out.print('/');
@@ -135,7 +169,8 @@ public class InstallConsolePanel extends AbstractConsolePanel implements Progres
 
     private boolean run()
     {
-        unpacker.setProgressListener(this);
+        progressListener = new CoalescingProgressListener(this, CoalescingProgressListener.CONSOLE_INTERVAL);
+        unpacker.setProgressListener(progressListener);
         unpacker.run();
         return unpacker.getResult();
     }
@@ -26,12 +26,13 @@ import javax.swing.JProgressBar;
 import javax.swing.SwingUtilities;
 
 import com.izforge.izpack.api.data.Panel;
-import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.api.event.ByteProgressListener;
 import com.izforge.izpack.api.resource.Resources;
 import com.izforge.izpack.gui.IzPanelLayout;
 import com.izforge.izpack.gui.LabelFactory;
 import com.izforge.izpack.gui.log.Log;
 import com.izforge.izpack.installer.data.GUIInstallData;
+import com.izforge.izpack.installer.event.CoalescingProgressListener;
 import com.izforge.izpack.installer.gui.InstallerFrame;
 import com.izforge.izpack.installer.gui.IzPanel;
 
@@ -40,7 +41,7 @@ import com.izforge.izpack.installer.gui.IzPanel;
  *
  * @author Julien Ponge
  */
-public class InstallPanel extends IzPanel implements ProgressListener
+public class InstallPanel extends IzPanel implements ByteProgressListener
 {
 
     private static final long serialVersionUID = 3257282547959410992L;
@@ -90,6 +91,21 @@ public class InstallPanel extends IzPanel implements ProgressListener
      */
     private int currentStep = 0;
 
+    /**
+     * The pack progress bar maximum when progress is reported in bytes.
+     */
+    private static final int BYTE_PROGRESS_MAX = 1000;
+
+    /**
+     * The name of the current pack.
+     */
+    private volatile String packName;
+
+    /**
+     * Limits the rate of progress updates from the unpacker.
+     */
+    private volatile CoalescingProgressListener progressListener;
+
     /**
      * Constructs an <tt>InstallPanel</tt>.
      *
@@ -253,6 +269,7 @@ public class InstallPanel extends IzPanel implements ProgressListener
     public void nextStep(final String packName, final int stepno, final int max)
     {
         currentStep = 0;
+        this.packName = packName;
         SwingUtilities.invokeLater(new Runnable()
         {
             @Override
@@ -269,6 +286,39 @@ public class InstallPanel extends IzPanel implements ProgressListener
         });
     }
 
+    /**
+     * Byte progress indicator.
+     * <p/>
+     * The pack progress bar displays the proportion of the pack's bytes processed, and the throughput and
+     * estimated time remaining, when known.
+     *
+     * @param bytes      the number of bytes of the current pack processed so far
+     * @param totalBytes the total number of bytes of the current pack
+     * @param msg        the progression message
+     */
+    @Override
+    public void progress(long bytes, long totalBytes, final String msg)
+    {
+        final int value = (totalBytes > 0) ? (int) (bytes * BYTE_PROGRESS_MAX / totalBytes) : 0;
+        CoalescingProgressListener listener = progressListener;
+        String rate = (listener != null) ? listener.getRate() : null;
+        final String text = (rate != null) ? packName + " (" + rate + ")" : packName;
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (packProgressBar.getMaximum() != BYTE_PROGRESS_MAX)
+                {
+                    packProgressBar.setMaximum(BYTE_PROGRESS_MAX);
+                }
+                packProgressBar.setValue(value);
+                packProgressBar.setString(text);
+                packOpLabel.setText(msg);
+            }
+        });
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -334,7 +384,9 @@ public class InstallPanel extends IzPanel implements ProgressListener
         parent.lockPrevButton();
         parent.lockQuitButton();
 
-        parent.install(this);
+        // the unpacker reports progress for every file, so coalesce it to a rate the GUI can display
+        progressListener = new CoalescingProgressListener(this, CoalescingProgressListener.GUI_INTERVAL);
+        parent.install(progressListener);
     }
 
 }
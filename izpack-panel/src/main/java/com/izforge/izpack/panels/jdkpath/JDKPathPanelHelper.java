@@ -13,7 +13,9 @@ import com.izforge.izpack.util.Platform;
 
 import java.io.File;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class JDKPathPanelHelper
 {
@@ -28,6 +30,12 @@ public class JDKPathPanelHelper
     private static String minVersion = null;
     private static String maxVersion = null;
 
+    /**
+     * The java versions determined so far, keyed on JAVA_HOME path. These are kept for the session, as determining
+     * a version requires running java.
+     */
+    private static final Map<String, String> versions = new ConcurrentHashMap<String, String>();
+
     /**
      * MUST always be called in constructor of JDKPathConsolePanel and JDKPathPanel
      * @param installData
@@ -47,8 +55,6 @@ public class JDKPathPanelHelper
      */
     public static String getDefaultJavaPath(InstallData installData, RegistryDefaultHandler handler)
     {
-        String detectedJavaVersion = "";
-
         String defaultValue = installData.getVariable(JDK_PATH);
 
         if(defaultValue != null)
@@ -67,13 +73,14 @@ public class JDKPathPanelHelper
 
         //See if java from currently running jre is valid, otherwise check the registry.
         //If java is still not found set path ot JAVA_HOME to an empty string.
+        //The version is only determined for valid paths, as it requires running java.
         Platform platform = installData.getPlatform();
-        detectedJavaVersion = JDKPathPanelHelper.getCurrentJavaVersion(defaultValue, platform);
-        if (!JDKPathPanelHelper.pathIsValid(defaultValue) || !JDKPathPanelHelper.verifyVersion(detectedJavaVersion))
+        if (!JDKPathPanelHelper.pathIsValid(defaultValue)
+                || !JDKPathPanelHelper.verifyVersion(getCurrentJavaVersion(defaultValue, platform)))
         {
             defaultValue = JDKPathPanelHelper.getJavaHomeFromRegistry(handler);
-            detectedJavaVersion = JDKPathPanelHelper.getCurrentJavaVersion(defaultValue, platform);
-            if (!JDKPathPanelHelper.pathIsValid(defaultValue) || !JDKPathPanelHelper.verifyVersion(detectedJavaVersion))
+            if (!JDKPathPanelHelper.pathIsValid(defaultValue)
+                    || !JDKPathPanelHelper.verifyVersion(getCurrentJavaVersion(defaultValue, platform)))
             {
                 defaultValue = "";
             }
@@ -218,13 +225,36 @@ public class JDKPathPanelHelper
 
     /**
      * Run the java binary from the JAVA_HOME directory specified from the user.
-     * We do this to figure out what version of java the user has specified
+     * We do this to figure out what version of java the user has specified.
+     * The version of each path is only determined once.
      *
      * @param path JAVA_HOME
      * @param platform specifies which platform user is running installation on
      * @return string representation of the java version
      */
     public static String getCurrentJavaVersion(String path, Platform platform)
+    {
+        if (path == null)
+        {
+            return runJavaVersion(path, platform);
+        }
+        String result = versions.get(path);
+        if (result == null)
+        {
+            result = runJavaVersion(path, platform);
+            versions.put(path, result);
+        }
+        return result;
+    }
+
+    /**
+     * Runs <em>java -version</em> from a JAVA_HOME directory.
+     *
+     * @param path JAVA_HOME
+     * @param platform specifies which platform user is running installation on
+     * @return string representation of the java version
+     */
+    private static String runJavaVersion(String path, Platform platform)
     {
         String[] params;
         if (platform.isA(Platform.Name.WINDOWS))
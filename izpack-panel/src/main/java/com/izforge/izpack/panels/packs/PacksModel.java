@@ -26,7 +26,6 @@ package com.izforge.izpack.panels.packs;
 
 import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.data.Pack;
-import com.izforge.izpack.api.data.PackColor;
 import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.exception.ResourceNotFoundException;
 import com.izforge.izpack.api.resource.Messages;
@@ -66,6 +65,31 @@ public class PacksModel extends AbstractTableModel
     private final Map<String, Pack> nameToPack;
     private final Map<String, Integer> nameToRow;
 
+    /**
+     * The rows of the packs that depend on each row.
+     */
+    private final int[][] dependantRows;
+
+    /**
+     * The rows of the packs in each exclude group, keyed on group name.
+     */
+    private final Map<String, List<Integer>> excludeGroups;
+
+    /**
+     * The size of the checked (fully or partially) visible packs.
+     */
+    private long checkedBytes;
+
+    /**
+     * The size of the selected or required visible packs.
+     */
+    private long selectedBytes;
+
+    /**
+     * The size of the hidden packs that will be installed.
+     */
+    private long hiddenBytes;
+
     private final boolean modifyInstallation;
 
     public PacksModel(InstallData idata)
@@ -89,7 +113,9 @@ public class PacksModel extends AbstractTableModel
         this.nameToPack = getNametoPackMapping(idata.getAvailablePacks());
 
         this.packs = setPackProperties(packs, nameToPack);
-        this.checkValues = initCheckValues(packs, packsToInstall);
+        this.dependantRows = getDependantRows(packs);
+        this.excludeGroups = getExcludeGroups(packs);
+        initCheckValues(packs, packsToInstall);
 
         updateConditions(true);
         updatePacksToInstall();
@@ -193,6 +219,62 @@ public class PacksModel extends AbstractTableModel
         return packs;
     }
 
+    /**
+     * Generate the rows of the packs that depend on each pack.
+     *
+     * @param packs packs visible to the user
+     * @return the rows of the dependants of each pack, indexed on row
+     */
+    private int[][] getDependantRows(List<Pack> packs)
+    {
+        int[][] result = new int[packs.size()][];
+        for (int i = 0; i < packs.size(); i++)
+        {
+            Set<Integer> rows = new LinkedHashSet<Integer>();
+            List<String> dependants = packs.get(i).getDependants();
+            if (dependants != null)
+            {
+                for (String name : dependants)
+                {
+                    rows.add(getPos(name));
+                }
+            }
+            result[i] = new int[rows.size()];
+            int j = 0;
+            for (int row : rows)
+            {
+                result[i][j++] = row;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Generate a map from exclude group names to the rows of the packs in them.
+     *
+     * @param packs packs visible to the user
+     * @return map from exclude group name to pack rows
+     */
+    private Map<String, List<Integer>> getExcludeGroups(List<Pack> packs)
+    {
+        Map<String, List<Integer>> groups = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < packs.size(); i++)
+        {
+            String group = packs.get(i).getExcludeGroup();
+            if (group != null)
+            {
+                List<Integer> rows = groups.get(group);
+                if (rows == null)
+                {
+                    rows = new ArrayList<Integer>();
+                    groups.put(group, rows);
+                }
+                rows.add(i);
+            }
+        }
+        return groups;
+    }
+
     /**
      * Helper function to retrieve a pack object based on which row it is on.
      *
@@ -222,10 +304,9 @@ public class PacksModel extends AbstractTableModel
         while (changes)
         {
             changes = false;
-            for (Pack pack : packs)
+            for (int pos = 0; pos < packs.size(); pos++)
             {
-                String packName = pack.getName();
-                int pos = getPos(packName);
+                String packName = packs.get(pos).getName();
                 if (!rules.canInstallPack(packName, variables))
                 {
                     logger.fine("Conditions for pack '" + packName + "' are not complied with");
@@ -236,7 +317,7 @@ public class PacksModel extends AbstractTableModel
                         {
                             if (checkValues.get(pos) != CbSelectionState.DESELECTED)
                             {
-                                checkValues.set(pos, CbSelectionState.DESELECTED);
+                                setState(pos, CbSelectionState.DESELECTED);
                                 changes = true;
                             }
                         }
@@ -246,7 +327,7 @@ public class PacksModel extends AbstractTableModel
                         if (checkValues.get(pos) != CbSelectionState.DEPENDENT_DESELECTED)
                         {
                             logger.fine("Pack '" + packName + "' cannot be installed");
-                            checkValues.set(pos, CbSelectionState.DEPENDENT_DESELECTED);
+                            setState(pos, CbSelectionState.DEPENDENT_DESELECTED);
                             changes = true;
                         }
                     }
@@ -272,23 +353,27 @@ public class PacksModel extends AbstractTableModel
      *
      * @param packs
      * @param packsToInstall
-     * @return
      */
-    private List<CbSelectionState> initCheckValues(List<Pack> packs, List<Pack> packsToInstall)
+    private void initCheckValues(List<Pack> packs, List<Pack> packsToInstall)
     {
-        CbSelectionState[] checkValues = new CbSelectionState[packs.size()];
+        checkValues = Arrays.asList(new CbSelectionState[packs.size()]);
+        Set<String> names = new HashSet<String>();
+        for (Pack pack : packsToInstall)
+        {
+            names.add(pack.getName());
+        }
 
         // If a pack is indicated to be installed checkbox value should be SELECTED
         for (int i = 0; i < packs.size(); i++)
         {
             Pack pack = packs.get(i);
-            if (packsToInstall.contains(pack))
+            if (names.contains(pack.getName()))
             {
-                checkValues[i] = CbSelectionState.SELECTED;
+                setState(i, CbSelectionState.SELECTED);
             }
             else
             {
-                checkValues[i] = CbSelectionState.DESELECTED;
+                setState(i, CbSelectionState.DESELECTED);
             }
         }
 
@@ -296,72 +381,73 @@ public class PacksModel extends AbstractTableModel
         for (int i = 0; i < packs.size(); i++)
         {
             Pack pack = packs.get(i);
-            if (checkValues[i] == CbSelectionState.DESELECTED)
+            if (checkValues.get(i) == CbSelectionState.DESELECTED)
             {
-                List<String> deps = pack.getDependants();
-                for (int j = 0; deps != null && j < deps.size(); j++)
+                for (int pos : dependantRows[i])
                 {
-                    String name = deps.get(j);
-                    int pos = getPos(name);
-                    checkValues[pos] = CbSelectionState.DEPENDENT_DESELECTED;
+                    setState(pos, CbSelectionState.DEPENDENT_DESELECTED);
                 }
             }
 
             // for mutual exclusion, uncheck uncompatible packs too
             // (if available in the current installGroup)
-            CbSelectionState checkState = checkValues[i];
-            if (checkState != null && checkState.isFullyOrPartiallySelected() && pack.getExcludeGroup() != null)
-            {
-                for (int q = 0; q < packs.size(); q++)
-                {
-                    if (q != i)
-                    {
-                        Pack otherPack = packs.get(q);
-                        if (pack.getExcludeGroup().equals(otherPack.getExcludeGroup()))
-                        {
-                            if (checkValues[q] == CbSelectionState.SELECTED)
-                            {
-                                checkValues[q] = CbSelectionState.DESELECTED;
-                            }
-                        }
-                    }
-                }
-            }
+            updateExcludes(i);
         }
 
         // Configure required packs
-        for (Pack pack : packs)
+        for (int i = 0; i < packs.size(); i++)
         {
-            if (pack.isRequired())
+            if (packs.get(i).isRequired())
             {
-                checkValues = propRequirement(pack.getName(), Arrays.asList(checkValues)).toArray(new CbSelectionState[checkValues.length]);
+                propRequirement(i);
             }
         }
-
-        return Arrays.asList(checkValues);
     }
 
     /**
      * Configure required packs.
-     * @param name
-     * @param checkValues
-     * @return
+     *
+     * @param row the row of the required pack
      */
-    private List<CbSelectionState> propRequirement(String name, List<CbSelectionState> checkValues)
+    private void propRequirement(int row)
     {
+        setState(row, CbSelectionState.REQUIRED_SELECTED);
+        List<String> deps = packs.get(row).getDependencies();
+        if (deps != null && !deps.isEmpty())
+        {
+            propRequirement(getPos(deps.get(0)));
+        }
+    }
 
-        final int pos = getPos(name);
-        checkValues.set(pos, CbSelectionState.REQUIRED_SELECTED);
-        List<String> deps = packs.get(pos).getDependencies();
-        if (deps != null)
+    /**
+     * Sets the state of a checkbox, keeping the selected pack sizes up to date.
+     *
+     * @param row   the checkbox row
+     * @param state the new state
+     */
+    private void setState(int row, CbSelectionState state)
+    {
+        CbSelectionState old = checkValues.set(row, state);
+        if (old != state)
         {
-            for (String s : deps)
+            long size = packs.get(row).getSize();
+            if (old != null && old.isChecked())
             {
-                return propRequirement(s, checkValues);
+                checkedBytes -= size;
+            }
+            if (old != null && old.isSelectedOrRequiredSelected())
+            {
+                selectedBytes -= size;
+            }
+            if (state != null && state.isChecked())
+            {
+                checkedBytes += size;
+            }
+            if (state != null && state.isSelectedOrRequiredSelected())
+            {
+                selectedBytes += size;
             }
         }
-        return checkValues;
-
     }
 
     /**
@@ -482,18 +568,18 @@ public class PacksModel extends AbstractTableModel
                 {
                     if (pack.isRequired())
                     {
-                        checkValues.set(rowIndex, CbSelectionState.REQUIRED_SELECTED);
+                        setState(rowIndex, CbSelectionState.REQUIRED_SELECTED);
                     }
                     else
                     {
-                        checkValues.set(rowIndex, CbSelectionState.SELECTED);
+                        setState(rowIndex, CbSelectionState.SELECTED);
                     }
                 }
             }
             else
             {
                 added = false;
-                checkValues.set(rowIndex, CbSelectionState.DESELECTED);
+                setState(rowIndex, CbSelectionState.DESELECTED);
             }
 
             updateExcludes(rowIndex);
@@ -555,11 +641,11 @@ public class PacksModel extends AbstractTableModel
         {
             if (!checkValues.get(parentPosition).isSelectable())
             {
-                checkValues.set(parentPosition, CbSelectionState.REQUIRED_SELECTED);
+                setState(parentPosition, CbSelectionState.REQUIRED_SELECTED);
             }
             else
             {
-                checkValues.set(parentPosition, CbSelectionState.SELECTED);
+                setState(parentPosition, CbSelectionState.SELECTED);
             }
         }
         else if (childrenSelected > 0)
@@ -567,22 +653,22 @@ public class PacksModel extends AbstractTableModel
 
             if (!checkValues.get(parentPosition).isSelectable())
             {
-                checkValues.set(parentPosition, CbSelectionState.REQUIRED_PARTIAL_SELECTED);
+                setState(parentPosition, CbSelectionState.REQUIRED_PARTIAL_SELECTED);
             }
             else
             {
-                checkValues.set(parentPosition, CbSelectionState.PARTIAL_SELECTED);
+                setState(parentPosition, CbSelectionState.PARTIAL_SELECTED);
             }
         }
         else
         {
             if (!checkValues.get(parentPosition).isSelectable())
             {
-                checkValues.set(parentPosition, CbSelectionState.REQUIRED_DESELECTED);
+                setState(parentPosition, CbSelectionState.REQUIRED_DESELECTED);
             }
             else
             {
-                checkValues.set(parentPosition, CbSelectionState.DESELECTED);
+                setState(parentPosition, CbSelectionState.DESELECTED);
             }
         }
     }
@@ -602,7 +688,7 @@ public class PacksModel extends AbstractTableModel
         for (String childName : parentPack.getChildren())
         {
             int childPosition = nameToRow.get(childName);
-            checkValues.set(childPosition, parentValue);
+            setState(childPosition, parentValue);
         }
     }
 
@@ -645,7 +731,7 @@ public class PacksModel extends AbstractTableModel
             }
             if (!pack.isRequired() && dependenciesResolved(pack))
             {
-                checkValues.set(packPos, value);
+                setState(packPos, value);
             }
         }
     }
@@ -691,15 +777,17 @@ public class PacksModel extends AbstractTableModel
             }
             else if (installedPacks.containsKey(pack.getName()))
             {
-                checkValues.set(i, CbSelectionState.REQUIRED_PARTIAL_SELECTED);
+                setState(i, CbSelectionState.REQUIRED_PARTIAL_SELECTED);
             }
         }
 
+        hiddenBytes = 0;
         for (Pack hiddenPack : this.hiddenPacks)
         {
             if (this.rules.canInstallPack(hiddenPack.getName(), variables))
             {
                 packsToInstall.add(hiddenPack);
+                hiddenBytes += hiddenPack.getSize();
             }
         }
 
@@ -713,37 +801,32 @@ public class PacksModel extends AbstractTableModel
      * installed anymore and enabling those that can after the change. This is accomplished by
      * running a search that pinpoints the packs that must be disabled by a non-fullfiled
      * dependency.
-     * TODO: Look into "+2" and "-2", doesn't look safe
      */
     private void updateDeps()
     {
-        int[] statusArray = new int[packs.size()];
-        for (int i = 0; i < statusArray.length; i++)
-        {
-            statusArray[i] = 0;
-        }
-        dfs(statusArray);
-        for (int i = 0; i < statusArray.length; i++)
+        boolean[] unresolved = getUnresolved();
+        for (int i = 0; i < unresolved.length; i++)
         {
-            if (statusArray[i] == 0 && !checkValues.get(i).isSelectable())
+            if (!unresolved[i] && !checkValues.get(i).isSelectable())
             {
-                checkValues.set(i, CbSelectionState.PARTIAL_SELECTED);
+                setState(i, CbSelectionState.PARTIAL_SELECTED);
             }
-            if (statusArray[i] == 1 && checkValues.get(i).isSelectable())
+            if (unresolved[i] && checkValues.get(i).isSelectable())
             {
-                checkValues.set(i, CbSelectionState.DEPENDENT_DESELECTED);
+                setState(i, CbSelectionState.DEPENDENT_DESELECTED);
             }
 
         }
         // The required ones must propagate their required status to all the ones that they depend on
-        for (Pack pack : packs)
+        for (int i = 0; i < packs.size(); i++)
         {
+            Pack pack = packs.get(i);
             if (pack.isRequired())
             {
                 String name = pack.getName();
                 if (!(!rules.canInstallPack(name, variables) && rules.canInstallPackOptional(name, variables)))
                 {
-                    checkValues = propRequirement(name, checkValues);
+                    propRequirement(i);
                 }
             }
         }
@@ -759,82 +842,52 @@ public class PacksModel extends AbstractTableModel
         Pack pack = packs.get(rowindex);
         if (value != null && value.isFullyOrPartiallySelected() && pack.getExcludeGroup() != null)
         {
-            for (int q = 0; q < packs.size(); q++)
+            for (int q : excludeGroups.get(pack.getExcludeGroup()))
             {
-                if (rowindex != q)
+                if (rowindex != q && checkValues.get(q) == CbSelectionState.SELECTED)
                 {
-                    Pack otherPack = packs.get(q);
-                    String name1 = otherPack.getExcludeGroup();
-                    String name2 = pack.getExcludeGroup();
-                    if (name2.equals(name1))
-                    {
-                        if (checkValues.get(q) == CbSelectionState.SELECTED)
-                        {
-                            checkValues.set(q, CbSelectionState.DESELECTED);
-                        }
-                    }
+                    setState(q, CbSelectionState.DESELECTED);
                 }
             }
         }
     }
 
-
     /**
-     * We use a modified dfs graph search algorithm as described in: Thomas H. Cormen, Charles
-     * Leiserson, Ronald Rivest and Clifford Stein. Introduction to algorithms 2nd Edition
-     * 540-549,MIT Press, 2001
+     * Determines the packs whose dependencies cannot be resolved.
+     * <p/>
+     * A pack is unresolved if it directly or indirectly depends on a pack that isn't selected. The search starts
+     * from all unselected packs at once and follows the dependant rows, so each pack and dependency is visited at
+     * most once.
+     *
+     * @return the unresolved flags, indexed on row
      */
-    private void dfs(int[] status)
+    private boolean[] getUnresolved()
     {
-        Map<String, PackColor> colours = new HashMap<String, PackColor>();
+        boolean[] unresolved = new boolean[packs.size()];
+        boolean[] visited = new boolean[packs.size()];
+        int[] queue = new int[packs.size()];
+        int tail = 0;
         for (int i = 0; i < packs.size(); i++)
         {
-            for (Pack pack : packs)
-            {
-                colours.put(pack.getName(), PackColor.WHITE);
-            }
-            Pack pack = packs.get(i);
-            boolean wipe = false;
-
-            if (dfsVisit(pack, status, wipe, colours) != 0)
+            if (!checkValues.get(i).isSelectedOrRequiredSelected())
             {
-                return;
+                visited[i] = true;
+                queue[tail++] = i;
             }
-
-        }
-    }
-
-    private int dfsVisit(Pack u, int[] status, boolean wipe, Map<String, PackColor> colours)
-    {
-        colours.put(u.getName(), PackColor.GREY);
-        CbSelectionState check = checkValues.get(getPos(u.getName()));
-
-        if (!check.isSelectedOrRequiredSelected())
-        {
-            wipe = true;
         }
-        List<String> deps = u.getDependants();
-        if (deps != null)
+        for (int head = 0; head < tail; head++)
         {
-            for (String name : deps)
+            for (int row : dependantRows[queue[head]])
             {
-                Pack v = nameToPack.get(name);
-                if (wipe)
+                unresolved[row] = true;
+                if (!visited[row])
                 {
-                    status[getPos(v.getName())] = 1;
-                }
-                if (colours.get(v.getName()) == PackColor.WHITE)
-                {
-                    final int result = dfsVisit(v, status, wipe, colours);
-                    if (result != 0)
-                    {
-                        return result;
-                    }
+                    visited[row] = true;
+                    queue[tail++] = row;
                 }
             }
         }
-        colours.put(u.getName(), PackColor.BLACK);
-        return 0;
+        return unresolved;
     }
 
     /**
@@ -983,18 +1036,16 @@ public class PacksModel extends AbstractTableModel
      */
     public int getTotalByteSize()
     {
-        Map<Pack, Integer> packToRow = getPacksToRowNumbers();
-        int row;
-        int bytes = 0;
-        for (Pack pack : packs)
-        {
-            row = packToRow.get(pack);
-            if(isChecked(row))
-            {
-                bytes += pack.getSize();
-            }
-        }
-        return bytes;
+        return (int) checkedBytes;
+    }
+
+    /**
+     * @return the number of bytes of the selected or required visible packs, and of the hidden packs that will be
+     *         installed
+     */
+    public long getSelectedByteSize()
+    {
+        return selectedBytes + hiddenBytes;
     }
 
     /**
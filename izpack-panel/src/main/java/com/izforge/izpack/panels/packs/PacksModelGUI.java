@@ -24,7 +24,6 @@
 
 package com.izforge.izpack.panels.packs;
 
-import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.installer.data.GUIInstallData;
 
@@ -63,25 +62,7 @@ public class PacksModelGUI extends PacksModel
 
     private void updateBytes()
     {
-        long bytes = 0;
-        for (int q = 0; q < packs.size(); q++)
-        {
-            if (checkValues.get(q).isSelectedOrRequiredSelected())
-            {
-                Pack pack = packs.get(q);
-                bytes += pack.getSize();
-            }
-        }
-
-        // add selected hidden bytes
-        for (Pack hidden : this.hiddenPacks)
-        {
-            if (this.rules.canInstallPack(hidden.getName(), variables))
-            {
-                bytes += hidden.getSize();
-            }
-        }
-        panel.setBytes(bytes);
+        panel.setBytes(getSelectedByteSize());
     }
 
     @Override
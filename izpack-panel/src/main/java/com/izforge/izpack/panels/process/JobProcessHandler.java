@@ -0,0 +1,237 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.process;
+
+
+/**
+ * An {@link AbstractUIProcessHandler} used by a single job when jobs run concurrently.
+ * <p/>
+ * Output is prefixed with the job name so that the output of each job can be distinguished, and calls to the
+ * underlying handler are serialised. Progress and output share one lock; user interaction uses another, so that
+ * the output of other jobs isn't held up while a question is displayed.
+ */
+class JobProcessHandler implements AbstractUIProcessHandler
+{
+
+    /**
+     * The underlying handler.
+     */
+    private final AbstractUIProcessHandler handler;
+
+    /**
+     * The prefix for output lines.
+     */
+    private final String prefix;
+
+    /**
+     * The lock used to serialise output and progress notifications.
+     */
+    private final Object outputLock;
+
+    /**
+     * The lock used to serialise user interaction.
+     */
+    private final Object promptLock;
+
+    /**
+     * Constructs a {@code JobProcessHandler}.
+     *
+     * @param handler    the underlying handler
+     * @param name       the job name
+     * @param outputLock the lock used to serialise output and progress notifications
+     * @param promptLock the lock used to serialise user interaction
+     */
+    public JobProcessHandler(AbstractUIProcessHandler handler, String name, Object outputLock, Object promptLock)
+    {
+        this.handler = handler;
+        this.prefix = "[" + name + "] ";
+        this.outputLock = outputLock;
+        this.promptLock = promptLock;
+    }
+
+    /**
+     * Log the given message, prefixed with the job name.
+     *
+     * @param message the message
+     * @param stderr  true if this is a message received from a program via stderr
+     */
+    @Override
+    public void logOutput(String message, boolean stderr)
+    {
+        synchronized (outputLock)
+        {
+            handler.logOutput(prefix + message, stderr);
+        }
+    }
+
+    /**
+     * Notifies the underlying handler that processing has started.
+     *
+     * @param no_of_processes the number of processes
+     */
+    @Override
+    public void startProcessing(int no_of_processes)
+    {
+        synchronized (outputLock)
+        {
+            handler.startProcessing(no_of_processes);
+        }
+    }
+
+    /**
+     * Notifies the underlying handler that a process has started.
+     *
+     * @param name the process name
+     */
+    @Override
+    public void startProcess(String name)
+    {
+        synchronized (outputLock)
+        {
+            handler.startProcess(name);
+        }
+    }
+
+    /**
+     * Notifies the underlying handler that a process has finished.
+     */
+    @Override
+    public void finishProcess()
+    {
+        synchronized (outputLock)
+        {
+            handler.finishProcess();
+        }
+    }
+
+    /**
+     * Notifies the underlying handler that processing has finished.
+     *
+     * @param unlockPrev if {@code true}, unlock the previous button
+     * @param unlockNext if {@code true}, unlock the next button
+     */
+    @Override
+    public void finishProcessing(boolean unlockPrev, boolean unlockNext)
+    {
+        synchronized (outputLock)
+        {
+            handler.finishProcessing(unlockPrev, unlockNext);
+        }
+    }
+
+    /**
+     * Notify the user about something.
+     *
+     * @param message the notification
+     */
+    @Override
+    public void emitNotification(String message)
+    {
+        synchronized (promptLock)
+        {
+            handler.emitNotification(prefix + message);
+        }
+    }
+
+    /**
+     * Warn the user about something.
+     *
+     * @param title   the message title
+     * @param message the warning message
+     * @return {@code true} if the user decided not to cancel
+     */
+    @Override
+    public boolean emitWarning(String title, String message)
+    {
+        synchronized (promptLock)
+        {
+            return handler.emitWarning(title, prefix + message);
+        }
+    }
+
+    /**
+     * Notify the user of an error.
+     *
+     * @param title   the message title
+     * @param message the error message
+     */
+    @Override
+    public void emitError(String title, String message)
+    {
+        synchronized (promptLock)
+        {
+            handler.emitError(title, prefix + message);
+        }
+    }
+
+    /**
+     * Ask the user a question.
+     *
+     * @param title    the title of the question
+     * @param question the question
+     * @param choices  the set of choices to present
+     * @return the user's choice
+     */
+    @Override
+    public int askQuestion(String title, String question, int choices)
+    {
+        synchronized (promptLock)
+        {
+            return handler.askQuestion(title, prefix + question, choices);
+        }
+    }
+
+    /**
+     * Ask the user a question.
+     *
+     * @param title          the title of the question
+     * @param question       the question
+     * @param choices        the set of choices to present
+     * @param default_choice the default choice
+     * @return the user's choice
+     */
+    @Override
+    public int askQuestion(String title, String question, int choices, int default_choice)
+    {
+        synchronized (promptLock)
+        {
+            return handler.askQuestion(title, prefix + question, choices, default_choice);
+        }
+    }
+
+    /**
+     * Ask the user a question, with a warning.
+     *
+     * @param title          the title of the question
+     * @param question       the question
+     * @param choices        the set of choices to present
+     * @param default_choice the default choice
+     * @return the user's choice
+     */
+    @Override
+    public int askWarningQuestion(String title, String question, int choices, int default_choice)
+    {
+        synchronized (promptLock)
+        {
+            return handler.askWarningQuestion(title, prefix + question, choices, default_choice);
+        }
+    }
+
+}
@@ -21,6 +21,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -60,8 +62,18 @@ public class ProcessPanelWorker implements Runnable
      */
     private ArrayList<ProcessPanelWorker.ProcessingJob> finalJobs = new ArrayList<ProcessPanelWorker.ProcessingJob>();
 
+    /**
+     * The names of all jobs declared in the spec, including those that won't be run.
+     */
+    private final Set<String> declaredJobs = new HashSet<String>();
+
     private boolean result = true;
 
+    /**
+     * The maximum number of jobs that may run at the same time.
+     */
+    private int maxParallel = 1;
+
     private PrintWriter logfile = null;
 
     private String logfiledir = null;
@@ -139,6 +151,20 @@ public class ProcessPanelWorker implements Runnable
             return false;
         }
 
+        maxParallel = 1;
+        String parallel = spec.getAttribute("maxParallel");
+        if (parallel != null)
+        {
+            try
+            {
+                maxParallel = Math.max(1, Integer.parseInt(parallel.trim()));
+            }
+            catch (NumberFormatException e)
+            {
+                logger.warning("Invalid maxParallel attribute: " + parallel + ". Jobs will be run sequentially");
+            }
+        }
+
         // Handle logfile
         IXMLElement logFileDirElement = spec.getFirstChildNamed("logfiledir");
         if (logFileDirElement != null)
@@ -148,6 +174,8 @@ public class ProcessPanelWorker implements Runnable
 
         for (IXMLElement job_el : spec.getChildrenNamed("job"))
         {
+            declaredJobs.add(job_el.getAttribute("name", ""));
+
             // normally use condition attribute, but also read conditionid to not break older versions.
             String conditionid = job_el.hasAttribute("condition") ? job_el.getAttribute(
                     "condition") : job_el.hasAttribute("conditionid") ? job_el.getAttribute("conditionid") : null;
@@ -233,6 +261,12 @@ public class ProcessPanelWorker implements Runnable
                     ef_list.add(new ProcessPanelWorker.ExecutableClass(ef_name, args));
                 }
 
+                List<String> dependencies = new ArrayList<String>();
+                for (IXMLElement depends_el : job_el.getChildrenNamed("depends"))
+                {
+                    dependencies.add(depends_el.getAttribute("name", ""));
+                }
+
                 Boolean isCatch = job_el.hasAttribute("catch") && Boolean.parseBoolean(job_el.getAttribute("catch"));
                 Boolean isFinal = job_el.hasAttribute("final") && Boolean.parseBoolean(job_el.getAttribute("final"));
 
@@ -247,7 +281,7 @@ public class ProcessPanelWorker implements Runnable
                     } else if (isFinal) {
                         this.finalJobs.add(new ProcessingJob(job_name, ef_list));
                     } else {
-                        this.jobs.add(new ProcessingJob(job_name, ef_list));
+                        this.jobs.add(new ProcessingJob(job_name, ef_list, dependencies));
                     }
                 }
             }
@@ -345,20 +379,31 @@ public class ProcessPanelWorker implements Runnable
         /**
          * Process panel jobs.
          */
-        for (ProcessPanelWorker.ProcessingJob processingJob : this.jobs)
+        if (maxParallel > 1 || hasDependencies(this.jobs))
         {
-            this.result = runJob(processingJob);
-
-            if (!this.result)
+            this.result = runJobsConcurrently(this.jobs);
+        }
+        else
+        {
+            for (ProcessPanelWorker.ProcessingJob processingJob : this.jobs)
             {
-                /**
-                 * Jobs run in event of failure.
-                 */
-                for (ProcessPanelWorker.ProcessingJob catchJob : this.catchJobs)
+                this.result = runJob(processingJob, this.handler);
+
+                if (!this.result)
                 {
-                    runJob(catchJob);
+                    break;
                 }
-                break;
+            }
+        }
+
+        if (!this.result)
+        {
+            /**
+             * Jobs run in event of failure.
+             */
+            for (ProcessPanelWorker.ProcessingJob catchJob : this.catchJobs)
+            {
+                runJob(catchJob, this.handler);
             }
         }
 
@@ -367,7 +412,7 @@ public class ProcessPanelWorker implements Runnable
          */
         for (ProcessPanelWorker.ProcessingJob finalJob : this.finalJobs)
         {
-            runJob(finalJob);
+            runJob(finalJob, this.handler);
         }
 
         boolean unlockNext = true;
@@ -404,21 +449,215 @@ public class ProcessPanelWorker implements Runnable
     /**
      * Runs the specified process panel job.
      * @param job a ProcessPanelWorker job.
+     * @param handler the handler to send output to.
      * @return the job's return value.
      */
-    private boolean runJob(ProcessPanelWorker.ProcessingJob job)
+    private boolean runJob(ProcessPanelWorker.ProcessingJob job, AbstractUIProcessHandler handler)
     {
         Boolean val;
 
-        this.handler.startProcess(job.name);
+        handler.startProcess(job.name);
 
-        val = job.run(this.handler, idata.getVariables());
+        val = job.run(handler, idata.getVariables());
 
-        this.handler.finishProcess();
+        handler.finishProcess();
 
         return val;
     }
 
+    /**
+     * Determines if any job declares dependencies on other jobs.
+     *
+     * @param jobs the jobs
+     * @return {@code true} if at least one job has dependencies
+     */
+    private boolean hasDependencies(List<ProcessPanelWorker.ProcessingJob> jobs)
+    {
+        for (ProcessPanelWorker.ProcessingJob job : jobs)
+        {
+            if (!job.dependencies.isEmpty())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs jobs concurrently, respecting their dependencies.
+     * <p/>
+     * A job is ready to run once every job it depends on has completed successfully. Dependencies on jobs that
+     * aren't being run (e.g. because their condition or OS constraints weren't met) are ignored. Up to
+     * {@link #maxParallel} ready jobs are run at a time, in the order they are declared.
+     * <p/>
+     * If a job fails, no further jobs are started, and those already running are allowed to complete.
+     * <p/>
+     * If a job depends on a job that isn't declared in the spec, no jobs are run.
+     *
+     * @param jobs the jobs to run
+     * @return {@code true} if all jobs succeeded, otherwise {@code false}
+     */
+    private boolean runJobsConcurrently(List<ProcessPanelWorker.ProcessingJob> jobs)
+    {
+        Set<String> undeclared = new LinkedHashSet<String>();
+        for (ProcessPanelWorker.ProcessingJob job : jobs)
+        {
+            for (String dependency : job.dependencies)
+            {
+                if (!declaredJobs.contains(dependency))
+                {
+                    undeclared.add(dependency);
+                }
+            }
+        }
+        if (!undeclared.isEmpty())
+        {
+            StringBuilder names = new StringBuilder();
+            for (String name : undeclared)
+            {
+                names.append(names.length() == 0 ? "" : ", ").append(name);
+            }
+            this.handler.emitError("Process failed", "Cannot run jobs that depend on undeclared jobs: " + names);
+            return false;
+        }
+
+        // the no. of jobs with a particular name that haven't yet completed successfully
+        Map<String, Integer> outstanding = new HashMap<String, Integer>();
+        for (ProcessPanelWorker.ProcessingJob job : jobs)
+        {
+            Integer count = outstanding.get(job.name);
+            outstanding.put(job.name, count == null ? 1 : count + 1);
+        }
+
+        List<ProcessPanelWorker.ProcessingJob> pending = new ArrayList<ProcessPanelWorker.ProcessingJob>(jobs);
+        Map<Future<Boolean>, ProcessPanelWorker.ProcessingJob> running
+                = new HashMap<Future<Boolean>, ProcessPanelWorker.ProcessingJob>();
+        Object outputLock = new Object();
+        Object promptLock = new Object();
+        boolean success = true;
+
+        ExecutorService executor = Executors.newFixedThreadPool(maxParallel, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "processing thread " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        CompletionService<Boolean> service = new ExecutorCompletionService<Boolean>(executor);
+        try
+        {
+            while (true)
+            {
+                if (success)
+                {
+                    Iterator<ProcessPanelWorker.ProcessingJob> iterator = pending.iterator();
+                    while (iterator.hasNext() && running.size() < maxParallel)
+                    {
+                        final ProcessPanelWorker.ProcessingJob job = iterator.next();
+                        if (isReady(job, outstanding))
+                        {
+                            iterator.remove();
+                            final AbstractUIProcessHandler jobHandler = new JobProcessHandler(
+                                    this.handler, job.name, outputLock, promptLock);
+                            running.put(service.submit(new Callable<Boolean>()
+                            {
+                                @Override
+                                public Boolean call()
+                                {
+                                    return runJob(job, jobHandler);
+                                }
+                            }), job);
+                        }
+                    }
+                }
+                if (running.isEmpty())
+                {
+                    break;
+                }
+
+                Future<Boolean> future = service.take();
+                ProcessPanelWorker.ProcessingJob job = running.remove(future);
+                if (getResult(future, job))
+                {
+                    outstanding.put(job.name, outstanding.get(job.name) - 1);
+                }
+                else
+                {
+                    success = false;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            this.handler.emitError("process interrupted", e.toString());
+            success = false;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        if (success && !pending.isEmpty())
+        {
+            StringBuilder names = new StringBuilder();
+            for (ProcessPanelWorker.ProcessingJob job : pending)
+            {
+                names.append(names.length() == 0 ? "" : ", ").append(job.name);
+            }
+            this.handler.emitError("Process failed", "Cannot run jobs with cyclic dependencies: " + names);
+            success = false;
+        }
+        return success;
+    }
+
+    /**
+     * Determines if a job is ready to run.
+     *
+     * @param job         the job
+     * @param outstanding the no. of jobs with a particular name that haven't yet completed successfully
+     * @return {@code true} if all of the job's dependencies have completed successfully
+     */
+    private boolean isReady(ProcessPanelWorker.ProcessingJob job, Map<String, Integer> outstanding)
+    {
+        for (String dependency : job.dependencies)
+        {
+            Integer count = outstanding.get(dependency);
+            if (count != null && count > 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the result of a concurrently run job.
+     *
+     * @param future the job future
+     * @param job    the job
+     * @return the job's return value, or {@code false} if it threw an exception
+     * @throws InterruptedException if interrupted
+     */
+    private boolean getResult(Future<Boolean> future, ProcessPanelWorker.ProcessingJob job)
+            throws InterruptedException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            logger.log(Level.SEVERE, "Job '" + job.name + "' failed", e.getCause());
+            this.handler.emitError("Process failed", "Job '" + job.name + "' failed: " + e.getCause());
+            return false;
+        }
+    }
+
     /**
      * Start the compilation in a separate thread.
      */
@@ -457,10 +696,22 @@ public class ProcessPanelWorker implements Runnable
 
         private List<ProcessPanelWorker.Processable> processables;
 
+        /**
+         * The names of the jobs that must complete successfully before this job may run.
+         */
+        private final List<String> dependencies;
+
         public ProcessingJob(String name, List<ProcessPanelWorker.Processable> processables)
+        {
+            this(name, processables, Collections.<String>emptyList());
+        }
+
+        public ProcessingJob(String name, List<ProcessPanelWorker.Processable> processables,
+                             List<String> dependencies)
         {
             this.name = name;
             this.processables = processables;
+            this.dependencies = dependencies;
         }
 
         @Override
@@ -0,0 +1,545 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.userinput.field.search;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Searches the file system for the choices of {@link SearchField}s.
+ * <p/>
+ * Candidate paths are checked concurrently, and a path that doesn't respond within {@link #TIMEOUT} milliseconds
+ * of its check starting, such as one on an unavailable network or automounted file system, is treated as not
+ * matching. Time spent queued behind other checks doesn't count. Matching paths and directory listings are cached
+ * until {@link #clear()} is invoked, so revisiting a panel, or displaying the same field in console or automated
+ * mode, doesn't touch the file system again. Paths that don't match, and directories that can't be listed, are
+ * discarded from the cache once their check completes, so that paths created later are found by later searches.
+ * A check that times out continues in the background, and its eventual result is used by later searches. It no
+ * longer counts against the thread limit, so paths that hang don't hold up the remaining checks.
+ */
+public class PathSearch
+{
+
+    /**
+     * Receives the results of a background search.
+     */
+    public interface Listener
+    {
+
+        /**
+         * Invoked when a matching path is found.
+         * <p/>
+         * Paths are reported in choice order, from a background thread.
+         *
+         * @param path the matching path
+         */
+        void found(String path);
+
+        /**
+         * Invoked when the search completes, from a background thread.
+         *
+         * @param paths all matching paths, in choice order
+         */
+        void completed(List<String> paths);
+    }
+
+    /**
+     * The default time to wait for a path to be checked, in milliseconds.
+     */
+    public static final long TIMEOUT = 5000;
+
+    /**
+     * The maximum number of threads used to check paths, excluding those held by checks that have timed out.
+     */
+    private static final int MAX_THREADS = 8;
+
+    /**
+     * The interval to poll a check that hasn't started, in milliseconds.
+     */
+    private static final long POLL_INTERVAL = 100;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(PathSearch.class.getName());
+
+    /**
+     * The shared instance.
+     */
+    private static final PathSearch INSTANCE = new PathSearch(TIMEOUT);
+
+    /**
+     * The directory listings, keyed on directory path.
+     */
+    private final ConcurrentMap<String, Task<List<String>>> listings
+            = new ConcurrentHashMap<String, Task<List<String>>>();
+
+    /**
+     * The path checks, keyed on search criteria and path.
+     */
+    private final ConcurrentMap<String, Task<Boolean>> matches = new ConcurrentHashMap<String, Task<Boolean>>();
+
+    /**
+     * The tasks that are running.
+     */
+    private final Set<Task<?>> running = Collections.newSetFromMap(new ConcurrentHashMap<Task<?>, Boolean>());
+
+    /**
+     * The time to wait for a path to be checked, in milliseconds.
+     */
+    private final long timeout;
+
+    /**
+     * The executor that checks paths.
+     */
+    private final ThreadPoolExecutor executor;
+
+
+    /**
+     * Constructs a {@code PathSearch}.
+     *
+     * @param timeout the time to wait for a path to be checked, in milliseconds
+     */
+    protected PathSearch(long timeout)
+    {
+        this.timeout = timeout;
+        executor = new ThreadPoolExecutor(MAX_THREADS, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                                          new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "PathSearch-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the shared instance.
+     *
+     * @return the shared instance
+     */
+    public static PathSearch getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the paths matching a field, waiting for the search to complete.
+     * <p/>
+     * A choice ending in <em>*</em> matches the entries of the directory preceding it.
+     *
+     * @param field   the field
+     * @param choices the choices, with variables replaced
+     * @return the matching paths, in choice order
+     */
+    public List<String> search(SearchField field, List<String> choices)
+    {
+        return find(field, choices, null);
+    }
+
+    /**
+     * Searches for the paths matching a field in the background.
+     *
+     * @param field    the field
+     * @param choices  the choices, with variables replaced
+     * @param listener the listener to notify of results
+     */
+    public void search(final SearchField field, List<String> choices, final Listener listener)
+    {
+        final List<String> paths = new ArrayList<String>(choices);
+        Thread thread = new Thread("PathSearch-" + field.getVariable())
+        {
+            @Override
+            public void run()
+            {
+                List<String> result = Collections.emptyList();
+                try
+                {
+                    result = find(field, paths, listener);
+                }
+                finally
+                {
+                    listener.completed(result);
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Discards the cached results, so that the next search checks the file system again.
+     */
+    public void clear()
+    {
+        listings.clear();
+        matches.clear();
+    }
+
+    /**
+     * Returns the paths matching a field.
+     *
+     * @param field    the field
+     * @param choices  the choices, with variables replaced
+     * @param listener the listener to notify of each match. May be {@code null}
+     * @return the matching paths, in choice order
+     */
+    private List<String> find(SearchField field, List<String> choices, Listener listener)
+    {
+        // list the wildcard directories, then check all the candidates together
+        List<String> dirs = new ArrayList<String>();
+        List<Task<List<String>>> dirListings = new ArrayList<Task<List<String>>>();
+        for (String path : choices)
+        {
+            if (path.endsWith("*"))
+            {
+                String dir = path.substring(0, path.length() - 1);
+                dirs.add(dir);
+                dirListings.add(list(dir));
+            }
+            else
+            {
+                dirs.add(path);
+                dirListings.add(null);
+            }
+        }
+        List<String> paths = new ArrayList<String>();
+        for (int i = 0; i < dirs.size(); ++i)
+        {
+            Task<List<String>> listing = dirListings.get(i);
+            if (listing == null)
+            {
+                paths.add(dirs.get(i));
+            }
+            else
+            {
+                List<String> entries = get(listing, dirs.get(i));
+                if (entries != null)
+                {
+                    paths.addAll(entries);
+                }
+            }
+        }
+
+        List<Task<Boolean>> checks = new ArrayList<Task<Boolean>>();
+        for (String path : paths)
+        {
+            checks.add(check(field, path));
+        }
+        List<String> result = new ArrayList<String>();
+        for (int i = 0; i < paths.size(); ++i)
+        {
+            String path = paths.get(i);
+            Boolean match = get(checks.get(i), path);
+            if (match != null && match)
+            {
+                result.add(path);
+                if (listener != null)
+                {
+                    listener.found(path);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the listing of a directory.
+     *
+     * @param dir the directory path
+     * @return the absolute paths of the directory entries
+     */
+    private Task<List<String>> list(final String dir)
+    {
+        Task<List<String>> result = listings.get(dir);
+        if (result == null)
+        {
+            Task<List<String>> task = new Task<List<String>>(new Callable<List<String>>()
+            {
+                @Override
+                public List<String> call()
+                {
+                    File[] files = new File(dir).listFiles();
+                    if (files == null)
+                    {
+                        return null;
+                    }
+                    List<String> paths = new ArrayList<String>();
+                    for (File file : files)
+                    {
+                        paths.add(file.getAbsolutePath());
+                    }
+                    return paths;
+                }
+            }, listings, dir);
+            result = listings.putIfAbsent(dir, task);
+            if (result == null)
+            {
+                result = task;
+                executor.execute(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if a path matches a field.
+     *
+     * @param field the field
+     * @param path  the path
+     * @return the check
+     */
+    private Task<Boolean> check(final SearchField field, final String path)
+    {
+        String key = field.getType() + "\n" + field.getFilename() + "\n" + field.getCheckFilename() + "\n" + path;
+        Task<Boolean> result = matches.get(key);
+        if (result == null)
+        {
+            Task<Boolean> task = new Task<Boolean>(new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call()
+                {
+                    return field.pathMatches(path);
+                }
+            }, matches, key);
+            result = matches.putIfAbsent(key, task);
+            if (result == null)
+            {
+                result = task;
+                executor.execute(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Waits for a path to be checked.
+     * <p/>
+     * The timeout starts when the check starts running. While the check is queued, the threads held by checks that
+     * have timed out are released to the queue.
+     *
+     * @param task the check
+     * @param path the path, for logging purposes
+     * @return the result of the check, or {@code null} if it failed or timed out
+     */
+    private <T> T get(Task<T> task, String path)
+    {
+        try
+        {
+            while (task.getStarted() == 0)
+            {
+                expire();
+                try
+                {
+                    return task.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException ignore)
+                {
+                    // not started yet, or still running
+                }
+            }
+            long remaining = Math.max(0, task.getStarted() + timeout - System.currentTimeMillis());
+            return task.get(remaining, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException exception)
+        {
+            task.expire();
+            logger.warning("Timed out searching " + path);
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException exception)
+        {
+            logger.log(Level.FINE, "Failed to search " + path + ": " + exception.getCause().getMessage(),
+                       exception.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * Expires the running tasks that have exceeded the timeout.
+     */
+    private void expire()
+    {
+        long now = System.currentTimeMillis();
+        for (Task<?> task : running)
+        {
+            if (now - task.getStarted() >= timeout)
+            {
+                task.expire();
+            }
+        }
+    }
+
+    /**
+     * Changes the number of threads available to tasks.
+     *
+     * @param delta the no. of threads to add or remove
+     */
+    private void resize(int delta)
+    {
+        synchronized (executor)
+        {
+            executor.setCorePoolSize(executor.getCorePoolSize() + delta);
+        }
+    }
+
+    /**
+     * A directory listing or path check, that records when it starts running.
+     * <p/>
+     * A task that fails, or whose result is {@code null} or {@code false}, removes itself from the cache when it
+     * completes.
+     */
+    private class Task<T> extends FutureTask<T>
+    {
+
+        /**
+         * The time the task started running, in milliseconds, or {@code 0} if it hasn't started.
+         */
+        private volatile long started;
+
+        /**
+         * Determines if the task has exceeded the timeout, and been given an additional thread.
+         */
+        private boolean expired;
+
+        /**
+         * Determines if the task has finished running.
+         */
+        private boolean finished;
+
+        /**
+         * The cache containing the task.
+         */
+        private final ConcurrentMap<String, Task<T>> cache;
+
+        /**
+         * The key of the task in the cache.
+         */
+        private final String key;
+
+        /**
+         * Constructs a {@code Task}.
+         *
+         * @param callable the callable to run
+         * @param cache    the cache containing the task
+         * @param key      the key of the task in the cache
+         */
+        public Task(Callable<T> callable, ConcurrentMap<String, Task<T>> cache, String key)
+        {
+            super(callable);
+            this.cache = cache;
+            this.key = key;
+        }
+
+        /**
+         * Returns the time the task started running.
+         *
+         * @return the time the task started running, in milliseconds, or {@code 0} if it hasn't started
+         */
+        public long getStarted()
+        {
+            return started;
+        }
+
+        /**
+         * Marks the task as having exceeded the timeout.
+         * <p/>
+         * If the task is still running, its thread no longer counts against the thread limit, so an additional
+         * thread is made available to the queued tasks until it finishes.
+         */
+        public synchronized void expire()
+        {
+            if (started != 0 && !finished && !expired)
+            {
+                expired = true;
+                resize(1);
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            started = System.currentTimeMillis();
+            running.add(this);
+            try
+            {
+                super.run();
+            }
+            finally
+            {
+                running.remove(this);
+                synchronized (this)
+                {
+                    finished = true;
+                    if (expired)
+                    {
+                        resize(-1);
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected void set(T result)
+        {
+            // removed before the result is made available, so that searches that see it check the path again
+            if (result == null || Boolean.FALSE.equals(result))
+            {
+                cache.remove(key, this);
+            }
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(Throwable exception)
+        {
+            cache.remove(key, this);
+            super.setException(exception);
+        }
+    }
+
+}
@@ -157,43 +157,48 @@ public class SearchField extends Field
      */
     public List<String> getChoices(List<String> choices)
     {
-        List<String> items = new ArrayList<String>();
+        return PathSearch.getInstance().search(this, replaceVariables(choices));
+    }
 
-        for (String path : choices)
-        {
-            path = installData.getVariables().replace(path);
+    /**
+     * Searches for the choices in the background.
+     * <p/>
+     * The listener is notified from a background thread as each choice is found.
+     *
+     * @param listener the listener to notify of the choices found
+     */
+    public void getChoices(PathSearch.Listener listener)
+    {
+        getChoices(choices, listener);
+    }
 
-            if (path.endsWith("*"))
-            {
-                path = path.substring(0, path.length() - 1);
-                File dir = new File(path);
+    /**
+     * Searches for the matching choices of a given list of choices in the background.
+     * <p/>
+     * The listener is notified from a background thread as each choice is found.
+     *
+     * @param choices  the choices
+     * @param listener the listener to notify of the choices found
+     */
+    public void getChoices(List<String> choices, PathSearch.Listener listener)
+    {
+        PathSearch.getInstance().search(this, replaceVariables(choices), listener);
+    }
 
-                if (dir.isDirectory())
-                {
-                    File[] subdirs = dir.listFiles();
-                    if (subdirs != null)
-                    {
-                        for (File subdir : subdirs)
-                        {
-                            String search = subdir.getAbsolutePath();
-                            if (pathMatches(search))
-                            {
-                                items.add(search);
-                            }
-                        }
-                    }
-                }
-            }
-            else
-            {
-                if (pathMatches(path))
-                {
-                    items.add(path);
-                }
-            }
+    /**
+     * Replaces the variables in a list of choices.
+     *
+     * @param choices the choices
+     * @return the choices with variables replaced
+     */
+    private List<String> replaceVariables(List<String> choices)
+    {
+        List<String> result = new ArrayList<String>();
+        for (String path : choices)
+        {
+            result.add(installData.getVariables().replace(path));
         }
-
-        return items;
+        return result;
     }
 
     /**
@@ -29,10 +29,12 @@ import com.izforge.izpack.gui.TwoColumnConstraints;
 import com.izforge.izpack.installer.data.GUIInstallData;
 import com.izforge.izpack.installer.gui.InstallerFrame;
 import com.izforge.izpack.panels.userinput.field.Field;
+import com.izforge.izpack.panels.userinput.field.search.PathSearch;
 import com.izforge.izpack.panels.userinput.field.search.SearchField;
 import com.izforge.izpack.panels.userinput.gui.GUIField;
 
 import javax.swing.*;
+import java.util.List;
 
 
 /**
@@ -50,6 +52,22 @@ public class GUISearchField extends GUIField
 
     private final JComboBox combo;
 
+    /**
+     * Determines if the choices are still being searched for.
+     */
+    private boolean searching;
+
+    /**
+     * Determines if autodetection should be performed once the search completes.
+     */
+    private boolean autodetect;
+
+    /**
+     * Determines if a value has been set, in which case the configured choice isn't selected when the search
+     * completes.
+     */
+    private boolean valueSet;
+
     /**
      * Constructs a {@code GUISearchField}.
      *
@@ -68,15 +86,36 @@ public class GUISearchField extends GUIField
         combo.setEditable(true);
         combo.setName(field.getVariable());
 
-        for (String choice : field.getChoices())
-        {
-            combo.addItem(choice);
-        }
-        int index = field.getSelectedIndex();
-        if (index > -1)
+        // search in the background, so that slow file systems don't block the panel
+        searching = true;
+        field.getChoices(new PathSearch.Listener()
         {
-            combo.setSelectedIndex(index);
-        }
+            @Override
+            public void found(final String path)
+            {
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        combo.addItem(path);
+                    }
+                });
+            }
+
+            @Override
+            public void completed(List<String> paths)
+            {
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        searchCompleted();
+                    }
+                });
+            }
+        });
 
         addDescription();
         addLabel();
@@ -150,6 +189,7 @@ public class GUISearchField extends GUIField
         String value = field.getInitialValue();
         if (value != null)
         {
+            valueSet = true;
             searchInputField.setResult(value);
             result &= true;
         }
@@ -160,6 +200,7 @@ public class GUISearchField extends GUIField
             value = field.getDefaultValue();
             if (value != null)
             {
+                valueSet = true;
                 searchInputField.setResult(value);
                 result &= true;
             }
@@ -167,12 +208,40 @@ public class GUISearchField extends GUIField
 
         if (value == null)
         {
-            result &= searchInputField.autodetect();
+            if (searching)
+            {
+                autodetect = true;
+            }
+            else
+            {
+                searchInputField.autodetect(false);
+            }
         }
 
         return result;
     }
 
+    /**
+     * Invoked on the event dispatch thread when the search for choices completes.
+     * <p/>
+     * This selects the configured choice, unless a value has already been set, and performs any autodetection
+     * requested while the search was in progress.
+     */
+    private void searchCompleted()
+    {
+        searching = false;
+        int index = ((SearchField) getField()).getSelectedIndex();
+        if (index > -1 && index < combo.getItemCount() && !valueSet)
+        {
+            combo.setSelectedIndex(index);
+        }
+        if (autodetect)
+        {
+            autodetect = false;
+            searchInputField.autodetect(false);
+        }
+    }
+
     @Override
     public JComponent getFirstFocusableComponent()
     {
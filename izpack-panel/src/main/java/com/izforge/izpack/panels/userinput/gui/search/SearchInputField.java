@@ -24,6 +24,7 @@ import com.izforge.izpack.api.handler.Prompt;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.gui.GUIPrompt;
 import com.izforge.izpack.installer.gui.InstallerFrame;
+import com.izforge.izpack.panels.userinput.field.search.PathSearch;
 import com.izforge.izpack.panels.userinput.field.search.ResultType;
 import com.izforge.izpack.panels.userinput.field.search.SearchField;
 import com.izforge.izpack.panels.userinput.field.search.SearchType;
@@ -71,6 +72,11 @@ public class SearchInputField implements ActionListener
 
     private final InstallData installData;
 
+    /**
+     * Determines if autodetection is in progress.
+     */
+    private boolean detecting;
+
     /*---------------------------------------------------------------------------*/
 
     /**
@@ -146,83 +152,95 @@ public class SearchInputField implements ActionListener
     }
 
     /**
-     * perform autodetection
+     * Performs autodetection in the background.
+     * <p/>
+     * The items of the combobox, and any path entered by the user, are checked off the event dispatch thread. When
+     * the search completes, the combobox is replaced with the matching paths, and the first is selected.
+     *
+     * @param explicit if {@code true}, autodetection was requested by the user. The results of earlier searches are
+     *                 discarded, and the user is warned if no path matches
      */
-    public boolean autodetect()
+    public void autodetect(final boolean explicit)
     {
-        // Try all of <choice> options - see if any are valid
-        for (int x = 0; x < pathComboBox.getItemCount(); x++)
+        if (detecting)
         {
-        	if( field.pathMatches( (String)pathComboBox.getItemAt(x) ) ) {
-        		pathComboBox.setSelectedIndex(x);
-        		break;
-        	}
+            return;
         }
-
-        /*
-         * Check if the user has entered installDataGUI into the ComboBox and add it to the Itemlist
-         */
-        String selected = (String) pathComboBox.getSelectedItem();
-        if (selected == null)
+        List<String> items = new ArrayList<String>();
+        for (int i = 0; i < pathComboBox.getItemCount(); ++i)
         {
-            parent.lockNextButton();
-            return false;
+            items.add((String) pathComboBox.getItemAt(i));
         }
-        boolean found = false;
-        for (int x = 0; x < pathComboBox.getItemCount(); x++)
+        // Check if the user has entered a path into the ComboBox
+        String selected = (String) pathComboBox.getSelectedItem();
+        if (selected != null && !items.contains(selected))
         {
-            if (pathComboBox.getItemAt(x).equals(selected))
-            {
-                found = true;
-            }
+            items.add(selected);
         }
-        if (!found)
+        if (explicit)
         {
-            // Not found in item list
-            pathComboBox.addItem(selected);
+            PathSearch.getInstance().clear();
         }
 
-        List<String> currentItems = new ArrayList<String>();
-        for (int i = 0; i < pathComboBox.getItemCount(); ++i)
+        detecting = true;
+        autodetectButton.setEnabled(false);
+        parent.lockNextButton();
+        field.getChoices(items, new PathSearch.Listener()
         {
-            currentItems.add((String) pathComboBox.getItemAt(i));
-        }
-        List<String> items = field.getChoices(currentItems);
+            @Override
+            public void found(String path)
+            {
+                // the combobox is replaced when the search completes
+            }
 
-        // Make the entries in the vector unique
-        items = new ArrayList<String>(new LinkedHashSet<String>(items));
+            @Override
+            public void completed(final List<String> paths)
+            {
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        detected(paths, explicit);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Invoked on the event dispatch thread when autodetection completes.
+     *
+     * @param paths    the matching paths
+     * @param explicit if {@code true}, autodetection was requested by the user
+     */
+    private void detected(List<String> paths, boolean explicit)
+    {
+        detecting = false;
+        autodetectButton.setEnabled(true);
 
-        // Now clear the combobox and add the items out of the newly
-        // generated vector
+        // Make the entries unique, then replace the items of the combobox
+        List<String> items = new ArrayList<String>(new LinkedHashSet<String>(paths));
         pathComboBox.removeAllItems();
         for (String item : items)
         {
-            item = installData.getVariables().replace(item);
-            pathComboBox.addItem(item);
+            pathComboBox.addItem(installData.getVariables().replace(item));
         }
 
-        // loop through all items
-        for (int i = 0; i < pathComboBox.getItemCount(); ++i)
+        if (!items.isEmpty())
         {
-            String path = (String) pathComboBox.getItemAt(i);
-
-            if (field.pathMatches(path))
-            {
-                pathComboBox.setSelectedIndex(i);
-                parent.unlockNextButton();
-                return true;
-            }
-
+            pathComboBox.setSelectedIndex(0);
+            parent.unlockNextButton();
         }
-
-        // if the user entered something else, it's not listed as an item
-        if (field.pathMatches((String) pathComboBox.getSelectedItem()))
+        else
         {
-            parent.unlockNextButton();
-            return true;
+            parent.lockNextButton();
+            if (explicit)
+            {
+                warning("UserInputPanel.search.autodetect.failed.caption",
+                        "UserInputPanel.search.autodetect.failed.message");
+            }
         }
-        parent.lockNextButton();
-        return false;
     }
 
 
@@ -240,11 +258,7 @@ public class SearchInputField implements ActionListener
         Object source = event.getSource();
         if (source == autodetectButton)
         {
-            if (!autodetect())
-            {
-                warning("UserInputPanel.search.autodetect.failed.caption",
-                        "UserInputPanel.search.autodetect.failed.message");
-            }
+            autodetect(true);
         }
         else if (source == browseButton)
         {
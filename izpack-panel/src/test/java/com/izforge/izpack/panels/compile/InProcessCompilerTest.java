@@ -0,0 +1,133 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.compile;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link InProcessCompiler} class.
+ */
+public class InProcessCompilerTest
+{
+
+    /**
+     * Temporary folder for sources.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The compiler.
+     */
+    private InProcessCompiler compiler;
+
+    /**
+     * Sets up the test case. This is skipped if the JVM doesn't provide a compiler.
+     */
+    @Before
+    public void setUp()
+    {
+        compiler = InProcessCompiler.getInstance();
+        assumeNotNull(compiler);
+    }
+
+    /**
+     * Cleans up after the test case.
+     */
+    @After
+    public void tearDown()
+    {
+        if (compiler != null)
+        {
+            compiler.close();
+        }
+    }
+
+    /**
+     * Verifies that sources can be compiled, and that classes compiled by one compilation are visible to another
+     * via the class path.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCompile() throws Exception
+    {
+        File dir1 = temporaryFolder.newFolder("a");
+        File dir2 = temporaryFolder.newFolder("b");
+        File a = new File(dir1, "A.java");
+        File b = new File(dir2, "B.java");
+        FileUtils.writeStringToFile(a, "public class A { }");
+        FileUtils.writeStringToFile(b, "public class B extends A { }");
+        List<String> none = Collections.emptyList();
+
+        StringBuilder diagnostics = new StringBuilder();
+        assertTrue(compiler.compile(Arrays.asList(a), none, none, diagnostics));
+        assertTrue(new File(dir1, "A.class").exists());
+
+        assertTrue(compiler.compile(Arrays.asList(b), Arrays.asList(dir1.getPath()), none, diagnostics));
+        assertTrue(new File(dir2, "B.class").exists());
+        assertTrue(diagnostics.length() == 0);
+    }
+
+    /**
+     * Verifies that compilation errors are reported as diagnostics.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testError() throws Exception
+    {
+        File file = new File(temporaryFolder.getRoot(), "C.java");
+        FileUtils.writeStringToFile(file, "public class C { int x = ; }");
+        List<String> none = Collections.emptyList();
+
+        StringBuilder diagnostics = new StringBuilder();
+        assertFalse(compiler.compile(Arrays.asList(file), none, none, diagnostics));
+        assertTrue(diagnostics.toString().contains("C.java:1: "));
+    }
+
+    /**
+     * Verifies that invalid options are detected.
+     */
+    @Test
+    public void testCheckOptions()
+    {
+        assertNull(compiler.checkOptions(Arrays.asList("-g")));
+        assertNotNull(compiler.checkOptions(Arrays.asList("-nosuchoption")));
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.install;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.izforge.izpack.api.event.ByteProgressListener;
+import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.installer.console.ConsolePanel;
+import com.izforge.izpack.installer.panel.PanelView;
+import com.izforge.izpack.installer.unpacker.IUnpacker;
+
+
+/**
+ * Tests the {@link InstallConsolePanel}.
+ */
+public class InstallConsolePanelTest
+{
+
+    /**
+     * Verifies that no progress is displayed for packs that unpack within
+     * {@link com.izforge.izpack.installer.event.CoalescingProgressListener#CONSOLE_INTERVAL}.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testShortInstall() throws Exception
+    {
+        final ByteProgressListener[] listener = new ByteProgressListener[1];
+        IUnpacker unpacker = mock(IUnpacker.class);
+        when(unpacker.getResult()).thenReturn(true);
+        doAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation)
+            {
+                listener[0] = (ByteProgressListener) invocation.getArguments()[0];
+                return null;
+            }
+        }).when(unpacker).setProgressListener(any(ProgressListener.class));
+        doAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation)
+            {
+                ByteProgressListener progress = listener[0];
+                progress.startAction("Unpacking", 2);
+                progress.nextStep("pack1", 1, 2);
+                progress.progress(0, "file1");
+                progress.progress(500L, 1000L, "file1");
+                progress.progress(1, "file2");
+                progress.progress(1000L, 1000L, "file2");
+                progress.nextStep("pack2", 2, 1);
+                progress.progress(0, "file3");
+                progress.progress(10L, 10L, "file3");
+                progress.stopAction();
+                return null;
+            }
+        }).when(unpacker).run();
+
+        InstallConsolePanel panel = new InstallConsolePanel(unpacker, mock(PanelView.class));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(output, true, "UTF-8"));
+        try
+        {
+            assertTrue(panel.run(null, new Properties()));
+        }
+        finally
+        {
+            System.setOut(out);
+        }
+
+        String[] lines = output.toString("UTF-8").split("\\r?\\n");
+        assertEquals(Arrays.asList("[ Starting to unpack ]", "[ Processing package: pack1 (1/2) ]",
+                                   "[ Processing package: pack2 (2/2) ]", "[ Unpacking finished ]"),
+                     Arrays.asList(lines));
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.packs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.izforge.izpack.api.data.InstallData;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.resource.Messages;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.panels.packs.PacksModel.CbSelectionState;
+
+
+/**
+ * Tests the {@link PacksModel}.
+ */
+public class PacksModelTest
+{
+
+    /**
+     * The model under test.
+     */
+    private PacksModel model;
+
+    /**
+     * The selected packs.
+     */
+    private List<Pack> selected;
+
+    /**
+     * Sets up the model.
+     * <p/>
+     * <em>plugin</em> depends on <em>base</em>, <em>extra</em> depends on <em>plugin</em>, and <em>a</em> and
+     * <em>b</em> exclude each other.
+     */
+    @Before
+    public void setUp()
+    {
+        Pack base = createPack("base", 1, null);
+        Pack plugin = createPack("plugin", 10, null, "base");
+        Pack extra = createPack("extra", 100, null, "plugin");
+        Pack a = createPack("a", 1000, "group");
+        Pack b = createPack("b", 10000, "group");
+        Pack hidden = createPack("hidden", 100000, null);
+        hidden.setHidden(true);
+        selected = new ArrayList<Pack>(Arrays.asList(base, plugin, extra, a));
+
+        RulesEngine rules = mock(RulesEngine.class);
+        when(rules.canInstallPack(anyString(), any(Variables.class))).thenReturn(true);
+        Messages messages = mock(Messages.class);
+        InstallData installData = mock(InstallData.class);
+        when(installData.getRules()).thenReturn(rules);
+        when(installData.getMessages()).thenReturn(messages);
+        when(installData.getSelectedPacks()).thenReturn(selected);
+        when(installData.getAvailablePacks()).thenReturn(Arrays.asList(base, plugin, extra, a, b, hidden));
+        model = new PacksModel(installData);
+    }
+
+    /**
+     * Verifies that deselecting a pack deselects the packs that depend on it, directly or indirectly.
+     */
+    @Test
+    public void testDependencies()
+    {
+        assertSelection(1111, "base", "plugin", "extra", "a", "hidden");
+
+        setValue("base", CbSelectionState.DESELECTED);
+        assertEquals(CbSelectionState.DEPENDENT_DESELECTED, getState("plugin"));
+        assertEquals(CbSelectionState.DEPENDENT_DESELECTED, getState("extra"));
+        assertFalse(model.isCheckBoxSelectable(getRow("extra")));
+        assertSelection(1000, "a", "hidden");
+
+        setValue("base", CbSelectionState.SELECTED);
+        assertEquals(CbSelectionState.SELECTED, getState("base"));
+        assertTrue(model.isCheckBoxSelectable(getRow("plugin")));
+        assertEquals(CbSelectionState.DEPENDENT_DESELECTED, getState("extra"));
+    }
+
+    /**
+     * Verifies that selecting a pack deselects the other packs in its exclude group.
+     */
+    @Test
+    public void testExcludes()
+    {
+        model.toggleValueAt(getRow("b"));
+        assertEquals(CbSelectionState.DESELECTED, getState("a"));
+        assertSelection(10111, "base", "plugin", "extra", "b", "hidden");
+
+        model.toggleValueAt(getRow("a"));
+        assertEquals(CbSelectionState.DESELECTED, getState("b"));
+        assertSelection(1111, "base", "plugin", "extra", "a", "hidden");
+    }
+
+    /**
+     * Verifies the selection, and that the maintained sizes match the checked packs.
+     *
+     * @param visibleBytes the expected size of the selected visible packs
+     * @param names        the expected selected pack names
+     */
+    private void assertSelection(long visibleBytes, String... names)
+    {
+        List<String> actual = new ArrayList<String>();
+        for (Pack pack : selected)
+        {
+            actual.add(pack.getName());
+        }
+        assertEquals(Arrays.asList(names), actual);
+
+        long checked = 0;
+        long selectedBytes = 0;
+        for (int row = 0; row < model.getRowCount(); row++)
+        {
+            Pack pack = model.getPackAtRow(row);
+            if (model.isChecked(row))
+            {
+                checked += pack.getSize();
+            }
+            if (model.checkValues.get(row).isSelectedOrRequiredSelected())
+            {
+                selectedBytes += pack.getSize();
+            }
+        }
+        assertEquals(checked, model.getTotalByteSize());
+        assertEquals(visibleBytes, selectedBytes);
+        assertEquals(selectedBytes + 100000, model.getSelectedByteSize());
+    }
+
+    /**
+     * Sets the value of a pack checkbox.
+     *
+     * @param name  the pack name
+     * @param state the new state
+     */
+    private void setValue(String name, CbSelectionState state)
+    {
+        model.setValueAt(state, getRow(name), 0);
+    }
+
+    /**
+     * Returns the state of a pack checkbox.
+     *
+     * @param name the pack name
+     * @return the checkbox state
+     */
+    private CbSelectionState getState(String name)
+    {
+        return (CbSelectionState) model.getValueAt(getRow(name), 0);
+    }
+
+    /**
+     * Returns the row of a pack.
+     *
+     * @param name the pack name
+     * @return the pack row
+     */
+    private int getRow(String name)
+    {
+        return model.getNameToRow().get(name);
+    }
+
+    /**
+     * Creates a pack.
+     *
+     * @param name         the pack name
+     * @param size         the pack size
+     * @param excludeGroup the exclude group. May be {@code null}
+     * @param dependencies the names of the packs it depends on
+     * @return a new pack
+     */
+    private static Pack createPack(String name, long size, String excludeGroup, String... dependencies)
+    {
+        List<String> deps = dependencies.length != 0 ? new ArrayList<String>(Arrays.asList(dependencies)) : null;
+        return new Pack(name, null, null, null, deps, false, true, false, excludeGroup, true, size);
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.izforge.izpack.panels.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.izforge.izpack.api.data.InstallData;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.util.PlatformModelMatcher;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Tests concurrent job execution by the {@link ProcessPanelWorker}.
+ */
+public class ProcessPanelWorkerTest
+{
+
+    /**
+     * The names of the jobs run, in order of completion.
+     */
+    private static final List<String> completed = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * The resources.
+     */
+    private Resources resources;
+
+    /**
+     * The installation data.
+     */
+    private InstallData installData;
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        completed.clear();
+        resources = Mockito.mock(Resources.class);
+        installData = Mockito.mock(InstallData.class);
+        when(installData.getVariables()).thenReturn(new DefaultVariables());
+        when(installData.getSelectedPacks()).thenReturn(new ArrayList<Pack>());
+    }
+
+    /**
+     * Verifies that jobs are run after the jobs they depend on.
+     */
+    @Test
+    public void testDependencies()
+    {
+        ProcessPanelWorker worker = run("<processing maxParallel='4'>"
+                                                + job("c", "b") + job("b", "a") + job("a") + job("d")
+                                                + "</processing>");
+        assertTrue(worker.getResult());
+        assertEquals(4, completed.size());
+        assertTrue(completed.indexOf("a") < completed.indexOf("b"));
+        assertTrue(completed.indexOf("b") < completed.indexOf("c"));
+    }
+
+    /**
+     * Verifies that no further jobs are started after a job fails, and that catch and final jobs are run.
+     */
+    @Test
+    public void testFailure()
+    {
+        ProcessPanelWorker worker = run("<processing maxParallel='2'>"
+                                                + job("fail") + job("b", "fail")
+                                                + "<job name='catch' catch='true'>" + execute("catch") + "</job>"
+                                                + "<job name='final' final='true'>" + execute("final") + "</job>"
+                                                + "</processing>");
+        assertFalse(worker.getResult());
+        assertEquals(3, completed.size());
+        assertEquals("fail", completed.get(0));
+        assertEquals("catch", completed.get(1));
+        assertEquals("final", completed.get(2));
+    }
+
+    /**
+     * Verifies that jobs with cyclic dependencies aren't run.
+     */
+    @Test
+    public void testCyclicDependencies()
+    {
+        ProcessPanelWorker worker = run("<processing>" + job("a", "b") + job("b", "a") + "</processing>");
+        assertFalse(worker.getResult());
+        assertTrue(completed.isEmpty());
+    }
+
+    /**
+     * Verifies that no jobs are run if a job depends on a job that isn't declared, and that dependencies on
+     * declared jobs that aren't run are ignored.
+     */
+    @Test
+    public void testUndeclaredDependencies()
+    {
+        ProcessPanelWorker worker = run("<processing>" + job("a") + job("b", "a", "typo") + "</processing>");
+        assertFalse(worker.getResult());
+        assertTrue(completed.isEmpty());
+
+        worker = run("<processing>" + "<job name='empty'/>" + job("a", "empty") + "</processing>");
+        assertTrue(worker.getResult());
+        assertEquals(Arrays.asList("a"), completed);
+    }
+
+    /**
+     * Helper to run a process specification.
+     *
+     * @param spec the specification
+     * @return the worker
+     */
+    private ProcessPanelWorker run(String spec)
+    {
+        when(resources.getInputStream(ProcessPanelWorker.SPEC_RESOURCE_NAME)).thenReturn(
+                new ByteArrayInputStream(spec.getBytes()));
+        PlatformModelMatcher matcher = new PlatformModelMatcher(new Platforms(), Platforms.LINUX);
+        ProcessPanelWorker worker = new ProcessPanelWorker(installData, Mockito.mock(RulesEngine.class), resources,
+                                                           matcher);
+        worker.setHandler(Mockito.mock(AbstractUIProcessHandler.class));
+        worker.run();
+        return worker;
+    }
+
+    /**
+     * Helper to create a job that runs {@link Recorder}.
+     *
+     * @param name         the job name
+     * @param dependencies the names of the jobs it depends on
+     * @return the job element
+     */
+    private String job(String name, String... dependencies)
+    {
+        StringBuilder result = new StringBuilder("<job name='" + name + "'>");
+        for (String dependency : dependencies)
+        {
+            result.append("<depends name='").append(dependency).append("'/>");
+        }
+        return result.append(execute(name)).append("</job>").toString();
+    }
+
+    /**
+     * Helper to create an <em>executeclass</em> element that runs {@link Recorder}.
+     *
+     * @param name the name to record
+     * @return the element
+     */
+    private String execute(String name)
+    {
+        return "<executeclass name='" + Recorder.class.getName() + "'><arg>" + name + "</arg></executeclass>";
+    }
+
+    /**
+     * Records the jobs that are run. A job named <em>fail</em> fails.
+     */
+    public static class Recorder
+    {
+        /**
+         * Runs the job.
+         *
+         * @param handler the handler
+         * @param args    the arguments
+         * @return {@code false} if the job should fail, otherwise {@code true}
+         * @throws InterruptedException if interrupted
+         */
+        public boolean run(AbstractUIProcessHandler handler, String[] args) throws InterruptedException
+        {
+            Thread.sleep(10);
+            completed.add(args[0]);
+            return !"fail".equals(args[0]);
+        }
+    }
+
+}
@@ -42,6 +42,8 @@ import org.fest.swing.fixture.JComboBoxFixture;
 import org.fest.swing.fixture.JFileChooserFixture;
 import org.fest.swing.fixture.JRadioButtonFixture;
 import org.fest.swing.fixture.JTextComponentFixture;
+import org.fest.swing.timing.Condition;
+import org.fest.swing.timing.Pause;
 import org.fest.swing.timing.Timeout;
 import org.hamcrest.Matchers;
 import org.junit.Rule;
@@ -66,6 +68,7 @@ import com.izforge.izpack.panels.simplefinish.SimpleFinishPanel;
 import com.izforge.izpack.panels.test.AbstractPanelTest;
 import com.izforge.izpack.panels.test.TestGUIPanelContainer;
 import com.izforge.izpack.panels.userinput.field.Choice;
+import com.izforge.izpack.panels.userinput.field.search.PathSearch;
 import com.izforge.izpack.test.Container;
 
 
@@ -495,7 +498,17 @@ public class UserInputPanelTest extends AbstractPanelTest
         // show the panel
         FrameFixture frame = showUserInputPanel("searchinput");
 
-        JComboBoxFixture search1 = frame.comboBox("search1");
+        final JComboBoxFixture search1 = frame.comboBox("search1");
+
+        // the choices are searched for in the background
+        Pause.pause(new Condition("search completed")
+        {
+            @Override
+            public boolean test()
+            {
+                return search1.component().getItemCount() == 2;
+            }
+        }, Timeout.timeout(PathSearch.TIMEOUT));
 
         // make sure the order is preserved
         ComboBoxModel model = search1.component().getModel();
@@ -0,0 +1,247 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.userinput.field.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+
+/**
+ * Tests the {@link PathSearch}.
+ */
+public class PathSearchTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that wildcard choices are expanded, that matches are returned in choice order, and that matching
+     * paths are only checked once.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSearch() throws Exception
+    {
+        File dir = temporaryFolder.newFolder("java");
+        File jdk = new File(dir, "jdk");
+        assertTrue(jdk.mkdir());
+        String first = temporaryFolder.newFolder("first").getAbsolutePath();
+        String missing = new File(temporaryFolder.getRoot(), "missing").getAbsolutePath();
+        SearchField field = createField(first, jdk.getAbsolutePath());
+
+        PathSearch search = new PathSearch(PathSearch.TIMEOUT);
+        List<String> choices = Arrays.asList(first, missing, dir.getAbsolutePath() + File.separator + "*");
+        List<String> expected = Arrays.asList(first, jdk.getAbsolutePath());
+        assertEquals(expected, search.search(field, choices));
+        assertEquals(expected, search.search(field, choices));
+        verify(field, times(1)).pathMatches(first);
+        verify(field, times(2)).pathMatches(missing);
+        verify(field, times(1)).pathMatches(jdk.getAbsolutePath());
+    }
+
+    /**
+     * Verifies that paths and directories that weren't found are checked again by later searches, and that
+     * {@link PathSearch#clear()} discards the paths that were found.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testRecheck() throws Exception
+    {
+        File dir = new File(temporaryFolder.getRoot(), "java");
+        String jdk = new File(dir, "jdk").getAbsolutePath();
+        String path = new File(temporaryFolder.getRoot(), "path").getAbsolutePath();
+        SearchField field = mock(SearchField.class);
+        when(field.pathMatches(path)).thenReturn(false, true);
+        when(field.pathMatches(jdk)).thenReturn(true);
+
+        PathSearch search = new PathSearch(PathSearch.TIMEOUT);
+        List<String> choices = Arrays.asList(path, dir.getAbsolutePath() + File.separator + "*");
+        assertEquals(Collections.<String>emptyList(), search.search(field, choices));
+
+        // the path now matches, and the directory now exists
+        assertTrue(new File(jdk).mkdirs());
+        List<String> expected = Arrays.asList(path, jdk);
+        assertEquals(expected, search.search(field, choices));
+        assertEquals(expected, search.search(field, choices));
+        verify(field, times(2)).pathMatches(path);
+        verify(field, times(1)).pathMatches(jdk);
+
+        search.clear();
+        assertEquals(expected, search.search(field, choices));
+        verify(field, times(3)).pathMatches(path);
+        verify(field, times(2)).pathMatches(jdk);
+    }
+
+    /**
+     * Verifies that a path that doesn't respond in time is treated as not matching.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTimeout() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(1);
+        SearchField field = mock(SearchField.class);
+        when(field.pathMatches("fast")).thenReturn(true);
+        when(field.pathMatches("slow")).thenAnswer(new Answer<Boolean>()
+        {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable
+            {
+                latch.await();
+                return true;
+            }
+        });
+
+        PathSearch search = new PathSearch(500);
+        List<String> choices = Arrays.asList("slow", "fast");
+        assertEquals(Collections.singletonList("fast"), search.search(field, choices));
+
+        // the check completes in the background, and is used by the next search
+        latch.countDown();
+        Thread.sleep(200);
+        assertEquals(choices, search.search(field, choices));
+    }
+
+    /**
+     * Verifies that the timeout of each path starts when its check starts, so that checks queued behind paths that
+     * don't respond aren't treated as not matching.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTimeoutStartsWithCheck() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(1);
+        Answer<Boolean> hang = new Answer<Boolean>()
+        {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable
+            {
+                latch.await();
+                return true;
+            }
+        };
+        SearchField field = mock(SearchField.class);
+        List<String> choices = new ArrayList<String>();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 10; ++i)
+        {
+            // more paths that hang than there are threads, followed by paths that respond
+            String slow = "slow" + i;
+            when(field.pathMatches(slow)).thenAnswer(hang);
+            choices.add(slow);
+        }
+        for (int i = 0; i < 4; ++i)
+        {
+            String fast = "fast" + i;
+            when(field.pathMatches(fast)).thenReturn(true);
+            choices.add(fast);
+            expected.add(fast);
+        }
+
+        try
+        {
+            assertEquals(expected, new PathSearch(500).search(field, choices));
+        }
+        finally
+        {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Verifies that a background search reports matches in choice order, and then completes.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testBackgroundSearch() throws Exception
+    {
+        String first = temporaryFolder.newFolder("first").getAbsolutePath();
+        String second = temporaryFolder.newFolder("second").getAbsolutePath();
+        SearchField field = createField(first, second);
+
+        final List<String> found = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> completed = new ArrayList<String>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        new PathSearch(PathSearch.TIMEOUT).search(field, Arrays.asList(first, "other", second),
+                                                  new PathSearch.Listener()
+        {
+            @Override
+            public void found(String path)
+            {
+                found.add(path);
+            }
+
+            @Override
+            public void completed(List<String> paths)
+            {
+                completed.addAll(paths);
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(PathSearch.TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList(first, second), found);
+        assertEquals(Arrays.asList(first, second), completed);
+    }
+
+    /**
+     * Creates a field that matches the specified paths.
+     *
+     * @param paths the paths to match
+     * @return a new field
+     */
+    private static SearchField createField(String... paths)
+    {
+        SearchField field = mock(SearchField.class);
+        for (String path : paths)
+        {
+            when(field.pathMatches(path)).thenReturn(true);
+        }
+        return field;
+    }
+
+}
@@ -0,0 +1,429 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.api.data.LocaleDatabase;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.api.data.ParsableFile;
+import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.api.handler.Prompt;
+import com.izforge.izpack.api.resource.Locales;
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.compiler.listener.PackagerListener;
+import com.izforge.izpack.compiler.merge.CompilerPathResolver;
+import com.izforge.izpack.compiler.packager.impl.Packager;
+import com.izforge.izpack.compiler.packager.impl.PatchBase;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.resource.ResourceManager;
+import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+import com.izforge.izpack.installer.data.InstallData;
+import com.izforge.izpack.installer.data.UninstallData;
+import com.izforge.izpack.installer.event.InstallerListeners;
+import com.izforge.izpack.merge.MergeManager;
+import com.izforge.izpack.merge.resolve.MergeableResolver;
+import com.izforge.izpack.util.Housekeeper;
+import com.izforge.izpack.util.Librarian;
+import com.izforge.izpack.util.PlatformModelMatcher;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Tests patch installers, built by the {@link Packager} against the installer of a previous release using
+ * {@link PatchBase}, and installed by the {@link Unpacker}.
+ */
+public class PatchInstallerTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The content of the parsable file, the same in both releases.
+     */
+    private static final String VERSION = "version=${APP_VER}";
+
+    /**
+     * The directory to install to.
+     */
+    private File installDir;
+
+    /**
+     * The previous release's installer.
+     */
+    private File installer1;
+
+    /**
+     * The files of the new release.
+     */
+    private File release2;
+
+    /**
+     * The content of the file that is unchanged between releases.
+     */
+    private byte[] same;
+
+    /**
+     * The content of the first file that changes between releases, in the previous and new release.
+     */
+    private byte[] changed1;
+
+    /**
+     * The new content of the first changed file.
+     */
+    private byte[] changed2;
+
+    /**
+     * The previous content of the second changed file.
+     */
+    private byte[] edited1;
+
+    /**
+     * The new content of the second changed file.
+     */
+    private byte[] edited2;
+
+
+    /**
+     * Builds and installs the previous release.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        installDir = new File(temporaryFolder.getRoot(), "install");
+        Random random = new Random(1);
+        same = createContent(random);
+        changed1 = createContent(random);
+        changed2 = edit(changed1);
+        edited1 = createContent(random);
+        edited2 = edit(edited1);
+
+        File release1 = createRelease("release1", changed1, edited1);
+        installer1 = new File(temporaryFolder.getRoot(), "installer1.jar");
+        createInstaller(release1, installer1, "1.0", null);
+        assertTrue(install(installer1, "1.0"));
+        assertEquals("version=1.0", FileUtils.readFileToString(new File(installDir, "version.txt"), "UTF-8"));
+
+        release2 = createRelease("release2", changed2, edited2);
+    }
+
+    /**
+     * Verifies that unchanged files are omitted, that changed files are stored only as deltas and patched, and that
+     * parsable files are always stored in full.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPatch() throws Exception
+    {
+        File installer2 = new File(temporaryFolder.getRoot(), "installer2.jar");
+        createInstaller(release2, installer2, "2.0", installer1);
+
+        List<PackInfo> packs = getPacks(createResources(installer2));
+        assertTrue(getPackFile(packs, "same.dat").isOmitted());
+        assertTrue(getPackFile(packs, "changed.dat").isDelta());
+        assertTrue(getPackFile(packs, "edited.dat").isDelta());
+        assertFalse(getPackFile(packs, "version.txt").hasBase());
+
+        // only the parsable file is in the pack stream
+        JarFile jar = new JarFile(installer2);
+        try
+        {
+            assertTrue(jar.getEntry("resources/packs/pack-base").getSize() < same.length);
+        }
+        finally
+        {
+            jar.close();
+        }
+
+        assertTrue(install(installer2, "2.0"));
+        assertArrayEquals(same, FileUtils.readFileToByteArray(new File(installDir, "same.dat")));
+        assertArrayEquals(changed2, FileUtils.readFileToByteArray(new File(installDir, "changed.dat")));
+        assertArrayEquals(edited2, FileUtils.readFileToByteArray(new File(installDir, "edited.dat")));
+        assertEquals("version=2.0", FileUtils.readFileToString(new File(installDir, "version.txt"), "UTF-8"));
+    }
+
+    /**
+     * Verifies that the installation fails without writing any files if an omitted file has been modified since the
+     * previous release was installed.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testModifiedOmittedFile() throws Exception
+    {
+        File installer2 = new File(temporaryFolder.getRoot(), "installer2.jar");
+        createInstaller(release2, installer2, "2.0", installer1);
+
+        byte[] modified = edit(same);
+        FileUtils.writeByteArrayToFile(new File(installDir, "same.dat"), modified);
+
+        assertFalse(install(installer2, "2.0"));
+        assertArrayEquals(modified, FileUtils.readFileToByteArray(new File(installDir, "same.dat")));
+        assertArrayEquals(changed1, FileUtils.readFileToByteArray(new File(installDir, "changed.dat")));
+        assertArrayEquals(edited1, FileUtils.readFileToByteArray(new File(installDir, "edited.dat")));
+        assertEquals("version=1.0", FileUtils.readFileToString(new File(installDir, "version.txt"), "UTF-8"));
+    }
+
+    /**
+     * Verifies that the installation fails without writing any files if a file stored as a delta has been modified
+     * since the previous release was installed.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testModifiedDeltaBase() throws Exception
+    {
+        File installer2 = new File(temporaryFolder.getRoot(), "installer2.jar");
+        createInstaller(release2, installer2, "2.0", installer1);
+
+        // the edited file no longer has the content the delta was created against
+        byte[] modified = edited1.clone();
+        modified[0] = (byte) ~modified[0];
+        FileUtils.writeByteArrayToFile(new File(installDir, "edited.dat"), modified);
+
+        assertFalse(install(installer2, "2.0"));
+        assertArrayEquals(same, FileUtils.readFileToByteArray(new File(installDir, "same.dat")));
+        assertArrayEquals(changed1, FileUtils.readFileToByteArray(new File(installDir, "changed.dat")));
+        assertArrayEquals(modified, FileUtils.readFileToByteArray(new File(installDir, "edited.dat")));
+        assertEquals("version=1.0", FileUtils.readFileToString(new File(installDir, "version.txt"), "UTF-8"));
+    }
+
+    /**
+     * Creates the files of a release.
+     *
+     * @param name    the release directory name
+     * @param changed the content of the first changed file
+     * @param edited  the content of the second changed file
+     * @return the release directory
+     * @throws IOException for any I/O error
+     */
+    private File createRelease(String name, byte[] changed, byte[] edited) throws IOException
+    {
+        File dir = temporaryFolder.newFolder(name);
+        FileUtils.writeByteArrayToFile(new File(dir, "same.dat"), same);
+        FileUtils.writeByteArrayToFile(new File(dir, "changed.dat"), changed);
+        FileUtils.writeByteArrayToFile(new File(dir, "edited.dat"), edited);
+        FileUtils.writeStringToFile(new File(dir, "version.txt"), VERSION, "UTF-8");
+        return dir;
+    }
+
+    /**
+     * Creates an installer for a release.
+     *
+     * @param release   the release directory
+     * @param installer the installer to create
+     * @param version   the application version
+     * @param patchBase the previous release's installer to patch against, or {@code null} to create a full installer
+     * @throws Exception for any error
+     */
+    private void createInstaller(File release, File installer, String version, File patchBase) throws Exception
+    {
+        PackInfo pack = new PackInfo("base", "base", "The base package", true, false, null, true, 0);
+        for (String name : new String[]{"same.dat", "changed.dat", "edited.dat", "version.txt"})
+        {
+            pack.addFile(release, new File(release, name), "$INSTALL_PATH/" + name, null, OverrideType.OVERRIDE_TRUE,
+                         null, Blockable.BLOCKABLE_NONE, null, null, null);
+        }
+        pack.addParsable(new ParsableFile("$INSTALL_PATH/version.txt", null, null, null));
+
+        Info info = new Info();
+        info.setAppName("test");
+        info.setAppVersion(version);
+        if (patchBase != null)
+        {
+            info.setPatchBase(patchBase.getPath());
+            info.setPatchBaseVersion("1.0");
+        }
+
+        JarOutputStream jar = new JarOutputStream(new FileOutputStream(installer));
+        CompilerData data = new CompilerData(null, release.getPath(), installer.getPath(), true);
+        Packager packager = new Packager(new Properties(), Mockito.mock(PackagerListener.class), jar,
+                                         Mockito.mock(MergeManager.class), Mockito.mock(CompilerPathResolver.class),
+                                         Mockito.mock(MergeableResolver.class), data,
+                                         Mockito.mock(RulesEngine.class));
+        packager.setInfo(info);
+        packager.addPack(pack);
+        packager.createInstaller();
+    }
+
+    /**
+     * Installs a release.
+     *
+     * @param installer the installer
+     * @param version   the application version
+     * @return {@code true} if the installation was successful
+     * @throws Exception for any error
+     */
+    private boolean install(File installer, String version) throws Exception
+    {
+        Resources resources = createResources(installer);
+        InstallData installData = new InstallData(new DefaultVariables(), Platforms.LINUX);
+        installData.setInstallPath(installDir.getPath());
+        installData.setInfo((Info) resources.getObject("info"));
+        installData.setVariable("APP_VER", version);
+        InputStream langPack = getClass().getResourceAsStream("/com/izforge/izpack/bin/langpacks/installer/eng.xml");
+        assertNotNull(langPack);
+        installData.setMessages(new LocaleDatabase(langPack, Mockito.mock(Locales.class)));
+        List<Pack> packs = new ArrayList<Pack>();
+        for (PackInfo packInfo : getPacks(resources))
+        {
+            packs.add(packInfo.getPack());
+        }
+        installData.setAvailablePacks(packs);
+        installData.getSelectedPacks().addAll(packs);
+
+        Prompt prompt = Mockito.mock(Prompt.class);
+        FileQueueFactory queue = new FileQueueFactory(Platforms.LINUX, Mockito.mock(Librarian.class));
+        PlatformModelMatcher matcher = new PlatformModelMatcher(new Platforms(), Platforms.LINUX);
+        Unpacker unpacker = new Unpacker(installData, new ConsolePackResources(resources, installData),
+                                         Mockito.mock(RulesEngine.class),
+                                         new VariableSubstitutorImpl(installData.getVariables()),
+                                         new UninstallData(), queue, Mockito.mock(Housekeeper.class),
+                                         new InstallerListeners(installData, prompt), prompt, matcher);
+        unpacker.setProgressListener(Mockito.mock(ProgressListener.class));
+        unpacker.unpack();
+        return unpacker.getResult();
+    }
+
+    /**
+     * Creates a new {@link Resources} that reads resources from an installer.
+     *
+     * @param installer the installer
+     * @return a new resource manager
+     * @throws IOException for any I/O error
+     */
+    private Resources createResources(File installer) throws IOException
+    {
+        URLClassLoader loader = new URLClassLoader(new URL[]{installer.toURI().toURL()}, getClass().getClassLoader());
+        return new ResourceManager(loader);
+    }
+
+    /**
+     * Reads the packs of an installer.
+     *
+     * @param resources the installer resources
+     * @return the packs
+     * @throws Exception for any error
+     */
+    @SuppressWarnings("unchecked")
+    private static List<PackInfo> getPacks(Resources resources) throws Exception
+    {
+        ObjectInputStream in = new ObjectInputStream(resources.getInputStream("packs.info"));
+        try
+        {
+            return (List<PackInfo>) in.readObject();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns a pack file given its name.
+     *
+     * @param packs the packs
+     * @param name  the file name
+     * @return the corresponding pack file
+     */
+    private static PackFile getPackFile(List<PackInfo> packs, String name)
+    {
+        for (PackInfo pack : packs)
+        {
+            for (PackFile file : pack.getPackFiles())
+            {
+                if (file.getTargetPath().equals("$INSTALL_PATH/" + name))
+                {
+                    return file;
+                }
+            }
+        }
+        throw new IllegalArgumentException("File not found: " + name);
+    }
+
+    /**
+     * Creates random file content.
+     *
+     * @param random the random number generator
+     * @return the content
+     */
+    private static byte[] createContent(Random random)
+    {
+        byte[] result = new byte[16384];
+        random.nextBytes(result);
+        return result;
+    }
+
+    /**
+     * Returns a copy of file content with a few bytes changed.
+     *
+     * @param content the content
+     * @return the edited content
+     */
+    private static byte[] edit(byte[] content)
+    {
+        byte[] result = content.clone();
+        for (int i = 1000; i < result.length; i += 5000)
+        {
+            result[i] = (byte) ~result[i];
+        }
+        return result;
+    }
+
+}
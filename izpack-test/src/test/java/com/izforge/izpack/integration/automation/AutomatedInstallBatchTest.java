@@ -0,0 +1,203 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.integration.automation;
+
+import static com.izforge.izpack.test.util.TestHelper.assertFileExists;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.compiler.container.TestAutomatedInstallationContainer;
+import com.izforge.izpack.installer.automation.AutomatedInstallBatch;
+import com.izforge.izpack.installer.automation.CachingResourceLoader;
+import com.izforge.izpack.integration.AbstractInstallationTest;
+import com.izforge.izpack.test.Container;
+import com.izforge.izpack.test.InstallFile;
+import com.izforge.izpack.test.junit.PicoRunner;
+
+
+/**
+ * Tests the {@link AutomatedInstallBatch}.
+ */
+@RunWith(PicoRunner.class)
+@Container(TestAutomatedInstallationContainer.class)
+public class AutomatedInstallBatchTest extends AbstractInstallationTest
+{
+
+    /**
+     * Constructs an {@code AutomatedInstallBatchTest}.
+     *
+     * @param installData the installation data
+     */
+    public AutomatedInstallBatchTest(AutomatedInstallData installData)
+    {
+        super(installData);
+    }
+
+    /**
+     * Verifies that two installations performed by a batch both succeed, and that the installer resources they
+     * share are only loaded once.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    @InstallFile("samples/basicInstall/basicInstall.xml")
+    public void testInstall() throws Exception
+    {
+        File first = new File(temporaryFolder.getRoot(), "first");
+        File second = new File(temporaryFolder.getRoot(), "second");
+        List<String> records = Arrays.asList(createRecord("first.xml", first), createRecord("second.xml", second));
+
+        CountingLoader parent = new CountingLoader(ClassLoader.getSystemClassLoader());
+        CachingResourceLoader loader = new CachingResourceLoader(parent, AutomatedInstallBatch.DEFAULT_CACHE_SIZE,
+                                                                 AutomatedInstallBatch.DEFAULT_ENTRY_SIZE);
+        AutomatedInstallBatch batch = new AutomatedInstallBatch(null, null, new String[0], loader);
+        List<AutomatedInstallBatch.Result> results = batch.install(records);
+
+        assertEquals(2, results.size());
+        for (AutomatedInstallBatch.Result result : results)
+        {
+            assertTrue(result.getPath(), result.isSuccess());
+        }
+        for (File dir : Arrays.asList(first, second))
+        {
+            assertFileExists(dir, "Licence.txt");
+            assertFileExists(dir, "Readme.txt");
+            assertFileExists(dir, "Uninstaller/uninstaller.jar");
+        }
+
+        for (String name : Arrays.asList("resources/packs.info", "resources/packs/pack-Base",
+                                         "resources/packs/pack-Docs", "resources/packs/pack-Sources"))
+        {
+            assertEquals(name, 1, parent.getCount(name));
+        }
+    }
+
+    /**
+     * Creates an installation record that installs to the specified directory.
+     *
+     * @param name        the record file name
+     * @param installPath the installation directory
+     * @return the record path
+     * @throws Exception for any error
+     */
+    private String createRecord(String name, File installPath) throws Exception
+    {
+        URL url = getClass().getResource("/samples/basicInstall/auto.xml");
+        String content = IOUtils.toString(url, "UTF-8").replaceAll(
+                "<installpath>.*</installpath>", "<installpath>" + installPath.getAbsolutePath() + "</installpath>");
+        File file = new File(temporaryFolder.getRoot(), name);
+        FileUtils.writeStringToFile(file, content, "UTF-8");
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * A class loader that counts the number of times each resource is read from its parent.
+     */
+    private static class CountingLoader extends ClassLoader
+    {
+
+        /**
+         * The number of times each resource has been read, keyed on name.
+         */
+        private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<String, AtomicInteger>();
+
+        /**
+         * Constructs a {@code CountingLoader}.
+         *
+         * @param parent the loader to load resources from
+         */
+        public CountingLoader(ClassLoader parent)
+        {
+            super(parent);
+        }
+
+        /**
+         * Returns the number of times a resource has been read.
+         *
+         * @param name the resource name
+         * @return the number of times the resource has been read
+         */
+        public int getCount(String name)
+        {
+            AtomicInteger count = counts.get(name);
+            return (count != null) ? count.get() : 0;
+        }
+
+        /**
+         * Returns a URL to a resource, that counts the connections made to it.
+         *
+         * @param name the resource name
+         * @return the URL, or {@code null} if the resource cannot be found
+         */
+        @Override
+        public URL getResource(final String name)
+        {
+            final URL url = super.getResource(name);
+            if (url == null)
+            {
+                return null;
+            }
+            try
+            {
+                return new URL(null, url.toExternalForm(), new URLStreamHandler()
+                {
+                    @Override
+                    protected URLConnection openConnection(URL ignore) throws IOException
+                    {
+                        synchronized (counts)
+                        {
+                            AtomicInteger count = counts.get(name);
+                            if (count == null)
+                            {
+                                count = new AtomicInteger();
+                                counts.put(name, count);
+                            }
+                            count.incrementAndGet();
+                        }
+                        return url.openConnection();
+                    }
+                });
+            }
+            catch (MalformedURLException exception)
+            {
+                throw new IllegalStateException(exception);
+            }
+        }
+    }
+
+}
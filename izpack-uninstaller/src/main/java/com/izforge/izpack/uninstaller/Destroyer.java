@@ -26,6 +26,13 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -86,6 +93,21 @@ public class Destroyer implements Runnable
      */
     private List<File> failed = new ArrayList<File>();
 
+    /**
+     * The no. of consecutive files deleted by each thread when deleting concurrently.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * The maximum no. of threads used to delete files.
+     */
+    private static final int MAX_THREADS = 8;
+
+    /**
+     * The no. of files between progress notifications.
+     */
+    private static final int PROGRESS_INTERVAL = 64;
+
     /**
      * The logger.
      */
@@ -195,18 +217,15 @@ public class Destroyer implements Runnable
             listener.startAction("destroy", size);
         }
 
-        for (int i = 0; i < size; i++)
+        // files that couldn't be deleted. Only these need to be checked once cleanup is complete
+        List<File> undeleted;
+        if (listeners.hasFileListeners() || size <= CHUNK_SIZE)
         {
-            File file = files.get(i);
-            listeners.beforeDelete(file, listener);
-
-            delete(file);
-
-            listeners.afterDelete(file, listener);
-            if (listener != null)
-            {
-                listener.progress(i, file.getAbsolutePath());
-            }
+            undeleted = deleteSequentially(files);
+        }
+        else
+        {
+            undeleted = deleteConcurrently(files);
         }
 
         listeners.afterDeletion(files, listener);
@@ -216,14 +235,14 @@ public class Destroyer implements Runnable
         // We make a complementary cleanup
         if (listener != null)
         {
-            listener.progress(log.getInstalled().size(), "[ cleanups ]");
+            listener.progress(size, "[ cleanups ]");
         }
 
         File installPath = new File(log.getInstallPath());
         cleanup(installPath);
 
         // verify that the files no longer exist. Check this here, as the root scripts may have performed cleanup.
-        checkDeletion(files, installPath);
+        checkDeletion(undeleted, installPath);
 
         if (listener != null)
         {
@@ -231,10 +250,162 @@ public class Destroyer implements Runnable
         }
     }
 
+    /**
+     * Deletes files in order, notifying file listeners before and after each deletion.
+     *
+     * @param files the files to delete, in leaf first order
+     * @return the files that couldn't be deleted
+     */
+    private List<File> deleteSequentially(List<File> files)
+    {
+        List<File> undeleted = new ArrayList<File>();
+        int size = files.size();
+        for (int i = 0; i < size; i++)
+        {
+            File file = files.get(i);
+            listeners.beforeDelete(file, listener);
+
+            if (!delete(file))
+            {
+                undeleted.add(file);
+            }
+
+            listeners.afterDelete(file, listener);
+            if (listener != null && (i % PROGRESS_INTERVAL == 0 || i == size - 1))
+            {
+                listener.progress(i, file.getAbsolutePath());
+            }
+        }
+        return undeleted;
+    }
+
+    /**
+     * Deletes files concurrently.
+     * <p/>
+     * The files are split into chunks of consecutive files which are deleted by a bounded pool of threads. As the
+     * files are sorted leaf first, each chunk mostly contains whole directories. A directory can't be deleted while
+     * a file in another chunk remains. In that case its deletion is deferred until all chunks are complete, and
+     * the deferred directories are then deleted in leaf first order.
+     * <p/>
+     * This must only be used if there are no file listeners, as the listeners would be invoked out of order.
+     *
+     * @param installed the files to delete, in leaf first order
+     * @return the files that couldn't be deleted
+     * @throws Exception if deletion fails
+     */
+    private List<File> deleteConcurrently(List<File> installed) throws Exception
+    {
+        // copy the files, as the installed list serialises access
+        final List<File> files = new ArrayList<File>(installed);
+        final int size = files.size();
+        final AtomicInteger deleted = new AtomicInteger();
+        List<Callable<List<File>>> chunks = new ArrayList<Callable<List<File>>>();
+        for (int start = 0; start < size; start += CHUNK_SIZE)
+        {
+            final int from = start;
+            final int to = Math.min(start + CHUNK_SIZE, size);
+            chunks.add(new Callable<List<File>>()
+            {
+                @Override
+                public List<File> call()
+                {
+                    List<File> deferred = new ArrayList<File>();
+                    for (int i = from; i < to; ++i)
+                    {
+                        // directories may still contain files being deleted by other threads, so defer these
+                        // quietly rather than reporting them as failures
+                        File file = files.get(i);
+                        if (!file.delete() && file.exists())
+                        {
+                            deferred.add(file);
+                        }
+                        progress(deleted.incrementAndGet(), size, file);
+                    }
+                    return deferred;
+                }
+            });
+        }
+
+        int threads = Math.min(chunks.size(), MAX_THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "Destroyer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        List<File> undeleted = new ArrayList<File>();
+        try
+        {
+            // the futures are in chunk order, so the deferred files remain in leaf first order
+            for (Future<List<File>> future : executor.invokeAll(chunks))
+            {
+                for (File file : getResult(future))
+                {
+                    if (!delete(file))
+                    {
+                        undeleted.add(file);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return undeleted;
+    }
+
+    /**
+     * Returns the result of a deletion task.
+     *
+     * @param future the task future
+     * @return the files the task couldn't delete
+     * @throws Exception if the task failed
+     */
+    private List<File> getResult(Future<List<File>> future) throws Exception
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException exception)
+        {
+            Throwable cause = exception.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : exception;
+        }
+    }
+
+    /**
+     * Notifies the progress listener of concurrent deletion progress.
+     * <p/>
+     * Notifications are limited to one every {@link #PROGRESS_INTERVAL} files, and are serialised so that listeners
+     * need not be thread safe.
+     *
+     * @param deleted the number of files processed so far
+     * @param size    the total number of files
+     * @param file    the last file processed
+     */
+    private void progress(int deleted, int size, File file)
+    {
+        if (listener != null && (deleted % PROGRESS_INTERVAL == 0 || deleted == size))
+        {
+            synchronized (this)
+            {
+                listener.progress(deleted - 1, file.getAbsolutePath());
+            }
+        }
+    }
+
     /**
      * Verifies that the installed files have been deleted.
      *
-     * @param files       the files to check
+     * @param files       the files that couldn't be deleted earlier
      * @param installPath the installation path
      */
     private void checkDeletion(List<File> files, File installPath)
@@ -282,13 +453,17 @@ public class Destroyer implements Runnable
      * Deletes a file.
      *
      * @param file the file to delete
+     * @return {@code true} if the file was deleted or doesn't exist, otherwise {@code false}
      */
-    private void delete(File file)
+    private boolean delete(File file)
     {
-        if (file.exists() && !file.delete())
+        // try the deletion first, as the file normally exists
+        if (!file.delete() && file.exists())
         {
             logger.info("Failed to delete: " + file);
+            return false;
         }
+        return true;
     }
 
 }
@@ -80,6 +80,16 @@ public class UninstallerListeners
         }
     }
 
+    /**
+     * Determines if any listener is interested in individual file deletions.
+     *
+     * @return {@code true} if there is at least one file listener
+     */
+    public boolean hasFileListeners()
+    {
+        return fileListener;
+    }
+
     /**
      * Initialises the listeners.
      *
@@ -23,9 +23,12 @@ package com.izforge.izpack.uninstaller.resource;
 
 import com.izforge.izpack.api.exception.IzPackException;
 import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.installer.data.UninstallDataWriter;
+import com.izforge.izpack.util.FrontCodedStringList;
 import org.apache.commons.io.IOUtils;
 
 import java.io.*;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -157,6 +160,9 @@ public class InstallLog
 
     /**
      * Returns the installed files, in leaf first order.
+     * <p/>
+     * Logs written by {@link UninstallDataWriter} are already sorted, and their paths are kept front coded, with
+     * {@link File} instances being created on access. Older logs are sorted here.
      *
      * @param reader the <em>install.log</em> reader
      * @return the installed files
@@ -164,8 +170,28 @@ public class InstallLog
      */
     private List<File> getFiles(BufferedReader reader) throws IOException
     {
-        TreeSet<File> files = new TreeSet<File>(Collections.reverseOrder());
         String read = reader.readLine();
+        if (UninstallDataWriter.FRONT_CODED_FILES_LOG.equals(read))
+        {
+            final FrontCodedStringList paths = new FrontCodedStringList();
+            paths.read(reader);
+            return new AbstractList<File>()
+            {
+                @Override
+                public File get(int index)
+                {
+                    return new File(paths.get(index));
+                }
+
+                @Override
+                public int size()
+                {
+                    return paths.size();
+                }
+            };
+        }
+
+        TreeSet<File> files = new TreeSet<File>(Collections.reverseOrder());
         while (read != null)
         {
             files.add(new File(read));
@@ -176,5 +202,4 @@ public class InstallLog
         return new ArrayList<File>(files);
     }
 
-
 }
@@ -0,0 +1,159 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.uninstaller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.api.event.UninstallerListener;
+import com.izforge.izpack.api.handler.Prompt;
+import com.izforge.izpack.uninstaller.event.UninstallerListeners;
+import com.izforge.izpack.uninstaller.resource.Executables;
+import com.izforge.izpack.uninstaller.resource.InstallLog;
+import com.izforge.izpack.uninstaller.resource.RootScripts;
+
+
+/**
+ * Tests the {@link Destroyer} class.
+ */
+public class DestroyerTest
+{
+
+    /**
+     * Temporary folder to install files to.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The installation directory.
+     */
+    private File installPath;
+
+    /**
+     * The installed files, in leaf first order.
+     */
+    private List<File> installed;
+
+    /**
+     * The installation log.
+     */
+    private InstallLog log;
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        installPath = temporaryFolder.newFolder("myapp");
+        installed = new ArrayList<File>();
+        installed.add(installPath);
+        for (int i = 0; i < 20; ++i)
+        {
+            File dir = new File(installPath, "dir" + i);
+            installed.add(dir);
+            for (int j = 0; j < 50; ++j)
+            {
+                File file = new File(dir, "file" + j);
+                FileUtils.touch(file);
+                installed.add(file);
+            }
+        }
+        Collections.sort(installed, Collections.reverseOrder());
+
+        log = Mockito.mock(InstallLog.class);
+        when(log.getInstallPath()).thenReturn(installPath.getPath());
+        when(log.getInstalled()).thenReturn(installed);
+    }
+
+    /**
+     * Verifies that files are deleted concurrently when there are no file listeners.
+     */
+    @Test
+    public void testConcurrentDelete()
+    {
+        Destroyer destroyer = createDestroyer(new UninstallerListeners(Mockito.mock(Prompt.class)));
+        destroyer.run();
+
+        assertFalse(installPath.exists());
+        assertTrue(destroyer.getFailedToDelete().isEmpty());
+    }
+
+    /**
+     * Verifies that files are deleted in order when there is a file listener.
+     */
+    @Test
+    public void testSequentialDelete()
+    {
+        final List<File> deleted = new ArrayList<File>();
+        UninstallerListener listener = Mockito.mock(UninstallerListener.class);
+        when(listener.isFileListener()).thenReturn(true);
+        UninstallerListeners listeners = new UninstallerListeners(Mockito.mock(Prompt.class))
+        {
+            @Override
+            public void afterDelete(File file, ProgressListener progress)
+            {
+                deleted.add(file);
+            }
+        };
+        listeners.add(listener);
+
+        Destroyer destroyer = createDestroyer(listeners);
+        destroyer.run();
+
+        assertFalse(installPath.exists());
+        assertTrue(destroyer.getFailedToDelete().isEmpty());
+        assertEquals(installed, deleted);
+    }
+
+    /**
+     * Creates a new destroyer.
+     *
+     * @param listeners the uninstaller listeners
+     * @return a new destroyer
+     */
+    private Destroyer createDestroyer(UninstallerListeners listeners)
+    {
+        Executables executables = Mockito.mock(Executables.class);
+        when(executables.run()).thenReturn(true);
+        return new Destroyer(log, listeners, executables, Mockito.mock(RootScripts.class),
+                             Mockito.mock(Prompt.class));
+    }
+
+}
@@ -104,4 +104,29 @@ public class InstallLogTest
         assertEquals(new File("myapp/dir1"), installed.get(3));
     }
 
+    /**
+     * Tests reading an <em>install.log</em> whose files are front coded.
+     */
+    @Test
+    public void testFrontCoded()
+    {
+        String installLog = "myapp\n"
+                + "#front-coded\n"
+                + "0 myapp/dir2/file1\n"
+                + "11 dir3/file2\n"
+                + "15\n"
+                + "0 myapp/dir1\n";
+        when(resources.getInputStream("install.log")).thenReturn(new ReaderInputStream(new StringReader(installLog)));
+
+        InstallLog log = new InstallLog(resources);
+        assertEquals("myapp", log.getInstallPath());
+
+        List<File> installed = log.getInstalled();
+        assertEquals(4, installed.size());
+        assertEquals(new File("myapp/dir2/file1"), installed.get(0));
+        assertEquals(new File("myapp/dir2/dir3/file2"), installed.get(1));
+        assertEquals(new File("myapp/dir2/dir3"), installed.get(2));
+        assertEquals(new File("myapp/dir1"), installed.get(3));
+    }
+
 }
@@ -36,6 +36,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.handler.AbstractUIHandler;
+import com.izforge.izpack.api.metrics.InstallMetrics;
+import com.izforge.izpack.api.metrics.PhaseTimer;
 import com.izforge.izpack.api.data.ExecutableFile;
 
 /**
@@ -196,20 +198,26 @@ public class FileExecutor
      */
     public int executeCommand(String[] params, String[] output, String dir)
     {
-        StringBuilder retval = new StringBuilder();
-        retval.append("executeCommand\n");
-        if (params != null)
+        boolean fine = logger.isLoggable(Level.FINE);
+        if (fine)
         {
-            for (String param : params)
+            StringBuilder retval = new StringBuilder();
+            retval.append("executeCommand\n");
+            if (params != null)
             {
-                retval.append("\tparams: ").append(param);
-                retval.append("\n");
+                for (String param : params)
+                {
+                    retval.append("\tparams: ").append(param);
+                    retval.append("\n");
+                }
             }
+            if (dir != null)
+            {
+                retval.append("working dir: ").append(dir).append("\n");
+            }
+            logger.fine(retval.toString());
         }
-        if (dir != null)
-        {
-            retval.append("working dir: ").append(dir).append("\n");
-        }
+        PhaseTimer timer = InstallMetrics.getMetrics().start("execute.command");
         Process process = null;
         MonitorInputStream outMonitor = null;
         MonitorInputStream errMonitor = null;
@@ -217,8 +225,6 @@ public class FileExecutor
         Thread errMonitorThread = null;
         int exitStatus = -1;
 
-        logger.fine(retval.toString());
-
         try
         {
             // Resolve ".." and "." in paths which otherwise couldn't be found
@@ -260,12 +266,15 @@ public class FileExecutor
 
             // save command output
             output[0] = outWriter.toString();
-            logger.fine("stdout:");
-            logger.fine(output[0]);
             output[1] = errWriter.toString();
-            logger.fine("stderr:");
-            logger.fine(output[1]);
-            logger.fine("exit status: " + Integer.toString(exitStatus));
+            if (fine)
+            {
+                logger.fine("stdout:");
+                logger.fine(output[0]);
+                logger.fine("stderr:");
+                logger.fine(output[1]);
+                logger.fine("exit status: " + Integer.toString(exitStatus));
+            }
         }
         catch (InterruptedException e)
         {
@@ -290,6 +299,7 @@ public class FileExecutor
             {
                 process.destroy();
             }
+            timer.stop();
         }
         return exitStatus;
     }
@@ -310,127 +320,138 @@ public class FileExecutor
         // ? "a+x" : "u+x";
         String permissions = "a+x";
         boolean isUnix = matcher.getCurrentPlatform().isA(UNIX);
+        PhaseTimer timer = InstallMetrics.getMetrics().start("execute.files");
 
-        // loop through all executables
-        Iterator<ExecutableFile> efileIterator = this.files.iterator();
-        while (exitStatus == 0 && efileIterator.hasNext())
+        try
         {
-            ExecutableFile efile = efileIterator.next();
-            boolean deleteAfterwards = !efile.keepFile;
-            File file = new File(efile.path);
-
-            logger.fine("Handling executable file " + efile + "...");
-
-            // skip file if not for current OS (it might not have been installed
-            // at all)
-            if (!matcher.matchesCurrentPlatform(efile.osList))
+            // loop through all executables
+            Iterator<ExecutableFile> efileIterator = this.files.iterator();
+            while (exitStatus == 0 && efileIterator.hasNext())
             {
-                continue;
-            }
+                ExecutableFile efile = efileIterator.next();
+                boolean deleteAfterwards = !efile.keepFile;
+                File file = new File(efile.path);
 
-            if (ExecutableFile.BIN == efile.type && currentStage != ExecutableFile.UNINSTALL && isUnix)
-            {
-                // fix executable permission for unix systems
-                logger.fine("Making file executable (setting executable flag)");
-                String[] params = {"/bin/chmod", permissions, file.toString()};
-                exitStatus = executeCommand(params, output);
-                if (exitStatus != 0)
+                if (logger.isLoggable(Level.FINE))
                 {
-                    handler.emitWarning("file execution error", "Error executing \n" + params[0]
-                            + " " + params[1] + " " + params[2]);
-                    continue;
+                    logger.fine("Handling executable file " + efile + "...");
                 }
-            }
 
-            // execute command in POSTINSTALL stage
-            if (currentStage == ExecutableFile.POSTINSTALL && efile.executionStage == ExecutableFile.POSTINSTALL || currentStage == ExecutableFile.UNINSTALL && efile.executionStage == ExecutableFile.UNINSTALL)
-            {
-                List<String> paramList = new ArrayList<String>();
-                if (ExecutableFile.BIN == efile.type)
-                {
-                    paramList.add(file.toString());
-                }
-                else if (ExecutableFile.JAR == efile.type && null == efile.mainClass)
+                // skip file if not for current OS (it might not have been installed
+                // at all)
+                if (!matcher.matchesCurrentPlatform(efile.osList))
                 {
-                    paramList.add(System.getProperty("java.home") + "/bin/java");
-                    paramList.add("-jar");
-                    paramList.add(file.toString());
+                    continue;
                 }
-                else if (ExecutableFile.JAR == efile.type && null != efile.mainClass)
+
+                if (ExecutableFile.BIN == efile.type && currentStage != ExecutableFile.UNINSTALL && isUnix)
                 {
-                    paramList.add(System.getProperty("java.home") + "/bin/java");
-                    paramList.add("-cp");
-                    try
-                    {
-                        paramList.add(buildClassPath(file.toString()));
-                    }
-                    catch (Exception e)
+                    // fix executable permission for unix systems
+                    logger.fine("Making file executable (setting executable flag)");
+                    String[] params = {"/bin/chmod", permissions, file.toString()};
+                    exitStatus = executeCommand(params, output);
+                    if (exitStatus != 0)
                     {
-                        logger.log(Level.WARNING, e.getMessage(), e);
+                        handler.emitWarning("file execution error", "Error executing \n" + params[0]
+                                + " " + params[1] + " " + params[2]);
+                        continue;
                     }
-                    paramList.add(efile.mainClass);
                 }
 
-                if (null != efile.argList && !efile.argList.isEmpty())
+                // execute command in POSTINSTALL stage
+                if (currentStage == ExecutableFile.POSTINSTALL && efile.executionStage == ExecutableFile.POSTINSTALL || currentStage == ExecutableFile.UNINSTALL && efile.executionStage == ExecutableFile.UNINSTALL)
                 {
-                    paramList.addAll(efile.argList);
-                }
-
-                String[] params = new String[paramList.size()];
-                for (int i = 0; i < paramList.size(); i++)
-                {
-                    params[i] = paramList.get(i);
-                }
-
-                exitStatus = executeCommand(params, output);
-
-                // bring a dialog depending on return code and failure handling
-                if (exitStatus != 0)
-                {
-                    deleteAfterwards = false;
-                    String message = output[0] + "\n" + output[1];
-                    if (message.length() == 1)
+                    List<String> paramList = new ArrayList<String>();
+                    if (ExecutableFile.BIN == efile.type)
                     {
-                        message = "Failed to execute " + file.toString() + ".";
+                        paramList.add(file.toString());
                     }
-
-                    if (efile.onFailure == ExecutableFile.ABORT)
+                    else if (ExecutableFile.JAR == efile.type && null == efile.mainClass)
                     {
-                        handler.emitError("File execution returned " + exitStatus, message);
+                        paramList.add(System.getProperty("java.home") + "/bin/java");
+                        paramList.add("-jar");
+                        paramList.add(file.toString());
                     }
-                    else if (efile.onFailure == ExecutableFile.WARN)
+                    else if (ExecutableFile.JAR == efile.type && null != efile.mainClass)
                     {
-                        handler.emitWarning("File execution returned " + exitStatus, message);
-                        exitStatus = 0;
+                        paramList.add(System.getProperty("java.home") + "/bin/java");
+                        paramList.add("-cp");
+                        try
+                        {
+                            paramList.add(buildClassPath(file.toString()));
+                        }
+                        catch (Exception e)
+                        {
+                            logger.log(Level.WARNING, e.getMessage(), e);
+                        }
+                        paramList.add(efile.mainClass);
                     }
-                    else if (efile.onFailure == ExecutableFile.IGNORE)
+
+                    if (null != efile.argList && !efile.argList.isEmpty())
+                    {
+                        paramList.addAll(efile.argList);
+                    }
+
+                    String[] params = new String[paramList.size()];
+                    for (int i = 0; i < paramList.size(); i++)
                     {
-                        // do nothing
-                        exitStatus = 0;
+                        params[i] = paramList.get(i);
                     }
-                    else
+
+                    exitStatus = executeCommand(params, output);
+
+                    // bring a dialog depending on return code and failure handling
+                    if (exitStatus != 0)
                     {
-                        if (handler
-                                .askQuestion("Execution Failed", message + "\nContinue Installation?",
-                                             AbstractUIHandler.CHOICES_YES_NO) == AbstractUIHandler.ANSWER_YES)
+                        deleteAfterwards = false;
+                        String message = output[0] + "\n" + output[1];
+                        if (message.length() == 1)
+                        {
+                            message = "Failed to execute " + file.toString() + ".";
+                        }
+
+                        if (efile.onFailure == ExecutableFile.ABORT)
+                        {
+                            handler.emitError("File execution returned " + exitStatus, message);
+                        }
+                        else if (efile.onFailure == ExecutableFile.WARN)
                         {
+                            handler.emitWarning("File execution returned " + exitStatus, message);
                             exitStatus = 0;
                         }
+                        else if (efile.onFailure == ExecutableFile.IGNORE)
+                        {
+                            // do nothing
+                            exitStatus = 0;
+                        }
+                        else
+                        {
+                            if (handler
+                                    .askQuestion("Execution Failed", message + "\nContinue Installation?",
+                                                 AbstractUIHandler.CHOICES_YES_NO) == AbstractUIHandler.ANSWER_YES)
+                            {
+                                exitStatus = 0;
+                            }
+                        }
+
                     }
 
                 }
 
-            }
-
-            // POSTINSTALL executables will be deleted
-            if (efile.executionStage == ExecutableFile.POSTINSTALL && deleteAfterwards)
-            {
-                if (file.canWrite())
+                // POSTINSTALL executables will be deleted
+                if (efile.executionStage == ExecutableFile.POSTINSTALL && deleteAfterwards)
                 {
-                    file.delete();
+                    if (file.canWrite())
+                    {
+                        file.delete();
+                    }
                 }
-            }
 
+            }
+        }
+        finally
+        {
+            timer.stop();
         }
         return exitStatus;
     }
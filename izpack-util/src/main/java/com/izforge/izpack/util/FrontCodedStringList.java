@@ -0,0 +1,341 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+
+/**
+ * An append-only list of strings that stores each string as the length of the prefix it shares with its
+ * predecessor, followed by the remaining characters.
+ * <p/>
+ * This suits lists of file paths, where consecutive entries typically share most of their characters. Every
+ * {@link #RESTART_INTERVAL}th string is stored in full, so that random access only needs to decode from the
+ * nearest such string. Sequential access, including iteration, decodes each string once.
+ * <p/>
+ * The list can be written to, and read from, a line based text form where each line contains the shared prefix
+ * length, a space, and the remaining characters. Strings containing line terminators are not supported by the
+ * text form.
+ * <p/>
+ * This class is thread safe.
+ */
+public class FrontCodedStringList extends AbstractList<String> implements RandomAccess
+{
+
+    /**
+     * The number of strings between those stored in full.
+     */
+    public static final int RESTART_INTERVAL = 32;
+
+    /**
+     * The encoded strings.
+     */
+    private byte[] data = new byte[1024];
+
+    /**
+     * The number of bytes used in {@link #data}.
+     */
+    private int length;
+
+    /**
+     * The number of strings.
+     */
+    private int size;
+
+    /**
+     * The offsets of the strings stored in full.
+     */
+    private int[] restarts = new int[16];
+
+    /**
+     * The characters of the last string added.
+     */
+    private char[] last = new char[256];
+
+    /**
+     * The length of the last string added.
+     */
+    private int lastLength;
+
+    /**
+     * The index of the string most recently decoded by {@link #get(int)}, or {@code -1} if none has been decoded.
+     */
+    private int cursor = -1;
+
+    /**
+     * The offset of the string following the {@link #cursor}.
+     */
+    private int cursorOffset;
+
+    /**
+     * The characters of the string at the {@link #cursor}.
+     */
+    private char[] cursorChars = new char[256];
+
+    /**
+     * The length of the string at the {@link #cursor}.
+     */
+    private int cursorLength;
+
+    /**
+     * Appends a string.
+     *
+     * @param value the string to append
+     * @return {@code true}
+     * @throws NullPointerException if the string is {@code null}
+     */
+    @Override
+    public synchronized boolean add(String value)
+    {
+        int shared = 0;
+        if (size % RESTART_INTERVAL == 0)
+        {
+            if (size / RESTART_INTERVAL == restarts.length)
+            {
+                restarts = Arrays.copyOf(restarts, restarts.length * 2);
+            }
+            restarts[size / RESTART_INTERVAL] = length;
+        }
+        else
+        {
+            int max = Math.min(lastLength, value.length());
+            while (shared < max && last[shared] == value.charAt(shared))
+            {
+                ++shared;
+            }
+        }
+        int suffix = value.length() - shared;
+        ensureCapacity(10 + suffix * 3);
+        writeInt(shared);
+        writeInt(suffix);
+        if (last.length < value.length())
+        {
+            last = Arrays.copyOf(last, Math.max(value.length(), last.length * 2));
+        }
+        for (int i = shared; i < value.length(); ++i)
+        {
+            char ch = value.charAt(i);
+            writeInt(ch);
+            last[i] = ch;
+        }
+        lastLength = value.length();
+        ++size;
+        ++modCount;
+        return true;
+    }
+
+    /**
+     * Returns the string at the specified index.
+     *
+     * @param index the index
+     * @return the string
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public synchronized String get(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (cursor == -1 || index < cursor
+                || (index / RESTART_INTERVAL != cursor / RESTART_INTERVAL && index != cursor + 1))
+        {
+            // seek to the nearest string stored in full
+            int block = index / RESTART_INTERVAL;
+            cursor = block * RESTART_INTERVAL - 1;
+            cursorOffset = restarts[block];
+            cursorLength = 0;
+        }
+        while (cursor < index)
+        {
+            decodeNext();
+        }
+        return new String(cursorChars, 0, cursorLength);
+    }
+
+    /**
+     * Returns the number of strings.
+     *
+     * @return the number of strings
+     */
+    @Override
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes used to store the strings.
+     *
+     * @return the number of bytes
+     */
+    public synchronized int getEncodedLength()
+    {
+        return length;
+    }
+
+    /**
+     * Writes the strings in text form, one per line.
+     *
+     * @param writer the writer to write to
+     * @throws IOException for any I/O error
+     */
+    public synchronized void write(Writer writer) throws IOException
+    {
+        int offset = 0;
+        int[] position = new int[1];
+        for (int i = 0; i < size; ++i)
+        {
+            position[0] = offset;
+            int shared = readInt(position);
+            int suffix = readInt(position);
+            writer.write(Integer.toString(shared));
+            writer.write(' ');
+            for (int j = 0; j < suffix; ++j)
+            {
+                writer.write(readInt(position));
+            }
+            writer.write('\n');
+            offset = position[0];
+        }
+    }
+
+    /**
+     * Reads strings in the form written by {@link #write(Writer)}, appending them to this list.
+     * <p/>
+     * Reading stops at the end of the stream. Empty lines are ignored.
+     *
+     * @param reader the reader to read from
+     * @throws IOException for any I/O error, or if a line is invalid
+     */
+    public synchronized void read(BufferedReader reader) throws IOException
+    {
+        String line;
+        String previous = "";
+        while ((line = reader.readLine()) != null)
+        {
+            if (line.length() != 0)
+            {
+                int space = line.indexOf(' ');
+                if (space == -1)
+                {
+                    // the separator may have been stripped from lines with no suffix
+                    space = line.length();
+                }
+                int shared;
+                try
+                {
+                    shared = Integer.parseInt(line.substring(0, space));
+                }
+                catch (NumberFormatException exception)
+                {
+                    shared = -1;
+                }
+                if (shared < 0 || shared > previous.length())
+                {
+                    throw new IOException("Invalid front coded string: " + line);
+                }
+                previous = previous.substring(0, shared) + line.substring(Math.min(space + 1, line.length()));
+                add(previous);
+            }
+        }
+    }
+
+    /**
+     * Decodes the string following the {@link #cursor}.
+     */
+    private void decodeNext()
+    {
+        int[] position = {cursorOffset};
+        int shared = readInt(position);
+        int suffix = readInt(position);
+        int total = shared + suffix;
+        if (cursorChars.length < total)
+        {
+            cursorChars = Arrays.copyOf(cursorChars, Math.max(total, cursorChars.length * 2));
+        }
+        for (int i = shared; i < total; ++i)
+        {
+            cursorChars[i] = (char) readInt(position);
+        }
+        cursorLength = total;
+        cursorOffset = position[0];
+        ++cursor;
+    }
+
+    /**
+     * Ensures there is space to append the specified number of bytes.
+     *
+     * @param bytes the number of bytes
+     */
+    private void ensureCapacity(int bytes)
+    {
+        if (length + bytes > data.length)
+        {
+            data = Arrays.copyOf(data, Math.max(length + bytes, data.length * 2));
+        }
+    }
+
+    /**
+     * Appends a non-negative integer, using 7 bits per byte.
+     *
+     * @param value the value to append
+     */
+    private void writeInt(int value)
+    {
+        while (value >= 0x80)
+        {
+            data[length++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    /**
+     * Reads an integer written by {@link #writeInt(int)}.
+     *
+     * @param position the position to read from. This is updated to the position following the integer
+     * @return the integer
+     */
+    private int readInt(int[] position)
+    {
+        int offset = position[0];
+        int result = 0;
+        int shift = 0;
+        byte b;
+        do
+        {
+            b = data[offset++];
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        position[0] = offset;
+        return result;
+    }
+
+}
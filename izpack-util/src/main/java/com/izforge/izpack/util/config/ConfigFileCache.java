@@ -0,0 +1,366 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.io.IOUtils;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import com.izforge.izpack.api.config.Config;
+import com.izforge.izpack.api.config.Ini;
+import com.izforge.izpack.api.config.Options;
+import com.izforge.izpack.api.metrics.InstallMetrics;
+
+
+/**
+ * Caches parsed configuration files, so that values read from the same file, or the same archive entry, don't
+ * parse it again.
+ * <p/>
+ * A cached configuration is discarded when the modification time or size of its file changes, or when the file is
+ * {@link #invalidate(File) invalidated} after being written by the installer.
+ * <p/>
+ * Cached configurations are shared, and must not be modified. Documents must be synchronized on while they are
+ * read, as DOM implementations aren't thread safe.
+ */
+public class ConfigFileCache
+{
+
+    /**
+     * The shared instance.
+     */
+    private static final ConfigFileCache INSTANCE = new ConfigFileCache();
+
+    /**
+     * The cached configurations, keyed on absolute file path.
+     */
+    private final Map<String, Source> sources = new HashMap<String, Source>();
+
+    /**
+     * The number of configurations parsed.
+     */
+    private long parses;
+
+    /**
+     * The number of times a cached configuration was used instead of parsing it.
+     */
+    private long hits;
+
+
+    /**
+     * Returns the shared instance.
+     *
+     * @return the shared cache
+     */
+    public static ConfigFileCache getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a properties file.
+     *
+     * @param file   the file, or the archive containing it
+     * @param entry  the archive entry, or {@code null} if {@code file} is the properties file
+     * @param escape determines if values are unescaped
+     * @return the parsed properties
+     * @throws IOException for any I/O error
+     */
+    public synchronized Options getOptions(File file, String entry, boolean escape) throws IOException
+    {
+        String key = "options:" + escape + ":" + entry;
+        Source source = getSource(file);
+        Options result = (Options) source.get(key);
+        if (result == null)
+        {
+            Config config = Config.getGlobal().clone();
+            config.setEscape(escape);
+            result = new Options(config);
+            InputStream in = open(file, entry);
+            try
+            {
+                result.load(in);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(in);
+            }
+            source.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an INI file.
+     *
+     * @param file   the file, or the archive containing it
+     * @param entry  the archive entry, or {@code null} if {@code file} is the INI file
+     * @param escape determines if values are unescaped
+     * @return the parsed INI file
+     * @throws IOException for any I/O error
+     */
+    public synchronized Ini getIni(File file, String entry, boolean escape) throws IOException
+    {
+        String key = "ini:" + escape + ":" + entry;
+        Source source = getSource(file);
+        Ini result = (Ini) source.get(key);
+        if (result == null)
+        {
+            Config config = Config.getGlobal().clone();
+            config.setEscape(escape);
+            result = new Ini(config);
+            InputStream in = open(file, entry);
+            try
+            {
+                result.load(in);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(in);
+            }
+            source.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an XML document.
+     *
+     * @param file  the file, or the archive containing it
+     * @param entry the archive entry, or {@code null} if {@code file} is the XML file
+     * @return the parsed, namespace aware, document
+     * @throws IOException  for any I/O error
+     * @throws SAXException if the document cannot be parsed
+     */
+    public synchronized Document getDocument(File file, String entry) throws IOException, SAXException
+    {
+        String key = "xml:" + entry;
+        Source source = getSource(file);
+        Document result = (Document) source.get(key);
+        if (result == null)
+        {
+            DocumentBuilder builder;
+            try
+            {
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setNamespaceAware(true);
+                builder = factory.newDocumentBuilder();
+            }
+            catch (ParserConfigurationException exception)
+            {
+                throw new IOException(exception);
+            }
+            InputStream in = open(file, entry);
+            try
+            {
+                result = builder.parse(in);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(in);
+            }
+            source.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Discards the cached configurations read from a file.
+     * <p/>
+     * This must be invoked when the installer writes a file, as a file rewritten within the resolution of its
+     * file system's timestamps may keep its modification time and size.
+     *
+     * @param file the file
+     */
+    public synchronized void invalidate(File file)
+    {
+        if (!sources.isEmpty())
+        {
+            sources.remove(file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Discards all cached configurations.
+     */
+    public synchronized void clear()
+    {
+        sources.clear();
+    }
+
+    /**
+     * Returns the number of configurations parsed.
+     *
+     * @return the number of configurations parsed
+     */
+    public synchronized long getParses()
+    {
+        return parses;
+    }
+
+    /**
+     * Returns the number of times a cached configuration was used instead of parsing it.
+     *
+     * @return the number of parses saved
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Returns the cached configurations of a file, discarding them if the file has changed.
+     *
+     * @param file the file
+     * @return the cached configurations
+     */
+    private Source getSource(File file)
+    {
+        String path = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        Source result = sources.get(path);
+        if (result == null || result.lastModified != lastModified || result.length != length)
+        {
+            result = new Source(lastModified, length);
+            sources.put(path, result);
+        }
+        return result;
+    }
+
+    /**
+     * Opens a file, or an archive entry.
+     *
+     * @param file  the file, or the archive containing the entry
+     * @param entry the archive entry. May be {@code null}
+     * @return a stream to the file or entry. Closing it closes the archive
+     * @throws IOException for any I/O error
+     */
+    private static InputStream open(File file, String entry) throws IOException
+    {
+        if (entry == null)
+        {
+            return new FileInputStream(file);
+        }
+        final ZipFile zip;
+        try
+        {
+            zip = new ZipFile(file);
+        }
+        catch (ZipException exception)
+        {
+            throw new IOException("Error opening zip file " + file, exception);
+        }
+        ZipEntry zipEntry = zip.getEntry(entry);
+        if (zipEntry == null)
+        {
+            zip.close();
+            throw new FileNotFoundException("Zip file entry " + entry + " not found in " + zip.getName());
+        }
+        return new FilterInputStream(zip.getInputStream(zipEntry))
+        {
+            @Override
+            public void close() throws IOException
+            {
+                zip.close();
+            }
+        };
+    }
+
+    /**
+     * The cached configurations of a file.
+     */
+    private class Source
+    {
+
+        /**
+         * The modification time of the file when it was parsed.
+         */
+        private final long lastModified;
+
+        /**
+         * The size of the file when it was parsed.
+         */
+        private final long length;
+
+        /**
+         * The parsed configurations, keyed on format and entry.
+         */
+        private final Map<String, Object> parsed = new HashMap<String, Object>();
+
+        /**
+         * Constructs a {@code Source}.
+         *
+         * @param lastModified the modification time of the file
+         * @param length       the size of the file
+         */
+        public Source(long lastModified, long length)
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        /**
+         * Returns a cached configuration, counting it as a parse saved.
+         *
+         * @param key the format and entry key
+         * @return the configuration, or {@code null} if it hasn't been parsed
+         */
+        public Object get(String key)
+        {
+            Object result = parsed.get(key);
+            if (result != null)
+            {
+                ++hits;
+                InstallMetrics.getMetrics().increment("config.parses.saved");
+            }
+            return result;
+        }
+
+        /**
+         * Caches a configuration.
+         *
+         * @param key    the format and entry key
+         * @param config the parsed configuration
+         */
+        public void put(String key, Object config)
+        {
+            parsed.put(key, config);
+            ++parses;
+            InstallMetrics.getMetrics().increment("config.parses");
+        }
+    }
+
+}
@@ -90,6 +90,13 @@ public abstract class ConfigFileTask extends SingleConfigurableTask
         return this.comment;
     }
 
+    @Override
+    public void execute() throws Exception
+    {
+        super.execute();
+        ConfigFileCache.getInstance().invalidate(toFile);
+    }
+
     @Override
     protected void checkAttributes() throws Exception
     {
@@ -27,6 +27,7 @@ import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.EnumSet;
@@ -37,6 +38,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 import com.izforge.izpack.util.config.SingleConfigurableTask.Entry.LookupType;
 import com.izforge.izpack.api.config.BasicProfile;
@@ -51,6 +53,11 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
 {
     private static final Logger logger = Logger.getLogger(SingleConfigurableTask.class.getName());
 
+    /**
+     * Matches the keys of auto-numbered option file entries.
+     */
+    private static final Pattern AUTO_NUMBERED_KEY = Pattern.compile("(.+\\.\\..+)|(.+\\.)+");
+
     private boolean patchPreserveEntries = true;
 
     private boolean patchPreserveValues = true;
@@ -224,111 +231,165 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
                 : map.get(key, index));
     }
 
-    private void keepOptions(String key, String fromValue, String lookupValue, LookupType lookupType)
+    /**
+     * Returns the indexes of the option file values that match the lookup value of an entry.
+     *
+     * @param entry the entry
+     * @return the indexes of the matching values, or of all values if the entry has no lookup value
+     */
+    private List<Integer> findOptions(Entry entry)
     {
-        int found = 0;
-
-        for (int i = 0; i < ((Options) configurable).length(key); i++)
+        String key = entry.getKey();
+        int length = ((Options) configurable).length(key);
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < length; i++)
         {
-            if (lookupValue != null)
+            if (entry.getValue() == null)
+            {
+                result.add(i);
+            }
+            else
             {
                 String origValue = getValueFromOptionMap((OptionMap) configurable, key, i);
+                if (origValue != null && entry.matchesLookup(origValue))
+                {
+                    result.add(i);
+                }
+            }
+        }
+        return result;
+    }
 
-                if (origValue != null)
+    private void keepOptions(String key, String fromValue, List<Integer> indexes)
+    {
+        // found in patch target and in patch;
+        // overwrite in each case at the original position
+        for (int i : indexes)
+        {
+            ((Options) configurable).put(key, fromValue, i);
+        }
+        logger.fine("Patched " + indexes.size() + " option file entries for key \"" + key + "\" found in original: "
+                + fromValue);
+    }
+
+    private void keepOptions(Entry entry)
+    {
+        String key = entry.getKey();
+        String lookupValue = entry.getValue();
+        List<Integer> indexes = null;
+        String pending = null;
+        for (int i = 0; i < ((Options) fromConfigurable).length(key); i++)
+        {
+            String fromValue = getValueFromOptionMap((OptionMap) fromConfigurable, key, i);
+            if (fromValue == null)
+            {
+                continue;
+            }
+            if (lookupValue != null)
+            {
+                switch (entry.getLookupType())
                 {
-                    switch (lookupType)
-                    {
-                        case REGEXP:
-                            if (origValue.matches(lookupValue))
-                            {
-                                // found in patch target and in patch using reqexp value lookup;
-                                // overwrite in each case at the original position
-                                logger.fine("Preserve option file entry \"" + key + "\"");
-                                ((Options) configurable).put(key, fromValue, i);
-                                found++;
-                            }
-                            break;
+                    case REGEXP:
+                        if (!entry.matchesLookup(fromValue))
+                        {
+                            continue;
+                        }
+                        break;
 
-                        default:
-                            if (origValue.equals(lookupValue))
-                            {
-                                // found in patch target and in patch using plain value lookup;
-                                // overwrite in each case at the original position
-                                ((Options) configurable).put(key, fromValue, i);
-                                found++;
-                            }
-                            break;
-                    }
+                    default:
+                        if (fromValue.equals(lookupValue))
+                        {
+                            continue;
+                        }
+                        break;
                 }
             }
+
+            if (indexes == null)
+            {
+                indexes = findOptions(entry);
+            }
+            boolean matches = lookupValue == null || entry.matchesLookup(fromValue);
+            if (indexes.isEmpty())
+            {
+                // nothing existing to patch found in patch target
+                // but force preserving of patch entry
+                logger.fine("Add option file entry for \"" + key + "\": " + fromValue);
+                ((Options) configurable).add(key, fromValue);
+                if (matches)
+                {
+                    indexes.add(((Options) configurable).length(key) - 1);
+                }
+            }
+            else if (matches)
+            {
+                // the matching values would still match after being overwritten,
+                // so only the last value kept needs to be written
+                pending = fromValue;
+            }
             else
             {
-                // found in patch target and in patch;
-                // not looked up by value - overwrite in each case at the original position
-                ((Options) configurable).put(key, fromValue, i);
-                found++;
+                // the overwritten values no longer match the lookup value
+                keepOptions(key, fromValue, indexes);
+                indexes.clear();
+                pending = null;
             }
         }
-
-        logger.fine("Patched " + found + " option file entries for key \"" + key + "\" found in original: " + fromValue);
-
-        if (found == 0)
+        if (pending != null)
         {
-            // nothing existing to patch found in patch target
-            // but force preserving of patch entry
-            logger.fine("Add option file entry for \"" + key + "\": " + fromValue);
-            ((Options) configurable).add(key, fromValue);
+            keepOptions(key, pending, indexes);
         }
     }
 
-    private void deleteOptions(String key, String lookupValue, LookupType lookupType)
+    private void deleteOptions(Entry entry)
     {
-        for (int i = 0; i < ((Options) configurable).length(key); i++)
+        Options options = (Options) configurable;
+        String key = entry.getKey();
+        if (entry.getValue() == null)
         {
-            if (lookupValue != null)
+            if (options.containsKey(key))
             {
-                String origValue = getValueFromOptionMap((OptionMap) configurable, key, i);
+                logger.fine("Remove option key \"" + key + "\"");
+                options.remove(key);
+            }
+            return;
+        }
 
-                if (origValue != null)
+        List<String> values = options.getAll(key);
+        if (values != null)
+        {
+            // filter the values in a single pass, rather than removing them one at a time
+            List<String> kept = new ArrayList<String>(values.size());
+            for (int i = 0; i < values.size(); i++)
+            {
+                String origValue = getValueFromOptionMap(options, key, i);
+                if (origValue != null && entry.matchesLookup(origValue))
                 {
-                    switch (lookupType)
-                    {
-                        case REGEXP:
-                            if (origValue.matches(lookupValue))
-                            {
-                                logger.fine("Remove option key \"" + key + "\"");
-                                ((Options) configurable).remove(key, i);
-                                i--;
-                            }
-                            break;
-
-                        default:
-                            if (origValue.equals(lookupValue))
-                            {
-                                logger.fine("Remove option key \"" + key + "\"");
-                                ((Options) configurable).remove(key, i);
-                                i--;
-                            }
-                            break;
-                    }
+                    logger.fine("Remove option key \"" + key + "\"");
+                }
+                else
+                {
+                    kept.add(values.get(i));
                 }
             }
-            else
+            if (kept.isEmpty())
             {
-                logger.fine("Remove option key \"" + key + "\"");
-                ((Options) configurable).remove(key);
-                i--;
+                options.remove(key);
+            }
+            else if (kept.size() != values.size())
+            {
+                options.putAll(key, kept);
             }
         }
     }
 
-    private void deleteConfigurableEntry(String section, String key,
-            String lookupValue, LookupType lookupType)
-    throws Exception
+    private void deleteConfigurableEntry(Entry entry) throws Exception
     {
+        String section = entry.getSection();
+        String key = entry.getKey();
         if (configurable instanceof Options)
         {
-            deleteOptions(key, lookupValue, lookupType);
+            deleteOptions(entry);
         }
         else if (configurable instanceof Ini)
         {
@@ -345,44 +406,15 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
         }
     }
 
-    private void keepConfigurableValue(String section, String key,
-            String lookupValue, LookupType lookupType)
-    throws Exception
+    private void keepConfigurableValue(Entry entry) throws Exception
     {
+        String section = entry.getSection();
+        String key = entry.getKey();
         if (fromConfigurable != null)
         {
             if (configurable instanceof Options)
             {
-                for (int i = 0; i < ((Options) fromConfigurable).length(key); i++)
-                {
-                    String fromValue = getValueFromOptionMap((OptionMap) fromConfigurable, key, i);
-                    if (fromValue != null)
-                    {
-                        if (lookupValue != null)
-                        {
-                            switch (lookupType)
-                            {
-                                case REGEXP:
-                                    if (fromValue.matches(lookupValue))
-                                    {
-                                        keepOptions(key, fromValue, lookupValue, lookupType);
-                                    }
-                                    break;
-
-                                default:
-                                    if (!fromValue.equals(lookupValue))
-                                    {
-                                        keepOptions(key, fromValue, lookupValue, lookupType);
-                                    }
-                                    break;
-                            }
-                        }
-                        else
-                        {
-                            keepOptions(key, fromValue, lookupValue, lookupType);
-                        }
-                    }
-                }
+                keepOptions(entry);
             }
             else if (configurable instanceof Ini)
             {
@@ -464,7 +496,7 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
                 fromKeySet = ((Options) fromConfigurable).keySet();
                 for (String key : fromKeySet)
                 {
-                    if (fromConfigurable.getConfig().isAutoNumbering() && key.matches("(.+\\.\\..+)|(.+\\.)+"))
+                    if (fromConfigurable.getConfig().isAutoNumbering() && AUTO_NUMBERED_KEY.matcher(key).matches())
                     {
                         boolean keyFound = toKeySet.contains(key);
                         int i = 0, firstIndex = -1;
@@ -629,10 +661,10 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
             switch (entry.getOperation())
             {
             case REMOVE:
-                deleteConfigurableEntry(entry.getSection(), entry.getKey(), entry.getValue(), entry.getLookupType());
+                deleteConfigurableEntry(entry);
                 break;
             case KEEP:
-                keepConfigurableValue(entry.getSection(), entry.getKey(), entry.getValue(), entry.getLookupType());
+                keepConfigurableValue(entry);
                 break;
             default:
                 entry.executeOn(configurable);
@@ -665,6 +697,11 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
 
         private static final String DEFAULT_STRING_VALUE = "";
 
+        /**
+         * Matches the keys of entries with an explicit index.
+         */
+        private static final Pattern INDEXED_KEY = Pattern.compile("(.+\\.)+[\\d]+(\\.+.*)*");
+
         protected String section = null;
 
         protected String key = null;
@@ -685,6 +722,11 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
 
         private Unit unit = Unit.DAY;
 
+        /**
+         * The compiled lookup value, for regular expression lookups.
+         */
+        private Pattern lookupPattern = null;
+
 
         public String getSection()
         {
@@ -718,6 +760,7 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
         public void setValue(String value)
         {
             this.value = value;
+            this.lookupPattern = null;
         }
 
         /**
@@ -775,6 +818,31 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
         public void setLookupType(LookupType lookupType)
         {
             this.lookupType = lookupType;
+            this.lookupPattern = null;
+        }
+
+        /**
+         * Determines if a value matches the lookup value.
+         * <p/>
+         * For regular expression lookups, the expression is compiled once and reused for every value.
+         *
+         * @param origValue the value to check
+         * @return {@code true} if the value matches
+         */
+        boolean matchesLookup(String origValue)
+        {
+            switch (lookupType)
+            {
+                case REGEXP:
+                    if (lookupPattern == null)
+                    {
+                        lookupPattern = Pattern.compile(value);
+                    }
+                    return lookupPattern.matcher(origValue).matches();
+
+                default:
+                    return origValue.equals(value);
+            }
         }
 
         /**
@@ -818,7 +886,7 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
         {
             String newKey, newValue;
             int pos = -1;
-            if (configurable.getConfig().isAutoNumbering() && key.matches("(.+\\.)+[\\d]+(\\.+.*)*"))
+            if (configurable.getConfig().isAutoNumbering() && INDEXED_KEY.matcher(key).matches())
             {
                 String[] parts = key.split("\\.");
                 StringBuilder sb = new StringBuilder();
@@ -857,7 +925,7 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
             boolean contains = false;
             if (values != null)
             {
-                for (int i = 0; i < values.toArray().length; i++)
+                for (int i = 0; i < values.size(); i++)
                 {
                     String origValue = getValueFromOptions(configurable, i);
                     newValue = execute(origValue);
@@ -867,7 +935,7 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
                         switch (lookupType)
                         {
                             case REGEXP:
-                                if (origValue.matches(value))
+                                if (matchesLookup(origValue))
                                 {
                                     logger.fine("Set option value for key \"" + newKey + "\": \""
                                             + newValue + "\" (found by regular expression)"
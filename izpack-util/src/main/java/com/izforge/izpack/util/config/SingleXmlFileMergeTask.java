@@ -201,6 +201,7 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
         } catch (AbstractXmlMergeException e) {
             throw new Exception(e);
         }
+        ConfigFileCache.getInstance().invalidate(tofile);
 
         if (cleanup)
         {
@@ -30,7 +30,9 @@ import com.izforge.izpack.api.resource.Resources;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class contains some helper methods to simplify handling of xml specification files.
@@ -49,6 +51,11 @@ public class SpecHelper
 
     private boolean haveSpec;
 
+    /**
+     * The pack elements of the specification, keyed on pack name. Built on first use.
+     */
+    private Map<String, IXMLElement> packs;
+
     /**
      * The resources.
      */
@@ -116,6 +123,7 @@ public class SpecHelper
 
         // get the data
         spec = parser.parse(input);
+        packs = null;
         haveSpec = true;
     }
 
@@ -140,27 +148,28 @@ public class SpecHelper
 
     /**
      * Returns a XML element which represents the pack for the given name.
+     * <p/>
+     * The packs are indexed on the first call, so that listeners looking up each installed pack don't rescan the
+     * specification. If several packs have the same name, the first is returned.
      *
      * @param packDestName name of the pack which should be returned
      * @return a XML element which represents the pack for the given name
      */
     public IXMLElement getPackForName(String packDestName)
     {
-        List<IXMLElement> packs = getSpec().getChildrenNamed(PACK_KEY);
         if (packs == null)
         {
-            return (null);
-        }
-        for (IXMLElement pack : packs)
-        {
-            String packName = pack.getAttribute(PACK_NAME);
-            if (packName.equals(packDestName))
+            packs = new HashMap<String, IXMLElement>();
+            for (IXMLElement pack : getSpec().getChildrenNamed(PACK_KEY))
             {
-                return (pack);
+                String packName = pack.getAttribute(PACK_NAME);
+                if (packName != null && !packs.containsKey(packName))
+                {
+                    packs.put(packName, pack);
+                }
             }
         }
-        return (null);
-
+        return packs.get(packDestName);
     }
 
     /**
@@ -203,6 +212,7 @@ public class SpecHelper
     public void setSpec(IXMLElement element)
     {
         spec = element;
+        packs = null;
     }
 
     /**
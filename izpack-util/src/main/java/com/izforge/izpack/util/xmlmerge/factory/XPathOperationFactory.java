@@ -22,9 +22,16 @@
 
 package com.izforge.izpack.util.xmlmerge.factory;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
 
+import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
@@ -39,6 +46,13 @@ import com.izforge.izpack.util.xmlmerge.OperationFactory;
 /**
  * An operation factory that resolves operations given a map { xpath (as String), Operation }. The
  * order in the map is relevant if several XPath matches.
+ * <p/>
+ * Each XPath is compiled once. The elements matched by an XPath that only consists of element name steps from the
+ * document root, such as {@code /Server/Service/Engine}, are collected once per document when the document is first
+ * queried, so that matching an element is a set lookup rather than an evaluation of the XPath against the whole
+ * document. This is only done for such XPaths as the merge actions move attributes out of the original and patch
+ * documents as they descend, so the result of any other XPath, e.g. one with an attribute predicate on an ancestor,
+ * depends on how far the merge has progressed. These are evaluated against the element each time it is queried.
  *
  * @author Laurent Bovet (LBO)
  * @author Alex Mathey (AMA)
@@ -56,6 +70,23 @@ public class XPathOperationFactory implements OperationFactory
      */
     Operation m_defaultOperation;
 
+    /**
+     * The compiled XPaths, in the iteration order of the map. Compiled on first use.
+     */
+    private Map<String, XPathExpression<Element>> m_compiled;
+
+    /**
+     * Matches XPaths that only consist of element name steps from the document root.
+     */
+    private static final Pattern NAME_PATH = Pattern.compile("(//?(\\*|[\\w.-]+(:[\\w.-]+|:\\*)?))+");
+
+    /**
+     * The elements matched by each XPath of element name steps, keyed on document root element, as a merge of several patches
+     * replaces the root of the original document.
+     */
+    private final Map<Element, Map<String, Set<Element>>> m_matches =
+            new WeakHashMap<Element, Map<String, Set<Element>>>();
+
     /**
      * Sets the factory's map containing configuration properties.
      *
@@ -64,6 +95,8 @@ public class XPathOperationFactory implements OperationFactory
     public void setOperationMap(Map<String, Operation> map)
     {
         this.m_map = map;
+        this.m_compiled = null;
+        this.m_matches.clear();
     }
 
     /**
@@ -80,30 +113,94 @@ public class XPathOperationFactory implements OperationFactory
     public Operation getOperation(Element originalElement, Element patchElement)
             throws AbstractXmlMergeException
     {
-        for (String xPath : m_map.keySet())
+        for (Map.Entry<String, XPathExpression<Element>> entry : getCompiledExpressions().entrySet())
         {
-            XPathExpression<Element> compiledExpression;
-            try
+            if (matches(originalElement, entry.getKey(), entry.getValue())
+                    || matches(patchElement, entry.getKey(), entry.getValue()))
             {
-                compiledExpression = XPathFactory.instance().compile(xPath, Filters.element());
+                return m_map.get(entry.getKey());
             }
-            catch (IllegalArgumentException e)
+        }
+        return m_defaultOperation;
+    }
+
+    /**
+     * Returns the compiled XPaths, compiling them if required.
+     *
+     * @return the compiled XPaths, keyed on XPath string
+     * @throws ConfigurationException If an XPath cannot be compiled
+     */
+    private Map<String, XPathExpression<Element>> getCompiledExpressions() throws ConfigurationException
+    {
+        if (m_compiled == null || m_compiled.size() != m_map.size())
+        {
+            Map<String, XPathExpression<Element>> compiled = new LinkedHashMap<String, XPathExpression<Element>>();
+            for (String xPath : m_map.keySet())
             {
-                throw new ConfigurationException(e.getMessage(), e);
+                try
+                {
+                    compiled.put(xPath, XPathFactory.instance().compile(xPath, Filters.element()));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new ConfigurationException(e.getMessage(), e);
+                }
             }
-            if (matches(originalElement, compiledExpression) || matches(patchElement, compiledExpression))
+            m_compiled = compiled;
+            m_matches.clear();
+        }
+        return m_compiled;
+    }
+
+    /**
+     * Detects whether the given element matches the given XPath expression.
+     * <p/>
+     * XPaths of element name steps from the document root are looked up in the elements they match in the element's
+     * document. Other XPaths, and elements that don't belong to a document, are evaluated against the element.
+     *
+     * @param element The element which will be checked
+     * @param xPath The XPath string
+     * @param compiledExpression The XPath expression the element will be checked against
+     * @return True if the given element matches the given XPath string
+     * @throws AbstractXmlMergeException If an error occurred during the matching process
+     */
+    private boolean matches(Element element, String xPath, XPathExpression<Element> compiledExpression)
+            throws AbstractXmlMergeException
+    {
+        if (element == null) { return false; }
+        Document document = element.getDocument();
+        if (document == null || !isNamePath(xPath))
+        {
+            return matches(element, compiledExpression);
+        }
+        Map<String, Set<Element>> documentMatches = m_matches.get(document.getRootElement());
+        if (documentMatches == null)
+        {
+            documentMatches = new HashMap<String, Set<Element>>();
+            m_matches.put(document.getRootElement(), documentMatches);
+        }
+        Set<Element> matched = documentMatches.get(xPath);
+        if (matched == null)
+        {
+            matched = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+            try
+            {
+                matched.addAll(compiledExpression.evaluate(document));
+            }
+            catch (IllegalStateException e)
             {
-                return m_map.get(xPath);
+                throw new MatchException(element, e);
             }
+            documentMatches.put(xPath, matched);
         }
-        return m_defaultOperation;
+        return matched.contains(element);
     }
 
     /**
      * Detects whether the given element matches the given XPath string.
      *
      * @param element The element which will be checked
-     * @param xPathString The XPath expression the element will be checked against
+     * @param compiledExpression The XPath expression the element will be checked against
      * @return True if the given element matches the given XPath string
      * @throws AbstractXmlMergeException If an error occurred during the matching process
      */
@@ -112,7 +209,6 @@ public class XPathOperationFactory implements OperationFactory
 
         try
         {
-            if (element == null) { return false; }
             return compiledExpression.evaluate(element).contains(element);
         }
         catch (IllegalStateException e)
@@ -121,4 +217,16 @@ public class XPathOperationFactory implements OperationFactory
         }
     }
 
+    /**
+     * Determines if an XPath only consists of element name steps from the document root. Such an XPath selects the
+     * same elements regardless of the context node, and of the attributes the merge has moved out of the document.
+     *
+     * @param xPath The XPath string
+     * @return True if the XPath is a location path of element name steps from the document root
+     */
+    private static boolean isNamePath(String xPath)
+    {
+        return NAME_PATH.matcher(xPath.trim()).matches();
+    }
+
 }
@@ -0,0 +1,127 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link FrontCodedStringList} class.
+ */
+public class FrontCodedStringListTest
+{
+
+    /**
+     * Verifies that strings can be added and retrieved, sequentially and randomly.
+     */
+    @Test
+    public void testAddAndGet()
+    {
+        List<String> expected = createPaths(1000);
+        FrontCodedStringList list = new FrontCodedStringList();
+        list.addAll(expected);
+
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected, new ArrayList<String>(list));
+        for (int i = expected.size() - 1; i >= 0; i -= 7)
+        {
+            assertEquals(expected.get(i), list.get(i));
+        }
+        assertEquals(expected.get(500), list.get(500));
+        assertEquals(expected.get(501), list.get(501));
+        assertEquals(expected.get(3), list.get(3));
+
+        // the paths share most of their characters, so should be much smaller than their UTF-16 form
+        assertTrue(list.getEncodedLength() < expected.size() * 10);
+    }
+
+    /**
+     * Verifies that non-ASCII and empty strings are supported.
+     */
+    @Test
+    public void testCharacters()
+    {
+        FrontCodedStringList list = new FrontCodedStringList();
+        list.add("/opt/été/日本");
+        list.add("");
+        list.add("/opt/été/日本語");
+        assertEquals("/opt/été/日本", list.get(0));
+        assertEquals("", list.get(1));
+        assertEquals("/opt/été/日本語", list.get(2));
+    }
+
+    /**
+     * Verifies that the text form can be read back.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testWriteRead() throws IOException
+    {
+        List<String> expected = createPaths(100);
+        FrontCodedStringList list = new FrontCodedStringList();
+        list.addAll(expected);
+
+        StringWriter writer = new StringWriter();
+        list.write(writer);
+        assertTrue(writer.toString().startsWith("0 /opt/app/dir0/file0.txt\n18 1.txt\n"));
+
+        FrontCodedStringList read = new FrontCodedStringList();
+        read.read(new BufferedReader(new StringReader(writer.toString())));
+        assertEquals(expected, read);
+    }
+
+    /**
+     * Verifies that invalid text is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testReadInvalid() throws IOException
+    {
+        new FrontCodedStringList().read(new BufferedReader(new StringReader("0 /opt\n10 toolong\n")));
+    }
+
+    /**
+     * Creates paths, in the order they would typically be installed.
+     *
+     * @param count the number of paths
+     * @return the paths
+     */
+    private List<String> createPaths(int count)
+    {
+        List<String> result = new ArrayList<String>();
+        for (int i = 0; i < count; ++i)
+        {
+            result.add("/opt/app/dir" + (i / 50) + "/file" + i + ".txt");
+        }
+        return result;
+    }
+
+}
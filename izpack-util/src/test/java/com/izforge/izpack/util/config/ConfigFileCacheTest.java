@@ -0,0 +1,140 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+
+import com.izforge.izpack.api.config.Ini;
+import com.izforge.izpack.api.config.Options;
+
+
+/**
+ * Tests the {@link ConfigFileCache} class.
+ */
+public class ConfigFileCacheTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The cache under test.
+     */
+    private ConfigFileCache cache;
+
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        cache = ConfigFileCache.getInstance();
+        cache.clear();
+    }
+
+    /**
+     * Verifies that a file is only parsed once while it is unchanged.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCached() throws Exception
+    {
+        File file = temporaryFolder.newFile("test.ini");
+        FileUtils.writeStringToFile(file, "[section]\nkey=value\n", "ISO-8859-1");
+        long parses = cache.getParses();
+        long hits = cache.getHits();
+
+        Options options = cache.getOptions(file, null, true);
+        assertEquals("value", options.get("key"));
+        assertSame(options, cache.getOptions(file, null, true));
+        assertEquals(parses + 1, cache.getParses());
+        assertEquals(hits + 1, cache.getHits());
+
+        // a different format is parsed separately
+        Ini ini = cache.getIni(file, null, true);
+        assertNotSame(options, ini);
+        assertEquals("value", ini.get("section", "key"));
+        assertEquals(parses + 2, cache.getParses());
+    }
+
+    /**
+     * Verifies that a file is parsed again when its size changes, or when it is invalidated.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testChanged() throws Exception
+    {
+        File file = temporaryFolder.newFile("test.properties");
+        FileUtils.writeStringToFile(file, "key=value", "ISO-8859-1");
+        assertEquals("value", cache.getOptions(file, null, true).get("key"));
+
+        FileUtils.writeStringToFile(file, "key=new value", "ISO-8859-1");
+        assertEquals("new value", cache.getOptions(file, null, true).get("key"));
+
+        // same size and, most likely, the same modification time
+        FileUtils.writeStringToFile(file, "key=old value", "ISO-8859-1");
+        cache.invalidate(file);
+        assertEquals("old value", cache.getOptions(file, null, true).get("key"));
+    }
+
+    /**
+     * Verifies that zip file entries are cached separately.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testZipEntry() throws Exception
+    {
+        File file = temporaryFolder.newFile("test.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        out.putNextEntry(new ZipEntry("a.xml"));
+        out.write("<a>1</a>".getBytes("UTF-8"));
+        out.putNextEntry(new ZipEntry("b.xml"));
+        out.write("<b>2</b>".getBytes("UTF-8"));
+        out.close();
+
+        Document a = cache.getDocument(file, "a.xml");
+        Document b = cache.getDocument(file, "b.xml");
+        assertEquals("a", a.getDocumentElement().getNodeName());
+        assertEquals("b", b.getDocumentElement().getNodeName());
+        assertSame(a, cache.getDocument(file, "a.xml"));
+    }
+
+}
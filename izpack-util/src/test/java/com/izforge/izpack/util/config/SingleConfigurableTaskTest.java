@@ -4,6 +4,8 @@ import com.izforge.izpack.api.config.Config;
 import com.izforge.izpack.api.config.Options;
 import com.izforge.izpack.api.config.spi.OptionsBuilder;
 import com.izforge.izpack.util.config.SingleConfigurableTask.Entry;
+import com.izforge.izpack.util.config.SingleConfigurableTask.Entry.LookupType;
+import com.izforge.izpack.util.config.SingleConfigurableTask.Entry.Operation;
 import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -13,6 +15,7 @@ import org.junit.rules.TemporaryFolder;
 import java.io.*;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Properties;
 
 import static org.junit.Assert.*;
@@ -509,6 +512,86 @@ public class SingleConfigurableTaskTest
         assertEquals(FileUtils.contentEqualsIgnoreEOL(expectedFile, toFile, "ISO-8859-1"), true);
     }
 
+    @Test
+    public void testRemoveByRegularExpression() throws Exception
+    {
+        Options toOptions = createOptions("opt", "-Xmx1g", "-Dfoo=1", "-Xms1g", "-Dbar=2");
+        Options result = execute(new Options(), toOptions, createEntry("opt", "-X.*", Operation.REMOVE, LookupType.REGEXP));
+        assertEquals(Arrays.asList("-Dfoo=1", "-Dbar=2"), result.getAll("opt"));
+
+        result = execute(new Options(), toOptions, createEntry("opt", "-D.*", Operation.REMOVE, LookupType.REGEXP));
+        Assert.assertFalse(result.containsKey("opt"));
+    }
+
+    @Test
+    public void testRemoveByValue() throws Exception
+    {
+        Options toOptions = createOptions("opt", "-Dfoo=1", "-Dbar=2", "-Dfoo=1");
+        toOptions.add("other", "x");
+        Options result = execute(new Options(), toOptions, createEntry("opt", "-Dfoo=1", Operation.REMOVE, LookupType.PLAIN));
+        assertEquals(Arrays.asList("-Dbar=2"), result.getAll("opt"));
+
+        result = execute(new Options(), toOptions, createEntry("other", null, Operation.REMOVE, LookupType.PLAIN));
+        Assert.assertFalse(result.containsKey("other"));
+    }
+
+    @Test
+    public void testKeepByRegularExpression() throws Exception
+    {
+        Options fromOptions = createOptions("opt", "-Xmx2g", "-Dold=1", "-Xms2g");
+        Options toOptions = createOptions("opt", "-Xmx1g", "-Dfoo=1", "-Xms1g");
+        Options result = execute(fromOptions, toOptions, createEntry("opt", "-Xm.*", Operation.KEEP, LookupType.REGEXP));
+        assertEquals(Arrays.asList("-Xms2g", "-Dfoo=1", "-Xms2g"), result.getAll("opt"));
+
+        // nothing matches in the target, so the kept value is added
+        fromOptions = createOptions("opt", "-Xss1m", "-Xss2m");
+        result = execute(fromOptions, toOptions, createEntry("opt", "-Xss.*", Operation.KEEP, LookupType.REGEXP));
+        assertEquals(Arrays.asList("-Xms2g", "-Dfoo=1", "-Xms2g", "-Xss2m"), result.getAll("opt"));
+    }
+
+    @Test
+    public void testKeepByValue() throws Exception
+    {
+        Options fromOptions = createOptions("opt", "-Dfoo=1", "-Da=1", "-Db=1");
+        Options toOptions = createOptions("opt", "-Dfoo=1", "-Dx=1", "-Dfoo=1");
+        Options result = execute(fromOptions, toOptions, createEntry("opt", "-Dfoo=1", Operation.KEEP, LookupType.PLAIN));
+        assertEquals(Arrays.asList("-Da=1", "-Dx=1", "-Da=1", "-Db=1"), result.getAll("opt"));
+
+        // without a lookup value, every value is overwritten
+        result = execute(fromOptions, toOptions, createEntry("opt", null, Operation.KEEP, LookupType.PLAIN));
+        assertEquals(Arrays.asList("-Db=1", "-Db=1", "-Db=1", "-Db=1"), result.getAll("opt"));
+    }
+
+    private Options createOptions(String key, String... values)
+    {
+        Options options = new Options();
+        for (String value : values)
+        {
+            options.add(key, value);
+        }
+        return options;
+    }
+
+    private Entry createEntry(String key, String value, Operation operation, LookupType lookupType)
+    {
+        Entry entry = new Entry();
+        entry.setKey(key);
+        entry.setValue(value);
+        entry.setOperation(operation);
+        entry.setLookupType(lookupType);
+        return entry;
+    }
+
+    private Options execute(Options fromOptions, Options toOptions, Entry entry) throws Exception
+    {
+        SingleOptionTestTask task = new SingleOptionTestTask(fromOptions, toOptions);
+        task.setPatchPreserveEntries(false);
+        task.setPatchPreserveValues(false);
+        task.addEntry(entry);
+        task.execute();
+        return task.getResult();
+    }
+
     private void printFileContent(File file)
     {
         BufferedReader br;
@@ -0,0 +1,66 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Test;
+
+import com.izforge.izpack.api.adaptator.IXMLElement;
+import com.izforge.izpack.api.adaptator.impl.XMLElementImpl;
+
+
+/**
+ * Tests the {@link SpecHelper}.
+ */
+public class SpecHelperTest
+{
+
+    /**
+     * Verifies that packs are found by name, that the first of several packs with the same name is returned, and
+     * that the packs are looked up in the current specification.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testGetPackForName() throws Exception
+    {
+        String xml = "<actions><pack name=\"a\" id=\"1\"/><pack id=\"2\"/><pack name=\"b\" id=\"3\"/>"
+                + "<pack name=\"a\" id=\"4\"/></actions>";
+        SpecHelper helper = new SpecHelper(null);
+        helper.readSpec(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+
+        assertEquals("1", helper.getPackForName("a").getAttribute("id"));
+        assertEquals("3", helper.getPackForName("b").getAttribute("id"));
+        assertNull(helper.getPackForName("c"));
+
+        IXMLElement spec = new XMLElementImpl("actions");
+        IXMLElement pack = new XMLElementImpl("pack", spec);
+        pack.setAttribute("name", "c");
+        spec.addChild(pack);
+        helper.setSpec(spec);
+        assertEquals(pack, helper.getPackForName("c"));
+        assertNull(helper.getPackForName("a"));
+    }
+
+}
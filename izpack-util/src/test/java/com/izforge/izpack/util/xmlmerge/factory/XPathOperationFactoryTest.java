@@ -0,0 +1,335 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.xmlmerge.factory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jdom2.Element;
+import org.jdom2.filter.Filters;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+import org.junit.Test;
+
+import com.izforge.izpack.util.xmlmerge.AbstractXmlMergeException;
+import com.izforge.izpack.util.xmlmerge.Operation;
+import com.izforge.izpack.util.xmlmerge.OperationFactory;
+import com.izforge.izpack.util.xmlmerge.action.FullMergeAction;
+import com.izforge.izpack.util.xmlmerge.action.ReplaceAction;
+import com.izforge.izpack.util.xmlmerge.matcher.AttributeMatcher;
+import com.izforge.izpack.util.xmlmerge.matcher.SkipMatcher;
+import com.izforge.izpack.util.xmlmerge.merge.DefaultXmlMerge;
+
+
+/**
+ * Tests the {@link XPathOperationFactory} class.
+ * <p/>
+ * Each merge is performed twice: once with the factory, and once with a factory that evaluates each XPath against
+ * each element it is queried with, and the results are compared.
+ */
+public class XPathOperationFactoryTest
+{
+
+    /**
+     * The original document.
+     */
+    private static final String ORIGINAL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<Server name=\"server\">"
+            + "  <Listener name=\"l1\">original</Listener>"
+            + "  <Service name=\"x\">"
+            + "    <Connector name=\"c1\">original</Connector>"
+            + "    <Engine name=\"e1\"><Host name=\"h1\">original</Host></Engine>"
+            + "  </Service>"
+            + "  <Service name=\"y\">"
+            + "    <Connector name=\"c2\">original</Connector>"
+            + "    <Engine name=\"e2\"><Host name=\"h2\">original</Host></Engine>"
+            + "  </Service>"
+            + "</Server>";
+
+    /**
+     * The first patch.
+     */
+    private static final String PATCH1 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<Server name=\"server\">"
+            + "  <Listener name=\"l1\">patch1</Listener>"
+            + "  <Service name=\"x\">"
+            + "    <Connector name=\"c1\">patch1</Connector>"
+            + "    <Connector name=\"c3\">patch1</Connector>"
+            + "    <Engine name=\"e1\"><Host name=\"h1\">patch1</Host><Valve name=\"v1\"/></Engine>"
+            + "  </Service>"
+            + "  <Service name=\"y\">"
+            + "    <Engine name=\"e2\"><Host name=\"h2\">patch1</Host></Engine>"
+            + "  </Service>"
+            + "</Server>";
+
+    /**
+     * The second patch.
+     */
+    private static final String PATCH2 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<Server name=\"server\">"
+            + "  <Service name=\"x\">"
+            + "    <Connector name=\"c3\">patch2</Connector>"
+            + "    <Engine name=\"e1\"><Host name=\"h1\">patch2</Host></Engine>"
+            + "  </Service>"
+            + "  <Service name=\"y\">"
+            + "    <Engine name=\"e2\"><Host name=\"h2\">patch2</Host></Engine>"
+            + "  </Service>"
+            + "</Server>";
+
+    /**
+     * Verifies that absolute XPaths of element names select the same elements as when evaluated per element.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testAbsolute() throws Exception
+    {
+        String result = checkActions("/Server/Service/Engine", PATCH1);
+        assertTrue(result.contains("<Host name=\"h1\">patch1</Host>"));
+        assertTrue(result.contains("<Connector name=\"c1\">original</Connector>"));
+
+        result = checkActions("//Host", PATCH1);
+        assertTrue(result.contains("<Host name=\"h2\">patch1</Host>"));
+
+        result = checkActions("/Server/*/Connector", PATCH1);
+        assertTrue(result.contains("<Connector name=\"c1\">patch1</Connector>"));
+    }
+
+    /**
+     * Verifies that relative XPaths select the same elements as when evaluated per element.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testRelative() throws Exception
+    {
+        String result = checkActions("../Engine", PATCH1);
+        assertTrue(result.contains("<Host name=\"h1\">patch1</Host>"));
+
+        result = checkActions("self::Connector[@name='c1']", PATCH1);
+        assertTrue(result.contains("<Connector name=\"c1\">patch1</Connector>"));
+        assertTrue(result.contains("<Host name=\"h1\">original</Host>"));
+    }
+
+    /**
+     * Verifies that unions select the same elements as when evaluated per element.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testUnion() throws Exception
+    {
+        String result = checkActions("/Server/Listener | /Server/Service/Engine/Host", PATCH1);
+        assertTrue(result.contains("<Listener name=\"l1\">patch1</Listener>"));
+        assertTrue(result.contains("<Host name=\"h2\">patch1</Host>"));
+        assertTrue(result.contains("<Connector name=\"c1\">original</Connector>"));
+    }
+
+    /**
+     * Verifies that XPaths with attribute predicates select the same elements as when evaluated per element.
+     * <p/>
+     * By the time the children of an element are merged, the element's attributes have been moved to the merged
+     * document, so a predicate on the attributes of an ancestor doesn't match.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testAttributePredicates() throws Exception
+    {
+        String result = checkActions("/Server/Service/Engine[@name='e2']", PATCH1);
+        assertTrue(result.contains("<Host name=\"h2\">patch1</Host>"));
+        assertTrue(result.contains("<Host name=\"h1\">original</Host>"));
+
+        result = checkActions("/Server/Service[@name='x']/Engine", PATCH1);
+        assertFalse(result.contains("<Host name=\"h1\">patch1</Host>"));
+
+        result = checkActions("/Server[@name='server']/Service", PATCH1);
+        assertFalse(result.contains("patch1</Host>"));
+    }
+
+    /**
+     * Verifies that XPaths select the same elements when several patches are merged, each replacing the root of
+     * the original document.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testMultiplePatches() throws Exception
+    {
+        String result = checkActions("/Server/Service/Engine/Host", PATCH1, PATCH2);
+        assertTrue(result.contains("<Host name=\"h1\">patch2</Host>"));
+        assertTrue(result.contains("<Host name=\"h2\">patch2</Host>"));
+
+        result = checkActions("/Server/Service/Connector", PATCH1, PATCH2);
+        assertTrue(result.contains("<Connector name=\"c3\">patch2</Connector>"));
+
+        checkActions("/Server/Service[@name='y']/Engine | ../Connector", PATCH1, PATCH2);
+    }
+
+    /**
+     * Verifies that matchers are resolved the same way as when XPaths are evaluated per element.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testMatchers() throws Exception
+    {
+        Map<String, Operation> actions = new LinkedHashMap<String, Operation>();
+        actions.put("/Server/Service/Connector", new ReplaceAction());
+        Map<String, Operation> matchers = new LinkedHashMap<String, Operation>();
+        matchers.put("/Server/Service/Connector", new SkipMatcher());
+        matchers.put("/Server/Service[@name='x']/Engine", new SkipMatcher());
+
+        String expected = merge(actions, matchers, true, PATCH1, PATCH2);
+        assertEquals(expected, merge(actions, matchers, false, PATCH1, PATCH2));
+        assertTrue(expected.contains("<Connector name=\"c1\">original</Connector>"));
+    }
+
+    /**
+     * Merges the patches into the original document, replacing the elements matched by an XPath, and verifies
+     * the result is the same as when the XPath is evaluated per element.
+     *
+     * @param xPath   the XPath of the elements to replace
+     * @param patches the patches
+     * @return the merged document
+     * @throws AbstractXmlMergeException if the merge fails
+     */
+    private String checkActions(String xPath, String... patches) throws AbstractXmlMergeException
+    {
+        Map<String, Operation> actions = new LinkedHashMap<String, Operation>();
+        actions.put(xPath, new ReplaceAction());
+        Map<String, Operation> matchers = new LinkedHashMap<String, Operation>();
+
+        String expected = merge(actions, matchers, true, patches);
+        assertEquals(expected, merge(actions, matchers, false, patches));
+        return expected;
+    }
+
+    /**
+     * Merges patches into the original document.
+     *
+     * @param actions   the actions, keyed on XPath
+     * @param matchers  the matchers, keyed on XPath
+     * @param reference if {@code true}, evaluate XPaths against each element, else use {@link XPathOperationFactory}
+     * @param patches   the patches
+     * @return the merged document
+     * @throws AbstractXmlMergeException if the merge fails
+     */
+    private String merge(Map<String, Operation> actions, Map<String, Operation> matchers, boolean reference,
+                         String... patches) throws AbstractXmlMergeException
+    {
+        FullMergeAction defaultAction = new FullMergeAction();
+        OperationFactory actionFactory = createFactory(actions, defaultAction, reference);
+        OperationFactory matcherFactory = createFactory(matchers, new AttributeMatcher(), reference);
+        defaultAction.setActionFactory(actionFactory);
+        defaultAction.setMatcherFactory(matcherFactory);
+
+        DefaultXmlMerge merge = new DefaultXmlMerge();
+        merge.setRootMergeActionFactory(actionFactory);
+        merge.setRootMergeMatcherFactory(matcherFactory);
+
+        String[] sources = new String[patches.length + 1];
+        sources[0] = ORIGINAL;
+        System.arraycopy(patches, 0, sources, 1, patches.length);
+        return merge.merge(sources);
+    }
+
+    /**
+     * Creates an operation factory.
+     *
+     * @param operations       the operations, keyed on XPath
+     * @param defaultOperation the default operation
+     * @param reference        if {@code true}, create a factory that evaluates XPaths against each element
+     * @return a new factory
+     */
+    private OperationFactory createFactory(Map<String, Operation> operations, Operation defaultOperation,
+                                           boolean reference)
+    {
+        if (reference)
+        {
+            return new ReferenceOperationFactory(operations, defaultOperation);
+        }
+        XPathOperationFactory result = new XPathOperationFactory();
+        result.setOperationMap(operations);
+        result.setDefaultOperation(defaultOperation);
+        return result;
+    }
+
+    /**
+     * An operation factory that evaluates each XPath against each element it is queried with.
+     */
+    private static class ReferenceOperationFactory implements OperationFactory
+    {
+
+        /**
+         * The operations, keyed on XPath.
+         */
+        private final Map<String, Operation> operations;
+
+        /**
+         * The default operation.
+         */
+        private final Operation defaultOperation;
+
+        /**
+         * Constructs a {@code ReferenceOperationFactory}.
+         *
+         * @param operations       the operations, keyed on XPath
+         * @param defaultOperation the default operation
+         */
+        public ReferenceOperationFactory(Map<String, Operation> operations, Operation defaultOperation)
+        {
+            this.operations = operations;
+            this.defaultOperation = defaultOperation;
+        }
+
+        @Override
+        public Operation getOperation(Element originalElement, Element patchElement)
+        {
+            for (Map.Entry<String, Operation> entry : operations.entrySet())
+            {
+                XPathExpression<Element> expression = XPathFactory.instance().compile(entry.getKey(),
+                                                                                      Filters.element());
+                if (matches(originalElement, expression) || matches(patchElement, expression))
+                {
+                    return entry.getValue();
+                }
+            }
+            return defaultOperation;
+        }
+
+        /**
+         * Determines if an element is selected by an XPath evaluated against it.
+         *
+         * @param element    the element. May be {@code null}
+         * @param expression the XPath
+         * @return {@code true} if the element is selected
+         */
+        private boolean matches(Element element, XPathExpression<Element> expression)
+        {
+            return element != null && expression.evaluate(element).contains(element);
+        }
+    }
+
+}